@@ -0,0 +1,171 @@
+package com.example.smartdrainagesystem;
+
+import com.google.auth.oauth2.AccessToken;
+import com.google.auth.oauth2.GoogleCredentials;
+import com.google.firebase.FirebaseApp;
+import com.google.firebase.FirebaseOptions;
+import com.google.firebase.database.ChildEventListener;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.FirebaseDatabase;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs SiteAggregator locally, so clients can subscribe to summary/{siteId} instead of every
+ * site's raw sensor_data.
+ *
+ * Usage:
+ *   AggregatorMain fake [sites=100] [rateHz=10] [seconds=30] [compact]
+ *       replays synthetic traffic through FakeSensorDatabase in real time and reports how many
+ *       bytes a fleet client downloads from summaries compared with the raw stream
+ *   AggregatorMain emulator host:port namespace [compact]
+ *       aggregates every sites/{siteId} of a Realtime Database emulator until stopped
+ */
+public final class AggregatorMain {
+
+    private AggregatorMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && "fake".equals(args[0])) {
+            int sites = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+            double rateHz = args.length > 2 ? Double.parseDouble(args[2]) : 10;
+            int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 30;
+            runFake(sites, rateHz, seconds, args.length > 4 && "compact".equals(args[4]));
+        } else if (args.length >= 3 && "emulator".equals(args[0])) {
+            runEmulator(args[1], args[2], args.length > 3 && "compact".equals(args[3]));
+        } else {
+            System.err.println("Usage: AggregatorMain fake [sites] [rateHz] [seconds] [compact]");
+            System.err.println("       AggregatorMain emulator host:port namespace [compact]");
+            System.exit(2);
+        }
+    }
+
+    private static void runFake(int sites, double rateHz, int seconds, boolean compact) throws Exception {
+        // Callbacks on one thread, like a single aggregator instance consuming the stream
+        ExecutorService callbacks = Executors.newSingleThreadExecutor();
+        ScheduledExecutorService writerThread = Executors.newSingleThreadScheduledExecutor();
+        FakeSensorDatabase database = new FakeSensorDatabase(callbacks);
+        long[] summaryBytes = new long[1];
+        SiteAggregator aggregator = new SiteAggregator((path, children) -> {
+            if (path.startsWith("summary/")) summaryBytes[0] += jsonBytes(children);
+            database.updateChildren(path, children);
+        });
+
+        TrafficReplayer replayer = new TrafficReplayer(database,
+                SensorTraffic.synthesize(3600, 1716200000L, 11), sites, rateHz, compact);
+        long[] rawBytes = new long[1];
+        for (int site = 0; site < sites; site++) {
+            String siteId = TrafficReplayer.siteId(site);
+            SensorFrameDecoder frameDecoder = new SensorFrameDecoder();
+            database.addValueListener(replayer.path(site), (value, writtenAtNanos) -> {
+                rawBytes[0] += jsonBytes(value);
+                aggregator.onReading(siteId, compact ? frameDecoder.decode(value) : SensorReadingDecoder.decode(value));
+            });
+        }
+
+        long start = System.nanoTime();
+        replayer.start(writerThread);
+        Thread.sleep(seconds * 1000L);
+        replayer.stop();
+        writerThread.shutdown();
+        writerThread.awaitTermination(10, TimeUnit.SECONDS);
+        callbacks.submit(aggregator::flush).get();
+        callbacks.shutdown();
+        double elapsed = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf(Locale.US, "%d sites x %.0f Hz, %s, %.1f s%n", sites, rateHz, compact ? "sensor_frame" : "sensor_data", elapsed);
+        System.out.printf(Locale.US, "readings %d, summary writes %d (%.1f%%), rollups %d, alert transitions %d%n",
+                aggregator.readings(), aggregator.summaryWrites(),
+                100.0 * aggregator.summaryWrites() / Math.max(1, aggregator.readings()),
+                aggregator.rollupWrites(), aggregator.alertTransitions());
+        System.out.printf(Locale.US, "fleet client downstream: raw %.0f B/s, summaries %.0f B/s (%.0fx less)%n",
+                rawBytes[0] / elapsed, summaryBytes[0] / elapsed, rawBytes[0] / (double) Math.max(1, summaryBytes[0]));
+    }
+
+    private static void runEmulator(String host, String namespace, boolean compact) throws InterruptedException {
+        FirebaseOptions options = FirebaseOptions.builder()
+                // The emulator accepts "owner" as an admin token
+                .setCredentials(GoogleCredentials.create(new AccessToken("owner", null)))
+                .setDatabaseUrl("http://" + host + "?ns=" + namespace)
+                .setProjectId(namespace)
+                .build();
+        FirebaseDatabase database = FirebaseDatabase.getInstance(FirebaseApp.initializeApp(options));
+        SiteAggregator aggregator = new SiteAggregator((path, children) -> database.getReference(path).updateChildrenAsync(children));
+        Map<String, SensorFrameDecoder> frameDecoders = new HashMap<>();
+        String node = compact ? "sensor_frame" : "sensor_data";
+
+        // Server side, so one listener over all sites is fine; callbacks arrive on a single SDK thread
+        database.getReference("sites").addChildEventListener(new ChildEventListener() {
+            @Override
+            public void onChildAdded(DataSnapshot snapshot, String previousChildName) {
+                onSite(snapshot);
+            }
+
+            @Override
+            public void onChildChanged(DataSnapshot snapshot, String previousChildName) {
+                onSite(snapshot);
+            }
+
+            @Override
+            public void onChildRemoved(DataSnapshot snapshot) {
+                frameDecoders.remove(snapshot.getKey());
+            }
+
+            @Override
+            public void onChildMoved(DataSnapshot snapshot, String previousChildName) {
+            }
+
+            @Override
+            public void onCancelled(DatabaseError error) {
+                System.err.println("sites listener cancelled: " + error.getMessage());
+            }
+
+            private void onSite(DataSnapshot site) {
+                DataSnapshot readingNode = site.child(node);
+                if (!readingNode.exists()) return;
+                Object value = readingNode.getValue();
+                SensorReading reading = compact
+                        ? frameDecoders.computeIfAbsent(site.getKey(), k -> new SensorFrameDecoder()).decode(value)
+                        : SensorReadingDecoder.decode(value);
+                aggregator.onReading(site.getKey(), reading);
+            }
+        });
+
+        CountDownLatch stopped = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            aggregator.flush();
+            System.out.printf(Locale.US, "readings %d, summary writes %d%n", aggregator.readings(), aggregator.summaryWrites());
+            stopped.countDown();
+        }));
+        System.out.println("Aggregating " + host + "/" + namespace + " (" + node + "), Ctrl+C to stop");
+        stopped.await();
+    }
+
+    // Approximate size of a raw value serialized as JSON, as the database sends it
+    private static long jsonBytes(Object value) {
+        if (value instanceof Map) {
+            long size = 2;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                size += entry.getKey().toString().length() + 4 + jsonBytes(entry.getValue());
+            }
+            return size;
+        }
+        if (value instanceof List) {
+            long size = 2;
+            for (Object element : (List<?>) value) size += jsonBytes(element) + 1;
+            return size;
+        }
+        if (value instanceof String) return ((String) value).length() + 2;
+        return String.valueOf(value).length();
+    }
+}
@@ -0,0 +1,5 @@
+# Only applied to the benchmark build type.
+# DashboardRenderBenchmark drives the renderer with synthetic traffic from :core.
+-keep class com.example.smartdrainagesystem.SensorTraffic { *; }
+-keep class com.example.smartdrainagesystem.SensorDashboardRenderer { *; }
+-keep class com.example.smartdrainagesystem.SensorReading { *; }
@@ -12,10 +12,18 @@
 #   public *;
 #}
 
-# Uncomment this to preserve the line number information for
-# debugging stack traces.
-#-keepattributes SourceFile,LineNumberTable
+# Preserve the line number information for debugging stack traces.
+-keepattributes SourceFile,LineNumberTable
 
-# If you keep the line number information, uncomment this to
-# hide the original source file name.
-#-renamesourcefileattribute SourceFile
\ No newline at end of file
+# Hide the original source file name.
+-renamesourcefileattribute SourceFile
+
+# Firebase maps snapshots onto these by reflection (DataSnapshot.getValue(Class)):
+# keep their no-arg constructors and public fields under their database names.
+-keepattributes Signature,*Annotation*
+-keepclassmembers class com.example.smartdrainagesystem.ServoControl,
+                        com.example.smartdrainagesystem.SensorFirebaseData,
+                        com.example.smartdrainagesystem.SensorDetails {
+    public <init>();
+    public <fields>;
+}
@@ -0,0 +1,93 @@
+package com.example.smartdrainagesystem;
+
+import android.content.Context;
+import android.view.ContextThemeWrapper;
+import android.view.LayoutInflater;
+import android.view.View;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.annotation.UiThreadTest;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+
+/**
+ * Cost of the dashboard's UI pass (SensorDashboardRenderer.render) on the main thread, with and
+ * without the measure/layout it triggers. Run against the non-debuggable benchmark build type:
+ *   ./gradlew :app:connectedBenchmarkAndroidTest -PtestBuildType=benchmark
+ *       -Pandroid.testInstrumentationRunnerArguments.class=com.example.smartdrainagesystem.DashboardRenderBenchmark
+ * The benchmark library reports time and allocations per render.
+ */
+@RunWith(AndroidJUnit4.class)
+public class DashboardRenderBenchmark {
+
+    private static final int READINGS = 1024; // power of two, indexed with a mask
+    private static final int WIDTH = 1080, HEIGHT = 2400;
+
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    private SensorReading[] readings;
+    private View root;
+    private SensorDashboardRenderer renderer;
+
+    @Before
+    public void setUp() {
+        List<SensorReading> traffic = SensorTraffic.synthesize(READINGS, 1716200000L, 3);
+        readings = traffic.toArray(new SensorReading[0]);
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> {
+            Context context = new ContextThemeWrapper(
+                    InstrumentationRegistry.getInstrumentation().getTargetContext(), R.style.Theme_Smartdrainagesystem);
+            root = LayoutInflater.from(context).inflate(R.layout.activity_main, null);
+            layout();
+            renderer = new SensorDashboardRenderer(root);
+        });
+    }
+
+    // A fresh reading every pass, as with a live 1 Hz feed
+    @Test
+    @UiThreadTest
+    public void renderChangingReadings() {
+        BenchmarkState state = benchmarkRule.getState();
+        int next = 0;
+        while (state.keepRunning()) {
+            renderer.render(readings[next++ & (READINGS - 1)]);
+        }
+    }
+
+    // Re-delivered identical snapshot: should cost only the diff against rendered state
+    @Test
+    @UiThreadTest
+    public void renderUnchangedReading() {
+        renderer.render(readings[0]);
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            renderer.render(readings[0]);
+        }
+    }
+
+    // Render plus the measure/layout pass of the next frame
+    @Test
+    @UiThreadTest
+    public void renderAndLayout() {
+        BenchmarkState state = benchmarkRule.getState();
+        int next = 0;
+        while (state.keepRunning()) {
+            renderer.render(readings[next++ & (READINGS - 1)]);
+            layout();
+        }
+    }
+
+    private void layout() {
+        root.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        root.layout(0, 0, WIDTH, HEIGHT);
+    }
+}
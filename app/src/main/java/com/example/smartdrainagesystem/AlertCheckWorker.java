@@ -0,0 +1,88 @@
+package com.example.smartdrainagesystem;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.Constraints;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.database.DataSnapshot;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Sparse periodic alert check: a one-shot read of the monitored site's alert child every 15
+ * minutes (WorkManager's minimum). It covers MonitoringService's battery-saver mode, where no
+ * listener is attached, and the time after the system has killed the service. Reboots are
+ * handled by WorkManager itself.
+ */
+public class AlertCheckWorker extends Worker {
+
+    private static final String TAG = "AlertCheckWorker";
+    private static final String WORK_NAME = "drain_alert_check";
+    private static final long INTERVAL_MINUTES = 15;
+    private static final long READ_TIMEOUT_SECONDS = 30;
+
+    public AlertCheckWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    public static void schedule(Context context) {
+        PeriodicWorkRequest request = new PeriodicWorkRequest.Builder(AlertCheckWorker.class, INTERVAL_MINUTES, TimeUnit.MINUTES)
+                .setConstraints(new Constraints.Builder().setRequiredNetworkType(NetworkType.CONNECTED).build())
+                .build();
+        WorkManager.getInstance(context).enqueueUniquePeriodicWork(WORK_NAME, ExistingPeriodicWorkPolicy.KEEP, request);
+    }
+
+    public static void cancel(Context context) {
+        WorkManager.getInstance(context).cancelUniqueWork(WORK_NAME);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        Context context = getApplicationContext();
+        if (!MonitoringService.isEnabled(context)) return Result.success();
+
+        String siteId = MonitoringService.monitoredSite(context);
+        String alert;
+        try {
+            DataSnapshot snapshot = Tasks.await(DrainageDatabase.alert(siteId).get(), READ_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            Object value = snapshot.getValue();
+            alert = value == null ? SensorReading.MISSING_TEXT : value.toString();
+        } catch (ExecutionException | TimeoutException e) {
+            Log.w(TAG, "Alert check failed", e);
+            return Result.retry();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Result.retry();
+        }
+
+        if (MonitoringService.isRunning()) {
+            // The service owns the notification state; it also switches to full listening if needed
+            MonitoringService.deliverCheckResult(context, alert);
+            return Result.success();
+        }
+
+        MonitoringPolicy policy = new MonitoringPolicy(MonitoringService.notifiedAlert(context));
+        policy.onAlert(alert);
+        String toAnnounce = policy.takeNotification();
+        AlertNotifier notifier = new AlertNotifier(context);
+        if (toAnnounce != null) {
+            notifier.showAlert(siteId, toAnnounce, null, true);
+        } else if (!policy.isAlerting() && MonitoringPolicy.isAlerting(MonitoringService.notifiedAlert(context))) {
+            notifier.clearAlert();
+        }
+        MonitoringService.setNotifiedAlert(context, policy.notifiedAlert());
+        return Result.success();
+    }
+}
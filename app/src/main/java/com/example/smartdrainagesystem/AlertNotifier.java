@@ -0,0 +1,117 @@
+package com.example.smartdrainagesystem;
+
+import android.app.Notification;
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+
+import androidx.annotation.Nullable;
+import androidx.core.app.NotificationCompat;
+import androidx.core.app.NotificationManagerCompat;
+
+import java.util.Locale;
+
+/**
+ * Notification channels and notifications of the background monitor: a silent ongoing one for the
+ * foreground service and a high-priority one per raised alert.
+ */
+public class AlertNotifier {
+
+    public static final int MONITORING_NOTIFICATION_ID = 1;
+    private static final int ALERT_NOTIFICATION_ID = 2;
+
+    private static final String CHANNEL_ALERTS = "drain_alerts";
+    private static final String CHANNEL_MONITORING = "drain_monitoring";
+
+    private final Context context;
+    private final NotificationManagerCompat manager;
+
+    public AlertNotifier(Context context) {
+        this.context = context.getApplicationContext();
+        this.manager = NotificationManagerCompat.from(this.context);
+        NotificationChannel alerts = new NotificationChannel(CHANNEL_ALERTS, "Drain alerts", NotificationManager.IMPORTANCE_HIGH);
+        alerts.setDescription("Blockage, gas, flame and overflow alerts");
+        NotificationChannel monitoring = new NotificationChannel(CHANNEL_MONITORING, "Background monitoring", NotificationManager.IMPORTANCE_MIN);
+        monitoring.setDescription("Shown while drains are watched in the background");
+        NotificationManager platform = this.context.getSystemService(NotificationManager.class);
+        platform.createNotificationChannel(alerts);
+        platform.createNotificationChannel(monitoring);
+    }
+
+    public Notification monitoringNotification(@Nullable String siteId, String status) {
+        return new NotificationCompat.Builder(context, CHANNEL_MONITORING)
+                .setSmallIcon(R.drawable.ic_water_drop)
+                .setContentTitle("Watching " + siteLabel(siteId))
+                .setContentText(status)
+                .setContentIntent(openDashboard(siteId))
+                .setOngoing(true)
+                .setShowWhen(false)
+                .setPriority(NotificationCompat.PRIORITY_MIN)
+                .build();
+    }
+
+    public void updateMonitoring(@Nullable String siteId, String status) {
+        notify(MONITORING_NOTIFICATION_ID, monitoringNotification(siteId, status));
+    }
+
+    /**
+     * Shows the alert; alertAgain makes it sound and pop up, otherwise an existing alert is updated
+     * silently (e.g. when details arrive). reading may be null when only the alert text is known.
+     */
+    public void showAlert(@Nullable String siteId, String alert, @Nullable SensorReading reading, boolean alertAgain) {
+        if (alertAgain) manager.cancel(ALERT_NOTIFICATION_ID);
+        NotificationCompat.Builder builder = new NotificationCompat.Builder(context, CHANNEL_ALERTS)
+                .setSmallIcon(R.drawable.ic_alert)
+                .setContentTitle(alert + " at " + siteLabel(siteId))
+                .setContentText(details(reading))
+                .setContentIntent(openDashboard(siteId))
+                .setCategory(NotificationCompat.CATEGORY_ALARM)
+                .setPriority(NotificationCompat.PRIORITY_HIGH)
+                .setOnlyAlertOnce(true)
+                .setAutoCancel(true);
+        notify(ALERT_NOTIFICATION_ID, builder.build());
+    }
+
+    public void clearAlert() {
+        manager.cancel(ALERT_NOTIFICATION_ID);
+    }
+
+    private void notify(int id, Notification notification) {
+        // Without POST_NOTIFICATIONS (Android 13+) this is dropped; the dashboard still shows the alert
+        if (manager.areNotificationsEnabled()) {
+            try {
+                manager.notify(id, notification);
+            } catch (SecurityException ignored) {
+                // Permission revoked between the check and the call
+            }
+        }
+    }
+
+    private static String details(@Nullable SensorReading reading) {
+        if (reading == null || !reading.hasDetails) return "Tap to open the dashboard";
+        StringBuilder text = new StringBuilder();
+        if (!SensorReading.isMissing(reading.mq8)) text.append(String.format(Locale.US, "Methane %.2f V", reading.mq8));
+        if (!SensorReading.isMissing(reading.flame)) {
+            if (text.length() > 0) text.append(", ");
+            text.append(reading.flame == 1 ? "flame detected" : "no flame");
+        }
+        if (!SensorReading.isMissing(reading.blockedChamber) && reading.blockedChamber > 0) {
+            if (text.length() > 0) text.append(", ");
+            text.append("chamber ").append(reading.blockedChamber).append(" blocked");
+        }
+        return text.length() == 0 ? "Tap to open the dashboard" : text.toString();
+    }
+
+    private static String siteLabel(@Nullable String siteId) {
+        return siteId == null ? "main drain" : siteId;
+    }
+
+    private PendingIntent openDashboard(@Nullable String siteId) {
+        Intent intent = new Intent(context, MainActivity.class)
+                .putExtra(MainActivity.EXTRA_SITE_ID, siteId)
+                .setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TOP);
+        return PendingIntent.getActivity(context, 0, intent, PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
+    }
+}
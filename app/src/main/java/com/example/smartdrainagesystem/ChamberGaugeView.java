@@ -0,0 +1,230 @@
+package com.example.smartdrainagesystem;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.LinearGradient;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.RectF;
+import android.graphics.Shader;
+import android.os.SystemClock;
+import android.util.AttributeSet;
+import android.util.TypedValue;
+import android.view.View;
+
+import androidx.annotation.Nullable;
+import androidx.core.content.ContextCompat;
+
+import java.util.Arrays;
+
+/**
+ * Draws any number of drainage chambers side by side with continuous fill levels (0..1).
+ *
+ * Geometry, paths and paints are computed once per size or chamber-count change; a level change
+ * only starts a time-based animation that is advanced from onDraw with postInvalidateOnAnimation,
+ * so updates never request a layout pass. Labels shrink to the chamber number, and then disappear,
+ * when chambers get too narrow, which keeps sites with 10+ chambers legible.
+ */
+public class ChamberGaugeView extends View {
+
+    public static final int NO_BLOCKED_CHAMBER = 0;
+
+    private static final long ANIMATION_MS = 500;
+    private static final int DEFAULT_CHAMBER_COUNT = 3;
+
+    private final Paint emptyPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint blockedPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint outlinePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint waterPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint namePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint statePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final int colorWaterLight, colorWaterDark, colorText, colorTextSecondary, colorWhite;
+    private final float gap, cornerRadius, labelPadding;
+
+    // Percent labels, built once so drawing never formats text
+    private static final String[] PERCENT_LABELS = new String[101];
+
+    static {
+        for (int i = 0; i <= 100; i++) PERCENT_LABELS[i] = i + "%";
+    }
+
+    private int chamberCount;
+    private RectF[] bounds = new RectF[0];
+    private Path[] clipPaths = new Path[0];
+    private String[] names = new String[0];
+    private boolean showNames, showStates;
+
+    // Per-chamber animation: level = from + (to - from) * ease((now - start) / ANIMATION_MS)
+    private float[] fromLevels = new float[0];
+    private float[] toLevels = new float[0];
+    private long[] startTimes = new long[0];
+    private int blockedChamber = NO_BLOCKED_CHAMBER; // 1-based, as reported by the firmware
+    private boolean levelsKnown;
+
+    public ChamberGaugeView(Context context) {
+        this(context, null);
+    }
+
+    public ChamberGaugeView(Context context, @Nullable AttributeSet attrs) {
+        super(context, attrs);
+        colorWaterLight = ContextCompat.getColor(context, R.color.water_blue_light);
+        colorWaterDark = ContextCompat.getColor(context, R.color.water_blue_dark);
+        colorText = ContextCompat.getColor(context, R.color.textColorPrimary);
+        colorTextSecondary = ContextCompat.getColor(context, R.color.textColorSecondary);
+        colorWhite = ContextCompat.getColor(context, R.color.white);
+
+        emptyPaint.setColor(ContextCompat.getColor(context, R.color.chamber_empty_bg));
+        blockedPaint.setColor(ContextCompat.getColor(context, R.color.chamber_blocked_bg));
+        outlinePaint.setStyle(Paint.Style.STROKE);
+        outlinePaint.setStrokeWidth(dp(1));
+        outlinePaint.setColor(colorTextSecondary);
+        namePaint.setTextAlign(Paint.Align.CENTER);
+        namePaint.setColor(colorText);
+        namePaint.setTextSize(sp(14));
+        statePaint.setTextAlign(Paint.Align.CENTER);
+        statePaint.setTextSize(sp(14));
+        statePaint.setFakeBoldText(true);
+
+        gap = dp(8);
+        cornerRadius = dp(12);
+        labelPadding = dp(8);
+        setChamberCount(DEFAULT_CHAMBER_COUNT);
+    }
+
+    public int getChamberCount() {
+        return chamberCount;
+    }
+
+    public void setChamberCount(int count) {
+        if (count == chamberCount || count < 1) return;
+        chamberCount = count;
+        fromLevels = Arrays.copyOf(fromLevels, count);
+        toLevels = Arrays.copyOf(toLevels, count);
+        startTimes = Arrays.copyOf(startTimes, count);
+        names = new String[count];
+        for (int i = 0; i < count; i++) names[i] = "Chamber " + (i + 1);
+        bounds = new RectF[count];
+        clipPaths = new Path[count];
+        for (int i = 0; i < count; i++) {
+            bounds[i] = new RectF();
+            clipPaths[i] = new Path();
+        }
+        computeGeometry(getWidth(), getHeight());
+        invalidate();
+    }
+
+    /** Sets the target fill of one chamber (0-based); the drawn level eases towards it. */
+    public void setLevel(int chamber, float level) {
+        level = Math.max(0f, Math.min(1f, level));
+        boolean wasKnown = levelsKnown;
+        levelsKnown = true;
+        if (toLevels[chamber] == level && wasKnown) return;
+        long now = SystemClock.uptimeMillis();
+        fromLevels[chamber] = levelAt(chamber, now);
+        toLevels[chamber] = level;
+        startTimes[chamber] = now;
+        postInvalidateOnAnimation();
+    }
+
+    /** 1-based chamber to draw as blocked, or NO_BLOCKED_CHAMBER. */
+    public void setBlockedChamber(int chamber) {
+        if (chamber == blockedChamber) return;
+        blockedChamber = chamber;
+        invalidate();
+    }
+
+    /** No usable levels in the latest reading: keep the chambers but drain them and show a neutral state. */
+    public void setLevelsUnknown() {
+        if (!levelsKnown) return;
+        for (int i = 0; i < chamberCount; i++) setLevel(i, 0f);
+        levelsKnown = false;
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        computeGeometry(w, h);
+    }
+
+    private void computeGeometry(int width, int height) {
+        if (width == 0 || height == 0) return;
+        float inset = outlinePaint.getStrokeWidth() / 2;
+        float chamberWidth = (width - gap * (chamberCount - 1)) / chamberCount;
+        for (int i = 0; i < chamberCount; i++) {
+            float left = i * (chamberWidth + gap);
+            bounds[i].set(left + inset, inset, left + chamberWidth - inset, height - inset);
+            clipPaths[i].reset();
+            clipPaths[i].addRoundRect(bounds[i], cornerRadius, cornerRadius, Path.Direction.CW);
+        }
+        waterPaint.setShader(new LinearGradient(0, 0, 0, height, colorWaterLight, colorWaterDark, Shader.TileMode.CLAMP));
+
+        // Narrow chambers: number only, then no labels at all
+        showNames = chamberWidth >= dp(40);
+        showStates = chamberWidth >= dp(28);
+        if (showNames) {
+            for (int i = 0; i < chamberCount; i++) {
+                names[i] = namePaint.measureText("Chamber " + (i + 1)) + labelPadding * 2 <= chamberWidth
+                        ? "Chamber " + (i + 1) : String.valueOf(i + 1);
+            }
+        }
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        long now = SystemClock.uptimeMillis();
+        boolean animating = false;
+        float nameBaseline = labelPadding - namePaint.ascent();
+        float stateOffset = (statePaint.descent() + statePaint.ascent()) / 2;
+
+        for (int i = 0; i < chamberCount; i++) {
+            RectF r = bounds[i];
+            boolean blocked = levelsKnown && blockedChamber == i + 1;
+            canvas.drawRoundRect(r, cornerRadius, cornerRadius, blocked ? blockedPaint : emptyPaint);
+
+            float level = levelAt(i, now);
+            if (now - startTimes[i] < ANIMATION_MS) animating = true;
+            if (!blocked && level > 0f) {
+                canvas.save();
+                canvas.clipPath(clipPaths[i]);
+                canvas.drawRect(r.left, r.bottom - r.height() * level, r.right, r.bottom, waterPaint);
+                canvas.restore();
+            }
+            if (!blocked) canvas.drawRoundRect(r, cornerRadius, cornerRadius, outlinePaint);
+
+            if (showNames) canvas.drawText(names[i], r.centerX(), r.top + nameBaseline, namePaint);
+            if (showStates) {
+                String state;
+                if (!levelsKnown) {
+                    state = "Status";
+                    statePaint.setColor(colorTextSecondary);
+                } else if (blocked) {
+                    state = "BLOCKED";
+                    statePaint.setColor(colorWhite);
+                } else {
+                    state = PERCENT_LABELS[Math.round(toLevels[i] * 100)];
+                    statePaint.setColor(toLevels[i] >= 0.5f ? colorWhite : colorTextSecondary);
+                }
+                canvas.drawText(state, r.centerX(), r.centerY() - stateOffset, statePaint);
+            }
+        }
+        if (animating) postInvalidateOnAnimation();
+    }
+
+    private float levelAt(int chamber, long now) {
+        long elapsed = now - startTimes[chamber];
+        if (elapsed >= ANIMATION_MS) return toLevels[chamber];
+        // Same accelerate-decelerate curve as AccelerateDecelerateInterpolator
+        float t = elapsed / (float) ANIMATION_MS;
+        float eased = (float) (Math.cos((t + 1) * Math.PI) / 2.0) + 0.5f;
+        return fromLevels[chamber] + (toLevels[chamber] - fromLevels[chamber]) * eased;
+    }
+
+    private float dp(float value) {
+        return TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, value, getResources().getDisplayMetrics());
+    }
+
+    private float sp(float value) {
+        return TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, value, getResources().getDisplayMetrics());
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.smartdrainagesystem;
+
+import androidx.annotation.Nullable;
+
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+
+/**
+ * Single shared Firebase connection and the node layout of the database.
+ *
+ * Legacy single-drain layout (siteId == null):
+ *   sensor_data, servo_control, sensor_frame, actuation_log
+ * Fleet layout:
+ *   sites/{siteId}/sensor_data, sites/{siteId}/servo_control  - full payloads, only listened to by an open site dashboard
+ *   sites/{siteId}/sensor_frame                              - compact keyframe/delta encoding, see SensorFrameCodec
+ *   sites/{siteId}/actuation_log/{seconds}                   - {on, reason} of every command CutterController issued
+ *   sites/{siteId}/sensor_data/alert                         - written on every alert change, also by frame-only gateways;
+ *                                                              the background monitor listens to just this child
+ *   summary/{siteId}                                        - compact per-site status, see SiteSummary
+ * Written by the aggregator service from the raw nodes above (see SiteAggregator):
+ *   summary/{siteId}, rollup/{siteId}/{minute}, alert_log/{siteId}/{seconds},
+ *   alert_events/{siteId}/{seconds}_{ruleId},
+ *   site_index/{siteId}                                     - position and SiteIndex flags, loaded by the fleet map
+ */
+public final class DrainageDatabase {
+
+    private static final String FIREBASE_URL = "https://smartdrainagesystem-75097-default-rtdb.firebaseio.com/"; // Your Firebase URL
+
+    public static final String SITES = "sites";
+    public static final String SUMMARY = "summary";
+    public static final String SENSOR_DATA = "sensor_data";
+    public static final String SERVO_CONTROL = "servo_control";
+    public static final String SENSOR_FRAME = "sensor_frame";
+    public static final String ACTUATION_LOG = "actuation_log";
+    public static final String SITE_INDEX = "site_index";
+
+    private DrainageDatabase() {
+    }
+
+    public static FirebaseDatabase get() {
+        // FirebaseDatabase caches instances per URL, so every caller shares one connection
+        return FirebaseDatabase.getInstance(FIREBASE_URL);
+    }
+
+    public static DatabaseReference sensorData(@Nullable String siteId) {
+        return siteNode(siteId, SENSOR_DATA);
+    }
+
+    public static DatabaseReference sensorFrame(@Nullable String siteId) {
+        return siteNode(siteId, SENSOR_FRAME);
+    }
+
+    public static DatabaseReference alert(@Nullable String siteId) {
+        return sensorData(siteId).child("alert");
+    }
+
+    public static DatabaseReference servoControl(@Nullable String siteId) {
+        return siteNode(siteId, SERVO_CONTROL);
+    }
+
+    public static DatabaseReference actuationLog(@Nullable String siteId) {
+        return siteNode(siteId, ACTUATION_LOG);
+    }
+
+    public static DatabaseReference summaries() {
+        return get().getReference(SUMMARY);
+    }
+
+    public static DatabaseReference summary(String siteId) {
+        return summaries().child(siteId);
+    }
+
+    public static DatabaseReference siteIndex() {
+        return get().getReference(SITE_INDEX);
+    }
+
+    private static DatabaseReference siteNode(@Nullable String siteId, String node) {
+        if (siteId == null) return get().getReference(node);
+        return get().getReference(SITES).child(siteId).child(node);
+    }
+}
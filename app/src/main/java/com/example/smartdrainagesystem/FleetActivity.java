@@ -0,0 +1,132 @@
+package com.example.smartdrainagesystem;
+
+import android.content.Intent;
+import android.os.Bundle;
+import android.util.Log;
+import android.view.View;
+import android.widget.ProgressBar;
+import android.widget.TextView;
+import android.widget.Toast;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.appcompat.widget.Toolbar;
+import androidx.recyclerview.widget.GridLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.google.firebase.database.ChildEventListener;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.Query;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Fleet dashboard: one recycled card per drainage site.
+ * The whole fleet is driven by a single child listener on the compact summary node, which
+ * SiteAggregator keeps up to date server-side; no raw sensor_data is downloaded here.
+ */
+public class FleetActivity extends AppCompatActivity {
+
+    private static final String TAG = "FleetActivity";
+    private static final int GRID_COLUMNS = 2;
+
+    private RecyclerView rvSites;
+    private SiteListAdapter adapter;
+    private TextView tvFleetStatus;
+    private ProgressBar progressBar;
+
+    private Query summaryQuery;
+    private ChildEventListener summaryListener;
+
+    private final Set<String> alertingSiteIds = new HashSet<>();
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_fleet);
+
+        Toolbar toolbar = findViewById(R.id.toolbar);
+        setSupportActionBar(toolbar);
+        if (getSupportActionBar() != null) {
+            getSupportActionBar().setDisplayShowTitleEnabled(false); // Using custom title
+        }
+
+        tvFleetStatus = findViewById(R.id.tvFleetStatus);
+        progressBar = findViewById(R.id.progressBar);
+        rvSites = findViewById(R.id.rvSites);
+        rvSites.setLayoutManager(new GridLayoutManager(this, GRID_COLUMNS));
+        adapter = new SiteListAdapter(this, this::openSite);
+        rvSites.setAdapter(adapter);
+        // Summary updates rebind in place; skip the change cross-fade so cards don't flicker
+        rvSites.setItemAnimator(null);
+        findViewById(R.id.btnMap).setOnClickListener(v -> startActivity(new Intent(this, SiteMapActivity.class)));
+
+        summaryQuery = DrainageDatabase.summaries().orderByKey();
+        summaryListener = new ChildEventListener() {
+            @Override
+            public void onChildAdded(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
+                onSummary(snapshot);
+            }
+
+            @Override
+            public void onChildChanged(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
+                onSummary(snapshot);
+            }
+
+            @Override
+            public void onChildRemoved(@NonNull DataSnapshot snapshot) {
+                String siteId = snapshot.getKey();
+                if (alertingSiteIds.remove(siteId)) updateFleetStatus();
+                adapter.removeSummary(siteId);
+            }
+
+            @Override
+            public void onChildMoved(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
+                // Ordered by key, so children never move
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError databaseError) {
+                progressBar.setVisibility(View.GONE);
+                Log.w(TAG, "loadSummaries:onCancelled", databaseError.toException());
+                Toast.makeText(FleetActivity.this, "Failed to load sites.", Toast.LENGTH_SHORT).show();
+            }
+        };
+    }
+
+    private void onSummary(DataSnapshot snapshot) {
+        progressBar.setVisibility(View.GONE);
+        SiteSummary summary = SiteSummary.fromValue(snapshot.getKey(), snapshot.getValue());
+        boolean changed = summary.isAlerting() ? alertingSiteIds.add(summary.siteId) : alertingSiteIds.remove(summary.siteId);
+        if (changed) updateFleetStatus();
+        adapter.upsertSummary(summary);
+    }
+
+    private void updateFleetStatus() {
+        int alertingSites = alertingSiteIds.size();
+        tvFleetStatus.setText(alertingSites == 0 ? "All sites clear" : alertingSites + " site(s) alerting");
+        tvFleetStatus.setTextColor(getColor(alertingSites == 0 ? R.color.green_ok : R.color.red_alert));
+    }
+
+    private void openSite(SiteSummary site) {
+        Intent intent = new Intent(this, MainActivity.class);
+        intent.putExtra(MainActivity.EXTRA_SITE_ID, site.siteId);
+        startActivity(intent);
+    }
+
+    @Override
+    protected void onStart() {
+        super.onStart();
+        if (adapter.getItemCount() == 0) progressBar.setVisibility(View.VISIBLE);
+        summaryQuery.addChildEventListener(summaryListener);
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        summaryQuery.removeEventListener(summaryListener);
+    }
+}
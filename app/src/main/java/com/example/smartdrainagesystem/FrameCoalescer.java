@@ -0,0 +1,52 @@
+package com.example.smartdrainagesystem;
+
+import android.view.Choreographer;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Collapses a burst of submitted values into at most one render per display frame.
+ * Only the latest value submitted before the frame is rendered (latest-wins); older ones are dropped.
+ * submit() may be called from any thread, render() always runs on the Choreographer's (main) thread.
+ */
+public class FrameCoalescer<T> implements Choreographer.FrameCallback {
+
+    public interface Renderer<T> {
+        void render(T value);
+    }
+
+    private final Choreographer choreographer;
+    private final Renderer<T> renderer;
+    private final AtomicReference<T> pending = new AtomicReference<>();
+    private final AtomicBoolean frameScheduled = new AtomicBoolean(false);
+
+    // Must be constructed on the main thread so the Choreographer belongs to the UI looper
+    public FrameCoalescer(Renderer<T> renderer) {
+        this.choreographer = Choreographer.getInstance();
+        this.renderer = renderer;
+    }
+
+    public void submit(T value) {
+        pending.set(value);
+        if (frameScheduled.compareAndSet(false, true)) {
+            choreographer.postFrameCallback(this);
+        }
+    }
+
+    public void cancel() {
+        choreographer.removeFrameCallback(this);
+        frameScheduled.set(false);
+        pending.set(null);
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        // Clear the flag before taking the value so a submit racing with this frame schedules the next one
+        frameScheduled.set(false);
+        T value = pending.getAndSet(null);
+        if (value != null) {
+            renderer.render(value);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.smartdrainagesystem;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.ParcelFileDescriptor;
+import android.provider.DocumentsContract;
+import android.util.Log;
+import android.widget.TextView;
+import android.widget.Toast;
+
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.appcompat.widget.Toolbar;
+
+import com.google.android.material.button.MaterialButtonToggleGroup;
+
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Scrollable history of one site's sonar, methane and temperature readings from the on-device
+ * SensorHistoryStore. Drag to pan, pinch to zoom, double-tap to see everything. The export
+ * buttons stream all stored readings to a user-picked document as CSV or as a compressed archive.
+ */
+public class HistoryChartActivity extends AppCompatActivity {
+
+    private static final String TAG = "HistoryChartActivity";
+
+    private HistoryChartView historyChart;
+    private TextView tvChartRange;
+    private final ExecutorService loadExecutor = Executors.newSingleThreadExecutor();
+    private final SimpleDateFormat rangeFormat = new SimpleDateFormat("MMM dd HH:mm", Locale.getDefault());
+    private final SimpleDateFormat fileDateFormat = new SimpleDateFormat("yyyyMMdd-HHmm", Locale.US);
+    private SensorHistoryStore store;
+
+    private final ActivityResultLauncher<String> exportCsv = registerForActivityResult(
+            new ActivityResultContracts.CreateDocument("text/csv"), uri -> export(uri, true));
+    private final ActivityResultLauncher<String> exportArchive = registerForActivityResult(
+            new ActivityResultContracts.CreateDocument("application/octet-stream"), uri -> export(uri, false));
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_history);
+
+        Toolbar toolbar = findViewById(R.id.toolbar);
+        setSupportActionBar(toolbar);
+        if (getSupportActionBar() != null) {
+            getSupportActionBar().setDisplayShowTitleEnabled(false); // Using custom title
+        }
+
+        historyChart = findViewById(R.id.historyChart);
+        tvChartRange = findViewById(R.id.tvChartRange);
+        historyChart.setListener(this::showRange);
+
+        try {
+            store = SensorHistory.forSite(this, getIntent().getStringExtra(MainActivity.EXTRA_SITE_ID));
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to open sensor history", e);
+            Toast.makeText(this, "Sensor history unavailable.", Toast.LENGTH_SHORT).show();
+            finish();
+            return;
+        }
+        historyChart.setSource(store, SensorHistoryStore.COLUMN_DISTANCE1, "cm", loadExecutor);
+
+        MaterialButtonToggleGroup seriesGroup = findViewById(R.id.toggleSeries);
+        seriesGroup.addOnButtonCheckedListener((group, checkedId, isChecked) -> {
+            if (!isChecked) return;
+            if (checkedId == R.id.btnSeriesSonar1) {
+                historyChart.setColumn(SensorHistoryStore.COLUMN_DISTANCE1, "cm");
+            } else if (checkedId == R.id.btnSeriesSonar2) {
+                historyChart.setColumn(SensorHistoryStore.COLUMN_DISTANCE2, "cm");
+            } else if (checkedId == R.id.btnSeriesMethane) {
+                historyChart.setColumn(SensorHistoryStore.COLUMN_MQ8, "V");
+            } else if (checkedId == R.id.btnSeriesTemp) {
+                historyChart.setColumn(SensorHistoryStore.COLUMN_TEMP, "°C");
+            }
+        });
+
+        String stamp = fileDateFormat.format(new Date());
+        findViewById(R.id.btnExportCsv).setOnClickListener(v -> exportCsv.launch("drainage-history-" + stamp + ".csv"));
+        findViewById(R.id.btnExportArchive).setOnClickListener(v -> exportArchive.launch("drainage-history-" + stamp + ".sdhx"));
+    }
+
+    private void export(Uri uri, boolean csv) {
+        if (uri == null) return; // picker cancelled
+        Toast.makeText(this, "Exporting history...", Toast.LENGTH_SHORT).show();
+        // The export may outlive this activity, so it holds only the application context
+        Context context = getApplicationContext();
+        SensorHistoryStore source = store;
+        SensorHistory.exportExecutor().execute(() -> {
+            String message;
+            try (ParcelFileDescriptor descriptor = context.getContentResolver().openFileDescriptor(uri, "wt")) {
+                if (descriptor == null) throw new IOException("No file descriptor for " + uri);
+                try (FileOutputStream out = new FileOutputStream(descriptor.getFileDescriptor())) {
+                    long rows = csv
+                            ? HistoryExport.writeCsv(source, Long.MIN_VALUE, Long.MAX_VALUE, out.getChannel())
+                            : HistoryExport.writeColumnar(source, Long.MIN_VALUE, Long.MAX_VALUE, out.getChannel());
+                    out.getFD().sync();
+                    message = "Exported " + rows + " readings.";
+                }
+            } catch (IOException e) {
+                Log.e(TAG, "History export failed", e);
+                message = deletePartialExport(context, uri) ? "Export failed." : "Export failed; the file is incomplete.";
+            }
+            String result = message;
+            new Handler(Looper.getMainLooper()).post(() -> Toast.makeText(context, result, Toast.LENGTH_SHORT).show());
+        });
+    }
+
+    // Best effort: the user picked the document, so a truncated one should not be left behind
+    private static boolean deletePartialExport(Context context, Uri uri) {
+        try {
+            return DocumentsContract.deleteDocument(context.getContentResolver(), uri);
+        } catch (FileNotFoundException | RuntimeException e) {
+            Log.w(TAG, "Could not delete partial export " + uri, e);
+            return false;
+        }
+    }
+
+    private void showRange(long fromMillis, long toMillis, int resolution) {
+        String detail;
+        switch (resolution) {
+            case ChartDecimator.RESOLUTION_HOUR:
+                detail = "hourly min/max";
+                break;
+            case ChartDecimator.RESOLUTION_MINUTE:
+                detail = "per-minute min/max";
+                break;
+            default:
+                detail = "raw samples";
+                break;
+        }
+        tvChartRange.setText(rangeFormat.format(new Date(fromMillis)) + " - " + rangeFormat.format(new Date(toMillis)) + " (" + detail + ")");
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        // Not shutdownNow(): interrupting a running load would hit the store other screens share
+        loadExecutor.shutdown();
+    }
+}
@@ -0,0 +1,311 @@
+package com.example.smartdrainagesystem;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.util.AttributeSet;
+import android.util.Log;
+import android.util.TypedValue;
+import android.view.GestureDetector;
+import android.view.MotionEvent;
+import android.view.ScaleGestureDetector;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.content.ContextCompat;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.Executor;
+
+/**
+ * Pan/zoom line chart over one SensorHistoryStore column.
+ *
+ * Data is loaded off the UI thread into a ChartDecimator covering the viewport plus one screen on
+ * either side, at two pixels per column and the coarsest stored resolution that fits. Frames only
+ * re-project the loaded columns, so panning and zooming never wait on the store; a new load is
+ * started when the viewport leaves the loaded range or the zoom level changes the column width.
+ */
+public class HistoryChartView extends View {
+
+    private static final String TAG = "HistoryChartView";
+
+    public interface Listener {
+        /** Called on the UI thread with the viewport whenever freshly loaded data is shown. */
+        void onRangeLoaded(long fromMillis, long toMillis, int resolution);
+    }
+
+    private static final int PIXELS_PER_COLUMN = 2;
+    private static final int SCREENS_LOADED = 3; // viewport plus one screen of margin each side
+    private static final long MIN_SPAN_MILLIS = SensorHistoryStore.MINUTE_MILLIS;
+    private static final long DEFAULT_SPAN_MILLIS = 24 * SensorHistoryStore.HOUR_MILLIS;
+
+    private final Paint linePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint gridPaint = new Paint();
+    private final Paint labelPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final float labelPadding;
+    private final GestureDetector gestureDetector;
+    private final ScaleGestureDetector scaleDetector;
+
+    private SensorHistoryStore store;
+    private Executor executor;
+    private int column;
+    private String unit = "";
+    private Listener listener;
+
+    // Double buffered: the loader fills back while frames draw front
+    private ChartDecimator front = new ChartDecimator();
+    private ChartDecimator back = new ChartDecimator();
+    private boolean hasData;
+    private boolean loading;
+    private int generation; // bumped on every source change so stale loads are dropped
+    private String maxLabel, minLabel;
+    private float[] points = new float[0];
+
+    // Viewport, in epoch millis; double so small gestures accumulate
+    private double viewFrom, viewSpan;
+    private long dataFirst, dataLast = Long.MIN_VALUE;
+
+    public HistoryChartView(Context context) {
+        this(context, null);
+    }
+
+    public HistoryChartView(Context context, @Nullable AttributeSet attrs) {
+        super(context, attrs);
+        linePaint.setColor(ContextCompat.getColor(context, R.color.colorAccent));
+        linePaint.setStrokeWidth(dp(1.5f));
+        linePaint.setStrokeCap(Paint.Cap.ROUND);
+        gridPaint.setColor(ContextCompat.getColor(context, R.color.textColorSecondary));
+        gridPaint.setAlpha(80);
+        labelPaint.setColor(ContextCompat.getColor(context, R.color.textColorSecondary));
+        labelPaint.setTextSize(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, 12, getResources().getDisplayMetrics()));
+        labelPadding = dp(4);
+
+        gestureDetector = new GestureDetector(context, new GestureDetector.SimpleOnGestureListener() {
+            @Override
+            public boolean onDown(@NonNull MotionEvent e) {
+                return true;
+            }
+
+            @Override
+            public boolean onScroll(@Nullable MotionEvent e1, @NonNull MotionEvent e2, float distanceX, float distanceY) {
+                if (getWidth() == 0) return false;
+                setViewport(viewFrom + distanceX * viewSpan / getWidth(), viewSpan);
+                return true;
+            }
+
+            @Override
+            public boolean onDoubleTap(@NonNull MotionEvent e) {
+                // Whole history at once
+                setViewport(dataFirst, dataLast - dataFirst);
+                return true;
+            }
+        });
+        scaleDetector = new ScaleGestureDetector(context, new ScaleGestureDetector.SimpleOnScaleGestureListener() {
+            @Override
+            public boolean onScale(@NonNull ScaleGestureDetector detector) {
+                if (getWidth() == 0) return false;
+                // Keep the time under the fingers in place
+                double focus = detector.getFocusX() / getWidth();
+                double focusTime = viewFrom + focus * viewSpan;
+                double span = viewSpan / detector.getScaleFactor();
+                span = Math.max(MIN_SPAN_MILLIS, Math.min(span, Math.max(MIN_SPAN_MILLIS, dataLast - dataFirst)));
+                setViewport(focusTime - focus * span, span);
+                return true;
+            }
+        });
+    }
+
+    public void setListener(@Nullable Listener listener) {
+        this.listener = listener;
+    }
+
+    /** Shows the most recent day of column; executor must run one task at a time, off the UI thread. */
+    public void setSource(SensorHistoryStore store, int column, String unit, Executor executor) {
+        this.store = store;
+        this.column = column;
+        this.unit = unit;
+        this.executor = executor;
+        final int requested = ++generation;
+        hasData = false;
+        loading = false;
+        invalidate();
+        executor.execute(() -> {
+            long first, last;
+            try {
+                first = store.firstTimestamp();
+                last = store.lastTimestamp();
+            } catch (IOException e) {
+                Log.w(TAG, "Failed to read history bounds", e);
+                return;
+            }
+            post(() -> {
+                if (requested != generation || last == Long.MIN_VALUE) return;
+                dataFirst = first;
+                dataLast = last;
+                double span = Math.max(MIN_SPAN_MILLIS, Math.min(DEFAULT_SPAN_MILLIS, last - first));
+                setViewport(last - span, span);
+            });
+        });
+    }
+
+    /** Switches the plotted column, keeping the viewport. */
+    public void setColumn(int column, String unit) {
+        this.column = column;
+        this.unit = unit;
+        generation++;
+        hasData = false;
+        loading = false;
+        requestLoad();
+        invalidate();
+    }
+
+    private void setViewport(double from, double span) {
+        if (dataLast == Long.MIN_VALUE) return;
+        span = Math.max(MIN_SPAN_MILLIS, span);
+        // Allow a little overscroll so the newest sample isn't pinned to the edge
+        double margin = span * 0.1;
+        from = Math.max(dataFirst - margin, Math.min(from, dataLast + margin - span));
+        viewFrom = from;
+        viewSpan = span;
+        requestLoad();
+        postInvalidateOnAnimation();
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        requestLoad();
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        boolean handled = scaleDetector.onTouchEvent(event);
+        handled |= gestureDetector.onTouchEvent(event);
+        if (handled && event.getActionMasked() == MotionEvent.ACTION_DOWN) {
+            // Horizontal drags belong to the chart, not to a scrolling parent
+            getParent().requestDisallowInterceptTouchEvent(true);
+        }
+        return handled || super.onTouchEvent(event);
+    }
+
+    // Column width for the current zoom, rounded down to a power of two so small zoom changes
+    // keep the loaded columns and pans keep the same column boundaries
+    private long targetMillisPerColumn() {
+        long exact = (long) (viewSpan * PIXELS_PER_COLUMN / getWidth());
+        return Long.highestOneBit(Math.max(1, exact));
+    }
+
+    private boolean needsLoad() {
+        if (!hasData) return true;
+        return front.millisPerColumn != targetMillisPerColumn()
+                || viewFrom < front.fromMillis || viewFrom + viewSpan > front.toMillis();
+    }
+
+    private void requestLoad() {
+        if (loading || store == null || getWidth() == 0 || dataLast == Long.MIN_VALUE || !needsLoad()) return;
+        loading = true;
+        final ChartDecimator target = back;
+        final int requested = generation;
+        final int loadColumn = column;
+        final long millisPerColumn = targetMillisPerColumn();
+        final int columns = SCREENS_LOADED * getWidth() / PIXELS_PER_COLUMN;
+        // Aligned start: the same sample always falls into the same column
+        final long from = Math.floorDiv((long) viewFrom - (long) viewSpan, millisPerColumn) * millisPerColumn;
+        executor.execute(() -> {
+            boolean loaded;
+            try {
+                target.load(store, loadColumn, from, millisPerColumn, columns);
+                loaded = true;
+            } catch (IOException e) {
+                Log.w(TAG, "Failed to load history", e);
+                loaded = false;
+            }
+            final boolean ok = loaded;
+            post(() -> onLoaded(target, requested, ok));
+        });
+    }
+
+    private void onLoaded(ChartDecimator loaded, int requested, boolean ok) {
+        if (requested != generation) {
+            // A load for a column that is no longer shown; setColumn already started a new one
+            return;
+        }
+        loading = false;
+        if (ok) {
+            back = front;
+            front = loaded;
+            hasData = true;
+            if (points.length < front.columns * 8) points = new float[front.columns * 8];
+            maxLabel = Float.isNaN(front.rangeMax) ? null : String.format(Locale.US, "%.2f %s", front.rangeMax, unit);
+            minLabel = Float.isNaN(front.rangeMin) ? null : String.format(Locale.US, "%.2f %s", front.rangeMin, unit);
+            if (listener != null) listener.onRangeLoaded((long) viewFrom, (long) (viewFrom + viewSpan), front.resolution);
+            invalidate();
+        }
+        // The viewport may have moved on while this range was loading
+        requestLoad();
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        int width = getWidth();
+        int height = getHeight();
+        canvas.drawLine(0, labelPadding, width, labelPadding, gridPaint);
+        canvas.drawLine(0, height - labelPadding, width, height - labelPadding, gridPaint);
+        if (!hasData || Float.isNaN(front.rangeMin)) {
+            canvas.drawText(dataLast == Long.MIN_VALUE ? "No history yet" : "Loading...",
+                    labelPadding, height / 2f, labelPaint);
+            return;
+        }
+
+        // Fixed y range per load keeps the chart still while panning
+        float low = front.rangeMin;
+        float high = front.rangeMax;
+        if (high - low < 1e-3f) {
+            low -= 1f;
+            high += 1f;
+        }
+        float top = labelPadding;
+        float yScale = (height - 2 * labelPadding) / (high - low);
+        double xScale = width / viewSpan;
+
+        // Visible columns only; each one is a min..max stroke joined to its neighbour
+        int first = (int) Math.max(0, Math.floor((viewFrom - front.fromMillis) / front.millisPerColumn) - 1);
+        int last = (int) Math.min(front.columns - 1, Math.ceil((viewFrom + viewSpan - front.fromMillis) / front.millisPerColumn) + 1);
+        int n = 0;
+        float prevX = Float.NaN, prevY = 0f;
+        for (int c = first; c <= last; c++) {
+            float min = front.min[c];
+            if (Float.isNaN(min)) {
+                prevX = Float.NaN; // leave gaps in the data visible
+                continue;
+            }
+            float x = (float) ((front.columnStart(c) + front.millisPerColumn / 2 - viewFrom) * xScale);
+            float yMin = top + (high - min) * yScale;
+            float yMax = top + (high - front.max[c]) * yScale;
+            points[n++] = x;
+            points[n++] = yMax;
+            points[n++] = x;
+            points[n++] = yMin;
+            float mid = (yMin + yMax) / 2;
+            if (!Float.isNaN(prevX)) {
+                points[n++] = prevX;
+                points[n++] = prevY;
+                points[n++] = x;
+                points[n++] = mid;
+            }
+            prevX = x;
+            prevY = mid;
+        }
+        canvas.drawLines(points, 0, n, linePaint);
+
+        if (maxLabel != null) canvas.drawText(maxLabel, labelPadding, top - labelPaint.ascent() + labelPadding, labelPaint);
+        if (minLabel != null) canvas.drawText(minLabel, labelPadding, height - 2 * labelPadding - labelPaint.descent(), labelPaint);
+    }
+
+    private float dp(float value) {
+        return TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, value, getResources().getDisplayMetrics());
+    }
+}
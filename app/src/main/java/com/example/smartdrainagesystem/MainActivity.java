@@ -1,26 +1,24 @@
 package com.example.smartdrainagesystem; // Replace with your package name
 
-import android.animation.ValueAnimator;
+import android.Manifest;
 import android.content.Intent;
-import android.graphics.Color;
+import android.content.pm.PackageManager;
 import android.net.Uri;
+import android.os.Build;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.Looper;
 import android.util.Log;
 import android.view.View;
-import android.view.ViewGroup;
-import android.view.animation.AccelerateDecelerateInterpolator;
-import android.widget.Button;
-import android.widget.ImageView;
 import android.widget.ProgressBar;
-import android.widget.RelativeLayout;
 import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.Toolbar;
+import androidx.asynclayoutinflater.view.AsyncLayoutInflater;
+import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
 
 import com.google.android.material.button.MaterialButton;
@@ -28,40 +26,69 @@ import com.google.android.material.switchmaterial.SwitchMaterial;
 import com.google.firebase.database.DataSnapshot;
 import com.google.firebase.database.DatabaseError;
 import com.google.firebase.database.DatabaseReference;
-import com.google.firebase.database.FirebaseDatabase;
 import com.google.firebase.database.ValueEventListener;
 
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.List;
-import java.util.Locale;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class MainActivity extends AppCompatActivity {
 
     private static final String TAG = "MainActivity";
-    private static final String FIREBASE_URL = "https://smartdrainagesystem-75097-default-rtdb.firebaseio.com/"; // Your Firebase URL
-
-    // UI Elements for Chambers
-    private RelativeLayout chamber1Layout, chamber2Layout, chamber3Layout;
-    private TextView tvWaterLevel1, tvWaterLevel2, tvWaterLevel3;
-    private View waterIndicator1, waterIndicator2, waterIndicator3;
-
-    // UI Elements for Sensor Data
-    private TextView tvAlertType, tvBlockageDetails, tvSonar1, tvSonar2, tvMQ8, tvTemperature;
-    private TextView tvIRSensor, tvFlameSensor, tvGPSCoordinates, tvTimestamp;
-    private ImageView ivAlertIcon; // For the alert icon
+    private static final int REQUEST_NOTIFICATIONS = 1;
+    // Live state is saved at most this often, and again when the dashboard is left
+    private static final long STATE_SAVE_INTERVAL_MILLIS = 30_000;
+
+    // Site to show when opened from the fleet dashboard; without it the legacy root nodes are used
+    public static final String EXTRA_SITE_ID = "com.example.smartdrainagesystem.SITE_ID";
+
+    // Chambers and sensor data views are owned by the renderer; snapshots reach it at most once per frame
+    private SensorDashboardRenderer dashboardRenderer;
+    private FrameCoalescer<SensorReading> sensorFrameCoalescer;
+    private FrameCoalescer<DrainForecast> forecastFrameCoalescer;
+
+    // Snapshots are decoded here so the UI thread only ever sees finished SensorReadings
+    private final ExecutorService decodeExecutor = Executors.newSingleThreadExecutor();
+    // Only touched from decodeExecutor
+    private final DrainageAnalytics analytics = new DrainageAnalytics();
+    private final SensorFrameDecoder frameDecoder = new SensorFrameDecoder();
+
+    private final PipelineMetrics metrics = PipelineMetrics.get();
+    // When Firebase delivered the snapshot being rendered; only the latest one reaches the screen
+    private volatile long lastReceivedNanos;
+    private PerformanceOverlay performanceOverlay;
+
+    // Last-known state: read while the layout inflates, shown until the first live snapshot arrives
+    private Future<LastKnownState> savedState;
+    private boolean showingSavedState;
+    private boolean reportedFullyDrawn;
+    private volatile SensorReading lastLiveReading;
+    private volatile ServoControl lastServoControl;
+    private long stateSavedAtMillis; // only touched from decodeExecutor
 
     // UI Elements for Controls
-    private MaterialButton btnOpenMap, btnRefresh;
-    private SwitchMaterial switchManualServo, switchAutoMode;
+    private MaterialButton btnOpenMap, btnRefresh, btnFleet, btnHistory;
+    private SwitchMaterial switchManualServo, switchAutoMode, switchBackgroundMonitoring;
     private ProgressBar progressBar;
+    private TextView tvServoSyncStatus;
+    private int colorSynced, colorPending; // resolved once, the queue state changes on every command
 
     // Firebase
     private DatabaseReference sensorDataRef;
     private DatabaseReference servoControlRef;
     private ValueEventListener sensorDataListener;
     private ValueEventListener servoControlListener;
+    private ServoCommandQueue servoCommandQueue;
+    // Drives servo_on from live readings while auto mode is on; fed on decodeExecutor
+    private final CutterController cutterController = new CutterController(this::onCutterActuation);
 
+    private String siteId; // null for the legacy single-drain nodes
+    private boolean started;
     private String currentGpsCoordinates = "0,0";
     // private Handler uiHandler = new Handler(Looper.getMainLooper()); // Not explicitly used now
 
@@ -69,6 +96,9 @@ public class MainActivity extends AppCompatActivity {
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        siteId = getIntent().getStringExtra(EXTRA_SITE_ID);
+        // A single small file read, done by the time inflation is
+        savedState = decodeExecutor.submit(() -> LastKnownState.read(lastStateFile()));
         setContentView(R.layout.activity_main); // Ensure this matches your new XML filename
 
         // Toolbar Setup
@@ -79,15 +109,52 @@ public class MainActivity extends AppCompatActivity {
         }
 
         initializeUI();
-
-        FirebaseDatabase database = FirebaseDatabase.getInstance(FIREBASE_URL);
-        sensorDataRef = database.getReference("sensor_data");
-        servoControlRef = database.getReference("servo_control");
+        LastKnownState saved = awaitSavedState();
+        showSavedReading(saved);
+        if (saved != null && saved.servoKnown) lastServoControl = new ServoControl(saved.servoOn, saved.autoMode);
+
+        // Hidden: long-press the title for pipeline timings
+        performanceOverlay = new PerformanceOverlay(this, siteId);
+        findViewById(R.id.tvAppTitle).setOnLongClickListener(v -> {
+            performanceOverlay.toggle();
+            return true;
+        });
 
         setupListeners();
+        // Firebase and the queue's SharedPreferences load off the UI thread; listeners attach once both are ready
+        decodeExecutor.execute(this::initFirebase);
+        // Buttons and cutter controls sit below the fold; inflate them while the first frame is drawn
+        new AsyncLayoutInflater(this).inflate(R.layout.dashboard_controls, findViewById(R.id.controlsContainer),
+                (view, resid, parent) -> {
+                    parent.addView(view);
+                    bindControls(view);
+                });
+    }
+
+    private void initializeUI() {
+        // Chambers and Sensor Data
+        dashboardRenderer = new SensorDashboardRenderer(findViewById(android.R.id.content));
+        sensorFrameCoalescer = new FrameCoalescer<>(this::updateSensorUI);
+        forecastFrameCoalescer = new FrameCoalescer<>(dashboardRenderer::renderForecast);
+        progressBar = findViewById(R.id.progressBar);
+        colorSynced = ContextCompat.getColor(this, R.color.textColorSecondary);
+        colorPending = ContextCompat.getColor(this, R.color.colorAccent);
+    }
+
+    private void bindControls(View controls) {
+        btnOpenMap = controls.findViewById(R.id.btnOpenMap);
+        btnRefresh = controls.findViewById(R.id.btnRefresh);
+        btnFleet = controls.findViewById(R.id.btnFleet);
+        btnHistory = controls.findViewById(R.id.btnHistory);
+        switchManualServo = controls.findViewById(R.id.switchManualServo);
+        switchAutoMode = controls.findViewById(R.id.switchAutoMode);
+        switchBackgroundMonitoring = controls.findViewById(R.id.switchBackgroundMonitoring);
+        tvServoSyncStatus = controls.findViewById(R.id.tvServoSyncStatus);
 
         btnOpenMap.setOnClickListener(v -> openMap());
         btnRefresh.setOnClickListener(v -> refreshData());
+        btnFleet.setOnClickListener(v -> startActivity(new Intent(this, FleetActivity.class)));
+        btnHistory.setOnClickListener(v -> startActivity(new Intent(this, HistoryChartActivity.class).putExtra(EXTRA_SITE_ID, siteId)));
 
         switchManualServo.setOnCheckedChangeListener((buttonView, isChecked) -> {
             if (buttonView.isPressed()) {
@@ -98,41 +165,53 @@ public class MainActivity extends AppCompatActivity {
         switchAutoMode.setOnCheckedChangeListener((buttonView, isChecked) -> {
             if (buttonView.isPressed()) {
                 updateServoControl("auto_mode", isChecked);
+                cutterController.setAutoMode(isChecked, switchManualServo.isChecked());
+            }
+        });
+
+        switchBackgroundMonitoring.setChecked(MonitoringService.isEnabled(this));
+        switchBackgroundMonitoring.setOnCheckedChangeListener((buttonView, isChecked) -> {
+            if (!buttonView.isPressed()) return;
+            if (isChecked) {
+                requestNotificationPermission();
+                startBackgroundMonitoring();
+            } else {
+                MonitoringService.stop(this);
             }
         });
+        connectCutterControls();
     }
 
-    private void initializeUI() {
-        // Chambers
-        chamber1Layout = findViewById(R.id.chamber1Layout);
-        chamber2Layout = findViewById(R.id.chamber2Layout);
-        chamber3Layout = findViewById(R.id.chamber3Layout);
-        tvWaterLevel1 = findViewById(R.id.tvWaterLevel1);
-        tvWaterLevel2 = findViewById(R.id.tvWaterLevel2);
-        tvWaterLevel3 = findViewById(R.id.tvWaterLevel3);
-        waterIndicator1 = findViewById(R.id.waterIndicator1);
-        waterIndicator2 = findViewById(R.id.waterIndicator2);
-        waterIndicator3 = findViewById(R.id.waterIndicator3);
-
-        // Sensor Data
-        tvAlertType = findViewById(R.id.tvAlertType);
-        ivAlertIcon = findViewById(R.id.ivAlertIcon);
-        tvBlockageDetails = findViewById(R.id.tvBlockageDetails);
-        tvSonar1 = findViewById(R.id.tvSonar1);
-        tvSonar2 = findViewById(R.id.tvSonar2);
-        tvMQ8 = findViewById(R.id.tvMQ8);
-        tvTemperature = findViewById(R.id.tvTemperature);
-        tvIRSensor = findViewById(R.id.tvIRSensor);
-        tvFlameSensor = findViewById(R.id.tvFlameSensor);
-        tvGPSCoordinates = findViewById(R.id.tvGPSCoordinates);
-        tvTimestamp = findViewById(R.id.tvTimestamp);
-
-        // Controls
-        btnOpenMap = findViewById(R.id.btnOpenMap);
-        btnRefresh = findViewById(R.id.btnRefresh);
-        switchManualServo = findViewById(R.id.switchManualServo);
-        switchAutoMode = findViewById(R.id.switchAutoMode);
-        progressBar = findViewById(R.id.progressBar);
+    // Runs on decodeExecutor
+    private void initFirebase() {
+        DatabaseReference sensorRef = BuildConfig.COMPACT_SENSOR_FRAMES ? DrainageDatabase.sensorFrame(siteId) : DrainageDatabase.sensorData(siteId);
+        DatabaseReference servoRef = DrainageDatabase.servoControl(siteId);
+        ServoCommandQueue queue = new ServoCommandQueue(this, siteId, servoRef);
+        runOnUiThread(() -> {
+            if (isDestroyed()) return;
+            sensorDataRef = sensorRef;
+            servoControlRef = servoRef;
+            servoCommandQueue = queue;
+            if (started) {
+                attachFirebaseListeners();
+                servoCommandQueue.start();
+            }
+            connectCutterControls();
+        });
+    }
+
+    // The cutter switches need both their views and the command queue; whichever is ready last connects them
+    private void connectCutterControls() {
+        if (switchManualServo == null || servoCommandQueue == null) return;
+        servoCommandQueue.setStateListener(this::renderServoQueueState);
+        if (lastServoControl != null) applyServoControl(lastServoControl);
+        // Commands left over from a previous process are still pending; show what was requested
+        Boolean pendingServoOn = servoCommandQueue.pendingValue("servo_on");
+        Boolean pendingAutoMode = servoCommandQueue.pendingValue("auto_mode");
+        if (pendingServoOn != null) switchManualServo.setChecked(pendingServoOn);
+        if (pendingAutoMode != null) switchAutoMode.setChecked(pendingAutoMode);
+        switchManualServo.setEnabled(true);
+        switchAutoMode.setEnabled(true);
     }
 
     private void setupListeners() {
@@ -141,13 +220,21 @@ public class MainActivity extends AppCompatActivity {
         sensorDataListener = new ValueEventListener() {
             @Override
             public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
+                long receivedNanos = System.nanoTime();
                 progressBar.setVisibility(View.GONE);
-                SensorFirebaseData sensorData = dataSnapshot.getValue(SensorFirebaseData.class);
-                if (sensorData != null) {
-                    updateSensorUI(sensorData);
-                } else {
-                    Toast.makeText(MainActivity.this, "No sensor data found", Toast.LENGTH_SHORT).show();
-                }
+                decodeExecutor.execute(() -> {
+                    SensorReading reading = decodeSnapshot(dataSnapshot, receivedNanos);
+                    if (reading != null) {
+                        // Storms push several snapshots per frame; only the latest one gets rendered
+                        sensorFrameCoalescer.submit(reading);
+                        recordHistory(reading);
+                        cutterController.onReading(reading);
+                        lastLiveReading = reading;
+                        if (System.currentTimeMillis() - stateSavedAtMillis >= STATE_SAVE_INTERVAL_MILLIS) saveState();
+                    } else {
+                        runOnUiThread(() -> Toast.makeText(MainActivity.this, "No sensor data found", Toast.LENGTH_SHORT).show());
+                    }
+                });
             }
 
             @Override
@@ -163,9 +250,8 @@ public class MainActivity extends AppCompatActivity {
             public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
                 ServoControl control = dataSnapshot.getValue(ServoControl.class);
                 if (control != null) {
-                    // Update switches without triggering their change listeners if not pressed by user
-                    if (!switchManualServo.isPressed()) switchManualServo.setChecked(control.servo_on);
-                    if (!switchAutoMode.isPressed()) switchAutoMode.setChecked(control.auto_mode);
+                    applyServoControl(control);
+                    cutterController.setAutoMode(control.auto_mode, control.servo_on);
                 }
             }
 
@@ -175,178 +261,181 @@ public class MainActivity extends AppCompatActivity {
                 Toast.makeText(MainActivity.this, "Failed to load servo control.", Toast.LENGTH_SHORT).show();
             }
         };
-        attachFirebaseListeners();
+        // Attached in onStart()
     }
 
     private void attachFirebaseListeners() {
         if (sensorDataRef != null && sensorDataListener != null) {
             sensorDataRef.addValueEventListener(sensorDataListener);
+            metrics.listenerAttaches.incrementAndGet();
         }
         if (servoControlRef != null && servoControlListener != null) {
             servoControlRef.addValueEventListener(servoControlListener);
+            metrics.listenerAttaches.incrementAndGet();
         }
     }
 
     private void detachFirebaseListeners() {
         if (sensorDataRef != null && sensorDataListener != null) {
             sensorDataRef.removeEventListener(sensorDataListener);
+            metrics.listenerDetaches.incrementAndGet();
         }
         if (servoControlRef != null && servoControlListener != null) {
             servoControlRef.removeEventListener(servoControlListener);
+            metrics.listenerDetaches.incrementAndGet();
         }
     }
 
-    private void updateSensorUI(SensorFirebaseData sensorData) {
-        // Alert Type
-        if (sensorData.alert != null) {
-            tvAlertType.setText(String.format("Status: %s", sensorData.alert));
-            if ("None".equals(sensorData.alert)) {
-                tvAlertType.setTextColor(ContextCompat.getColor(this, R.color.green_ok));
-                ivAlertIcon.setColorFilter(ContextCompat.getColor(this, R.color.green_ok));
-            } else {
-                tvAlertType.setTextColor(ContextCompat.getColor(this, R.color.red_alert));
-                ivAlertIcon.setColorFilter(ContextCompat.getColor(this, R.color.red_alert));
-            }
+    // Runs on decodeExecutor
+    private SensorReading decodeSnapshot(DataSnapshot dataSnapshot, long receivedNanos) {
+        long start = System.nanoTime();
+        Object value = dataSnapshot.getValue();
+        SensorReading reading = BuildConfig.COMPACT_SENSOR_FRAMES ? frameDecoder.decode(value) : SensorReadingDecoder.decode(value);
+        metrics.decode.recordSince(start);
+        lastReceivedNanos = receivedNanos;
+        return reading;
+    }
+
+    // Runs on decodeExecutor
+    private void recordHistory(SensorReading reading) {
+        analytics.accept(reading);
+        forecastFrameCoalescer.submit(analytics.forecast());
+        try {
+            SensorHistory.forSite(this, siteId).append(reading);
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to record sensor history", e);
         }
+    }
 
-        // GPS Coordinates
-        if (sensorData.gps != null) {
-            currentGpsCoordinates = sensorData.gps;
-            tvGPSCoordinates.setText(String.format(Locale.US, "GPS: %s", currentGpsCoordinates));
+    private void updateSensorUI(SensorReading reading) {
+        if (!SensorReading.isMissing(reading.gps)) {
+            currentGpsCoordinates = reading.gps;
+        }
+        long start = System.nanoTime();
+        dashboardRenderer.render(reading);
+        if (showingSavedState) {
+            // Live now; the renderer only redraws the fields that differ from the saved ones
+            showingSavedState = false;
+            dashboardRenderer.clearStale();
         }
+        reportFullyDrawnOnce();
+        // Runs inside the frame callback, so this is when the reading reaches the next drawn frame
+        long end = System.nanoTime();
+        metrics.uiPass.record(end - start);
+        metrics.receiveToRender.record(end - lastReceivedNanos);
+        if (reading.timestamp != SensorReading.MISSING_TIMESTAMP) {
+            metrics.sensorToRender.record((System.currentTimeMillis() - reading.timestamp * 1000L) * 1_000_000L);
+        }
+    }
 
-        // Detailed Sensor Data
-        if (sensorData.data != null) {
-            SensorDetails details = sensorData.data;
+    private LastKnownState awaitSavedState() {
+        try {
+            return savedState.get();
+        } catch (ExecutionException e) {
+            Log.w(TAG, "Failed to read last known state", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
 
-            // Blockage Details
-            if (details.blockage_type != null && details.blocked_chamber != null) {
-                tvBlockageDetails.setText(String.format(Locale.US, "Blockage: %s (Chamber %d)", details.blockage_type, details.blocked_chamber));
-                tvBlockageDetails.setTextColor(ContextCompat.getColor(this, R.color.red_alert));
-            } else {
-                tvBlockageDetails.setText("Blockage: None");
-                tvBlockageDetails.setTextColor(ContextCompat.getColor(this, R.color.textColorPrimary));
-            }
+    // Draws the previous session's reading right after inflation so the dashboard is never blank
+    private void showSavedReading(LastKnownState state) {
+        if (state == null || state.reading == null) return;
+        if (!SensorReading.isMissing(state.reading.gps)) currentGpsCoordinates = state.reading.gps;
+        dashboardRenderer.render(state.reading);
+        dashboardRenderer.renderStaleSince(state.reading.timestamp);
+        showingSavedState = true;
+        reportFullyDrawnOnce();
+    }
 
-            // MQ8 - Methane Gas
-            double mq8Voltage = details.mq8 != null ? details.mq8 : 0.0;
-            tvMQ8.setText(String.format(Locale.US, "Methane: %s (%.2fV)", mq8Voltage > 1.5 ? "Present" : "Not Present", mq8Voltage));
-            tvMQ8.setTextColor(mq8Voltage > 1.5 ? ContextCompat.getColor(this, R.color.red_alert) : ContextCompat.getColor(this, R.color.textColorPrimary));
-
-            // Flame Sensor
-            boolean flameDetected = details.flame != null && details.flame == 0;
-            tvFlameSensor.setText(String.format("Flame: %s", flameDetected ? "Detected" : "No Flame"));
-            tvFlameSensor.setTextColor(flameDetected ? ContextCompat.getColor(this, R.color.red_alert) : ContextCompat.getColor(this, R.color.textColorPrimary));
-
-            // IR Sensor
-            boolean irObjectDetected = details.ir != null && details.ir == 0;
-            tvIRSensor.setText(String.format("Obstacle (IR): %s", irObjectDetected ? "Detected" : "Clear"));
-            tvIRSensor.setTextColor(irObjectDetected ? ContextCompat.getColor(this, R.color.red_alert) : ContextCompat.getColor(this, R.color.textColorPrimary));
-
-            // Sonar 1
-            double d1 = details.distance1 != null ? details.distance1 : 999.0;
-            tvSonar1.setText(String.format(Locale.US, "Sonar 1: %.1f cm", d1));
-            tvSonar1.setTextColor(d1 < 5.0 ? ContextCompat.getColor(this, R.color.red_alert) : ContextCompat.getColor(this, R.color.textColorPrimary));
-
-            // Sonar 2
-            double d2 = details.distance2 != null ? details.distance2 : 999.0;
-            tvSonar2.setText(String.format(Locale.US, "Sonar 2: %.1f cm", d2));
-            tvSonar2.setTextColor(d2 < 5.0 ? ContextCompat.getColor(this, R.color.red_alert) : ContextCompat.getColor(this, R.color.textColorPrimary));
-
-            // Temperature
-            tvTemperature.setText(String.format(Locale.US, "Temp: %.1f °C", details.temp != null ? details.temp : 0.0));
-            tvTemperature.setTextColor(ContextCompat.getColor(this, R.color.textColorPrimary)); // Reset color if needed
-
-            // Update Chamber Visuals
-            updateChamberVisuals(details.water_levels, "Blockage".equals(sensorData.alert) ? details.blocked_chamber : null);
+    // Runs on decodeExecutor
+    private void saveState() {
+        SensorReading reading = lastLiveReading;
+        ServoControl control = lastServoControl;
+        if (reading == null && control == null) return;
+        stateSavedAtMillis = System.currentTimeMillis();
+        try {
+            new LastKnownState(reading, control != null, control != null && control.servo_on, control != null && control.auto_mode,
+                    stateSavedAtMillis).write(lastStateFile());
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to save last known state", e);
         }
+    }
 
-        // Timestamp
-        if (sensorData.timestamp > 0) {
-            SimpleDateFormat sdf = new SimpleDateFormat("MMM dd, yyyy HH:mm:ss", Locale.getDefault());
-            tvTimestamp.setText(String.format("Last Update: %s", sdf.format(new Date(sensorData.timestamp * 1000L))));
-        }
+    private File lastStateFile() {
+        return new File(new File(getFilesDir(), "last_state"), siteId == null ? "_default" : siteId);
     }
 
-    private void updateChamberVisuals(List<Integer> waterLevels, Integer blockedChamber) {
-        RelativeLayout[] chamberLayouts = {chamber1Layout, chamber2Layout, chamber3Layout};
-        TextView[] waterLevelTextViews = {tvWaterLevel1, tvWaterLevel2, tvWaterLevel3};
-        View[] waterIndicators = {waterIndicator1, waterIndicator2, waterIndicator3};
-
-        int defaultBgRes = R.drawable.chamber_background;
-        int waterIndicatorBgRes = R.drawable.chamber_water_background;
-        int blockedBgRes = R.drawable.chamber_blocked_background;
-
-        if (waterLevels != null && waterLevels.size() == 3) {
-            for (int i = 0; i < 3; i++) {
-                boolean hasWater = waterLevels.get(i) == 1;
-                waterLevelTextViews[i].setText(hasWater ? "Water" : "Empty");
-
-                // Set overall chamber background and text color
-                if (blockedChamber != null && (i + 1) == blockedChamber) {
-                    chamberLayouts[i].setBackgroundResource(blockedBgRes);
-                    waterLevelTextViews[i].setText("BLOCKED");
-                    waterLevelTextViews[i].setTextColor(Color.WHITE); // Ensure text is visible on red
-                } else {
-                    chamberLayouts[i].setBackgroundResource(defaultBgRes);
-                    waterLevelTextViews[i].setTextColor(hasWater ? ContextCompat.getColor(this,R.color.white) : ContextCompat.getColor(this, R.color.textColorSecondary));
-                }
+    // Marks the end of startup for the macrobenchmark's time to full display
+    private void reportFullyDrawnOnce() {
+        if (reportedFullyDrawn) return;
+        reportedFullyDrawn = true;
+        reportFullyDrawn();
+    }
 
-                // Water Indicator Animation/Height
-                final View indicator = waterIndicators[i];
-                float targetHeightFraction = hasWater ? 0.6f : 0.05f;
-                if (blockedChamber != null && (i + 1) == blockedChamber) {
-                    targetHeightFraction = 0.05f; // Minimal water indication if blocked
-                }
+    // Called on decodeExecutor, or on the UI thread when auto mode is switched off
+    private void onCutterActuation(boolean on, long timeSeconds, String reason) {
+        Map<String, Object> entry = new HashMap<>();
+        entry.put("on", on);
+        entry.put("reason", reason);
+        DrainageDatabase.actuationLog(siteId).child(Long.toString(timeSeconds)).setValue(entry);
+        runOnUiThread(() -> {
+            // Same queue as manual commands: batched, persisted, retried
+            servoCommandQueue.enqueue("servo_on", on);
+            // Controls still inflating: connectCutterControls() shows the pending command
+            if (switchManualServo != null) switchManualServo.setChecked(on);
+        });
+    }
 
-                int parentHeight = chamberLayouts[i].getHeight(); // Get height of the chamber RelativeLayout
-                if (parentHeight == 0) {
-                    final int finalI = i; // for use in lambda
-                    final float finalTargetHeightFraction = targetHeightFraction;
-                    chamberLayouts[i].post(() -> { // Wait for layout
-                        int pHeight = chamberLayouts[finalI].getHeight();
-                        animateWaterLevel(waterIndicators[finalI], (int) (pHeight * finalTargetHeightFraction));
-                    });
-                } else {
-                    animateWaterLevel(indicator, (int) (parentHeight * targetHeightFraction));
-                }
-                indicator.setBackgroundResource(waterIndicatorBgRes);
-            }
+    private void updateServoControl(String key, boolean value) {
+        // Queued and batched; the switch keeps showing the requested state while it is pending
+        servoCommandQueue.enqueue(key, value);
+    }
+
+    private void applyServoControl(ServoControl control) {
+        lastServoControl = control;
+        if (switchManualServo == null || servoCommandQueue == null) return; // applied by connectCutterControls()
+        // Update switches without triggering their change listeners if not pressed by user,
+        // and don't let the server's older value overwrite a command that is still pending
+        if (!switchManualServo.isPressed() && !servoCommandQueue.isPending("servo_on")) switchManualServo.setChecked(control.servo_on);
+        if (!switchAutoMode.isPressed() && !servoCommandQueue.isPending("auto_mode")) switchAutoMode.setChecked(control.auto_mode);
+    }
+
+    private void renderServoQueueState(Map<String, Boolean> pending, boolean connected, long retryInMillis) {
+        if (pending.isEmpty()) {
+            tvServoSyncStatus.setText(connected ? "Cutter commands: synced" : "Cutter commands: synced (offline)");
+            tvServoSyncStatus.setTextColor(colorSynced);
+            return;
+        }
+        StringBuilder text = new StringBuilder("Pending: ");
+        boolean first = true;
+        for (Map.Entry<String, Boolean> entry : pending.entrySet()) {
+            if (!first) text.append(", ");
+            text.append(entry.getKey()).append(entry.getValue() ? " ON" : " OFF");
+            first = false;
+        }
+        if (!connected) {
+            text.append(" (offline, queued)");
+        } else if (retryInMillis > 0) {
+            text.append(" (retrying in ").append((retryInMillis + 999) / 1000).append(" s)");
         } else {
-            for (int i = 0; i < 3; i++) {
-                chamberLayouts[i].setBackgroundResource(defaultBgRes);
-                waterLevelTextViews[i].setText("Status");
-                waterLevelTextViews[i].setTextColor(ContextCompat.getColor(this, R.color.textColorSecondary));
-                animateWaterLevel(waterIndicators[i], (int) (chamberLayouts[i].getHeight() * 0.05f));
-            }
+            text.append(" (sending)");
         }
+        tvServoSyncStatus.setText(text);
+        tvServoSyncStatus.setTextColor(colorPending);
     }
 
-    private void animateWaterLevel(View indicatorView, int targetHeight) {
-        if (indicatorView == null) return;
-        ValueAnimator animator = ValueAnimator.ofInt(indicatorView.getLayoutParams().height, targetHeight);
-        animator.addUpdateListener(animation -> {
-            ViewGroup.LayoutParams params = indicatorView.getLayoutParams();
-            params.height = (Integer) animation.getAnimatedValue();
-            indicatorView.setLayoutParams(params);
-        });
-        animator.setDuration(500);
-        animator.setInterpolator(new AccelerateDecelerateInterpolator());
-        animator.start();
+    // Also re-points the monitor at this site and restarts it if the system stopped it
+    private void startBackgroundMonitoring() {
+        MonitoringService.start(this, siteId);
     }
 
-    private void updateServoControl(String key, boolean value) {
-        if (servoControlRef != null) {
-            servoControlRef.child(key).setValue(value)
-                    .addOnSuccessListener(aVoid -> Log.d(TAG, key + " updated to " + value))
-                    .addOnFailureListener(e -> {
-                        Toast.makeText(MainActivity.this, "Failed to update " + key, Toast.LENGTH_SHORT).show();
-                        Log.e(TAG, "Failed to update " + key, e);
-                        // Revert switch state on failure by re-reading from Firebase (or manually)
-                        // This avoids immediate revert if user is quick
-                        if (key.equals("servo_on") && switchManualServo.isChecked() != value) switchManualServo.setChecked(!value);
-                        if (key.equals("auto_mode") && switchAutoMode.isChecked() != value) switchAutoMode.setChecked(!value);
-                    });
+    // Asked only when the operator turns monitoring on, so a denial is not met with a prompt on every start
+    private void requestNotificationPermission() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU
+                && ContextCompat.checkSelfPermission(this, Manifest.permission.POST_NOTIFICATIONS) != PackageManager.PERMISSION_GRANTED) {
+            ActivityCompat.requestPermissions(this, new String[]{Manifest.permission.POST_NOTIFICATIONS}, REQUEST_NOTIFICATIONS);
         }
     }
 
@@ -378,13 +467,18 @@ public class MainActivity extends AppCompatActivity {
                 progressBar.setVisibility(View.GONE); // Hide progress bar regardless of success/failure for sensor data
                 if (task.isSuccessful()) {
                     DataSnapshot dataSnapshot = task.getResult();
-                    SensorFirebaseData sensorData = dataSnapshot.getValue(SensorFirebaseData.class);
-                    if (sensorData != null) {
-                        updateSensorUI(sensorData);
-                        Toast.makeText(MainActivity.this, "Data refreshed", Toast.LENGTH_SHORT).show();
-                    } else {
-                        Toast.makeText(MainActivity.this, "No sensor data found on refresh", Toast.LENGTH_SHORT).show();
-                    }
+                    long receivedNanos = System.nanoTime();
+                    decodeExecutor.execute(() -> {
+                        SensorReading reading = decodeSnapshot(dataSnapshot, receivedNanos);
+                        if (reading != null) {
+                            sensorFrameCoalescer.submit(reading);
+                            recordHistory(reading);
+                            cutterController.onReading(reading);
+                            runOnUiThread(() -> Toast.makeText(MainActivity.this, "Data refreshed", Toast.LENGTH_SHORT).show());
+                        } else {
+                            runOnUiThread(() -> Toast.makeText(MainActivity.this, "No sensor data found on refresh", Toast.LENGTH_SHORT).show());
+                        }
+                    });
                 } else {
                     Log.e(TAG, "Error getting sensor data on refresh.", task.getException());
                     Toast.makeText(MainActivity.this, "Failed to refresh sensor data.", Toast.LENGTH_SHORT).show();
@@ -398,8 +492,8 @@ public class MainActivity extends AppCompatActivity {
                     DataSnapshot dataSnapshot = task.getResult();
                     ServoControl control = dataSnapshot.getValue(ServoControl.class);
                     if (control != null) {
-                        if (!switchManualServo.isPressed()) switchManualServo.setChecked(control.servo_on);
-                        if (!switchAutoMode.isPressed()) switchAutoMode.setChecked(control.auto_mode);
+                        applyServoControl(control);
+                        cutterController.setAutoMode(control.auto_mode, control.servo_on);
                     }
                 } else {
                     Log.e(TAG, "Error getting servo control data on refresh.", task.getException());
@@ -411,12 +505,41 @@ public class MainActivity extends AppCompatActivity {
     @Override
     protected void onStart() {
         super.onStart();
-        attachFirebaseListeners();
+        started = true;
+        if (servoCommandQueue != null) {
+            attachFirebaseListeners();
+            servoCommandQueue.start();
+        }
+        performanceOverlay.onStart();
+        // Started while visible: Android 12+ does not allow starting it from the background
+        if (MonitoringService.isEnabled(this)) startBackgroundMonitoring();
     }
 
     @Override
     protected void onStop() {
         super.onStop();
-        detachFirebaseListeners();
+        started = false;
+        if (servoCommandQueue != null) {
+            detachFirebaseListeners();
+            servoCommandQueue.stop();
+        }
+        performanceOverlay.onStop();
+        sensorFrameCoalescer.cancel();
+        forecastFrameCoalescer.cancel();
+        decodeExecutor.execute(() -> {
+            saveState();
+            try {
+                SensorHistory.forSite(this, siteId).flush();
+            } catch (IOException e) {
+                Log.e(TAG, "Failed to flush sensor history", e);
+            }
+        });
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        // Not shutdownNow(): the save and flush queued by onStop must still run
+        decodeExecutor.shutdown();
     }
 }
\ No newline at end of file
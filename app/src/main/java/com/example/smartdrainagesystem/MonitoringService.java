@@ -0,0 +1,289 @@
+package com.example.smartdrainagesystem;
+
+import android.app.Service;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.SharedPreferences;
+import android.content.pm.ServiceInfo;
+import android.os.BatteryManager;
+import android.os.Build;
+import android.os.IBinder;
+import android.os.PowerManager;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.content.ContextCompat;
+
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.ValueEventListener;
+
+import java.util.Objects;
+
+/**
+ * Watches one site for alerts while no dashboard is open, on the shared DrainageDatabase
+ * connection. How closely it watches follows MonitoringPolicy: the full sensor payload only while
+ * an alert is raised, just the alert child while quiet, and nothing live on low battery, where
+ * AlertCheckWorker's periodic checks take over. Runs on the main thread.
+ */
+public class MonitoringService extends Service {
+
+    private static final String TAG = "MonitoringService";
+    private static final String PREFS = "monitoring";
+    private static final String KEY_ENABLED = "enabled";
+    private static final String KEY_SITE_ID = "site_id";
+    private static final String KEY_NOTIFIED_ALERT = "notified_alert";
+
+    private static final String ACTION_CHECK_RESULT = "com.example.smartdrainagesystem.action.CHECK_RESULT";
+    private static final String EXTRA_ALERT = "alert";
+
+    // Below this charge (and not charging) the service drops to periodic checks while quiet
+    private static final int LOW_BATTERY_PERCENT = 15;
+    // Live details arrive at 1 Hz during an alert; refresh the notification text far less often
+    private static final long DETAILS_REFRESH_MS = 30_000;
+
+    private static volatile boolean running;
+
+    private SharedPreferences prefs;
+    private AlertNotifier notifier;
+    private MonitoringPolicy policy;
+    private String siteId;
+    private boolean watching;
+    private DatabaseReference alertRef;
+    private DatabaseReference sensorRef;
+    private final SensorFrameDecoder frameDecoder = new SensorFrameDecoder();
+    private boolean alertListenerAttached;
+    private boolean sensorListenerAttached;
+    private long detailsShownAt;
+
+    private final ValueEventListener alertListener = new ValueEventListener() {
+        @Override
+        public void onDataChange(@NonNull DataSnapshot snapshot) {
+            Object value = snapshot.getValue();
+            if (value != null) onAlert(value.toString(), null);
+        }
+
+        @Override
+        public void onCancelled(@NonNull DatabaseError error) {
+            Log.w(TAG, "alert:onCancelled", error.toException());
+        }
+    };
+
+    private final ValueEventListener sensorListener = new ValueEventListener() {
+        @Override
+        public void onDataChange(@NonNull DataSnapshot snapshot) {
+            // A single reading per second at most; decoding it here is cheaper than a thread hop
+            Object value = snapshot.getValue();
+            SensorReading reading = BuildConfig.COMPACT_SENSOR_FRAMES ? frameDecoder.decode(value) : SensorReadingDecoder.decode(value);
+            if (reading != null) onAlert(reading.alert, reading);
+        }
+
+        @Override
+        public void onCancelled(@NonNull DatabaseError error) {
+            Log.w(TAG, "sensor:onCancelled", error.toException());
+        }
+    };
+
+    private final BroadcastReceiver batteryReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            if (policy.setBatterySaving(isBatterySaving())) applyMode();
+        }
+    };
+
+    /** Starts monitoring siteId (null for the legacy drain) and keeps it on across restarts. */
+    public static void start(Context context, @Nullable String siteId) {
+        preferences(context).edit().putBoolean(KEY_ENABLED, true).putString(KEY_SITE_ID, siteId).apply();
+        // Must be called while the app is in the foreground on Android 12+
+        ContextCompat.startForegroundService(context, new Intent(context, MonitoringService.class));
+        AlertCheckWorker.schedule(context);
+    }
+
+    public static void stop(Context context) {
+        preferences(context).edit().putBoolean(KEY_ENABLED, false).apply();
+        context.stopService(new Intent(context, MonitoringService.class));
+        AlertCheckWorker.cancel(context);
+    }
+
+    // Off until the operator turns it on: it runs a foreground service and posts notifications
+    public static boolean isEnabled(Context context) {
+        return preferences(context).getBoolean(KEY_ENABLED, false);
+    }
+
+    @Nullable
+    static String monitoredSite(Context context) {
+        return preferences(context).getString(KEY_SITE_ID, null);
+    }
+
+    static String notifiedAlert(Context context) {
+        return preferences(context).getString(KEY_NOTIFIED_ALERT, MonitoringPolicy.NO_ALERT);
+    }
+
+    static void setNotifiedAlert(Context context, String alert) {
+        preferences(context).edit().putString(KEY_NOTIFIED_ALERT, alert).apply();
+    }
+
+    static boolean isRunning() {
+        return running;
+    }
+
+    /** Hands a periodic check's result to the running service, which owns notification state. */
+    static void deliverCheckResult(Context context, String alert) {
+        context.startService(new Intent(context, MonitoringService.class)
+                .setAction(ACTION_CHECK_RESULT)
+                .putExtra(EXTRA_ALERT, alert));
+    }
+
+    private static SharedPreferences preferences(Context context) {
+        return context.getApplicationContext().getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+    }
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        running = true;
+        prefs = preferences(this);
+        notifier = new AlertNotifier(this);
+        policy = new MonitoringPolicy(notifiedAlert(this));
+
+        IntentFilter filter = new IntentFilter();
+        filter.addAction(Intent.ACTION_BATTERY_LOW);
+        filter.addAction(Intent.ACTION_BATTERY_OKAY);
+        filter.addAction(Intent.ACTION_POWER_CONNECTED);
+        filter.addAction(Intent.ACTION_POWER_DISCONNECTED);
+        filter.addAction(PowerManager.ACTION_POWER_SAVE_MODE_CHANGED);
+        ContextCompat.registerReceiver(this, batteryReceiver, filter, ContextCompat.RECEIVER_NOT_EXPORTED);
+    }
+
+    @Override
+    public int onStartCommand(Intent intent, int flags, int startId) {
+        if (!isEnabled(this)) {
+            stopSelf();
+            return START_NOT_STICKY;
+        }
+        String requestedSite = prefs.getString(KEY_SITE_ID, null);
+        if (!watching || !Objects.equals(requestedSite, siteId)) watchSite(requestedSite);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.UPSIDE_DOWN_CAKE) {
+            startForeground(AlertNotifier.MONITORING_NOTIFICATION_ID, notifier.monitoringNotification(siteId, statusText()),
+                    ServiceInfo.FOREGROUND_SERVICE_TYPE_SPECIAL_USE);
+        } else {
+            startForeground(AlertNotifier.MONITORING_NOTIFICATION_ID, notifier.monitoringNotification(siteId, statusText()));
+        }
+        if (intent != null && ACTION_CHECK_RESULT.equals(intent.getAction())) {
+            onAlert(intent.getStringExtra(EXTRA_ALERT), null);
+        }
+        applyMode();
+        return START_STICKY;
+    }
+
+    @Override
+    public void onDestroy() {
+        running = false;
+        unregisterReceiver(batteryReceiver);
+        if (watching) {
+            setAlertListener(false);
+            setSensorListener(false);
+        }
+        super.onDestroy();
+    }
+
+    @Nullable
+    @Override
+    public IBinder onBind(Intent intent) {
+        return null;
+    }
+
+    private void watchSite(@Nullable String site) {
+        if (watching) {
+            // Switched to another site: its alert state starts over
+            setAlertListener(false);
+            setSensorListener(false);
+            notifier.clearAlert();
+            setNotifiedAlert(this, MonitoringPolicy.NO_ALERT);
+            policy = new MonitoringPolicy(MonitoringPolicy.NO_ALERT);
+        }
+        watching = true;
+        siteId = site;
+        alertRef = DrainageDatabase.alert(siteId);
+        sensorRef = BuildConfig.COMPACT_SENSOR_FRAMES ? DrainageDatabase.sensorFrame(siteId) : DrainageDatabase.sensorData(siteId);
+        policy.setBatterySaving(isBatterySaving());
+    }
+
+    private void onAlert(@Nullable String alert, @Nullable SensorReading reading) {
+        if (alert == null) return;
+        boolean changed = policy.onAlert(alert);
+
+        String toAnnounce = policy.takeNotification();
+        if (toAnnounce != null) {
+            notifier.showAlert(siteId, toAnnounce, reading, true);
+            setNotifiedAlert(this, policy.notifiedAlert());
+            detailsShownAt = reading == null ? 0 : SystemClock.elapsedRealtime();
+        } else if (policy.isAlerting() && reading != null
+                && (detailsShownAt == 0 || SystemClock.elapsedRealtime() - detailsShownAt >= DETAILS_REFRESH_MS)) {
+            // Same alert, fresher details: update the notification without sounding again
+            notifier.showAlert(siteId, policy.alert(), reading, false);
+            detailsShownAt = SystemClock.elapsedRealtime();
+        } else if (policy.takeClear()) {
+            notifier.clearAlert();
+            setNotifiedAlert(this, MonitoringPolicy.NO_ALERT);
+        }
+        if (changed) applyMode();
+    }
+
+    private void applyMode() {
+        int mode = policy.mode();
+        setSensorListener(mode == MonitoringPolicy.MODE_FULL);
+        // The full listener already carries the alert, so at most one of the two is attached
+        setAlertListener(mode == MonitoringPolicy.MODE_ALERT_ONLY);
+        notifier.updateMonitoring(siteId, statusText());
+    }
+
+    private void setAlertListener(boolean attach) {
+        if (attach == alertListenerAttached) return;
+        alertListenerAttached = attach;
+        if (attach) {
+            alertRef.addValueEventListener(alertListener);
+            PipelineMetrics.get().listenerAttaches.incrementAndGet();
+        } else {
+            alertRef.removeEventListener(alertListener);
+            PipelineMetrics.get().listenerDetaches.incrementAndGet();
+        }
+    }
+
+    private void setSensorListener(boolean attach) {
+        if (attach == sensorListenerAttached) return;
+        sensorListenerAttached = attach;
+        if (attach) {
+            sensorRef.addValueEventListener(sensorListener);
+            PipelineMetrics.get().listenerAttaches.incrementAndGet();
+        } else {
+            sensorRef.removeEventListener(sensorListener);
+            PipelineMetrics.get().listenerDetaches.incrementAndGet();
+        }
+    }
+
+    private String statusText() {
+        switch (policy.mode()) {
+            case MonitoringPolicy.MODE_FULL:
+                return "Alert: " + policy.alert() + " - live sensor data";
+            case MonitoringPolicy.MODE_SPARSE:
+                return "Quiet - battery saver, checking every 15 min";
+            default:
+                return "Quiet - live alerts";
+        }
+    }
+
+    private boolean isBatterySaving() {
+        PowerManager power = getSystemService(PowerManager.class);
+        if (power != null && power.isPowerSaveMode()) return true;
+        BatteryManager battery = getSystemService(BatteryManager.class);
+        if (battery == null || battery.isCharging()) return false;
+        int percent = battery.getIntProperty(BatteryManager.BATTERY_PROPERTY_CAPACITY);
+        return percent > 0 && percent <= LOW_BATTERY_PERCENT;
+    }
+}
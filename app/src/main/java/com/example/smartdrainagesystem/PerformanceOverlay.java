@@ -0,0 +1,117 @@
+package com.example.smartdrainagesystem;
+
+import android.app.Activity;
+import android.content.Intent;
+import android.graphics.Color;
+import android.graphics.Typeface;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.util.TypedValue;
+import android.view.Gravity;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+import android.widget.TextView;
+import android.widget.Toast;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * Hidden debug overlay showing PipelineMetrics on top of an activity.
+ * Refreshes once a second while shown, and only then. Tapping it writes a snapshot to
+ * Android/data/<package>/files/telemetry/ and offers to share it for a field report.
+ * Must be used from the main thread.
+ */
+public class PerformanceOverlay {
+
+    private static final String TAG = "PerformanceOverlay";
+    private static final long REFRESH_INTERVAL_MS = 1_000;
+
+    private final Activity activity;
+    private final TextView overlayView;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable refreshRunnable = this::refresh;
+    private final String siteLabel;
+
+    public PerformanceOverlay(Activity activity, String siteId) {
+        this.activity = activity;
+        this.siteLabel = siteId == null ? "default" : siteId;
+
+        overlayView = new TextView(activity);
+        overlayView.setTypeface(Typeface.MONOSPACE);
+        overlayView.setTextSize(TypedValue.COMPLEX_UNIT_SP, 9);
+        overlayView.setTextColor(Color.WHITE);
+        overlayView.setBackgroundColor(0xCC000000);
+        int padding = (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, 6, activity.getResources().getDisplayMetrics());
+        overlayView.setPadding(padding, padding, padding, padding);
+        overlayView.setVisibility(View.GONE);
+        overlayView.setOnClickListener(v -> exportSnapshot());
+
+        ViewGroup content = activity.findViewById(android.R.id.content);
+        content.addView(overlayView, new FrameLayout.LayoutParams(
+                ViewGroup.LayoutParams.WRAP_CONTENT, ViewGroup.LayoutParams.WRAP_CONTENT, Gravity.BOTTOM | Gravity.END));
+    }
+
+    public void toggle() {
+        boolean show = overlayView.getVisibility() != View.VISIBLE;
+        overlayView.setVisibility(show ? View.VISIBLE : View.GONE);
+        if (show) {
+            refresh();
+        } else {
+            handler.removeCallbacks(refreshRunnable);
+        }
+    }
+
+    public void onStart() {
+        if (overlayView.getVisibility() == View.VISIBLE) refresh();
+    }
+
+    public void onStop() {
+        handler.removeCallbacks(refreshRunnable);
+    }
+
+    private void refresh() {
+        overlayView.setText(PipelineMetrics.get().report(System.currentTimeMillis()) + "tap to export");
+        handler.postDelayed(refreshRunnable, REFRESH_INTERVAL_MS);
+    }
+
+    private void exportSnapshot() {
+        long now = System.currentTimeMillis();
+        String report = header(now) + PipelineMetrics.get().report(now);
+        File dir = new File(activity.getExternalFilesDir(null), "telemetry");
+        File file = new File(dir, "pipeline-" + new SimpleDateFormat("yyyyMMdd-HHmmss", Locale.US).format(new Date(now)) + ".txt");
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            Log.e(TAG, "Cannot create " + dir);
+        } else {
+            try (Writer out = new FileWriter(file)) {
+                out.write(report);
+                Toast.makeText(activity, "Saved " + file.getName(), Toast.LENGTH_SHORT).show();
+            } catch (IOException e) {
+                Log.e(TAG, "Failed to write telemetry snapshot", e);
+                Toast.makeText(activity, "Failed to save telemetry snapshot.", Toast.LENGTH_SHORT).show();
+                return;
+            }
+        }
+
+        Intent share = new Intent(Intent.ACTION_SEND);
+        share.setType("text/plain");
+        share.putExtra(Intent.EXTRA_SUBJECT, "Drainage pipeline telemetry " + siteLabel);
+        share.putExtra(Intent.EXTRA_TEXT, report);
+        activity.startActivity(Intent.createChooser(share, "Share telemetry"));
+    }
+
+    private String header(long now) {
+        return "taken " + new SimpleDateFormat("yyyy-MM-dd HH:mm:ss Z", Locale.US).format(new Date(now)) + "\n"
+                + "site " + siteLabel + "\n"
+                + "app " + BuildConfig.VERSION_NAME + (BuildConfig.COMPACT_SENSOR_FRAMES ? " (sensor_frame)" : " (sensor_data)") + "\n"
+                + "device " + Build.MANUFACTURER + " " + Build.MODEL + ", Android " + Build.VERSION.RELEASE + "\n";
+    }
+}
@@ -0,0 +1,219 @@
+package com.example.smartdrainagesystem;
+
+import android.content.Context;
+import android.view.View;
+import android.widget.ImageView;
+import android.widget.TextView;
+
+import androidx.core.content.ContextCompat;
+
+/**
+ * Renders SensorReadings into the dashboard views.
+ * Keeps the last rendered values and only touches views whose value actually changed,
+ * so a snapshot that differs in one field costs one setText instead of a full pass.
+ * Warning colors come from an AlertEngine running the default rules, so a value hovering at a
+ * threshold does not make its line flicker.
+ * Text is formatted by DashboardText into reused char arrays and handed over with
+ * setText(char[], int, int), so a steady stream of updates leaves no garbage behind.
+ */
+public class SensorDashboardRenderer {
+
+    private final ChamberGaugeView chamberGauge;
+    private final TextView tvAlertType, tvBlockageDetails, tvSonar1, tvSonar2, tvMQ8, tvTemperature;
+    private final TextView tvIRSensor, tvFlameSensor, tvGPSCoordinates, tvTimestamp, tvForecast, tvStaleSince;
+    private final ImageView ivAlertIcon;
+
+    // Colors resolved once instead of on every update
+    private final int colorOk, colorAlert, colorTextPrimary;
+
+    private final AlertEngine alertEngine = new AlertEngine(null);
+    private final int alertSite = alertEngine.site("dashboard");
+    private final int ruleSonar1 = alertEngine.ruleIndex(alertSite, "sonar1_close");
+    private final int ruleSonar2 = alertEngine.ruleIndex(alertSite, "sonar2_close");
+    private final int ruleMethane = alertEngine.ruleIndex(alertSite, "methane");
+    private final int ruleFlame = alertEngine.ruleIndex(alertSite, "flame");
+    private final int ruleObstacle = alertEngine.ruleIndex(alertSite, "obstacle");
+
+    private final DashboardText text = new DashboardText(TimestampFormat.forDefaultLocale());
+
+    // Last rendered state; fields absent from a snapshot keep showing the previous value
+    private String renderedAlert, renderedGps;
+    private long renderedTimestamp;
+    private SensorReading renderedDetails; // null until a snapshot with a "data" node was rendered
+    private int renderedActive; // bit per rule index that was active at the last render
+    private long renderedForecastMinutes = Long.MIN_VALUE;
+    private boolean renderedBlockageDeveloping;
+
+    public SensorDashboardRenderer(View root) {
+        Context context = root.getContext();
+
+        chamberGauge = root.findViewById(R.id.chamberGauge);
+
+        tvAlertType = root.findViewById(R.id.tvAlertType);
+        ivAlertIcon = root.findViewById(R.id.ivAlertIcon);
+        tvBlockageDetails = root.findViewById(R.id.tvBlockageDetails);
+        tvSonar1 = root.findViewById(R.id.tvSonar1);
+        tvSonar2 = root.findViewById(R.id.tvSonar2);
+        tvMQ8 = root.findViewById(R.id.tvMQ8);
+        tvTemperature = root.findViewById(R.id.tvTemperature);
+        tvIRSensor = root.findViewById(R.id.tvIRSensor);
+        tvFlameSensor = root.findViewById(R.id.tvFlameSensor);
+        tvGPSCoordinates = root.findViewById(R.id.tvGPSCoordinates);
+        tvTimestamp = root.findViewById(R.id.tvTimestamp);
+        tvForecast = root.findViewById(R.id.tvForecast);
+        tvStaleSince = root.findViewById(R.id.tvStaleSince);
+
+        colorOk = ContextCompat.getColor(context, R.color.green_ok);
+        colorAlert = ContextCompat.getColor(context, R.color.red_alert);
+        colorTextPrimary = ContextCompat.getColor(context, R.color.textColorPrimary);
+    }
+
+    public void render(SensorReading reading) {
+        // Alert Type
+        if (!SensorReading.isMissing(reading.alert) && !reading.alert.equals(renderedAlert)) {
+            renderedAlert = reading.alert;
+            if (text.status(reading.alert)) show(tvAlertType, text.status);
+            int color = "None".equals(reading.alert) ? colorOk : colorAlert;
+            applyColor(tvAlertType, color);
+            ivAlertIcon.setColorFilter(color);
+        }
+
+        // GPS Coordinates
+        if (!SensorReading.isMissing(reading.gps) && !reading.gps.equals(renderedGps)) {
+            renderedGps = reading.gps;
+            if (text.gps(reading.gps)) show(tvGPSCoordinates, text.gps);
+        }
+
+        // Detailed Sensor Data
+        alertEngine.evaluate(alertSite, reading);
+        int active = activeRules();
+        if (reading.hasDetails) {
+            renderDetails(reading, renderedDetails, active, active ^ renderedActive);
+            updateChamberVisuals(reading);
+            renderedDetails = reading;
+            renderedActive = active;
+        } else if (renderedDetails != null && active != renderedActive) {
+            // A rule raised or cleared on time alone; recolor the last values
+            renderDetails(renderedDetails, renderedDetails, active, active ^ renderedActive);
+            renderedActive = active;
+        }
+
+        // Timestamp
+        if (reading.timestamp > 0 && reading.timestamp != renderedTimestamp) {
+            renderedTimestamp = reading.timestamp;
+            if (text.timestamp(reading.timestamp)) show(tvTimestamp, text.timestamp);
+        }
+    }
+
+    /** Marks everything shown as saved state whose newest reading was taken at timestampSeconds. */
+    public void renderStaleSince(long timestampSeconds) {
+        if (text.staleSince(timestampSeconds)) show(tvStaleSince, text.staleSince);
+        tvStaleSince.setVisibility(View.VISIBLE);
+    }
+
+    public void clearStale() {
+        tvStaleSince.setVisibility(View.GONE);
+    }
+
+    public void renderForecast(DrainForecast forecast) {
+        // Minute resolution is all the text shows, so finer changes are not worth a redraw
+        long minutes = forecast.overflowExpected() ? (long) Math.ceil(forecast.timeToOverflowSeconds / 60.0) : -1;
+        if (minutes == renderedForecastMinutes && forecast.blockageDeveloping == renderedBlockageDeveloping) return;
+        renderedForecastMinutes = minutes;
+        renderedBlockageDeveloping = forecast.blockageDeveloping;
+
+        if (text.forecast(minutes, forecast.blockageDeveloping)) show(tvForecast, text.forecast);
+        applyColor(tvForecast, forecast.blockageDeveloping ? colorAlert : colorTextPrimary);
+    }
+
+    // TextView wraps the array instead of copying it into a new String
+    private static void show(TextView view, TextLine line) {
+        view.setText(line.chars(), 0, line.length());
+    }
+
+    // setTextColor builds a ColorStateList and invalidates even for the color already shown
+    private static void applyColor(TextView view, int color) {
+        if (view.getCurrentTextColor() != color) view.setTextColor(color);
+    }
+
+    private int activeRules() {
+        int active = 0;
+        for (int rule = 0; rule < alertEngine.ruleCount(alertSite); rule++) {
+            if (alertEngine.isActive(alertSite, rule)) active |= 1 << rule;
+        }
+        return active;
+    }
+
+    private static boolean isSet(int bits, int rule) {
+        return (bits & (1 << rule)) != 0;
+    }
+
+    // changedActive holds the rules whose state differs from the last render
+    private void renderDetails(SensorReading details, SensorReading last, int active, int changedActive) {
+        // Blockage Details
+        if (last == null || !details.blockageType.equals(last.blockageType) || details.blockedChamber != last.blockedChamber) {
+            if (!SensorReading.isMissing(details.blockageType) && !SensorReading.isMissing(details.blockedChamber)) {
+                if (text.blockage(details.blockageType, details.blockedChamber)) show(tvBlockageDetails, text.blockage);
+                applyColor(tvBlockageDetails, colorAlert);
+            } else {
+                if (text.blockage(null, 0)) show(tvBlockageDetails, text.blockage);
+                applyColor(tvBlockageDetails, colorTextPrimary);
+            }
+        }
+
+        // MQ8 - Methane Gas
+        if (last == null || Double.compare(details.mq8, last.mq8) != 0 || isSet(changedActive, ruleMethane)) {
+            double mq8Voltage = SensorReading.isMissing(details.mq8) ? 0.0 : details.mq8;
+            boolean present = isSet(active, ruleMethane);
+            if (text.methane(present, mq8Voltage)) show(tvMQ8, text.methane);
+            applyColor(tvMQ8, present ? colorAlert : colorTextPrimary);
+        }
+
+        // Flame Sensor
+        if (last == null || details.flame != last.flame || isSet(changedActive, ruleFlame)) {
+            boolean flameDetected = details.flame == 0;
+            if (text.flame(flameDetected)) show(tvFlameSensor, text.flame);
+            applyColor(tvFlameSensor, isSet(active, ruleFlame) ? colorAlert : colorTextPrimary);
+        }
+
+        // IR Sensor
+        if (last == null || details.ir != last.ir || isSet(changedActive, ruleObstacle)) {
+            boolean irObjectDetected = details.ir == 0;
+            if (text.obstacle(irObjectDetected)) show(tvIRSensor, text.obstacle);
+            applyColor(tvIRSensor, isSet(active, ruleObstacle) ? colorAlert : colorTextPrimary);
+        }
+
+        // Sonar 1
+        if (last == null || Double.compare(details.distance1, last.distance1) != 0 || isSet(changedActive, ruleSonar1)) {
+            double d1 = SensorReading.isMissing(details.distance1) ? 999.0 : details.distance1;
+            if (text.sonar1(d1)) show(tvSonar1, text.sonar1);
+            applyColor(tvSonar1, isSet(active, ruleSonar1) ? colorAlert : colorTextPrimary);
+        }
+
+        // Sonar 2
+        if (last == null || Double.compare(details.distance2, last.distance2) != 0 || isSet(changedActive, ruleSonar2)) {
+            double d2 = SensorReading.isMissing(details.distance2) ? 999.0 : details.distance2;
+            if (text.sonar2(d2)) show(tvSonar2, text.sonar2);
+            applyColor(tvSonar2, isSet(active, ruleSonar2) ? colorAlert : colorTextPrimary);
+        }
+
+        // Temperature
+        if (last == null || Double.compare(details.temp, last.temp) != 0) {
+            if (text.temperature(SensorReading.isMissing(details.temp) ? 0.0 : details.temp)) show(tvTemperature, text.temperature);
+            applyColor(tvTemperature, colorTextPrimary);
+        }
+    }
+
+    private void updateChamberVisuals(SensorReading reading) {
+        // The gauge ignores unchanged values, so this only invalidates when something moved
+        int count = reading.chamberCount();
+        if (count == 0) {
+            chamberGauge.setLevelsUnknown();
+            return;
+        }
+        chamberGauge.setChamberCount(count);
+        for (int i = 0; i < count; i++) chamberGauge.setLevel(i, reading.waterLevel(i));
+        chamberGauge.setBlockedChamber("Blockage".equals(reading.alert) && !SensorReading.isMissing(reading.blockedChamber)
+                ? reading.blockedChamber : ChamberGaugeView.NO_BLOCKED_CHAMBER);
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.smartdrainagesystem;
+
+import android.content.Context;
+
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Process-wide registry of history stores, one directory per site under files/history.
+ * Stores stay open for the lifetime of the process since their segments are memory-mapped.
+ * Exports run on a process-wide executor as well, so one outlives the screen that started it.
+ */
+public final class SensorHistory {
+
+    private static final String LEGACY_SITE = "_default";
+    private static final Map<String, SensorHistoryStore> stores = new HashMap<>();
+    private static final ExecutorService exportExecutor = Executors.newSingleThreadExecutor();
+
+    private SensorHistory() {
+    }
+
+    public static synchronized SensorHistoryStore forSite(Context context, @Nullable String siteId) throws IOException {
+        String key = siteId == null ? LEGACY_SITE : siteId;
+        SensorHistoryStore store = stores.get(key);
+        if (store == null) {
+            File directory = new File(new File(context.getApplicationContext().getFilesDir(), "history"), key);
+            store = SensorHistoryStore.open(directory);
+            stores.put(key, store);
+        }
+        return store;
+    }
+
+    public static Executor exportExecutor() {
+        return exportExecutor;
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.smartdrainagesystem;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.ValueEventListener;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Offline-first queue for servo_control writes.
+ *
+ * Each command is the absolute target value of one key (servo_on, auto_mode), so repeated
+ * toggles collapse to the last value per key and a retried write is idempotent. Pending values
+ * are persisted in SharedPreferences before anything is sent and only removed once Firebase
+ * acknowledges them, so they survive process death. Everything pending is sent as one
+ * multi-path updateChildren() write; failures are retried with exponential backoff.
+ * Must be used from the main thread.
+ */
+public class ServoCommandQueue {
+
+    private static final String TAG = "ServoCommandQueue";
+    private static final String PREFS_PREFIX = "servo_queue_";
+
+    // Short delay so servo_on and auto_mode flipped together go out as one write
+    private static final long BATCH_WINDOW_MS = 300;
+    private static final long INITIAL_BACKOFF_MS = 1_000;
+    private static final long MAX_BACKOFF_MS = 60_000;
+
+    public interface StateListener {
+        /**
+         * @param pending        values not yet acknowledged by the server, keyed by servo_control child
+         * @param connected      whether the client currently has a connection to Firebase
+         * @param retryInMillis  delay until the next attempt after a failure, 0 when not backing off
+         */
+        void onQueueStateChanged(Map<String, Boolean> pending, boolean connected, long retryInMillis);
+    }
+
+    private final DatabaseReference servoControlRef;
+    private final DatabaseReference connectedRef;
+    private final SharedPreferences prefs;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Map<String, Boolean> pending = new HashMap<>();
+    private final Runnable flushRunnable = this::flush;
+
+    @Nullable
+    private StateListener stateListener;
+    @Nullable
+    private Map<String, Boolean> inFlight;
+    private long backoffMs = INITIAL_BACKOFF_MS;
+    private long retryAt;
+    private boolean connected;
+    private boolean started;
+
+    private final ValueEventListener connectionListener = new ValueEventListener() {
+        @Override
+        public void onDataChange(@NonNull DataSnapshot snapshot) {
+            Boolean value = snapshot.getValue(Boolean.class);
+            connected = value != null && value;
+            if (connected && inFlight == null && !pending.isEmpty()) {
+                // Back online: skip the rest of any backoff
+                handler.removeCallbacks(flushRunnable);
+                retryAt = 0;
+                handler.post(flushRunnable);
+            }
+            notifyState();
+        }
+
+        @Override
+        public void onCancelled(@NonNull DatabaseError error) {
+            Log.w(TAG, "connection state:onCancelled", error.toException());
+        }
+    };
+
+    public ServoCommandQueue(Context context, @Nullable String siteId, DatabaseReference servoControlRef) {
+        this.servoControlRef = servoControlRef;
+        this.connectedRef = servoControlRef.getDatabase().getReference(".info/connected");
+        this.prefs = context.getApplicationContext()
+                .getSharedPreferences(PREFS_PREFIX + (siteId == null ? "default" : siteId), Context.MODE_PRIVATE);
+        for (Map.Entry<String, ?> entry : prefs.getAll().entrySet()) {
+            if (entry.getValue() instanceof Boolean) pending.put(entry.getKey(), (Boolean) entry.getValue());
+        }
+    }
+
+    public void setStateListener(@Nullable StateListener stateListener) {
+        this.stateListener = stateListener;
+        notifyState();
+    }
+
+    public void start() {
+        if (started) return;
+        started = true;
+        connectedRef.addValueEventListener(connectionListener);
+        if (!pending.isEmpty()) scheduleFlush(0);
+    }
+
+    public void stop() {
+        if (!started) return;
+        started = false;
+        connectedRef.removeEventListener(connectionListener);
+        handler.removeCallbacks(flushRunnable);
+        // An in-flight write completes on its own; whatever is left stays persisted for next start()
+    }
+
+    public void enqueue(String key, boolean value) {
+        pending.put(key, value);
+        prefs.edit().putBoolean(key, value).apply();
+        notifyState();
+        if (inFlight == null && retryAt == 0) scheduleFlush(BATCH_WINDOW_MS);
+    }
+
+    public boolean isPending(String key) {
+        return pending.containsKey(key);
+    }
+
+    @Nullable
+    public Boolean pendingValue(String key) {
+        return pending.get(key);
+    }
+
+    private void scheduleFlush(long delayMs) {
+        handler.removeCallbacks(flushRunnable);
+        handler.postDelayed(flushRunnable, delayMs);
+    }
+
+    private void flush() {
+        if (!started || inFlight != null || pending.isEmpty()) return;
+        retryAt = 0;
+        Map<String, Boolean> batch = new HashMap<>(pending);
+        inFlight = batch;
+        long sentAt = System.nanoTime();
+        servoControlRef.updateChildren(new HashMap<String, Object>(batch))
+                .addOnSuccessListener(aVoid -> {
+                    PipelineMetrics.get().servoWrite.recordSince(sentAt);
+                    onAcknowledged(batch);
+                })
+                .addOnFailureListener(e -> onFailed(batch, e));
+        notifyState();
+    }
+
+    private void onAcknowledged(Map<String, Boolean> batch) {
+        inFlight = null;
+        backoffMs = INITIAL_BACKOFF_MS;
+        SharedPreferences.Editor editor = prefs.edit();
+        for (Map.Entry<String, Boolean> sent : batch.entrySet()) {
+            // A newer value queued while this write was in flight stays pending
+            if (sent.getValue().equals(pending.get(sent.getKey()))) {
+                pending.remove(sent.getKey());
+                editor.remove(sent.getKey());
+            }
+        }
+        editor.apply();
+        Log.d(TAG, "servo_control updated: " + batch);
+        notifyState();
+        if (!pending.isEmpty()) scheduleFlush(0);
+    }
+
+    private void onFailed(Map<String, Boolean> batch, Exception e) {
+        inFlight = null;
+        Log.e(TAG, "Failed to update servo_control " + batch + ", retrying in " + backoffMs + " ms", e);
+        retryAt = System.currentTimeMillis() + backoffMs;
+        scheduleFlush(backoffMs);
+        backoffMs = Math.min(backoffMs * 2, MAX_BACKOFF_MS);
+        notifyState();
+    }
+
+    private void notifyState() {
+        if (stateListener == null) return;
+        long retryIn = retryAt == 0 ? 0 : Math.max(0, retryAt - System.currentTimeMillis());
+        stateListener.onQueueStateChanged(new HashMap<>(pending), connected, retryIn);
+    }
+}
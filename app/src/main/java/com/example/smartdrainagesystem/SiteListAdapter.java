@@ -0,0 +1,126 @@
+package com.example.smartdrainagesystem;
+
+import android.content.Context;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.ProgressBar;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.core.content.ContextCompat;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Recycled grid of drainage sites, bound from their compact SiteSummary alone. The aggregator
+ * already applies the dashboard's thresholds, so cards just show its warning bits.
+ */
+public class SiteListAdapter extends RecyclerView.Adapter<SiteListAdapter.SiteViewHolder> {
+
+    public interface OnSiteClickListener {
+        void onSiteClick(SiteSummary site);
+    }
+
+    private final List<SiteSummary> sites = new ArrayList<>(); // sorted by siteId
+    private final OnSiteClickListener clickListener;
+    private final int colorOk, colorAlert, colorTextSecondary;
+
+    public SiteListAdapter(Context context, OnSiteClickListener clickListener) {
+        this.clickListener = clickListener;
+        colorOk = ContextCompat.getColor(context, R.color.green_ok);
+        colorAlert = ContextCompat.getColor(context, R.color.red_alert);
+        colorTextSecondary = ContextCompat.getColor(context, R.color.textColorSecondary);
+    }
+
+    public void upsertSummary(SiteSummary summary) {
+        int index = indexOf(summary.siteId);
+        if (index >= 0) {
+            sites.set(index, summary);
+            notifyItemChanged(index);
+        } else {
+            int insertAt = -index - 1;
+            sites.add(insertAt, summary);
+            notifyItemInserted(insertAt);
+        }
+    }
+
+    public void removeSummary(String siteId) {
+        int index = indexOf(siteId);
+        if (index >= 0) {
+            sites.remove(index);
+            notifyItemRemoved(index);
+        }
+    }
+
+    @Override
+    public int getItemCount() {
+        return sites.size();
+    }
+
+    @NonNull
+    @Override
+    public SiteViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.item_site, parent, false);
+        SiteViewHolder holder = new SiteViewHolder(view);
+        view.setOnClickListener(v -> {
+            int position = holder.getBindingAdapterPosition();
+            if (position != RecyclerView.NO_POSITION) clickListener.onSiteClick(sites.get(position));
+        });
+        return holder;
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull SiteViewHolder holder, int position) {
+        SiteSummary site = sites.get(position);
+        holder.tvSiteName.setText(site.name);
+        holder.tvSiteStatus.setText(site.alert.isEmpty() ? "Status: -" : "Status: " + site.alert);
+        holder.tvSiteStatus.setTextColor(site.isAlerting() ? colorAlert : colorOk);
+        holder.pbSiteFill.setProgress(site.fillPercent);
+        bindDetails(holder, site);
+    }
+
+    private void bindDetails(SiteViewHolder holder, SiteSummary site) {
+        StringBuilder text = new StringBuilder();
+        if (site.closestDistanceCm != SiteSummary.NO_DISTANCE) text.append("Sonar ").append(site.closestDistanceCm).append(" cm");
+        if (site.blockedChamber > 0) appendDetail(text, "Blocked chamber " + site.blockedChamber);
+        if (site.hasWarning(SiteSummary.WARNING_METHANE)) appendDetail(text, "Methane");
+        if (site.hasWarning(SiteSummary.WARNING_FLAME)) appendDetail(text, "Flame");
+        holder.tvSiteLive.setText(text);
+        boolean warning = site.hasWarning(SiteSummary.WARNING_SONAR_CLOSE | SiteSummary.WARNING_METHANE | SiteSummary.WARNING_FLAME);
+        holder.tvSiteLive.setTextColor(warning ? colorAlert : colorTextSecondary);
+    }
+
+    private static void appendDetail(StringBuilder text, String detail) {
+        if (text.length() > 0) text.append(" · ");
+        text.append(detail);
+    }
+
+    // Binary search by siteId; returns -(insertion point) - 1 when absent, like Collections.binarySearch
+    private int indexOf(String siteId) {
+        int low = 0, high = sites.size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = sites.get(mid).siteId.compareTo(siteId);
+            if (cmp < 0) low = mid + 1;
+            else if (cmp > 0) high = mid - 1;
+            else return mid;
+        }
+        return -(low + 1);
+    }
+
+    static class SiteViewHolder extends RecyclerView.ViewHolder {
+        final TextView tvSiteName, tvSiteStatus, tvSiteLive;
+        final ProgressBar pbSiteFill;
+
+        SiteViewHolder(View itemView) {
+            super(itemView);
+            tvSiteName = itemView.findViewById(R.id.tvSiteName);
+            tvSiteStatus = itemView.findViewById(R.id.tvSiteStatus);
+            tvSiteLive = itemView.findViewById(R.id.tvSiteLive);
+            pbSiteFill = itemView.findViewById(R.id.pbSiteFill);
+        }
+    }
+}
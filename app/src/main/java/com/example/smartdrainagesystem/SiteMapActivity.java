@@ -0,0 +1,305 @@
+package com.example.smartdrainagesystem;
+
+import android.Manifest;
+import android.content.Intent;
+import android.content.pm.PackageManager;
+import android.location.Location;
+import android.location.LocationManager;
+import android.os.Bundle;
+import android.util.Log;
+import android.view.View;
+import android.widget.TextView;
+import android.widget.Toast;
+
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.appcompat.widget.Toolbar;
+import androidx.core.content.ContextCompat;
+
+import com.google.firebase.database.ChildEventListener;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.ValueEventListener;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Fleet map: every site from the compact site_index node in a SiteIndex, drawn clustered by
+ * SiteMapView, plus "nearest blocked drains to me".
+ *
+ * Only site_index is downloaded for the whole fleet. Full summaries are subscribed to for the
+ * sites inside the settled viewport, and only while it holds at most MAX_VIEWPORT_SUBSCRIPTIONS
+ * of them; zoomed further out the clusters are drawn from site_index alone.
+ */
+public class SiteMapActivity extends AppCompatActivity implements SiteMapView.Listener {
+
+    private static final String TAG = "SiteMapActivity";
+    private static final int MAX_VIEWPORT_SUBSCRIPTIONS = 50;
+    private static final int NEAREST_COUNT = 5;
+
+    private SiteMapView siteMap;
+    private TextView tvMapStatus, tvNearest;
+
+    private final SiteIndex index = new SiteIndex();
+    private DatabaseReference siteIndexRef;
+    private ChildEventListener siteIndexListener;
+    private boolean fitted;
+
+    // summary/{siteId} listeners of the sites in view
+    private final Map<String, ValueEventListener> viewportListeners = new HashMap<>();
+    private final Map<String, SiteSummary> summaries = new HashMap<>();
+    private int viewSouth, viewWest, viewNorth, viewEast;
+    private boolean hasViewport;
+
+    private final int[] nearest = new int[NEAREST_COUNT];
+    private final Runnable indexSettled = () -> {
+        // Sites may have moved into or out of the viewport
+        if (hasViewport) subscribeViewport();
+        else updateStatus();
+    };
+    private final ActivityResultLauncher<String> locationPermission = registerForActivityResult(
+            new ActivityResultContracts.RequestPermission(), granted -> showNearestBlocked());
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_site_map);
+
+        Toolbar toolbar = findViewById(R.id.toolbar);
+        setSupportActionBar(toolbar);
+        if (getSupportActionBar() != null) {
+            getSupportActionBar().setDisplayShowTitleEnabled(false); // Using custom title
+        }
+
+        tvMapStatus = findViewById(R.id.tvMapStatus);
+        tvNearest = findViewById(R.id.tvNearest);
+        siteMap = findViewById(R.id.siteMap);
+        siteMap.setIndex(index);
+        siteMap.setListener(this);
+        findViewById(R.id.btnNearestBlocked).setOnClickListener(v -> {
+            if (hasLocationPermission()) {
+                showNearestBlocked();
+            } else {
+                locationPermission.launch(Manifest.permission.ACCESS_COARSE_LOCATION);
+            }
+        });
+
+        siteIndexRef = DrainageDatabase.siteIndex();
+        siteIndexListener = new ChildEventListener() {
+            @Override
+            public void onChildAdded(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
+                onSiteIndexEntry(snapshot);
+            }
+
+            @Override
+            public void onChildChanged(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
+                onSiteIndexEntry(snapshot);
+            }
+
+            @Override
+            public void onChildRemoved(@NonNull DataSnapshot snapshot) {
+                String siteId = snapshot.getKey();
+                int slot = index.slot(siteId);
+                if (slot < 0) return;
+                unsubscribe(siteId);
+                siteMap.setLabel(slot, null);
+                index.remove(siteId);
+                siteMap.onIndexChanged();
+                scheduleIndexSettled();
+            }
+
+            @Override
+            public void onChildMoved(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
+                // Unordered
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError databaseError) {
+                Log.w(TAG, "loadSiteIndex:onCancelled", databaseError.toException());
+                Toast.makeText(SiteMapActivity.this, "Failed to load sites.", Toast.LENGTH_SHORT).show();
+            }
+        };
+    }
+
+    private void onSiteIndexEntry(DataSnapshot snapshot) {
+        Object lat = snapshot.child("y").getValue(), lon = snapshot.child("x").getValue(), flags = snapshot.child("k").getValue();
+        if (!(lat instanceof Number) || !(lon instanceof Number)) return;
+        int slot = index.put(snapshot.getKey(), ((Number) lat).intValue(), ((Number) lon).intValue());
+        index.setFlags(slot, flags instanceof Number ? ((Number) flags).intValue() : 0);
+        siteMap.onIndexChanged();
+        scheduleIndexSettled();
+    }
+
+    @Override
+    protected void onStart() {
+        super.onStart();
+        siteIndexRef.addChildEventListener(siteIndexListener);
+        if (!fitted) {
+            // Value events follow the child events of the same sync, so every site is in by now
+            siteIndexRef.addListenerForSingleValueEvent(new ValueEventListener() {
+                @Override
+                public void onDataChange(@NonNull DataSnapshot snapshot) {
+                    fitted = true;
+                    siteMap.fitSites();
+                }
+
+                @Override
+                public void onCancelled(@NonNull DatabaseError databaseError) {
+                    // Reported by the child listener
+                }
+            });
+        }
+        if (hasViewport) subscribeViewport();
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        siteIndexRef.removeEventListener(siteIndexListener);
+        for (String siteId : new HashSet<>(viewportListeners.keySet())) unsubscribe(siteId);
+    }
+
+    @Override
+    public void onViewportChanged(int southE6, int westE6, int northE6, int eastE6) {
+        viewSouth = southE6;
+        viewWest = westE6;
+        viewNorth = northE6;
+        viewEast = eastE6;
+        hasViewport = true;
+        subscribeViewport();
+    }
+
+    @Override
+    public void onSiteTapped(int slot) {
+        Intent intent = new Intent(this, MainActivity.class);
+        intent.putExtra(MainActivity.EXTRA_SITE_ID, index.siteId(slot));
+        startActivity(intent);
+    }
+
+    // Diffs the summary listeners against the sites now in view
+    private void subscribeViewport() {
+        Set<String> visible = new HashSet<>();
+        int count = index.queryViewport(viewSouth, viewWest, viewNorth, viewEast, slot -> {
+            if (visible.size() <= MAX_VIEWPORT_SUBSCRIPTIONS) visible.add(index.siteId(slot));
+        });
+        if (count > MAX_VIEWPORT_SUBSCRIPTIONS) visible.clear();
+
+        for (Iterator<String> it = viewportListeners.keySet().iterator(); it.hasNext(); ) {
+            String siteId = it.next();
+            if (visible.contains(siteId)) continue;
+            DrainageDatabase.summary(siteId).removeEventListener(viewportListeners.get(siteId));
+            it.remove();
+            forgetSummary(siteId);
+        }
+        for (String siteId : visible) {
+            if (viewportListeners.containsKey(siteId)) continue;
+            ValueEventListener listener = new ValueEventListener() {
+                @Override
+                public void onDataChange(@NonNull DataSnapshot snapshot) {
+                    onSummary(SiteSummary.fromValue(siteId, snapshot.getValue()));
+                }
+
+                @Override
+                public void onCancelled(@NonNull DatabaseError databaseError) {
+                    Log.w(TAG, "loadSummary:onCancelled " + siteId, databaseError.toException());
+                }
+            };
+            viewportListeners.put(siteId, listener);
+            DrainageDatabase.summary(siteId).addValueEventListener(listener);
+        }
+        updateStatus();
+    }
+
+    private void unsubscribe(String siteId) {
+        ValueEventListener listener = viewportListeners.remove(siteId);
+        if (listener != null) DrainageDatabase.summary(siteId).removeEventListener(listener);
+        forgetSummary(siteId);
+    }
+
+    // Out of view the summary would go stale, so drop it rather than show old values
+    private void forgetSummary(String siteId) {
+        summaries.remove(siteId);
+        int slot = index.slot(siteId);
+        if (slot >= 0) siteMap.setLabel(slot, null);
+    }
+
+    private void onSummary(SiteSummary summary) {
+        summaries.put(summary.siteId, summary);
+        int slot = index.slot(summary.siteId);
+        if (slot >= 0) siteMap.setLabel(slot, summary.name + " " + summary.fillPercent + "%");
+    }
+
+    // Coalesces the burst of child events of the initial load into one pass
+    private void scheduleIndexSettled() {
+        tvMapStatus.removeCallbacks(indexSettled);
+        tvMapStatus.post(indexSettled);
+    }
+
+    private void updateStatus() {
+        int[] blocked = {0};
+        index.queryViewport(-SiteIndex.MAX_LAT_E6, -SiteIndex.MAX_LON_E6, SiteIndex.MAX_LAT_E6, SiteIndex.MAX_LON_E6, slot -> {
+            if ((index.flags(slot) & SiteIndex.FLAG_BLOCKED) != 0) blocked[0]++;
+        });
+        String live = viewportListeners.isEmpty() ? "zoom in for live status" : viewportListeners.size() + " live in view";
+        tvMapStatus.setText(index.size() + " sites, " + blocked[0] + " blocked - " + live);
+    }
+
+    private void showNearestBlocked() {
+        int lat = siteMap.centerLatE6(), lon = siteMap.centerLonE6();
+        Location location = lastKnownLocation();
+        if (location != null) {
+            lat = (int) Math.round(location.getLatitude() * 1e6);
+            lon = (int) Math.round(location.getLongitude() * 1e6);
+        } else {
+            Toast.makeText(this, "Location unavailable, searching from the map center.", Toast.LENGTH_SHORT).show();
+        }
+
+        int found = index.nearest(lat, lon, NEAREST_COUNT, SiteIndex.FLAG_BLOCKED, nearest);
+        siteMap.setHighlighted(nearest, found);
+        tvNearest.setVisibility(View.VISIBLE);
+        if (found == 0) {
+            tvNearest.setText("No blocked drains.");
+            return;
+        }
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < found; i++) {
+            int slot = nearest[i];
+            SiteSummary summary = summaries.get(index.siteId(slot));
+            double meters = SiteIndex.distanceMeters(lat, lon, index.latE6(slot), index.lonE6(slot));
+            if (i > 0) text.append('\n');
+            text.append(i + 1).append(". ").append(summary != null ? summary.name : index.siteId(slot))
+                    .append(" - ").append(meters < 1000
+                            ? String.format(Locale.getDefault(), "%.0f m", meters)
+                            : String.format(Locale.getDefault(), "%.1f km", meters / 1000));
+        }
+        tvNearest.setText(text);
+        siteMap.showAround(lat, lon, nearest, found);
+    }
+
+    private boolean hasLocationPermission() {
+        return ContextCompat.checkSelfPermission(this, Manifest.permission.ACCESS_COARSE_LOCATION) == PackageManager.PERMISSION_GRANTED;
+    }
+
+    @Nullable
+    @SuppressWarnings("MissingPermission") // checked by hasLocationPermission()
+    private Location lastKnownLocation() {
+        if (!hasLocationPermission()) return null;
+        LocationManager manager = getSystemService(LocationManager.class);
+        if (manager == null) return null;
+        Location best = null;
+        for (String provider : manager.getProviders(true)) {
+            Location location = manager.getLastKnownLocation(provider);
+            if (location != null && (best == null || location.getTime() > best.getTime())) best = location;
+        }
+        return best;
+    }
+}
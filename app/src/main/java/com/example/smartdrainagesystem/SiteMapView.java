@@ -0,0 +1,353 @@
+package com.example.smartdrainagesystem;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.util.AttributeSet;
+import android.util.SparseArray;
+import android.util.TypedValue;
+import android.view.GestureDetector;
+import android.view.MotionEvent;
+import android.view.ScaleGestureDetector;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.content.ContextCompat;
+
+/**
+ * Pan/zoom map layer of the sites in a SiteIndex, drawn as clustered markers.
+ *
+ * Sites are projected equirectangularly around the viewport center, which is accurate at city
+ * scale, onto a plain grid; there is no tile layer. Markers are clustered on a grid of about
+ * CELL_DP cells by MarkerClusterer, so a frame draws at most one marker per cell however many
+ * sites are in view, and clustering only reruns when the viewport or the index changes.
+ * A cluster containing a blocked site is drawn red.
+ */
+public class SiteMapView extends View {
+
+    public interface Listener {
+        /** Called once the viewport has settled after a gesture or a programmatic move. */
+        void onViewportChanged(int southE6, int westE6, int northE6, int eastE6);
+
+        void onSiteTapped(int slot);
+    }
+
+    private static final float CELL_DP = 48;
+    private static final long SETTLE_MS = 250;
+    private static final double MIN_SPAN_E6 = 500; // ~50 m across
+    private static final double MIN_FIT_SPAN_E6 = 20_000; // ~2 km, so a lone site keeps some context
+    private static final double MAX_SPAN_E6 = 170_000_000;
+    private static final int MAX_COUNT_LABEL = 999;
+
+    // Cluster counts, built once so drawing never formats text
+    private static final String[] COUNT_LABELS = new String[MAX_COUNT_LABEL + 2];
+
+    static {
+        for (int i = 0; i <= MAX_COUNT_LABEL; i++) COUNT_LABELS[i] = Integer.toString(i);
+        COUNT_LABELS[MAX_COUNT_LABEL + 1] = MAX_COUNT_LABEL + "+";
+    }
+
+    private final Paint markerPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint blockedPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint highlightPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint gridPaint = new Paint();
+    private final Paint countPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint labelPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final float cellPx, markerRadius;
+    private final GestureDetector gestureDetector;
+    private final ScaleGestureDetector scaleDetector;
+    private final MarkerClusterer clusterer = new MarkerClusterer();
+    private final Runnable notifySettled = this::notifyViewport;
+
+    private SiteIndex index;
+    private Listener listener;
+    private final SparseArray<String> labels = new SparseArray<>();
+    private int[] highlighted = new int[0];
+    private int highlightedCount;
+    private boolean clustersDirty = true;
+
+    // Viewport center and latitude span of the view height, in microdegrees
+    private double centerLat, centerLon, spanLat = 1_000_000;
+
+    public SiteMapView(Context context) {
+        this(context, null);
+    }
+
+    public SiteMapView(Context context, @Nullable AttributeSet attrs) {
+        super(context, attrs);
+        cellPx = dp(CELL_DP);
+        markerRadius = dp(6);
+        markerPaint.setColor(ContextCompat.getColor(context, R.color.colorAccent));
+        blockedPaint.setColor(ContextCompat.getColor(context, R.color.red_alert));
+        highlightPaint.setColor(ContextCompat.getColor(context, R.color.white));
+        highlightPaint.setStyle(Paint.Style.STROKE);
+        highlightPaint.setStrokeWidth(dp(2));
+        gridPaint.setColor(ContextCompat.getColor(context, R.color.textColorSecondary));
+        gridPaint.setAlpha(40);
+        countPaint.setColor(ContextCompat.getColor(context, R.color.colorPrimaryDark));
+        countPaint.setTextAlign(Paint.Align.CENTER);
+        countPaint.setFakeBoldText(true);
+        countPaint.setTextSize(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, 11, getResources().getDisplayMetrics()));
+        labelPaint.setColor(ContextCompat.getColor(context, R.color.textColorPrimary));
+        labelPaint.setTextSize(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, 11, getResources().getDisplayMetrics()));
+
+        gestureDetector = new GestureDetector(context, new GestureDetector.SimpleOnGestureListener() {
+            @Override
+            public boolean onDown(@NonNull MotionEvent e) {
+                return true;
+            }
+
+            @Override
+            public boolean onScroll(@Nullable MotionEvent e1, @NonNull MotionEvent e2, float distanceX, float distanceY) {
+                if (getHeight() == 0) return false;
+                double perPixel = spanLat / getHeight();
+                setViewport(centerLat - distanceY * perPixel, centerLon + distanceX * perPixel / lonScale(), spanLat);
+                return true;
+            }
+
+            @Override
+            public boolean onSingleTapConfirmed(@NonNull MotionEvent e) {
+                onTap(e.getX(), e.getY());
+                return true;
+            }
+
+            @Override
+            public boolean onDoubleTap(@NonNull MotionEvent e) {
+                fitSites();
+                return true;
+            }
+        });
+        scaleDetector = new ScaleGestureDetector(context, new ScaleGestureDetector.SimpleOnScaleGestureListener() {
+            @Override
+            public boolean onScale(@NonNull ScaleGestureDetector detector) {
+                if (getHeight() == 0) return false;
+                // Keep the point under the fingers in place
+                double focusLat = latAt(detector.getFocusY()), focusLon = lonAt(detector.getFocusX());
+                double span = clampSpan(spanLat / detector.getScaleFactor());
+                double scale = span / spanLat;
+                setViewport(focusLat + (centerLat - focusLat) * scale,
+                        focusLon + (centerLon - focusLon) * scale, span);
+                return true;
+            }
+        });
+    }
+
+    public void setListener(@Nullable Listener listener) {
+        this.listener = listener;
+    }
+
+    public void setIndex(SiteIndex index) {
+        this.index = index;
+        onIndexChanged();
+    }
+
+    /** Call after sites were added, moved, removed or re-flagged. */
+    public void onIndexChanged() {
+        clustersDirty = true;
+        postInvalidateOnAnimation();
+    }
+
+    /** Text drawn next to a lone site's marker, e.g. its name and fill. */
+    public void setLabel(int slot, @Nullable String label) {
+        if (label == null) labels.remove(slot);
+        else labels.put(slot, label);
+        invalidate();
+    }
+
+    /** Rings these sites, e.g. the results of a nearest-site query. */
+    public void setHighlighted(int[] slots, int count) {
+        if (highlighted.length < count) highlighted = new int[count];
+        System.arraycopy(slots, 0, highlighted, 0, count);
+        highlightedCount = count;
+        invalidate();
+    }
+
+    /** Shows the box around the given sites plus the point, with a margin. */
+    public void showAround(int latE6, int lonE6, int[] slots, int count) {
+        double south = latE6, north = latE6, west = lonE6, east = lonE6;
+        for (int i = 0; i < count; i++) {
+            south = Math.min(south, index.latE6(slots[i]));
+            north = Math.max(north, index.latE6(slots[i]));
+            west = Math.min(west, index.lonE6(slots[i]));
+            east = Math.max(east, index.lonE6(slots[i]));
+        }
+        showBox(south, west, north, east);
+    }
+
+    /** Shows every indexed site. */
+    public void fitSites() {
+        if (index == null || index.size() == 0) return;
+        double[] box = {Double.MAX_VALUE, Double.MAX_VALUE, -Double.MAX_VALUE, -Double.MAX_VALUE};
+        index.queryViewport(-SiteIndex.MAX_LAT_E6, -SiteIndex.MAX_LON_E6, SiteIndex.MAX_LAT_E6, SiteIndex.MAX_LON_E6, slot -> {
+            box[0] = Math.min(box[0], index.latE6(slot));
+            box[1] = Math.min(box[1], index.lonE6(slot));
+            box[2] = Math.max(box[2], index.latE6(slot));
+            box[3] = Math.max(box[3], index.lonE6(slot));
+        });
+        showBox(box[0], box[1], box[2], box[3]);
+    }
+
+    public int centerLatE6() {
+        return (int) centerLat;
+    }
+
+    public int centerLonE6() {
+        return (int) centerLon;
+    }
+
+    private void showBox(double south, double west, double north, double east) {
+        double aspect = getHeight() > 0 && getWidth() > 0 ? (double) getHeight() / getWidth() : 1;
+        double centerLat = (south + north) / 2;
+        double lonSpanAsLat = (east - west) * Math.cos(Math.toRadians(centerLat / 1e6)) * aspect;
+        setViewport(centerLat, (west + east) / 2, clampSpan(Math.max(MIN_FIT_SPAN_E6, Math.max(north - south, lonSpanAsLat) * 1.2)));
+    }
+
+    private void setViewport(double lat, double lon, double span) {
+        centerLat = Math.max(-SiteIndex.MAX_LAT_E6, Math.min(SiteIndex.MAX_LAT_E6, lat));
+        centerLon = lon;
+        if (centerLon > SiteIndex.MAX_LON_E6) centerLon -= 2.0 * SiteIndex.MAX_LON_E6;
+        if (centerLon < -SiteIndex.MAX_LON_E6) centerLon += 2.0 * SiteIndex.MAX_LON_E6;
+        spanLat = clampSpan(span);
+        clustersDirty = true;
+        postInvalidateOnAnimation();
+        removeCallbacks(notifySettled);
+        postDelayed(notifySettled, SETTLE_MS);
+    }
+
+    private void notifyViewport() {
+        if (listener == null || getWidth() == 0) return;
+        listener.onViewportChanged(south(), west(), north(), east());
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        clustersDirty = true;
+        removeCallbacks(notifySettled);
+        postDelayed(notifySettled, SETTLE_MS);
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        boolean handled = scaleDetector.onTouchEvent(event);
+        handled |= gestureDetector.onTouchEvent(event);
+        if (handled && event.getActionMasked() == MotionEvent.ACTION_DOWN) {
+            getParent().requestDisallowInterceptTouchEvent(true);
+        }
+        return handled || super.onTouchEvent(event);
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        int width = getWidth(), height = getHeight();
+        if (width == 0 || height == 0) return;
+        for (float x = cellPx; x < width; x += cellPx) canvas.drawLine(x, 0, x, height, gridPaint);
+        for (float y = cellPx; y < height; y += cellPx) canvas.drawLine(0, y, width, y, gridPaint);
+        if (index == null) return;
+
+        int columns = Math.max(1, (int) (width / cellPx)), rows = Math.max(1, (int) (height / cellPx));
+        if (clustersDirty) {
+            clusterer.cluster(index, south(), west(), north(), east(), columns, rows);
+            clustersDirty = false;
+        }
+        float countOffset = (countPaint.descent() + countPaint.ascent()) / 2;
+        for (int c = 0; c < clusterer.clusterCount(); c++) {
+            float x = xOf(clusterer.lonE6(c)), y = yOf(clusterer.latE6(c));
+            int size = clusterer.size(c);
+            Paint paint = (clusterer.flags(c) & SiteIndex.FLAG_BLOCKED) != 0 ? blockedPaint : markerPaint;
+            if (size == 1) {
+                canvas.drawCircle(x, y, markerRadius, paint);
+                String label = labels.get(clusterer.slot(c));
+                if (label != null) canvas.drawText(label, x + markerRadius * 1.5f, y - countOffset, labelPaint);
+            } else {
+                // Area grows with the log of the count so large clusters stay inside their cell
+                float radius = Math.min(cellPx / 2, markerRadius * (1.5f + (float) Math.log10(size)));
+                canvas.drawCircle(x, y, radius, paint);
+                canvas.drawText(COUNT_LABELS[Math.min(size, MAX_COUNT_LABEL + 1)], x, y - countOffset, countPaint);
+            }
+        }
+        for (int i = 0; i < highlightedCount; i++) {
+            int slot = highlighted[i];
+            if (index.siteId(slot) == null) continue;
+            canvas.drawCircle(xOf(index.lonE6(slot)), yOf(index.latE6(slot)), markerRadius * 2, highlightPaint);
+        }
+    }
+
+    private void onTap(float x, float y) {
+        if (index == null) return;
+        int nearest = -1;
+        float best = cellPx / 2;
+        for (int c = 0; c < clusterer.clusterCount(); c++) {
+            float distance = (float) Math.hypot(xOf(clusterer.lonE6(c)) - x, yOf(clusterer.latE6(c)) - y);
+            if (distance <= best) {
+                best = distance;
+                nearest = c;
+            }
+        }
+        if (nearest < 0) return;
+        if (clusterer.size(nearest) == 1) {
+            if (listener != null) listener.onSiteTapped(clusterer.slot(nearest));
+        } else {
+            setViewport(clusterer.latE6(nearest), clusterer.lonE6(nearest), spanLat / 3);
+        }
+    }
+
+    private double lonScale() {
+        return Math.max(0.01, Math.cos(Math.toRadians(centerLat / 1e6)));
+    }
+
+    private double spanLon() {
+        return spanLat * getWidth() / Math.max(1, getHeight()) / lonScale();
+    }
+
+    private int south() {
+        return (int) Math.max(-SiteIndex.MAX_LAT_E6, centerLat - spanLat / 2);
+    }
+
+    private int north() {
+        return (int) Math.min(SiteIndex.MAX_LAT_E6, centerLat + spanLat / 2);
+    }
+
+    private int west() {
+        return wrapLon(centerLon - Math.min(spanLon(), 2.0 * SiteIndex.MAX_LON_E6 - 1) / 2);
+    }
+
+    private int east() {
+        return wrapLon(centerLon + Math.min(spanLon(), 2.0 * SiteIndex.MAX_LON_E6 - 1) / 2);
+    }
+
+    private static int wrapLon(double lon) {
+        if (lon > SiteIndex.MAX_LON_E6) lon -= 2.0 * SiteIndex.MAX_LON_E6;
+        if (lon < -SiteIndex.MAX_LON_E6) lon += 2.0 * SiteIndex.MAX_LON_E6;
+        return (int) lon;
+    }
+
+    private float xOf(int lonE6) {
+        double dLon = lonE6 - centerLon;
+        if (dLon > SiteIndex.MAX_LON_E6) dLon -= 2.0 * SiteIndex.MAX_LON_E6;
+        if (dLon < -SiteIndex.MAX_LON_E6) dLon += 2.0 * SiteIndex.MAX_LON_E6;
+        return (float) (getWidth() / 2.0 + dLon * lonScale() * getHeight() / spanLat);
+    }
+
+    private float yOf(int latE6) {
+        return (float) (getHeight() / 2.0 - (latE6 - centerLat) * getHeight() / spanLat);
+    }
+
+    private double latAt(float y) {
+        return centerLat + (getHeight() / 2.0 - y) * spanLat / getHeight();
+    }
+
+    private double lonAt(float x) {
+        return centerLon + (x - getWidth() / 2.0) * spanLat / getHeight() / lonScale();
+    }
+
+    private static double clampSpan(double span) {
+        return Math.max(MIN_SPAN_E6, Math.min(MAX_SPAN_E6, span));
+    }
+
+    private float dp(float value) {
+        return TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, value, getResources().getDisplayMetrics());
+    }
+}
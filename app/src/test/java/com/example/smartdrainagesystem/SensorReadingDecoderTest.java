@@ -0,0 +1,111 @@
+package com.example.smartdrainagesystem;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Correctness checks for SensorReadingDecoder on the raw tree DataSnapshot.getValue() produces.
+ * Decode cost is measured by DecodeBenchmark in :benchmark-jvm.
+ */
+public class SensorReadingDecoderTest {
+
+    @Test
+    public void decode_readsAllFields() {
+        SensorReading reading = SensorReadingDecoder.decode(samplePayload(1716200000L, 12.5, 2));
+
+        assertEquals("Blockage", reading.alert);
+        assertEquals("23.8103,90.4125", reading.gps);
+        assertEquals(1716200000L, reading.timestamp);
+        assertTrue(reading.hasDetails);
+        assertEquals("Plastic", reading.blockageType);
+        assertEquals(2, reading.blockedChamber);
+        assertEquals(12.5, reading.distance1, 0.0);
+        assertEquals(4.0, reading.distance2, 0.0); // whole numbers arrive as Long
+        assertEquals(1.72, reading.mq8, 0.0);
+        assertEquals(29.5, reading.temp, 0.0);
+        assertEquals(1, reading.ir);
+        assertEquals(0, reading.flame);
+        assertEquals(3, reading.chamberCount());
+        assertEquals(1f, reading.waterLevel(0), 0f);
+        assertEquals(0f, reading.waterLevel(1), 0f);
+        assertEquals(1f, reading.waterLevel(2), 0f);
+    }
+
+    @Test
+    public void decode_marksAbsentFieldsAsMissing() {
+        Map<String, Object> root = new HashMap<>();
+        root.put("alert", "None");
+        SensorReading reading = SensorReadingDecoder.decode(root);
+
+        assertEquals("None", reading.alert);
+        assertTrue(SensorReading.isMissing(reading.gps));
+        assertEquals(SensorReading.MISSING_TIMESTAMP, reading.timestamp);
+        assertFalse(reading.hasDetails);
+        assertTrue(SensorReading.isMissing(reading.distance1));
+        assertTrue(SensorReading.isMissing(reading.blockedChamber));
+        assertEquals(0, reading.chamberCount());
+        assertNull(SensorReadingDecoder.decode(null));
+    }
+
+    @Test
+    public void decode_acceptsSparseWaterLevels() {
+        Map<String, Object> levels = new HashMap<>();
+        levels.put("0", 1L);
+        levels.put("2", 1L);
+        Map<String, Object> data = new HashMap<>();
+        data.put("water_levels", levels);
+        Map<String, Object> root = new HashMap<>();
+        root.put("data", data);
+
+        SensorReading reading = SensorReadingDecoder.decode(root);
+
+        assertEquals(3, reading.chamberCount());
+        assertEquals(1f, reading.waterLevel(0), 0f);
+        assertEquals(0f, reading.waterLevel(1), 0f);
+        assertEquals(1f, reading.waterLevel(2), 0f);
+    }
+
+    @Test
+    public void decode_ignoresWaterLevelKeysPastTheChamberLimit() {
+        Map<String, Object> levels = new HashMap<>();
+        levels.put("1", 1L);
+        levels.put("2000000", 0.5);
+        levels.put(String.valueOf(SensorReadingDecoder.MAX_CHAMBERS), 1L);
+        Map<String, Object> data = new HashMap<>();
+        data.put("water_levels", levels);
+        Map<String, Object> root = new HashMap<>();
+        root.put("data", data);
+
+        SensorReading reading = SensorReadingDecoder.decode(root);
+
+        assertEquals(2, reading.chamberCount());
+        assertEquals(1f, reading.waterLevel(1), 0f);
+    }
+
+    // Same shapes DataSnapshot.getValue() produces: Long for whole numbers, Double otherwise, List for arrays
+    static Map<String, Object> samplePayload(long timestamp, double distance1, int blockedChamber) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("blockage_type", "Plastic");
+        data.put("blocked_chamber", (long) blockedChamber);
+        data.put("water_levels", new ArrayList<>(Arrays.<Object>asList(1L, 0L, 1L)));
+        data.put("distance1", distance1);
+        data.put("distance2", 4L);
+        data.put("mq8", 1.72);
+        data.put("temp", 29.5);
+        data.put("ir", 1L);
+        data.put("flame", 0L);
+
+        Map<String, Object> root = new HashMap<>();
+        root.put("data", data);
+        root.put("gps", "23.8103,90.4125");
+        root.put("alert", "Blockage");
+        root.put("timestamp", timestamp);
+        return root;
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.smartdrainagesystem;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of evaluating one reading against a site's default rules in a fleet-sized AlertEngine;
+ * evaluate() should stay allocation-free however many rules are loaded.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AlertEngineBenchmark {
+
+    private static final int SITES = 1024;
+    private static final int SECONDS = 16384;
+
+    private SensorReading[] readings;
+    private AlertEngine engine;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        List<SensorReading> traffic = SensorTraffic.synthesize(SECONDS, 1716200000L, 5);
+        readings = traffic.toArray(new SensorReading[0]);
+    }
+
+    // Timestamps only move forward per site, so start over before they would wrap
+    @Setup(Level.Iteration)
+    public void newEngine() {
+        engine = new AlertEngine(null);
+        for (int site = 0; site < SITES; site++) engine.site("site-" + site);
+        next = 0;
+    }
+
+    @Benchmark
+    public int evaluate() {
+        int op = next++;
+        // Every site sees the same drain, one second apart per pass over the fleet
+        return engine.evaluate(op & (SITES - 1), readings[(op / SITES) & (SECONDS - 1)]);
+    }
+}
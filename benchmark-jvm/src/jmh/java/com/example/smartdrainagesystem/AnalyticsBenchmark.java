@@ -0,0 +1,49 @@
+package com.example.smartdrainagesystem;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Per-update cost of DrainageAnalytics; accept() should stay allocation-free. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AnalyticsBenchmark {
+
+    private static final int UPDATES = 4096;
+
+    private SensorReading[] readings;
+    private DrainageAnalytics analytics;
+    private long timeMillis;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        List<SensorReading> traffic = SensorTraffic.synthesize(UPDATES, 1716200000L, 11);
+        readings = traffic.toArray(new SensorReading[0]);
+        analytics = new DrainageAnalytics();
+        timeMillis = 1716200000_000L;
+    }
+
+    @Benchmark
+    public double accept() {
+        SensorReading reading = readings[next++ & (UPDATES - 1)];
+        // Keep time moving forward across wraps so the trackers never reset
+        timeMillis += 1000;
+        analytics.accept(timeMillis, reading.distance1, reading.distance2, reading.meanWaterLevel());
+        return analytics.timeToOverflowSeconds();
+    }
+
+    @Benchmark
+    public DrainForecast acceptAndForecast() {
+        accept();
+        return analytics.forecast();
+    }
+}
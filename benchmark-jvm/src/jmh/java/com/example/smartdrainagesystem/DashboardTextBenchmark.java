@@ -0,0 +1,60 @@
+package com.example.smartdrainagesystem;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Formatting the dashboard text of one reading: String.format and SimpleDateFormat, as the
+ * renderer used to, against DashboardText. Run with -prof gc to see the allocation per reading.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DashboardTextBenchmark {
+
+    private static final int SECONDS = 16384;
+
+    private SensorReading[] readings;
+    private final DashboardText text = new DashboardText(TimestampFormat.forDefaultLocale());
+    private final SimpleDateFormat timestampFormat = new SimpleDateFormat("MMM dd, yyyy HH:mm:ss", Locale.getDefault());
+    private int next;
+
+    @Setup
+    public void setUp() {
+        List<SensorReading> traffic = SensorTraffic.synthesize(SECONDS, 1716200000L, 5);
+        readings = traffic.toArray(new SensorReading[0]);
+    }
+
+    @Benchmark
+    public int stringFormat() {
+        SensorReading reading = readings[next++ & (SECONDS - 1)];
+        return String.format(Locale.US, "Methane: %s (%.2fV)", reading.mq8 > 1.5 ? "Present" : "Not Present", reading.mq8).length()
+                + String.format(Locale.US, "Sonar 1: %.1f cm", reading.distance1).length()
+                + String.format(Locale.US, "Sonar 2: %.1f cm", reading.distance2).length()
+                + String.format(Locale.US, "Temp: %.1f \u00B0C", reading.temp).length()
+                + String.format("Last Update: %s", timestampFormat.format(new Date(reading.timestamp * 1000L))).length();
+    }
+
+    @Benchmark
+    public int dashboardText() {
+        SensorReading reading = readings[next++ & (SECONDS - 1)];
+        text.methane(reading.mq8 > 1.5, reading.mq8);
+        text.sonar1(reading.distance1);
+        text.sonar2(reading.distance2);
+        text.temperature(reading.temp);
+        text.timestamp(reading.timestamp);
+        return text.methane.length() + text.sonar1.length() + text.sonar2.length()
+                + text.temperature.length() + text.timestamp.length();
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.smartdrainagesystem;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Whole client data path for a fleet: one replay step writes an update for every site into
+ * FakeSensorDatabase, and each site's listener decodes it and feeds DrainageAnalytics, as
+ * MainActivity does on its decode thread. Scores are per step, i.e. per `sites` updates, and
+ * include the fake's own cost of building each value (see DecodeBenchmark for decode alone).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DataPathBenchmark {
+
+    @Param({"1", "10", "100", "1000"})
+    public int sites;
+
+    @Param({"false", "true"})
+    public boolean compact;
+
+    private TrafficReplayer replayer;
+    private double sink;
+
+    @Setup
+    public void setUp() {
+        FakeSensorDatabase database = new FakeSensorDatabase();
+        replayer = new TrafficReplayer(database, SensorTraffic.synthesize(3600, 1716200000L, 5),
+                sites, TrafficReplayer.MAX_RATE_HZ, compact);
+        for (int site = 0; site < sites; site++) {
+            DrainageAnalytics analytics = new DrainageAnalytics();
+            SensorFrameDecoder frameDecoder = new SensorFrameDecoder();
+            database.addValueListener(replayer.path(site), (value, writtenAtNanos) -> {
+                SensorReading reading = compact ? frameDecoder.decode(value) : SensorReadingDecoder.decode(value);
+                analytics.accept(reading);
+                sink += analytics.timeToOverflowSeconds();
+            });
+        }
+    }
+
+    @Benchmark
+    public double step() {
+        replayer.step();
+        return sink;
+    }
+}
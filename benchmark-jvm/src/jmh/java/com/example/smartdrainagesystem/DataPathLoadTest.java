@@ -0,0 +1,106 @@
+package com.example.smartdrainagesystem;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Real-time load test: replays synthetic traffic for N sites at R Hz through FakeSensorDatabase
+ * and decodes it on a single thread, like the app's decode executor. Reports whether the decode
+ * thread kept up, end-to-end latency from write to analytics, and allocations per update.
+ *
+ * Usage: DataPathLoadTest [sites=100] [rateHz=10] [seconds=20] [compact=false]
+ */
+public final class DataPathLoadTest {
+
+    private static final int MAX_LATENCY_SAMPLES = 10_000_000;
+
+    private final long[] latencies;
+    private int latencyCount;
+    private double sink;
+
+    private DataPathLoadTest(int expectedUpdates) {
+        latencies = new long[Math.min(expectedUpdates + 1024, MAX_LATENCY_SAMPLES)];
+    }
+
+    public static void main(String[] args) throws Exception {
+        int sites = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        double rateHz = args.length > 1 ? Double.parseDouble(args[1]) : 10;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        boolean compact = args.length > 3 && Boolean.parseBoolean(args[3]);
+
+        new DataPathLoadTest((int) Math.min(Integer.MAX_VALUE, (long) (sites * rateHz * seconds)))
+                .run(sites, rateHz, seconds, compact);
+    }
+
+    private void run(int sites, double rateHz, int seconds, boolean compact) throws Exception {
+        ExecutorService decodeThread = Executors.newSingleThreadExecutor();
+        ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor();
+        long decodeThreadId = decodeThread.submit(() -> Thread.currentThread().getId()).get();
+
+        FakeSensorDatabase database = new FakeSensorDatabase(decodeThread);
+        TrafficReplayer replayer = new TrafficReplayer(database,
+                SensorTraffic.synthesize(3600, 1716200000L, 9), sites, rateHz, compact);
+        for (int site = 0; site < sites; site++) {
+            DrainageAnalytics analytics = new DrainageAnalytics();
+            SensorFrameDecoder frameDecoder = new SensorFrameDecoder();
+            database.addValueListener(replayer.path(site), (value, writtenAtNanos) -> {
+                SensorReading reading = compact ? frameDecoder.decode(value) : SensorReadingDecoder.decode(value);
+                analytics.accept(reading);
+                sink += analytics.timeToOverflowSeconds();
+                if (latencyCount < latencies.length) latencies[latencyCount++] = System.nanoTime() - writtenAtNanos;
+            });
+        }
+
+        // Short warm-up so the JIT has compiled the path before measuring
+        for (int i = 0; i < 200; i++) replayer.step();
+        decodeThread.submit(() -> latencyCount = 0).get();
+        long deliveredBefore = database.deliveryCount();
+        long allocatedBefore = decodeThread.submit(() -> allocatedBytes(decodeThreadId)).get();
+        long writtenBefore = replayer.updatesWritten();
+
+        long start = System.nanoTime();
+        replayer.start(writer);
+        Thread.sleep(seconds * 1000L);
+        replayer.stop();
+        writer.shutdown();
+        writer.awaitTermination(10, TimeUnit.SECONDS);
+        long backlogStart = System.nanoTime();
+        long allocated = decodeThread.submit(() -> allocatedBytes(decodeThreadId)).get() - allocatedBefore;
+        long drainMillis = (System.nanoTime() - backlogStart) / 1_000_000;
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        decodeThread.shutdown();
+
+        long written = replayer.updatesWritten() - writtenBefore;
+        long delivered = database.deliveryCount() - deliveredBefore;
+        long[] sorted = Arrays.copyOf(latencies, latencyCount);
+        Arrays.sort(sorted);
+
+        System.out.printf(Locale.US, "%d sites x %.0f Hz, %s, %.1f s%n", sites, rateHz, compact ? "sensor_frame" : "sensor_data", elapsed);
+        System.out.printf(Locale.US, "updates: target %.0f/s, written %.0f/s, decoded %d (backlog drained in %d ms)%n",
+                sites * rateHz, written / elapsed, delivered, drainMillis);
+        System.out.printf(Locale.US, "latency us: p50 %d  p90 %d  p99 %d  p99.9 %d  max %d%n",
+                percentile(sorted, 0.50), percentile(sorted, 0.90), percentile(sorted, 0.99),
+                percentile(sorted, 0.999), percentile(sorted, 1.0));
+        System.out.printf(Locale.US, "decode thread allocations: %d bytes/update%n", delivered == 0 ? 0 : allocated / delivered);
+        if (sink == 42) System.out.println(); // keep the analytics result alive
+    }
+
+    private static long percentile(long[] sorted, double fraction) {
+        if (sorted.length == 0) return 0;
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(fraction * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1000;
+    }
+
+    private static long allocatedBytes(long threadId) {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(threadId);
+        }
+        return 0;
+    }
+}
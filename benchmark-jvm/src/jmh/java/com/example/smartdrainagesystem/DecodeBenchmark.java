@@ -0,0 +1,72 @@
+package com.example.smartdrainagesystem;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decode latency and allocations per update for both wire formats, over one hour of synthetic
+ * traffic. Inputs are the raw trees a ValueEventListener receives, so the numbers cover
+ * everything the app does after DataSnapshot.getValue().
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DecodeBenchmark {
+
+    private static final int UPDATES = 4096; // power of two, indexed with a mask
+
+    private Object[] sensorDataValues;
+    private Object[] sensorFrameValues;
+    private SensorReading[] readings;
+    private SensorFrameDecoder frameDecoder;
+    private SensorFrameEncoder frameEncoder;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        List<SensorReading> traffic = SensorTraffic.synthesize(UPDATES, 1716200000L, 7);
+        sensorDataValues = new Object[UPDATES];
+        sensorFrameValues = new Object[UPDATES];
+        readings = traffic.toArray(new SensorReading[0]);
+
+        // sensor_frame as a listener sees it: the keyframe child plus the latest delta
+        SensorFrameEncoder encoder = new SensorFrameEncoder();
+        Map<String, Object> frameNode = new HashMap<>();
+        for (int i = 0; i < UPDATES; i++) {
+            sensorDataValues[i] = SensorTraffic.toValue(traffic.get(i));
+            for (Map.Entry<String, Object> child : encoder.encode(traffic.get(i)).toFirebaseUpdate().entrySet()) {
+                if (child.getValue() == null) frameNode.remove(child.getKey());
+                else frameNode.put(child.getKey(), child.getValue());
+            }
+            sensorFrameValues[i] = new HashMap<>(frameNode);
+        }
+        frameDecoder = new SensorFrameDecoder();
+        frameEncoder = new SensorFrameEncoder();
+    }
+
+    @Benchmark
+    public SensorReading decodeSensorData() {
+        return SensorReadingDecoder.decode(sensorDataValues[next++ & (UPDATES - 1)]);
+    }
+
+    @Benchmark
+    public SensorReading decodeSensorFrame() {
+        return frameDecoder.decode(sensorFrameValues[next++ & (UPDATES - 1)]);
+    }
+
+    // Gateway side of the compact format
+    @Benchmark
+    public SensorFrameEncoder.Frame encodeSensorFrame() {
+        return frameEncoder.encode(readings[next++ & (UPDATES - 1)]);
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.smartdrainagesystem;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/** Ingest cost, chart-sized queries, chart decimation and bulk export over a store holding one day of 1 Hz samples. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class HistoryStoreBenchmark {
+
+    private static final long START = 1_716_199_200_000L; // hour-aligned
+    private static final int DAY_SAMPLES = 86_400;
+
+    // Three 1080 px screens at two pixels per column, as HistoryChartView loads them
+    private static final int CHART_COLUMNS = 1620;
+
+    private File directory;
+    private SensorHistoryStore store;
+    private long nextTime;
+    private final ChartDecimator decimator = new ChartDecimator();
+    private final DiscardingChannel sink = new DiscardingChannel();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("history-bench").toFile();
+        store = SensorHistoryStore.open(directory);
+        for (int i = 0; i < DAY_SAMPLES; i++) {
+            float wave = (float) Math.sin(i / 600.0);
+            store.append(START + i * 1000L, 30 + 10 * wave, 32 + 10 * wave, 1.6f, 28f, 0.5f + 0.4f * wave);
+        }
+        nextTime = START + DAY_SAMPLES * 1000L;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        store.close();
+        try (Stream<Path> files = Files.walk(directory.toPath())) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public boolean append() throws IOException {
+        nextTime += 1000;
+        return store.append(nextTime, 31f, 33f, 1.6f, 28f, 0.5f);
+    }
+
+    @Benchmark
+    public int queryRawDay(Blackhole blackhole) throws IOException {
+        return store.queryRaw(SensorHistoryStore.COLUMN_DISTANCE1, START, START + DAY_SAMPLES * 1000L,
+                (timeMillis, value) -> blackhole.consume(value));
+    }
+
+    @Benchmark
+    public int queryMinutesDay(Blackhole blackhole) throws IOException {
+        return store.queryMinutes(SensorHistoryStore.COLUMN_DISTANCE1, START, START + DAY_SAMPLES * 1000L,
+                (bucketStart, min, max, avg) -> blackhole.consume(avg));
+    }
+
+    @Benchmark
+    public float decimateDay() throws IOException {
+        // Under a minute per column, so this decimates all 86 400 raw samples
+        long span = DAY_SAMPLES * 1000L;
+        decimator.load(store, SensorHistoryStore.COLUMN_DISTANCE1, START, span / CHART_COLUMNS, CHART_COLUMNS);
+        return decimator.rangeMax;
+    }
+
+    @Benchmark
+    public float decimateWeek() throws IOException {
+        // Minutes per column: served from the minute rollups
+        long span = 7 * DAY_SAMPLES * 1000L;
+        decimator.load(store, SensorHistoryStore.COLUMN_DISTANCE1, START, span / CHART_COLUMNS, CHART_COLUMNS);
+        return decimator.rangeMax;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long exportCsvDay() throws IOException {
+        return HistoryExport.writeCsv(store, START, START + DAY_SAMPLES * 1000L, sink);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long exportColumnarDay() throws IOException {
+        return HistoryExport.writeColumnar(store, START, START + DAY_SAMPLES * 1000L, sink);
+    }
+
+    // Measures encoding, not the disk
+    private static final class DiscardingChannel implements WritableByteChannel {
+        @Override
+        public int write(ByteBuffer src) {
+            int n = src.remaining();
+            src.position(src.limit());
+            return n;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.smartdrainagesystem;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/** Fleet map queries over a city of sites: nearest blocked drains, a street-level viewport, clustering. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SiteIndexBenchmark {
+
+    private static final int CITY_LAT = 12_971_600;
+    private static final int CITY_LON = 77_594_600;
+    private static final int CITY_SPAN = 300_000; // ~30 km
+    private static final int POINTS = 1024;
+
+    @Param({"1000", "20000"})
+    public int sites;
+
+    private final SiteIndex index = new SiteIndex();
+    private final MarkerClusterer clusterer = new MarkerClusterer();
+    private final int[] nearest = new int[5];
+    private final int[] lat = new int[POINTS], lon = new int[POINTS];
+    private int hits, next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(1);
+        for (int i = 0; i < sites; i++) {
+            int slot = index.put("site-" + i, CITY_LAT + random.nextInt(CITY_SPAN), CITY_LON + random.nextInt(CITY_SPAN));
+            index.setFlags(slot, random.nextInt(50) == 0 ? SiteIndex.FLAG_BLOCKED : 0);
+        }
+        for (int i = 0; i < POINTS; i++) {
+            lat[i] = CITY_LAT + random.nextInt(CITY_SPAN);
+            lon[i] = CITY_LON + random.nextInt(CITY_SPAN);
+        }
+        index.nearest(CITY_LAT, CITY_LON, 1, 0, nearest); // builds the tree
+    }
+
+    @Benchmark
+    public int nearestFiveBlocked() {
+        int i = next++ & (POINTS - 1);
+        return index.nearest(lat[i], lon[i], 5, SiteIndex.FLAG_BLOCKED, nearest);
+    }
+
+    @Benchmark
+    public int streetViewport() {
+        int i = next++ & (POINTS - 1);
+        // About 1.5 km across
+        return index.queryViewport(lat[i], lon[i], lat[i] + CITY_SPAN / 20, lon[i] + CITY_SPAN / 20, slot -> hits++);
+    }
+
+    @Benchmark
+    public int clusterWholeCity() {
+        // A phone screen of 48 dp cells
+        return clusterer.cluster(index, CITY_LAT, CITY_LON, CITY_LAT + CITY_SPAN, CITY_LON + CITY_SPAN, 8, 14);
+    }
+}
@@ -0,0 +1,255 @@
+package com.example.smartdrainagesystem;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Evaluates AlertRules for any number of sites and reports only state transitions.
+ *
+ * Per rule:  CLEAR -> PENDING (past raiseAt, waiting out raiseAfterSeconds) -> RAISED
+ *            RAISED -> ACKNOWLEDGED (acknowledge())
+ *            RAISED or ACKNOWLEDGED -> CLEAR (back past clearAt for clearAfterSeconds)
+ * A raise within minRepeatSeconds of the rule's last announced raise still changes the state but
+ * is not announced, and neither is its clear, so listeners always see balanced pairs.
+ *
+ * Rules live in parallel primitive arrays indexed by a global rule slot, with each site owning a
+ * contiguous range, so evaluation allocates nothing and memory stays constant per rule. Time is
+ * the readings' own timestamp in seconds; readings older than a site's last one are ignored.
+ * Not thread-safe.
+ */
+public final class AlertEngine {
+
+    public static final int STATE_CLEAR = 0;
+    public static final int STATE_PENDING = 1;
+    public static final int STATE_RAISED = 2;
+    public static final int STATE_ACKNOWLEDGED = 3;
+
+    public static final int EVENT_RAISED = 0;
+    public static final int EVENT_ACKNOWLEDGED = 1;
+    public static final int EVENT_CLEARED = 2;
+
+    public interface Listener {
+        void onTransition(String siteId, AlertRule rule, int event, long timeSeconds, float value);
+    }
+
+    private static final long NO_TIME = Long.MIN_VALUE;
+
+    private final Listener listener;
+
+    // Sites
+    private final Map<String, Integer> siteSlots = new HashMap<>();
+    private String[] siteIds = new String[16];
+    private int[] siteFirstRule = new int[16];
+    private int[] siteRuleCount = new int[16];
+    private long[] siteLastTime = new long[16];
+    private int siteCount;
+
+    // Rules, struct of arrays
+    private AlertRule[] rules = new AlertRule[64];
+    private int[] metric = new int[64];
+    private boolean[] above = new boolean[64];
+    private float[] raiseAt = new float[64];
+    private float[] clearAt = new float[64];
+    private int[] raiseAfter = new int[64];
+    private int[] clearAfter = new int[64];
+    private int[] minRepeat = new int[64];
+    private int[] warning = new int[64];
+    private byte[] state = new byte[64];
+    private long[] since = new long[64];         // PENDING: when the raise condition began; raised: when clearing began
+    private long[] announcedAt = new long[64];   // last announced raise
+    private boolean[] announced = new boolean[64];
+    private int ruleCount;
+    private long suppressedRaises;
+
+    /** @param listener receives transitions, may be null when only the current state is read */
+    public AlertEngine(Listener listener) {
+        this.listener = listener;
+    }
+
+    /** Returns the site slot for siteId, adding it with the default rules if it is new. */
+    public int site(String siteId) {
+        Integer slot = siteSlots.get(siteId);
+        return slot != null ? slot : setRules(siteId, AlertRule.defaults());
+    }
+
+    /**
+     * Replaces the rules of siteId, resetting their state, and returns its site slot. A site that
+     * keeps its rule count reuses its slots; otherwise the old range is abandoned.
+     */
+    public int setRules(String siteId, List<AlertRule> siteRules) {
+        Integer existing = siteSlots.get(siteId);
+        int site;
+        if (existing != null) {
+            site = existing;
+        } else {
+            site = siteCount++;
+            if (site == siteIds.length) growSites();
+            siteIds[site] = siteId;
+            siteLastTime[site] = NO_TIME;
+            siteSlots.put(siteId, site);
+        }
+        int first;
+        if (existing != null && siteRuleCount[site] == siteRules.size()) {
+            first = siteFirstRule[site];
+        } else {
+            first = ruleCount;
+            ruleCount += siteRules.size();
+            if (ruleCount > rules.length) growRules(ruleCount);
+        }
+        siteFirstRule[site] = first;
+        siteRuleCount[site] = siteRules.size();
+        for (int i = 0; i < siteRules.size(); i++) {
+            AlertRule rule = siteRules.get(i);
+            int r = first + i;
+            rules[r] = rule;
+            metric[r] = rule.metric;
+            above[r] = rule.above;
+            raiseAt[r] = rule.raiseAt;
+            clearAt[r] = rule.clearAt;
+            raiseAfter[r] = rule.raiseAfterSeconds;
+            clearAfter[r] = rule.clearAfterSeconds;
+            minRepeat[r] = rule.minRepeatSeconds;
+            warning[r] = rule.warning;
+            state[r] = STATE_CLEAR;
+            since[r] = NO_TIME;
+            announcedAt[r] = NO_TIME;
+            announced[r] = false;
+        }
+        return site;
+    }
+
+    /** Position of ruleId within the site's rules, -1 when it has no such rule. */
+    public int ruleIndex(int site, String ruleId) {
+        int first = siteFirstRule[site];
+        for (int i = 0; i < siteRuleCount[site]; i++) {
+            if (rules[first + i].id.equals(ruleId)) return i;
+        }
+        return -1;
+    }
+
+    /** Feeds one reading of a site; returns its active warnings afterwards. */
+    public int evaluate(int site, SensorReading reading) {
+        long now = reading.timestamp;
+        if (now == SensorReading.MISSING_TIMESTAMP || now < siteLastTime[site]) return activeWarnings(site);
+        siteLastTime[site] = now;
+        int first = siteFirstRule[site];
+        int end = first + siteRuleCount[site];
+        for (int r = first; r < end; r++) {
+            float value = AlertRule.value(metric[r], reading);
+            if (Float.isNaN(value)) continue; // absent this time: no evidence either way
+            boolean pastRaise = above[r] ? value > raiseAt[r] : value < raiseAt[r];
+            boolean pastClear = above[r] ? value < clearAt[r] : value > clearAt[r];
+            switch (state[r]) {
+                case STATE_CLEAR:
+                    if (!pastRaise) break;
+                    state[r] = STATE_PENDING;
+                    since[r] = now;
+                    if (raiseAfter[r] <= 0) raise(site, r, now, value); // no raise delay: raises right away
+                    break;
+                case STATE_PENDING:
+                    if (!pastRaise) {
+                        state[r] = STATE_CLEAR;
+                        since[r] = NO_TIME;
+                    } else if (now - since[r] >= raiseAfter[r]) {
+                        raise(site, r, now, value);
+                    }
+                    break;
+                default: // RAISED or ACKNOWLEDGED
+                    if (!pastClear) {
+                        since[r] = NO_TIME; // inside the band or past raiseAt again: clearing starts over
+                    } else {
+                        if (since[r] == NO_TIME) since[r] = now;
+                        if (now - since[r] >= clearAfter[r]) clear(site, r, now, value);
+                    }
+                    break;
+            }
+        }
+        return activeWarnings(site);
+    }
+
+    /** Acknowledges a raised rule; returns false when it was not raised. */
+    public boolean acknowledge(int site, int ruleIndex, long timeSeconds) {
+        int r = siteFirstRule[site] + ruleIndex;
+        if (state[r] != STATE_RAISED) return false;
+        state[r] = STATE_ACKNOWLEDGED;
+        if (announced[r] && listener != null) listener.onTransition(siteIds[site], rules[r], EVENT_ACKNOWLEDGED, timeSeconds, Float.NaN);
+        return true;
+    }
+
+    public int state(int site, int ruleIndex) {
+        return state[siteFirstRule[site] + ruleIndex];
+    }
+
+    public boolean isActive(int site, int ruleIndex) {
+        return state(site, ruleIndex) >= STATE_RAISED;
+    }
+
+    /** SiteSummary.WARNING_* bits of the site's raised and acknowledged rules. */
+    public int activeWarnings(int site) {
+        int bits = 0;
+        int first = siteFirstRule[site];
+        for (int r = first; r < first + siteRuleCount[site]; r++) {
+            if (state[r] >= STATE_RAISED) bits |= warning[r];
+        }
+        return bits;
+    }
+
+    public int ruleCount(int site) {
+        return siteRuleCount[site];
+    }
+
+    /** Rule slots in use across all sites, including ranges abandoned by setRules(). */
+    public int ruleCount() {
+        return ruleCount;
+    }
+
+    public long suppressedRaises() {
+        return suppressedRaises;
+    }
+
+    private void raise(int site, int r, long now, float value) {
+        state[r] = STATE_RAISED;
+        since[r] = NO_TIME;
+        announced[r] = announcedAt[r] == NO_TIME || now - announcedAt[r] >= minRepeat[r];
+        if (!announced[r]) {
+            suppressedRaises++;
+            return;
+        }
+        announcedAt[r] = now;
+        if (listener != null) listener.onTransition(siteIds[site], rules[r], EVENT_RAISED, now, value);
+    }
+
+    private void clear(int site, int r, long now, float value) {
+        state[r] = STATE_CLEAR;
+        since[r] = NO_TIME;
+        if (announced[r] && listener != null) listener.onTransition(siteIds[site], rules[r], EVENT_CLEARED, now, value);
+        announced[r] = false;
+    }
+
+    private void growSites() {
+        int capacity = siteIds.length * 2;
+        siteIds = Arrays.copyOf(siteIds, capacity);
+        siteFirstRule = Arrays.copyOf(siteFirstRule, capacity);
+        siteRuleCount = Arrays.copyOf(siteRuleCount, capacity);
+        siteLastTime = Arrays.copyOf(siteLastTime, capacity);
+    }
+
+    private void growRules(int needed) {
+        int capacity = Math.max(needed, rules.length * 2);
+        rules = Arrays.copyOf(rules, capacity);
+        metric = Arrays.copyOf(metric, capacity);
+        above = Arrays.copyOf(above, capacity);
+        raiseAt = Arrays.copyOf(raiseAt, capacity);
+        clearAt = Arrays.copyOf(clearAt, capacity);
+        raiseAfter = Arrays.copyOf(raiseAfter, capacity);
+        clearAfter = Arrays.copyOf(clearAfter, capacity);
+        minRepeat = Arrays.copyOf(minRepeat, capacity);
+        warning = Arrays.copyOf(warning, capacity);
+        state = Arrays.copyOf(state, capacity);
+        since = Arrays.copyOf(since, capacity);
+        announcedAt = Arrays.copyOf(announcedAt, capacity);
+        announced = Arrays.copyOf(announced, capacity);
+    }
+}
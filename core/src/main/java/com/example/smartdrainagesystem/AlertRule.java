@@ -0,0 +1,89 @@
+package com.example.smartdrainagesystem;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * One threshold rule evaluated by AlertEngine, e.g. "methane above 1.5 V for 3 s raises, below
+ * 1.4 V for 10 s clears". The gap between raiseAt and clearAt is the hysteresis band, so a value
+ * hovering around one threshold does not flap; the two delays debounce short spikes and dips.
+ * Immutable.
+ */
+public final class AlertRule {
+
+    public static final int METRIC_DISTANCE1 = 0;  // sonar 1, cm
+    public static final int METRIC_DISTANCE2 = 1;  // sonar 2, cm
+    public static final int METRIC_METHANE = 2;    // MQ8 output, volts
+    public static final int METRIC_FLAME = 3;      // 1 while flame is detected, else 0
+    public static final int METRIC_OBSTACLE = 4;   // 1 while the IR sensor sees an obstacle, else 0
+    public static final int METRIC_TEMPERATURE = 5; // degrees C
+    public static final int METRIC_FILL = 6;       // highest chamber fill, 0..1
+    static final int METRIC_COUNT = 7;
+
+    public final String id;
+    public final int metric;
+    public final boolean above;            // raised when the value goes above raiseAt, else below it
+    public final float raiseAt;
+    public final float clearAt;
+    public final int raiseAfterSeconds;    // how long the value must stay past raiseAt
+    public final int clearAfterSeconds;    // how long the value must stay back past clearAt
+    public final int minRepeatSeconds;     // a rule announces at most one raise per this interval
+    public final int warning;              // SiteSummary.WARNING_* bit while active, 0 for none
+
+    public AlertRule(String id, int metric, boolean above, float raiseAt, float clearAt,
+                     int raiseAfterSeconds, int clearAfterSeconds, int minRepeatSeconds, int warning) {
+        if (metric < 0 || metric >= METRIC_COUNT) throw new IllegalArgumentException("Unknown metric " + metric);
+        if (above ? clearAt > raiseAt : clearAt < raiseAt) {
+            throw new IllegalArgumentException(id + ": clear level must be on the safe side of the raise level");
+        }
+        if (raiseAfterSeconds < 0 || clearAfterSeconds < 0 || minRepeatSeconds < 0) {
+            throw new IllegalArgumentException(id + ": negative delay");
+        }
+        this.id = id;
+        this.metric = metric;
+        this.above = above;
+        this.raiseAt = raiseAt;
+        this.clearAt = clearAt;
+        this.raiseAfterSeconds = raiseAfterSeconds;
+        this.clearAfterSeconds = clearAfterSeconds;
+        this.minRepeatSeconds = minRepeatSeconds;
+        this.warning = warning;
+    }
+
+    /** The dashboard's original thresholds, with hysteresis and debounce added. */
+    public static List<AlertRule> defaults() {
+        return Arrays.asList(
+                new AlertRule("sonar1_close", METRIC_DISTANCE1, false, 5f, 6f, 2, 5, 60, SiteSummary.WARNING_SONAR_CLOSE),
+                new AlertRule("sonar2_close", METRIC_DISTANCE2, false, 5f, 6f, 2, 5, 60, SiteSummary.WARNING_SONAR_CLOSE),
+                new AlertRule("methane", METRIC_METHANE, true, 1.5f, 1.4f, 3, 10, 300, SiteSummary.WARNING_METHANE),
+                // Fire is raised on the first sample
+                new AlertRule("flame", METRIC_FLAME, true, 0.5f, 0.5f, 0, 5, 60, SiteSummary.WARNING_FLAME),
+                new AlertRule("obstacle", METRIC_OBSTACLE, true, 0.5f, 0.5f, 2, 5, 60, SiteSummary.WARNING_OBSTACLE));
+    }
+
+    /** The metric's value in reading, NaN when the reading does not carry it. */
+    public static float value(int metric, SensorReading reading) {
+        switch (metric) {
+            case METRIC_DISTANCE1:
+                return (float) reading.distance1;
+            case METRIC_DISTANCE2:
+                return (float) reading.distance2;
+            case METRIC_METHANE:
+                return (float) reading.mq8;
+            case METRIC_FLAME:
+                // Both digital sensors pull their output low on detection
+                return SensorReading.isMissing(reading.flame) ? Float.NaN : reading.flame == 0 ? 1f : 0f;
+            case METRIC_OBSTACLE:
+                return SensorReading.isMissing(reading.ir) ? Float.NaN : reading.ir == 0 ? 1f : 0f;
+            case METRIC_TEMPERATURE:
+                return (float) reading.temp;
+            case METRIC_FILL:
+                if (reading.chamberCount() == 0) return Float.NaN;
+                float max = 0f;
+                for (int i = 0; i < reading.chamberCount(); i++) max = Math.max(max, reading.waterLevel(i));
+                return max;
+            default:
+                return Float.NaN;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.smartdrainagesystem;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Min/max decimation of one SensorHistoryStore column into fixed-width time columns, one per
+ * pixel (or a few), so a chart draws at most two points per column no matter how many samples
+ * the range holds. Spikes survive because every column keeps both of its extremes.
+ *
+ * load() picks the coarsest stored resolution that still has at least one bucket per column:
+ * hour rollups for months, minute rollups for days, raw samples only for short ranges.
+ * Arrays are reused across loads; an instance is not thread-safe.
+ */
+public final class ChartDecimator implements SensorHistoryStore.SampleVisitor, SensorHistoryStore.RollupVisitor {
+
+    public static final int RESOLUTION_RAW = 0;
+    public static final int RESOLUTION_MINUTE = 1;
+    public static final int RESOLUTION_HOUR = 2;
+
+    // Per column extremes, NaN where the column has no data
+    public float[] min = new float[0];
+    public float[] max = new float[0];
+    public int columns;
+    public long fromMillis;
+    public long millisPerColumn;
+    public int resolution;
+    public int samplesVisited;
+    // Extremes over all columns, NaN when nothing was loaded
+    public float rangeMin, rangeMax;
+
+    public static int resolutionFor(long millisPerColumn) {
+        if (millisPerColumn >= SensorHistoryStore.HOUR_MILLIS) return RESOLUTION_HOUR;
+        if (millisPerColumn >= SensorHistoryStore.MINUTE_MILLIS) return RESOLUTION_MINUTE;
+        return RESOLUTION_RAW;
+    }
+
+    /** Clears the buffer for columns of millisPerColumn each, starting at fromMillis. */
+    public void reset(long fromMillis, long millisPerColumn, int columns) {
+        if (columns < 1 || millisPerColumn < 1) throw new IllegalArgumentException("Empty chart range");
+        if (min.length < columns) {
+            min = new float[columns];
+            max = new float[columns];
+        }
+        Arrays.fill(min, 0, columns, Float.NaN);
+        Arrays.fill(max, 0, columns, Float.NaN);
+        this.columns = columns;
+        this.fromMillis = fromMillis;
+        this.millisPerColumn = millisPerColumn;
+        samplesVisited = 0;
+        rangeMin = Float.NaN;
+        rangeMax = Float.NaN;
+    }
+
+    /** Resets and fills the buffer from the store at the resolution that fits millisPerColumn. */
+    public void load(SensorHistoryStore store, int column, long fromMillis, long millisPerColumn, int columns) throws IOException {
+        reset(fromMillis, millisPerColumn, columns);
+        long toMillis = toMillis();
+        resolution = resolutionFor(millisPerColumn);
+        switch (resolution) {
+            case RESOLUTION_HOUR:
+                samplesVisited = store.queryHours(column, fromMillis, toMillis, this);
+                break;
+            case RESOLUTION_MINUTE:
+                samplesVisited = store.queryMinutes(column, fromMillis, toMillis, this);
+                break;
+            default:
+                samplesVisited = store.queryRaw(column, fromMillis, toMillis, this);
+                break;
+        }
+    }
+
+    /** End of the covered range, exclusive. */
+    public long toMillis() {
+        return fromMillis + millisPerColumn * columns;
+    }
+
+    public long columnStart(int column) {
+        return fromMillis + millisPerColumn * column;
+    }
+
+    @Override
+    public void visit(long timeMillis, float value) {
+        add(timeMillis, value, value);
+    }
+
+    @Override
+    public void visit(long bucketStartMillis, float bucketMin, float bucketMax, float avg) {
+        // The first bucket may start before the range but still overlaps it
+        add(Math.max(bucketStartMillis, fromMillis), bucketMin, bucketMax);
+    }
+
+    private void add(long timeMillis, float low, float high) {
+        if (Float.isNaN(low) || Float.isNaN(high) || timeMillis < fromMillis) return;
+        long index = (timeMillis - fromMillis) / millisPerColumn;
+        if (index >= columns) return;
+        int c = (int) index;
+        // NaN compares false, so an empty column takes the first value
+        if (!(min[c] <= low)) min[c] = low;
+        if (!(max[c] >= high)) max[c] = high;
+        if (!(rangeMin <= low)) rangeMin = low;
+        if (!(rangeMax >= high)) rangeMax = high;
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.smartdrainagesystem;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Drives the plastic cutter from live readings while auto mode is on.
+ *
+ * A blockage the gateway reports (alert "Blockage" or a blocked_chamber) starts the cutter on the
+ * same sample; the firmware has already confirmed it. A blockage inferred from the sensors alone,
+ * IR obstacle plus sonar 2 reading well short of sonar 1, has to persist for
+ * INFERRED_ON_AFTER_SECONDS first.
+ * The cutter stops once the evidence has been gone for OFF_AFTER_SECONDS.
+ *
+ * Duty cycle: a run lasts at least MIN_ON_SECONDS and at most MAX_RUN_SECONDS; a run cut short by
+ * the limit is followed by COOLDOWN_SECONDS off, any other stop by MIN_OFF_SECONDS, which caps the
+ * duty cycle at MAX_RUN / (MAX_RUN + COOLDOWN) while a blockage persists.
+ *
+ * Only changes reach the Actuator, so a steady state costs no writes. Time is the readings' own
+ * timestamp in seconds, for mode changes too: the phone's clock may disagree with the gateway's.
+ * Thread-safe.
+ */
+public final class CutterController {
+
+    public static final double SONAR_DIVERGENCE_CM = 3.0;
+    public static final int INFERRED_ON_AFTER_SECONDS = 2;
+    public static final int OFF_AFTER_SECONDS = 3;
+    public static final int MIN_ON_SECONDS = 3;
+    public static final int MIN_OFF_SECONDS = 5;
+    public static final int MAX_RUN_SECONDS = 20;
+    public static final int COOLDOWN_SECONDS = 40;
+    static final int LOG_CAPACITY = 64;
+
+    public static final String REASON_REPORTED = "blockage reported";
+    public static final String REASON_INFERRED = "blockage inferred";
+    public static final String REASON_CLEARED = "blockage cleared";
+    public static final String REASON_RUN_LIMIT = "run limit";
+    public static final String REASON_AUTO_OFF = "auto mode off";
+
+    public interface Actuator {
+        void setCutter(boolean on, long timeSeconds, String reason);
+    }
+
+    /** One command the controller issued. */
+    public static final class Actuation {
+        public final long timeSeconds;
+        public final boolean on;
+        public final String reason;
+
+        Actuation(long timeSeconds, boolean on, String reason) {
+            this.timeSeconds = timeSeconds;
+            this.on = on;
+            this.reason = reason;
+        }
+    }
+
+    private static final int EVIDENCE_NONE = 0;
+    private static final int EVIDENCE_INFERRED = 1;
+    private static final int EVIDENCE_REPORTED = 2;
+    private static final long NO_TIME = Long.MIN_VALUE;
+
+    private final Actuator actuator;
+    private final Actuation[] log = new Actuation[LOG_CAPACITY];
+    private long actuations;
+
+    private boolean autoMode;
+    private boolean cutterOn;
+    private long lastTime = NO_TIME;
+    private long onSince = NO_TIME;
+    private long evidenceSince = NO_TIME;
+    private long clearSince = NO_TIME;
+    private long offUntil = NO_TIME; // cooldown end
+
+    public CutterController(Actuator actuator) {
+        this.actuator = actuator;
+    }
+
+    /**
+     * Follows the servo_control node. Entering auto mode adopts the current cutter state; leaving
+     * it stops a run the controller started, since nobody would stop it otherwise. Both happen at
+     * the time of the latest reading.
+     */
+    public synchronized void setAutoMode(boolean autoMode, boolean cutterOn) {
+        if (autoMode == this.autoMode) return;
+        this.autoMode = autoMode;
+        evidenceSince = NO_TIME;
+        clearSince = NO_TIME;
+        offUntil = NO_TIME;
+        if (autoMode) {
+            this.cutterOn = cutterOn;
+            onSince = cutterOn ? lastTime : NO_TIME; // without a reading yet, the first one starts the run
+        } else if (this.cutterOn && lastTime != NO_TIME) {
+            // Before any reading this controller cannot have started the run
+            actuate(false, lastTime, REASON_AUTO_OFF);
+        }
+    }
+
+    public synchronized void onReading(SensorReading reading) {
+        long now = reading.timestamp;
+        if (now == SensorReading.MISSING_TIMESTAMP || now <= lastTime) return;
+        lastTime = now;
+        if (!autoMode) return;
+        if (cutterOn && onSince == NO_TIME) onSince = now;
+
+        int evidence = evidence(reading);
+        if (evidence != EVIDENCE_NONE) {
+            clearSince = NO_TIME;
+            if (evidenceSince == NO_TIME) evidenceSince = now;
+        } else {
+            evidenceSince = NO_TIME;
+            if (clearSince == NO_TIME) clearSince = now;
+        }
+
+        if (cutterOn) {
+            if (now - onSince >= MAX_RUN_SECONDS) {
+                actuate(false, now, REASON_RUN_LIMIT);
+                offUntil = now + COOLDOWN_SECONDS;
+            } else if (evidence == EVIDENCE_NONE && now - clearSince >= OFF_AFTER_SECONDS && now - onSince >= MIN_ON_SECONDS) {
+                actuate(false, now, REASON_CLEARED);
+                offUntil = now + MIN_OFF_SECONDS;
+            }
+        } else if (now >= offUntil) {
+            if (evidence == EVIDENCE_REPORTED) {
+                actuate(true, now, REASON_REPORTED);
+            } else if (evidence == EVIDENCE_INFERRED && now - evidenceSince >= INFERRED_ON_AFTER_SECONDS) {
+                actuate(true, now, REASON_INFERRED);
+            }
+        }
+    }
+
+    public synchronized boolean isCutterOn() {
+        return cutterOn;
+    }
+
+    public synchronized long actuations() {
+        return actuations;
+    }
+
+    /** The last LOG_CAPACITY actuations, oldest first. */
+    public synchronized List<Actuation> recentActuations() {
+        int size = (int) Math.min(actuations, LOG_CAPACITY);
+        List<Actuation> recent = new ArrayList<>(size);
+        for (long i = actuations - size; i < actuations; i++) recent.add(log[(int) (i % LOG_CAPACITY)]);
+        return recent;
+    }
+
+    private void actuate(boolean on, long now, String reason) {
+        cutterOn = on;
+        onSince = on ? now : NO_TIME;
+        log[(int) (actuations % LOG_CAPACITY)] = new Actuation(now, on, reason);
+        actuations++;
+        actuator.setCutter(on, now, reason);
+    }
+
+    private static int evidence(SensorReading reading) {
+        if ("Blockage".equals(reading.alert)) return EVIDENCE_REPORTED;
+        if (!reading.hasDetails) return EVIDENCE_NONE;
+        if (!SensorReading.isMissing(reading.blockedChamber) && reading.blockedChamber > 0) return EVIDENCE_REPORTED;
+        // Obstacle in front of the IR sensor and water backing up between the two sonars
+        boolean obstacle = reading.ir == 0;
+        boolean backedUp = !SensorReading.isMissing(reading.distance1) && !SensorReading.isMissing(reading.distance2)
+                && reading.distance1 - reading.distance2 >= SONAR_DIVERGENCE_CM;
+        return obstacle && backedUp ? EVIDENCE_INFERRED : EVIDENCE_NONE;
+    }
+}
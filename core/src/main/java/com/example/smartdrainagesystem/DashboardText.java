@@ -0,0 +1,96 @@
+package com.example.smartdrainagesystem;
+
+/**
+ * The dashboard's text lines, formatted into reused TextLines so a steady stream of updates
+ * allocates nothing. Each method returns true when the line's characters changed and the view
+ * needs the new text.
+ *
+ * Numbers print with '.' and ASCII digits whatever the locale, as the String.format(Locale.US, ...)
+ * calls they replace did; month names follow the TimestampFormat.
+ */
+public final class DashboardText {
+
+    public final TextLine status = new TextLine();
+    public final TextLine gps = new TextLine();
+    public final TextLine blockage = new TextLine();
+    public final TextLine methane = new TextLine();
+    public final TextLine flame = new TextLine();
+    public final TextLine obstacle = new TextLine();
+    public final TextLine sonar1 = new TextLine();
+    public final TextLine sonar2 = new TextLine();
+    public final TextLine temperature = new TextLine();
+    public final TextLine timestamp = new TextLine();
+    public final TextLine forecast = new TextLine();
+    public final TextLine staleSince = new TextLine();
+
+    private final TimestampFormat timestampFormat;
+
+    public DashboardText(TimestampFormat timestampFormat) {
+        this.timestampFormat = timestampFormat;
+    }
+
+    public boolean status(String alert) {
+        return status.begin().append("Status: ").append(alert).commit();
+    }
+
+    public boolean gps(String coordinates) {
+        return gps.begin().append("GPS: ").append(coordinates).commit();
+    }
+
+    /** Pass null for no blockage. */
+    public boolean blockage(String type, int chamber) {
+        blockage.begin().append("Blockage: ");
+        if (type == null) return blockage.append("None").commit();
+        return blockage.append(type).append(" (Chamber ").append(chamber).append(')').commit();
+    }
+
+    public boolean methane(boolean present, double volts) {
+        return methane.begin().append("Methane: ").append(present ? "Present" : "Not Present")
+                .append(" (").appendFixed(volts, 2).append("V)").commit();
+    }
+
+    public boolean flame(boolean detected) {
+        return flame.begin().append(detected ? "Flame: Detected" : "Flame: No Flame").commit();
+    }
+
+    public boolean obstacle(boolean detected) {
+        return obstacle.begin().append(detected ? "Obstacle (IR): Detected" : "Obstacle (IR): Clear").commit();
+    }
+
+    public boolean sonar1(double centimeters) {
+        return sonar(sonar1, "Sonar 1: ", centimeters);
+    }
+
+    public boolean sonar2(double centimeters) {
+        return sonar(sonar2, "Sonar 2: ", centimeters);
+    }
+
+    private static boolean sonar(TextLine line, String label, double centimeters) {
+        return line.begin().append(label).appendFixed(centimeters, 1).append(" cm").commit();
+    }
+
+    public boolean temperature(double celsius) {
+        return temperature.begin().append("Temp: ").appendFixed(celsius, 1).append(" \u00B0C").commit();
+    }
+
+    public boolean timestamp(long epochSeconds) {
+        timestamp.begin().append("Last Update: ");
+        return timestampFormat.append(timestamp, epochSeconds * 1000L).commit();
+    }
+
+    /** minutes is negative when no overflow is expected. */
+    public boolean forecast(long minutes, boolean blockageDeveloping) {
+        forecast.begin().append("Forecast: ");
+        if (minutes < 0) forecast.append(blockageDeveloping ? "Blockage developing" : "Stable");
+        else if (minutes == 0) forecast.append("Overflowing");
+        else forecast.append("Overflow in ~").append(minutes).append(" min");
+        return forecast.commit();
+    }
+
+    /** epochSeconds is 0 when the saved data has no timestamp. */
+    public boolean staleSince(long epochSeconds) {
+        staleSince.begin().append("Saved data");
+        if (epochSeconds > 0) timestampFormat.append(staleSince.append(" from "), epochSeconds * 1000L);
+        return staleSince.append(", waiting for live updates").commit();
+    }
+}
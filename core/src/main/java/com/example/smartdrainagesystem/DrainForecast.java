@@ -0,0 +1,30 @@
+package com.example.smartdrainagesystem;
+
+/**
+ * Immutable output of DrainageAnalytics for one point in time, safe to hand to the UI thread.
+ */
+public final class DrainForecast {
+
+    public static final double NO_OVERFLOW = Double.POSITIVE_INFINITY;
+
+    public final long timeMillis;
+    public final double timeToOverflowSeconds; // NO_OVERFLOW when levels are not rising
+    public final boolean blockageDeveloping;
+    public final double sonar1TrendCmPerMinute;
+    public final double sonar2TrendCmPerMinute;
+    public final double fillTrendPerMinute; // change of mean chamber fill (0..1) per minute
+
+    public DrainForecast(long timeMillis, double timeToOverflowSeconds, boolean blockageDeveloping,
+                         double sonar1TrendCmPerMinute, double sonar2TrendCmPerMinute, double fillTrendPerMinute) {
+        this.timeMillis = timeMillis;
+        this.timeToOverflowSeconds = timeToOverflowSeconds;
+        this.blockageDeveloping = blockageDeveloping;
+        this.sonar1TrendCmPerMinute = sonar1TrendCmPerMinute;
+        this.sonar2TrendCmPerMinute = sonar2TrendCmPerMinute;
+        this.fillTrendPerMinute = fillTrendPerMinute;
+    }
+
+    public boolean overflowExpected() {
+        return timeToOverflowSeconds != NO_OVERFLOW;
+    }
+}
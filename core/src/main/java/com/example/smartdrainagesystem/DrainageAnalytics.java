@@ -0,0 +1,133 @@
+package com.example.smartdrainagesystem;
+
+/**
+ * Incremental analytics over the reading stream of one drain.
+ *
+ * Keeps exponentially weighted level and slope estimates (see TrendTracker) for both sonar
+ * distances, the mean chamber fill and the gap between the two sonars, and derives from them
+ * a time-to-overflow prediction and a "blockage developing" flag. accept() is O(1) and does
+ * not allocate, so the same engine can replay months of stored history in seconds.
+ *
+ * Sonar distances are measured from the sensor down, so a rising water (or debris) level
+ * shows up as a falling distance. Not thread-safe; feed it from one thread.
+ */
+public final class DrainageAnalytics {
+
+    public static final class Config {
+        // Distance at which the chamber is treated as overflowing; matches the dashboard's red threshold
+        public double overflowDistanceCm = 5.0;
+        public double trendTimeConstantSeconds = 120.0;
+        // Slower movement than this is treated as noise, not as a trend
+        public double minDistanceRateCmPerMinute = 0.2;
+        public double minFillRatePerMinute = 0.01;
+        // Predicted overflow closer than this counts as a developing blockage
+        public double blockageHorizonSeconds = 30 * 60;
+        // Sonars drifting apart this fast while one level rises means water is backing up behind something
+        public double divergenceRateCmPerMinute = 0.5;
+        // After a gap this long the old trend says nothing about the new data
+        public long resetAfterGapMillis = 10 * 60_000L;
+    }
+
+    private final Config config;
+    private final TrendTracker sonar1, sonar2, fill, divergence;
+
+    private long originMillis = Long.MIN_VALUE;
+    private long lastMillis = Long.MIN_VALUE;
+    private double timeToOverflowSeconds = DrainForecast.NO_OVERFLOW;
+    private boolean blockageDeveloping;
+
+    public DrainageAnalytics() {
+        this(new Config());
+    }
+
+    public DrainageAnalytics(Config config) {
+        this.config = config;
+        sonar1 = new TrendTracker(config.trendTimeConstantSeconds);
+        sonar2 = new TrendTracker(config.trendTimeConstantSeconds);
+        fill = new TrendTracker(config.trendTimeConstantSeconds);
+        divergence = new TrendTracker(config.trendTimeConstantSeconds);
+    }
+
+    public void accept(SensorReading reading) {
+        if (reading.timestamp <= 0 || !reading.hasDetails) return;
+        accept(reading.timestamp * 1000L, reading.distance1, reading.distance2, reading.meanWaterLevel());
+    }
+
+    /** Feeds one sample; NaN marks a missing value. Samples older than the previous one are ignored. */
+    public void accept(long timeMillis, double distance1, double distance2, double fillFraction) {
+        if (lastMillis != Long.MIN_VALUE) {
+            if (timeMillis < lastMillis) return;
+            if (timeMillis - lastMillis > config.resetAfterGapMillis) reset();
+        }
+        if (originMillis == Long.MIN_VALUE) originMillis = timeMillis;
+        lastMillis = timeMillis;
+
+        // Relative seconds keep the regression sums well inside double precision
+        double t = (timeMillis - originMillis) / 1000.0;
+        sonar1.add(t, distance1);
+        sonar2.add(t, distance2);
+        fill.add(t, fillFraction);
+        if (!Double.isNaN(distance1) && !Double.isNaN(distance2)) {
+            divergence.add(t, distance2 - distance1);
+        }
+        evaluate();
+    }
+
+    private void evaluate() {
+        double minDistanceRate = config.minDistanceRateCmPerMinute / 60.0;
+        double tto = Math.min(
+                distanceTimeToOverflow(sonar1, minDistanceRate),
+                distanceTimeToOverflow(sonar2, minDistanceRate));
+
+        double fillSlope = fill.slope();
+        if (fill.isPrimed() && fillSlope > config.minFillRatePerMinute / 60.0) {
+            double remaining = Math.max(0.0, 1.0 - fill.current());
+            tto = Math.min(tto, remaining / fillSlope);
+        }
+        timeToOverflowSeconds = tto;
+
+        boolean levelRising = sonar1.slope() < -minDistanceRate || sonar2.slope() < -minDistanceRate;
+        boolean backingUp = levelRising && Math.abs(divergence.slope()) > config.divergenceRateCmPerMinute / 60.0;
+        blockageDeveloping = tto <= config.blockageHorizonSeconds || backingUp;
+    }
+
+    private double distanceTimeToOverflow(TrendTracker sonar, double minRate) {
+        double slope = sonar.slope();
+        if (!sonar.isPrimed() || slope >= -minRate) return DrainForecast.NO_OVERFLOW;
+        double remaining = sonar.current() - config.overflowDistanceCm;
+        return remaining <= 0 ? 0.0 : remaining / -slope;
+    }
+
+    public void reset() {
+        sonar1.reset();
+        sonar2.reset();
+        fill.reset();
+        divergence.reset();
+        originMillis = Long.MIN_VALUE;
+        lastMillis = Long.MIN_VALUE;
+        timeToOverflowSeconds = DrainForecast.NO_OVERFLOW;
+        blockageDeveloping = false;
+    }
+
+    public double timeToOverflowSeconds() {
+        return timeToOverflowSeconds;
+    }
+
+    public boolean blockageDeveloping() {
+        return blockageDeveloping;
+    }
+
+    public double sonar1Mean() {
+        return sonar1.mean();
+    }
+
+    public double sonar2Mean() {
+        return sonar2.mean();
+    }
+
+    // Allocates; call once per rendered update, not per replayed sample
+    public DrainForecast forecast() {
+        return new DrainForecast(lastMillis, timeToOverflowSeconds, blockageDeveloping,
+                sonar1.slope() * 60.0, sonar2.slope() * 60.0, fill.slope() * 60.0);
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.smartdrainagesystem;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory stand-in for the Realtime Database references the app uses (sensor_data,
+ * sensor_frame, servo_control), for load tests and benchmarks that must not touch the network.
+ *
+ * Values are the raw trees DataSnapshot.getValue() would return. Like Firebase, a listener gets
+ * the current value when it is added and the whole node again after every write. Callbacks run
+ * on the executor passed in (Firebase uses the main thread); only exact paths are observed.
+ * Thread-safe.
+ */
+public final class FakeSensorDatabase {
+
+    public interface ValueListener {
+        /**
+         * @param value          raw node value, null when the node was removed
+         * @param writtenAtNanos System.nanoTime() of the write, for end-to-end latency measurements
+         */
+        void onValue(Object value, long writtenAtNanos);
+    }
+
+    private static final class Node {
+        volatile Object value;
+        volatile long writtenAtNanos;
+        final List<ValueListener> listeners = new CopyOnWriteArrayList<>();
+    }
+
+    private final Map<String, Node> nodes = new ConcurrentHashMap<>();
+    private final Executor callbackExecutor;
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLong deliveries = new AtomicLong();
+
+    /** Delivers callbacks on the writing thread. */
+    public FakeSensorDatabase() {
+        this(Runnable::run);
+    }
+
+    public FakeSensorDatabase(Executor callbackExecutor) {
+        this.callbackExecutor = callbackExecutor;
+    }
+
+    public static String sensorDataPath(String siteId) {
+        return siteId == null ? "sensor_data" : "sites/" + siteId + "/sensor_data";
+    }
+
+    public static String sensorFramePath(String siteId) {
+        return siteId == null ? "sensor_frame" : "sites/" + siteId + "/sensor_frame";
+    }
+
+    public static String servoControlPath(String siteId) {
+        return siteId == null ? "servo_control" : "sites/" + siteId + "/servo_control";
+    }
+
+    public void setValue(String path, Object value) {
+        Node node = node(path);
+        long now = System.nanoTime();
+        synchronized (node) {
+            node.value = value;
+            node.writtenAtNanos = now;
+        }
+        writes.incrementAndGet();
+        dispatch(node, value, now);
+    }
+
+    /** Merges children into the node at path, like DatabaseReference.updateChildren() one level deep. */
+    public void updateChildren(String path, Map<String, Object> children) {
+        Node node = node(path);
+        long now = System.nanoTime();
+        Map<String, Object> merged;
+        synchronized (node) {
+            merged = node.value instanceof Map ? new HashMap<>(castMap(node.value)) : new HashMap<>();
+            for (Map.Entry<String, Object> child : children.entrySet()) {
+                if (child.getValue() == null) {
+                    merged.remove(child.getKey());
+                } else {
+                    merged.put(child.getKey(), child.getValue());
+                }
+            }
+            node.value = merged;
+            node.writtenAtNanos = now;
+        }
+        writes.incrementAndGet();
+        dispatch(node, merged, now);
+    }
+
+    public Object getValue(String path) {
+        Node node = nodes.get(path);
+        return node == null ? null : node.value;
+    }
+
+    public void addValueListener(String path, ValueListener listener) {
+        Node node = node(path);
+        node.listeners.add(listener);
+        Object value;
+        long writtenAt;
+        synchronized (node) {
+            value = node.value;
+            writtenAt = node.writtenAtNanos;
+        }
+        if (value != null) {
+            callbackExecutor.execute(() -> deliver(listener, value, writtenAt));
+        }
+    }
+
+    public void removeListener(String path, ValueListener listener) {
+        Node node = nodes.get(path);
+        if (node != null) node.listeners.remove(listener);
+    }
+
+    public int listenerCount() {
+        int count = 0;
+        for (Node node : nodes.values()) count += node.listeners.size();
+        return count;
+    }
+
+    public long writeCount() {
+        return writes.get();
+    }
+
+    public long deliveryCount() {
+        return deliveries.get();
+    }
+
+    private Node node(String path) {
+        return nodes.computeIfAbsent(path, p -> new Node());
+    }
+
+    private void dispatch(Node node, Object value, long writtenAtNanos) {
+        for (ValueListener listener : node.listeners) {
+            callbackExecutor.execute(() -> deliver(listener, value, writtenAtNanos));
+        }
+    }
+
+    private void deliver(ValueListener listener, Object value, long writtenAtNanos) {
+        deliveries.incrementAndGet();
+        listener.onValue(value, writtenAtNanos);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> castMap(Object value) {
+        return (Map<String, Object>) value;
+    }
+}
@@ -0,0 +1,480 @@
+package com.example.smartdrainagesystem;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Bulk export and import of raw SensorHistoryStore rows, as CSV for spreadsheets and analysis
+ * tools or as a compact chunked columnar file for archiving and replay.
+ *
+ * Everything streams through fixed buffers: rows are written as the store visits them and handed
+ * to a RowVisitor as they are read back, so memory stays flat whatever the size of the range.
+ * Write to a FileChannel (or any other channel); nothing here closes the channel.
+ *
+ * Columnar layout, big-endian:
+ * <pre>
+ *   header  magic "SDHX" | version u16 | columns u16 | rowsPerChunk i32
+ *   chunk   rows i32 | rawLength i32 | deflatedLength i32 | deflated body
+ *   body    firstTime i64 | (rows - 1) zigzag varint time deltas
+ *           | per column: rows x i32 float bits XOR the previous row's bits
+ *   end     a chunk header with rows == 0
+ * </pre>
+ * Readings change slowly, so the XORed columns are mostly zero bytes and deflate well.
+ */
+public final class HistoryExport {
+
+    public static final String CSV_HEADER = "time_millis,distance1,distance2,mq8,temp,water_fill\n";
+    public static final int CHUNK_ROWS = 8192;
+
+    static final int MAGIC = 0x53444858; // "SDHX"
+    static final int VERSION = 1;
+
+    private static final int COLUMNS = SensorHistoryStore.COLUMN_COUNT;
+    private static final int FILE_HEADER_BYTES = 12;
+    private static final int CHUNK_HEADER_BYTES = 12;
+    private static final int MAX_RAW_CHUNK = 8 + (CHUNK_ROWS - 1) * 10 + CHUNK_ROWS * COLUMNS * 4;
+    private static final int MAX_DEFLATED_CHUNK = MAX_RAW_CHUNK + MAX_RAW_CHUNK / 8 + 64;
+
+    private static final int IO_BUFFER = 64 * 1024;
+    private static final int MAX_CSV_ROW = 256; // time plus five values, with room to spare
+    private static final int CSV_DECIMALS = 4; // finer than any sensor resolves; fill levels lose a little
+    private static final int CSV_SCALE = 10_000;
+
+    private HistoryExport() {
+    }
+
+    /** Writes rows in [fromMillis, toMillis] as CSV with a header line; returns the number of rows. */
+    public static long writeCsv(SensorHistoryStore store, long fromMillis, long toMillis, WritableByteChannel out)
+            throws IOException {
+        CsvWriter writer = new CsvWriter(out);
+        long rows = store.queryRows(fromMillis, toMillis, writer);
+        writer.finish();
+        return rows;
+    }
+
+    /**
+     * Reads CSV in the writeCsv layout; a leading header line is skipped and empty fields read as
+     * NaN. Returns the number of rows.
+     */
+    public static long readCsv(ReadableByteChannel in, SensorHistoryStore.RowVisitor visitor) throws IOException {
+        return new CsvReader(in, visitor).read();
+    }
+
+    /** Writes rows in [fromMillis, toMillis] in the chunked columnar format; returns the number of rows. */
+    public static long writeColumnar(SensorHistoryStore store, long fromMillis, long toMillis, WritableByteChannel out)
+            throws IOException {
+        ColumnarWriter writer = new ColumnarWriter(out);
+        try {
+            long rows = store.queryRows(fromMillis, toMillis, writer);
+            writer.finish();
+            return rows;
+        } finally {
+            writer.deflater.end();
+        }
+    }
+
+    /** Reads a columnar export chunk by chunk; returns the number of rows. */
+    public static long readColumnar(ReadableByteChannel in, SensorHistoryStore.RowVisitor visitor) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            return new ColumnarReader(in, inflater).read(visitor);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /** Replays imported rows into a store; rows older than its newest sample are dropped as usual. */
+    public static SensorHistoryStore.RowVisitor appendTo(SensorHistoryStore store) {
+        return (timeMillis, values) -> store.append(timeMillis,
+                values[SensorHistoryStore.COLUMN_DISTANCE1], values[SensorHistoryStore.COLUMN_DISTANCE2],
+                values[SensorHistoryStore.COLUMN_MQ8], values[SensorHistoryStore.COLUMN_TEMP],
+                values[SensorHistoryStore.COLUMN_WATER_FILL]);
+    }
+
+    // ---- CSV ----
+
+    static final class CsvWriter implements SensorHistoryStore.RowVisitor {
+        private final WritableByteChannel out;
+        private final ByteBuffer buffer = ByteBuffer.allocate(IO_BUFFER);
+        private final byte[] digits = new byte[20];
+
+        CsvWriter(WritableByteChannel out) {
+            this.out = out;
+            buffer.put(CSV_HEADER.getBytes(StandardCharsets.US_ASCII));
+        }
+
+        @Override
+        public void visit(long timeMillis, float[] values) throws IOException {
+            if (buffer.remaining() < MAX_CSV_ROW) drain();
+            putLong(timeMillis);
+            for (int c = 0; c < COLUMNS; c++) {
+                buffer.put((byte) ',');
+                putValue(values[c]);
+            }
+            buffer.put((byte) '\n');
+        }
+
+        void finish() throws IOException {
+            drain();
+        }
+
+        private void drain() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) out.write(buffer);
+            buffer.clear();
+        }
+
+        // Fixed point with trailing zeros trimmed: no Float.toString garbage per value
+        private void putValue(float value) {
+            if (!Float.isFinite(value)) return; // missing reading: empty field
+            if (Math.abs(value) >= 1e12f) {
+                buffer.put(Float.toString(value).getBytes(StandardCharsets.US_ASCII));
+                return;
+            }
+            long scaled = Math.round((double) value * CSV_SCALE);
+            if (scaled < 0) {
+                buffer.put((byte) '-');
+                scaled = -scaled;
+            }
+            putLong(scaled / CSV_SCALE);
+            int fraction = (int) (scaled % CSV_SCALE);
+            if (fraction == 0) return;
+            int width = CSV_DECIMALS;
+            while (fraction % 10 == 0) {
+                fraction /= 10;
+                width--;
+            }
+            buffer.put((byte) '.');
+            for (int divisor = pow10(width - 1); divisor > 0; divisor /= 10) {
+                buffer.put((byte) ('0' + fraction / divisor % 10));
+            }
+        }
+
+        private void putLong(long value) {
+            if (value < 0) {
+                buffer.put((byte) '-');
+                if (value == Long.MIN_VALUE) {
+                    buffer.put("9223372036854775808".getBytes(StandardCharsets.US_ASCII));
+                    return;
+                }
+                value = -value;
+            }
+            int n = 0;
+            do {
+                digits[n++] = (byte) ('0' + value % 10);
+                value /= 10;
+            } while (value != 0);
+            while (n > 0) buffer.put(digits[--n]);
+        }
+
+        private static int pow10(int exponent) {
+            int result = 1;
+            for (int i = 0; i < exponent; i++) result *= 10;
+            return result;
+        }
+    }
+
+    static final class CsvReader {
+        private final ReadableByteChannel in;
+        private final SensorHistoryStore.RowVisitor visitor;
+        private final ByteBuffer buffer = ByteBuffer.allocate(IO_BUFFER);
+        private final float[] values = new float[COLUMNS];
+
+        // Field being parsed
+        private long mantissa;
+        private int scale; // decimal exponent applied to mantissa
+        private int exponent;
+        private boolean negative, negativeExponent, inFraction, inExponent, hasDigits, overflow;
+
+        private int field;
+        private long time;
+        private long line = 1;
+        private boolean skippingLine;
+
+        CsvReader(ReadableByteChannel in, SensorHistoryStore.RowVisitor visitor) {
+            this.in = in;
+            this.visitor = visitor;
+        }
+
+        long read() throws IOException {
+            long rows = 0;
+            boolean lineStart = true;
+            resetField();
+            while (true) {
+                buffer.clear();
+                int n = in.read(buffer);
+                if (n < 0) break;
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    byte b = buffer.get();
+                    if (lineStart) {
+                        lineStart = false;
+                        // Header or other text line from whatever tool produced the file
+                        skippingLine = line == 1 && b != '-' && b != '+' && (b < '0' || b > '9');
+                    }
+                    if (b == '\n') {
+                        if (!skippingLine && endLine()) rows++;
+                        skippingLine = false;
+                        lineStart = true;
+                        line++;
+                    } else if (skippingLine || b == '\r') {
+                        // nothing
+                    } else if (b == ',') {
+                        endField();
+                    } else {
+                        accept(b);
+                    }
+                }
+            }
+            if (!lineStart && !skippingLine && endLine()) rows++;
+            return rows;
+        }
+
+        // Returns false for a blank line
+        private boolean endLine() throws IOException {
+            if (field == 0 && !hasDigits && !negative) return false;
+            endField();
+            if (field != COLUMNS + 1) throw new IOException("Expected " + (COLUMNS + 1) + " fields on CSV line " + line);
+            field = 0;
+            visitor.visit(time, values);
+            return true;
+        }
+
+        private void endField() throws IOException {
+            if (field > COLUMNS) throw new IOException("Too many fields on CSV line " + line);
+            if (field == 0) {
+                if (!hasDigits || inFraction || inExponent || overflow) throw new IOException("Bad timestamp on CSV line " + line);
+                time = negative ? -mantissa : mantissa;
+            } else {
+                values[field - 1] = hasDigits ? fieldValue() : Float.NaN;
+            }
+            field++;
+            resetField();
+        }
+
+        private void accept(byte b) throws IOException {
+            if (b >= '0' && b <= '9') {
+                int digit = b - '0';
+                if (inExponent) {
+                    if (exponent < 1000) exponent = exponent * 10 + digit;
+                } else if (mantissa < 100_000_000_000_000_000L) {
+                    mantissa = mantissa * 10 + digit;
+                    if (inFraction) scale--;
+                } else {
+                    overflow = true;
+                    if (!inFraction) scale++; // digits beyond long precision
+                }
+                if (!inExponent) hasDigits = true;
+            } else if (b == '.' && !inFraction && !inExponent) {
+                inFraction = true;
+            } else if ((b == 'e' || b == 'E') && hasDigits && !inExponent) {
+                inExponent = true;
+            } else if (b == '-' || b == '+') {
+                boolean minus = b == '-';
+                if (inExponent && exponent == 0) negativeExponent = minus;
+                else if (!hasDigits && !inFraction && !negative) negative = minus;
+                else throw new IOException("Bad number on CSV line " + line);
+            } else if (b != ' ' && b != '"') {
+                throw new IOException("Unexpected '" + (char) b + "' on CSV line " + line);
+            }
+        }
+
+        private float fieldValue() {
+            int decimal = scale + (negativeExponent ? -exponent : exponent);
+            double value = mantissa;
+            if (decimal > 0) value *= Math.pow(10, decimal);
+            else if (decimal < 0) value /= Math.pow(10, -decimal); // exact for the usual few decimals
+            return (float) (negative ? -value : value);
+        }
+
+        private void resetField() {
+            mantissa = 0;
+            scale = 0;
+            exponent = 0;
+            negative = negativeExponent = inFraction = inExponent = hasDigits = overflow = false;
+        }
+    }
+
+    // ---- Columnar ----
+
+    static final class ColumnarWriter implements SensorHistoryStore.RowVisitor {
+        private final WritableByteChannel out;
+        final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        private final long[] times = new long[CHUNK_ROWS];
+        private final int[][] bits = new int[COLUMNS][CHUNK_ROWS];
+        private final ByteBuffer raw = ByteBuffer.allocate(MAX_RAW_CHUNK);
+        private final byte[] deflated = new byte[MAX_DEFLATED_CHUNK];
+        private final ByteBuffer header = ByteBuffer.allocate(CHUNK_HEADER_BYTES);
+        private int rows;
+
+        ColumnarWriter(WritableByteChannel out) throws IOException {
+            this.out = out;
+            ByteBuffer fileHeader = ByteBuffer.allocate(FILE_HEADER_BYTES);
+            fileHeader.putInt(MAGIC).putShort((short) VERSION).putShort((short) COLUMNS).putInt(CHUNK_ROWS).flip();
+            writeFully(out, fileHeader);
+        }
+
+        @Override
+        public void visit(long timeMillis, float[] values) throws IOException {
+            times[rows] = timeMillis;
+            for (int c = 0; c < COLUMNS; c++) bits[c][rows] = Float.floatToRawIntBits(values[c]);
+            if (++rows == CHUNK_ROWS) flushChunk();
+        }
+
+        void finish() throws IOException {
+            if (rows > 0) flushChunk();
+            header.clear();
+            header.putInt(0).putInt(0).putInt(0).flip();
+            writeFully(out, header);
+        }
+
+        private void flushChunk() throws IOException {
+            raw.clear();
+            raw.putLong(times[0]);
+            for (int i = 1; i < rows; i++) putVarLong(raw, zigzag(times[i] - times[i - 1]));
+            for (int c = 0; c < COLUMNS; c++) {
+                int[] column = bits[c];
+                int previous = 0;
+                for (int i = 0; i < rows; i++) {
+                    raw.putInt(column[i] ^ previous);
+                    previous = column[i];
+                }
+            }
+            int rawLength = raw.position();
+
+            deflater.reset();
+            deflater.setInput(raw.array(), 0, rawLength);
+            deflater.finish();
+            int deflatedLength = deflater.deflate(deflated);
+            if (!deflater.finished()) throw new IOException("Chunk did not fit the deflate buffer");
+
+            header.clear();
+            header.putInt(rows).putInt(rawLength).putInt(deflatedLength).flip();
+            writeFully(out, header);
+            writeFully(out, ByteBuffer.wrap(deflated, 0, deflatedLength));
+            rows = 0;
+        }
+    }
+
+    static final class ColumnarReader {
+        private final ReadableByteChannel in;
+        private final Inflater inflater;
+        private final ByteBuffer header = ByteBuffer.allocate(CHUNK_HEADER_BYTES);
+        private final byte[] raw = new byte[MAX_RAW_CHUNK];
+        private final ByteBuffer deflated = ByteBuffer.allocate(MAX_DEFLATED_CHUNK);
+        private final long[] times = new long[CHUNK_ROWS];
+        private final float[] values = new float[COLUMNS];
+
+        ColumnarReader(ReadableByteChannel in, Inflater inflater) {
+            this.in = in;
+            this.inflater = inflater;
+        }
+
+        long read(SensorHistoryStore.RowVisitor visitor) throws IOException {
+            ByteBuffer fileHeader = ByteBuffer.allocate(FILE_HEADER_BYTES);
+            readFully(in, fileHeader);
+            if (fileHeader.getInt() != MAGIC) throw new IOException("Not a history export");
+            int version = fileHeader.getShort();
+            int columns = fileHeader.getShort();
+            int chunkRows = fileHeader.getInt();
+            if (version != VERSION || columns != COLUMNS || chunkRows <= 0 || chunkRows > CHUNK_ROWS) {
+                throw new IOException("Unsupported history export v" + version + ", " + columns + " columns");
+            }
+
+            long total = 0;
+            while (true) {
+                header.clear();
+                readFully(in, header);
+                int rows = header.getInt();
+                int rawLength = header.getInt();
+                int deflatedLength = header.getInt();
+                if (rows == 0) return total;
+                if (rows < 0 || rows > chunkRows || rawLength < 0 || rawLength > MAX_RAW_CHUNK
+                        || deflatedLength < 0 || deflatedLength > MAX_DEFLATED_CHUNK) {
+                    throw new IOException("Corrupt chunk header after " + total + " rows");
+                }
+                deflated.clear();
+                deflated.limit(deflatedLength);
+                readFully(in, deflated);
+                inflate(deflatedLength, rawLength);
+                decode(ByteBuffer.wrap(raw, 0, rawLength), rows, visitor);
+                total += rows;
+            }
+        }
+
+        private void inflate(int deflatedLength, int rawLength) throws IOException {
+            inflater.reset();
+            inflater.setInput(deflated.array(), 0, deflatedLength);
+            try {
+                int n = inflater.inflate(raw, 0, rawLength);
+                if (n != rawLength || !inflater.finished()) throw new IOException("Truncated chunk");
+            } catch (DataFormatException e) {
+                throw new IOException("Corrupt chunk", e);
+            }
+        }
+
+        private void decode(ByteBuffer body, int rows, SensorHistoryStore.RowVisitor visitor) throws IOException {
+            if (body.remaining() < 8) throw new IOException("Chunk too short for its first timestamp");
+            times[0] = body.getLong();
+            for (int i = 1; i < rows; i++) times[i] = times[i - 1] + unzigzag(getVarLong(body));
+            int columnsStart = body.position();
+            if (body.remaining() != rows * COLUMNS * 4) throw new IOException("Chunk size does not match its rows");
+            for (int i = 0; i < rows; i++) {
+                for (int c = 0; c < COLUMNS; c++) {
+                    // Undo the XOR chain in place so each row costs one pass
+                    int at = columnsStart + (c * rows + i) * 4;
+                    int bits = body.getInt(at);
+                    if (i > 0) bits ^= body.getInt(at - 4);
+                    body.putInt(at, bits);
+                    values[c] = Float.intBitsToFloat(bits);
+                }
+                visitor.visit(times[i], values);
+            }
+        }
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void putVarLong(ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private static long getVarLong(ByteBuffer buffer) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (!buffer.hasRemaining()) break;
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) return value;
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    private static void writeFully(WritableByteChannel out, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) out.write(buffer);
+    }
+
+    private static void readFully(ReadableByteChannel in, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (in.read(buffer) < 0) throw new EOFException("History export ends mid-chunk");
+        }
+        buffer.flip();
+    }
+}
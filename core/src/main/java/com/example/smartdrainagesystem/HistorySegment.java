@@ -0,0 +1,131 @@
+package com.example.smartdrainagesystem;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * One memory-mapped, fixed-capacity segment of raw history, laid out column by column:
+ *
+ *   header   magic:int, capacity:int, count:int, reserved:int
+ *   times    capacity x long (epoch millis, non-decreasing)
+ *   column c capacity x float, for c in 0 until SensorHistoryStore.COLUMN_COUNT
+ *
+ * Appends write straight into the mapping and bump the count in the header, so a crash
+ * loses at most what the kernel had not written back yet.
+ */
+final class HistorySegment implements Closeable {
+
+    static final int MAGIC = 0x53445331; // "SDS1"
+    static final int HEADER_BYTES = 16;
+    private static final int COUNT_OFFSET = 8;
+
+    final File file;
+    final int capacity;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private int count;
+
+    private HistorySegment(File file, FileChannel channel, MappedByteBuffer buffer, int capacity, int count) {
+        this.file = file;
+        this.channel = channel;
+        this.buffer = buffer;
+        this.capacity = capacity;
+        this.count = count;
+    }
+
+    static long sizeFor(int capacity) {
+        return HEADER_BYTES + (long) capacity * (8 + 4L * SensorHistoryStore.COLUMN_COUNT);
+    }
+
+    static HistorySegment create(File file, int capacity) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        FileChannel channel = raf.getChannel();
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, sizeFor(capacity));
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, capacity);
+        buffer.putInt(COUNT_OFFSET, 0);
+        return new HistorySegment(file, channel, buffer, capacity, 0);
+    }
+
+    static HistorySegment open(File file, boolean writable) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, writable ? "rw" : "r");
+        FileChannel channel = raf.getChannel();
+        try {
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            if (header.getInt(0) != MAGIC) throw new IOException("Not a history segment: " + file);
+            int capacity = header.getInt(4);
+            int count = header.getInt(COUNT_OFFSET);
+            if (capacity <= 0 || count < 0 || count > capacity || channel.size() < sizeFor(capacity)) {
+                throw new IOException("Corrupt history segment: " + file);
+            }
+            MappedByteBuffer buffer = channel.map(writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY,
+                    0, sizeFor(capacity));
+            return new HistorySegment(file, channel, buffer, capacity, count);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    int count() {
+        return count;
+    }
+
+    boolean isFull() {
+        return count == capacity;
+    }
+
+    long firstTime() {
+        return timeAt(0);
+    }
+
+    long lastTime() {
+        return timeAt(count - 1);
+    }
+
+    long timeAt(int index) {
+        return buffer.getLong(HEADER_BYTES + index * 8);
+    }
+
+    float valueAt(int column, int index) {
+        return buffer.getFloat(columnOffset(column) + index * 4);
+    }
+
+    void append(long timeMillis, float[] values) {
+        int index = count;
+        buffer.putLong(HEADER_BYTES + index * 8, timeMillis);
+        for (int c = 0; c < SensorHistoryStore.COLUMN_COUNT; c++) {
+            buffer.putFloat(columnOffset(c) + index * 4, values[c]);
+        }
+        count = index + 1;
+        buffer.putInt(COUNT_OFFSET, count);
+    }
+
+    // First index whose time is >= timeMillis, or count if none
+    int lowerBound(long timeMillis) {
+        int low = 0, high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (timeAt(mid) < timeMillis) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    void flush() {
+        buffer.force();
+    }
+
+    private int columnOffset(int column) {
+        return HEADER_BYTES + capacity * 8 + column * capacity * 4;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
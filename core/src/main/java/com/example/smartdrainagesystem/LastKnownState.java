@@ -0,0 +1,105 @@
+package com.example.smartdrainagesystem;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * The last sensor reading and cutter switches a dashboard showed, persisted so the next cold
+ * start can draw them before Firebase has delivered anything.
+ *
+ * File layout, big-endian:
+ *   u8      version
+ *   i64     savedAtMillis
+ *   u8      servo flags: 1 known, 2 servo_on, 4 auto_mode
+ *   bytes   SensorFrameCodec keyframe of the reading, absent when there was none
+ *
+ * A few hundred bytes at most, read with one FileChannel read. Writes go to a temporary file
+ * that is renamed over the old one, so a crash mid-write leaves the previous state readable.
+ */
+public final class LastKnownState {
+
+    public static final int VERSION = 1;
+    private static final int HEADER_BYTES = 10;
+    private static final int MAX_BYTES = 4096;
+
+    private static final int SERVO_KNOWN = 1;
+    private static final int SERVO_ON = 2;
+    private static final int AUTO_MODE = 4;
+
+    public final SensorReading reading; // null when only the switches were known
+    public final boolean servoKnown;
+    public final boolean servoOn;
+    public final boolean autoMode;
+    public final long savedAtMillis;
+
+    public LastKnownState(SensorReading reading, boolean servoKnown, boolean servoOn, boolean autoMode, long savedAtMillis) {
+        this.reading = reading;
+        this.servoKnown = servoKnown;
+        this.servoOn = servoOn;
+        this.autoMode = autoMode;
+        this.savedAtMillis = savedAtMillis;
+    }
+
+    public byte[] encode() {
+        byte[] frame = reading != null ? SensorFrameCodec.encodeKeyframe(reading, 0) : new byte[0];
+        ByteBuffer out = ByteBuffer.allocate(HEADER_BYTES + frame.length);
+        out.put((byte) VERSION);
+        out.putLong(savedAtMillis);
+        out.put((byte) ((servoKnown ? SERVO_KNOWN : 0) | (servoOn ? SERVO_ON : 0) | (autoMode ? AUTO_MODE : 0)));
+        out.put(frame);
+        return out.array();
+    }
+
+    /** Returns null for anything this version cannot read, so a bad file only costs the head start. */
+    public static LastKnownState decode(byte[] bytes) {
+        if (bytes.length < HEADER_BYTES || bytes[0] != VERSION) return null;
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        in.get();
+        long savedAtMillis = in.getLong();
+        int flags = in.get();
+        SensorReading reading = null;
+        if (in.hasRemaining()) {
+            byte[] frame = new byte[in.remaining()];
+            in.get(frame);
+            try {
+                reading = SensorFrameCodec.decodeKeyframe(frame);
+            } catch (RuntimeException e) {
+                return null;
+            }
+        }
+        return new LastKnownState(reading, (flags & SERVO_KNOWN) != 0, (flags & SERVO_ON) != 0, (flags & AUTO_MODE) != 0, savedAtMillis);
+    }
+
+    /** Returns null when nothing usable was saved yet. */
+    public static LastKnownState read(File file) throws IOException {
+        if (!file.isFile()) return null;
+        try (FileChannel channel = new RandomAccessFile(file, "r").getChannel()) {
+            long size = channel.size();
+            if (size > MAX_BYTES) return null;
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // Local files deliver everything in the first read
+            }
+            return buffer.hasRemaining() ? null : decode(buffer.array());
+        }
+    }
+
+    public void write(File file) throws IOException {
+        File directory = file.getParentFile();
+        if (directory != null && !directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create " + directory);
+        }
+        File tmp = new File(file.getPath() + ".tmp");
+        try (FileChannel out = new RandomAccessFile(tmp, "rw").getChannel()) {
+            out.truncate(0);
+            ByteBuffer buffer = ByteBuffer.wrap(encode());
+            while (buffer.hasRemaining()) out.write(buffer);
+            // On disk before the rename, or a power loss could leave the new name on empty data
+            out.force(true);
+        }
+        if (!tmp.renameTo(file)) throw new IOException("Could not replace " + file);
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.smartdrainagesystem;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free, fixed-size latency histogram with HDR-style log-linear buckets.
+ *
+ * Values (nanoseconds) below 64 get exact buckets; above that every power of two is split into
+ * 32 linear sub-buckets, so any recorded value is reported within about 3% over the whole long
+ * range. record() is wait-free and allocation-free: one atomic increment plus a sum update, with
+ * a CAS only when a new maximum is seen. Readers take a Snapshot, which may be a few samples
+ * behind concurrent writers but never blocks them.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS; // 32
+    private static final int LINEAR_LIMIT = SUB_BUCKETS * 2; // 64 exact buckets
+    private static final int BUCKET_COUNT = LINEAR_LIMIT + (63 - (SUB_BUCKET_BITS + 1)) * SUB_BUCKETS;
+
+    private final String name;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    public LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        counts.incrementAndGet(bucketOf(nanos));
+        sum.addAndGet(nanos);
+        long seen = max.get();
+        while (nanos > seen && !max.compareAndSet(seen, nanos)) {
+            seen = max.get();
+        }
+    }
+
+    /** Records the time elapsed since startNanos, a value taken from System.nanoTime(). */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            copy[i] = counts.get(i);
+            total += copy[i];
+        }
+        return new Snapshot(name, copy, total, sum.get(), max.get());
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) counts.set(i, 0);
+        sum.set(0);
+        max.set(0);
+    }
+
+    static int bucketOf(long value) {
+        if (value < LINEAR_LIMIT) return (int) value;
+        int msb = 63 - Long.numberOfLeadingZeros(value); // >= SUB_BUCKET_BITS + 1
+        int shift = msb - SUB_BUCKET_BITS;
+        int sub = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+        return LINEAR_LIMIT + (msb - (SUB_BUCKET_BITS + 1)) * SUB_BUCKETS + sub;
+    }
+
+    // Largest value that falls into the bucket
+    static long bucketUpperBound(int bucket) {
+        if (bucket < LINEAR_LIMIT) return bucket;
+        int k = bucket - LINEAR_LIMIT;
+        int shift = k / SUB_BUCKETS + 1;
+        long lower = (long) (SUB_BUCKETS + k % SUB_BUCKETS) << shift;
+        return lower + (1L << shift) - 1;
+    }
+
+    /** Point-in-time copy of a histogram; all values in nanoseconds. */
+    public static final class Snapshot {
+        public final String name;
+        public final long count;
+        public final long max;
+        private final long[] counts;
+        private final long sum;
+
+        Snapshot(String name, long[] counts, long count, long sum, long max) {
+            this.name = name;
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        public double mean() {
+            return count == 0 ? 0 : sum / (double) count;
+        }
+
+        /** Value at or below which the given fraction (0..1) of samples fall, capped at the recorded max. */
+        public long percentile(double fraction) {
+            if (count == 0) return 0;
+            long rank = Math.max(1, (long) Math.ceil(fraction * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) return Math.min(bucketUpperBound(i), max);
+            }
+            return max;
+        }
+    }
+}
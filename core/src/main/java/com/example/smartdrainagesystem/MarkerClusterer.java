@@ -0,0 +1,114 @@
+package com.example.smartdrainagesystem;
+
+import java.util.Arrays;
+
+/**
+ * Groups the sites of one map viewport into clusters on a fixed grid, so the map draws a bounded
+ * number of markers however many sites are in view.
+ *
+ * The viewport is cut into columns x rows cells (a cell a little larger than a marker works
+ * well); every cell with sites becomes one cluster at their mean position, carrying the OR of
+ * their flags so a blocked drain still shows inside a cluster. Results stay valid until the next
+ * cluster() call, which reuses all arrays. Not thread-safe.
+ */
+public final class MarkerClusterer implements SiteIndex.SiteVisitor {
+
+    private static final long FULL_TURN_E6 = 360_000_000L;
+
+    private SiteIndex index;
+    private int southE6, westE6, columns, rows;
+    private double cellLat, cellLon;
+
+    private int[] cellCluster = new int[0];
+    private int clusterCount;
+    private int[] size = new int[64];
+    private long[] sumLat = new long[64];
+    private long[] sumLon = new long[64];
+    private int[] flags = new int[64];
+    private int[] firstSlot = new int[64];
+
+    /** Clusters the sites inside the viewport; returns the number of clusters. west > east wraps. */
+    public int cluster(SiteIndex index, int southE6, int westE6, int northE6, int eastE6, int columns, int rows) {
+        this.index = index;
+        this.southE6 = southE6;
+        this.westE6 = westE6;
+        this.columns = columns;
+        this.rows = rows;
+        cellLat = Math.max(1, (double) northE6 - southE6) / rows;
+        cellLon = Math.max(1, lonSpan(westE6, eastE6)) / columns;
+        if (cellCluster.length < columns * rows) cellCluster = new int[columns * rows];
+        Arrays.fill(cellCluster, 0, columns * rows, -1);
+        clusterCount = 0;
+        index.queryViewport(southE6, westE6, northE6, eastE6, this);
+        this.index = null;
+        return clusterCount;
+    }
+
+    @Override
+    public void visit(int slot) {
+        int lat = index.latE6(slot), lon = index.lonE6(slot);
+        int row = Math.min(rows - 1, (int) ((lat - (double) southE6) / cellLat));
+        int column = Math.min(columns - 1, (int) (lonSpan(westE6, lon) / cellLon));
+        int cell = row * columns + column;
+        int cluster = cellCluster[cell];
+        if (cluster < 0) {
+            cluster = newCluster();
+            cellCluster[cell] = cluster;
+            firstSlot[cluster] = slot;
+        }
+        size[cluster]++;
+        // Sum offsets from the west edge so clusters straddling the antimeridian average correctly
+        sumLat[cluster] += lat;
+        sumLon[cluster] += (long) lonSpan(westE6, lon);
+        flags[cluster] |= index.flags(slot);
+    }
+
+    public int clusterCount() {
+        return clusterCount;
+    }
+
+    public int size(int cluster) {
+        return size[cluster];
+    }
+
+    public int latE6(int cluster) {
+        return (int) (sumLat[cluster] / size[cluster]);
+    }
+
+    public int lonE6(int cluster) {
+        long lon = westE6 + sumLon[cluster] / size[cluster];
+        return (int) (lon > SiteIndex.MAX_LON_E6 ? lon - FULL_TURN_E6 : lon);
+    }
+
+    public int flags(int cluster) {
+        return flags[cluster];
+    }
+
+    /** A site of the cluster; the site itself when size is 1. */
+    public int slot(int cluster) {
+        return firstSlot[cluster];
+    }
+
+    // Eastward distance from west to lon in microdegrees
+    private static double lonSpan(int westE6, int lonE6) {
+        long span = (long) lonE6 - westE6;
+        return span < 0 ? span + FULL_TURN_E6 : span;
+    }
+
+    private int newCluster() {
+        if (clusterCount == size.length) {
+            int capacity = clusterCount * 2;
+            size = Arrays.copyOf(size, capacity);
+            sumLat = Arrays.copyOf(sumLat, capacity);
+            sumLon = Arrays.copyOf(sumLon, capacity);
+            flags = Arrays.copyOf(flags, capacity);
+            firstSlot = Arrays.copyOf(firstSlot, capacity);
+        }
+        int cluster = clusterCount++;
+        size[cluster] = 0;
+        sumLat[cluster] = 0;
+        sumLon[cluster] = 0;
+        flags[cluster] = 0;
+        return cluster;
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.smartdrainagesystem;
+
+/**
+ * Decides how closely the background monitor watches a site, and when to notify.
+ *
+ *   MODE_FULL       an alert is raised: full sensor_data listener, so notifications carry the
+ *                   methane, flame and blockage details and clear as soon as the drain recovers
+ *   MODE_ALERT_ONLY quiet: a listener on the few-byte alert child only; alerts still arrive within
+ *                   seconds, but the 1 Hz sensor payload is never downloaded
+ *   MODE_SPARSE     quiet on low battery or in battery saver: no live listener, periodic checks only
+ *
+ * Notifications are de-duplicated: one per raised alert, a new one when the alert changes, and
+ * none again until the site has gone back to "None". Not thread-safe.
+ */
+public final class MonitoringPolicy {
+
+    public static final int MODE_SPARSE = 0;
+    public static final int MODE_ALERT_ONLY = 1;
+    public static final int MODE_FULL = 2;
+
+    public static final String NO_ALERT = "None";
+
+    private String alert = NO_ALERT;
+    private String notifiedAlert;
+    private boolean clearPending;
+    private boolean batterySaving;
+
+    /** @param notifiedAlert alert already notified about before a restart, NO_ALERT if none */
+    public MonitoringPolicy(String notifiedAlert) {
+        this.notifiedAlert = notifiedAlert;
+    }
+
+    public static boolean isAlerting(String alert) {
+        return !SensorReading.isMissing(alert) && !NO_ALERT.equals(alert);
+    }
+
+    /** Returns true when this changed the monitoring mode. */
+    public boolean setBatterySaving(boolean batterySaving) {
+        int before = mode();
+        this.batterySaving = batterySaving;
+        return mode() != before;
+    }
+
+    /** Feeds the latest alert value; missing values are ignored. Returns true when the alert changed. */
+    public boolean onAlert(String alert) {
+        if (SensorReading.isMissing(alert)) return false;
+        if (!isAlerting(alert)) {
+            // Only a drain that has recovered takes a shown notification down
+            if (isAlerting(notifiedAlert)) clearPending = true;
+            notifiedAlert = NO_ALERT;
+        } else {
+            clearPending = false;
+        }
+        if (alert.equals(this.alert)) return false;
+        this.alert = alert;
+        return true;
+    }
+
+    /** The alert to raise a notification for, or null when there is nothing new to announce. */
+    public String takeNotification() {
+        if (!isAlerting(alert) || alert.equals(notifiedAlert)) return null;
+        notifiedAlert = alert;
+        return alert;
+    }
+
+    /** True, once, when the alert last notified about has cleared and its notification should go. */
+    public boolean takeClear() {
+        boolean clear = clearPending;
+        clearPending = false;
+        return clear;
+    }
+
+    public int mode() {
+        if (isAlerting(alert)) return MODE_FULL;
+        return batterySaving ? MODE_SPARSE : MODE_ALERT_ONLY;
+    }
+
+    public String alert() {
+        return alert;
+    }
+
+    public String notifiedAlert() {
+        return notifiedAlert;
+    }
+
+    public boolean isAlerting() {
+        return isAlerting(alert);
+    }
+}
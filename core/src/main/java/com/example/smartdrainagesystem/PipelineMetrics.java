@@ -0,0 +1,73 @@
+package com.example.smartdrainagesystem;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process-wide timings of the sensor pipeline, split so a stale dashboard can be pinned on the
+ * sensor, Firebase or the phone:
+ *   sensorToRender  - sensor timestamp to rendered frame; includes sensor clock skew, 1 s resolution
+ *   receiveToRender - snapshot delivered by Firebase to rendered frame, i.e. time spent on the phone
+ *   decode          - decoding a snapshot on the decode thread
+ *   uiPass          - one dashboard render on the main thread
+ *   servoWrite      - servo_control write to server acknowledgement
+ * plus counts of Firebase listener attaches and detaches. Recording never blocks or allocates.
+ */
+public final class PipelineMetrics {
+
+    private static final PipelineMetrics INSTANCE = new PipelineMetrics();
+
+    public final LatencyHistogram sensorToRender = new LatencyHistogram("sensor_to_render");
+    public final LatencyHistogram receiveToRender = new LatencyHistogram("receive_to_render");
+    public final LatencyHistogram decode = new LatencyHistogram("decode");
+    public final LatencyHistogram uiPass = new LatencyHistogram("ui_pass");
+    public final LatencyHistogram servoWrite = new LatencyHistogram("servo_write_rtt");
+
+    public final AtomicLong listenerAttaches = new AtomicLong();
+    public final AtomicLong listenerDetaches = new AtomicLong();
+
+    private final LatencyHistogram[] histograms = {sensorToRender, receiveToRender, decode, uiPass, servoWrite};
+    private volatile long sinceMillis = System.currentTimeMillis();
+
+    public static PipelineMetrics get() {
+        return INSTANCE;
+    }
+
+    public void reset() {
+        for (LatencyHistogram histogram : histograms) histogram.reset();
+        listenerAttaches.set(0);
+        listenerDetaches.set(0);
+        sinceMillis = System.currentTimeMillis();
+    }
+
+    /** Plain-text report, one histogram per line with times in milliseconds. */
+    public void writeReport(Appendable out, long nowMillis) throws IOException {
+        out.append(String.format(Locale.US, "window_seconds %d%n", (nowMillis - sinceMillis) / 1000));
+        out.append(String.format(Locale.US, "%-18s %8s %9s %9s %9s %9s %9s%n",
+                "metric_ms", "count", "p50", "p90", "p99", "max", "mean"));
+        for (LatencyHistogram histogram : histograms) {
+            LatencyHistogram.Snapshot s = histogram.snapshot();
+            out.append(String.format(Locale.US, "%-18s %8d %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    s.name, s.count, millis(s.percentile(0.5)), millis(s.percentile(0.9)),
+                    millis(s.percentile(0.99)), millis(s.max), s.mean() / 1e6));
+        }
+        long attaches = listenerAttaches.get(), detaches = listenerDetaches.get();
+        out.append(String.format(Locale.US, "listeners attached %d, detached %d, live %d%n",
+                attaches, detaches, attaches - detaches));
+    }
+
+    public String report(long nowMillis) {
+        StringBuilder out = new StringBuilder();
+        try {
+            writeReport(out, nowMillis);
+        } catch (IOException e) {
+            throw new AssertionError(e); // StringBuilder does not throw
+        }
+        return out.toString();
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+}
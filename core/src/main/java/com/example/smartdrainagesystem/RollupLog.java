@@ -0,0 +1,221 @@
+package com.example.smartdrainagesystem;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+
+/**
+ * Append-only file of fixed-width min/max/avg buckets for every history column.
+ * Record layout: bucketStart:long, samples:int, then min:float, max:float, avg:float per column.
+ *
+ * The bucket currently being filled lives in memory. It is written to the slot after the last
+ * record by flush(), overwritten there by later flushes, and counted as a record once the first
+ * sample of the next bucket arrives or the log is closed. On reopen the last record is read back
+ * into memory so samples arriving within the same bucket extend it instead of duplicating it;
+ * that holds for an open bucket a flush left behind as much as for a finished one.
+ *
+ * All I/O goes through RandomAccessFile rather than its FileChannel: an interrupt during a channel
+ * read or write closes the channel for good, and the store is shared by every thread in the
+ * process, so one cancelled task would break it for all of them.
+ */
+final class RollupLog implements Closeable {
+
+    static final int RECORD_BYTES = 8 + 4 + SensorHistoryStore.COLUMN_COUNT * 12;
+    private static final int READ_BATCH_RECORDS = 256;
+
+    private final File path;
+    final long bucketMillis;
+    private RandomAccessFile file;
+    private long records;
+
+    // Accumulator for the open bucket
+    private long currentBucket = Long.MIN_VALUE;
+    private int currentSamples;
+    private final float[] min = new float[SensorHistoryStore.COLUMN_COUNT];
+    private final float[] max = new float[SensorHistoryStore.COLUMN_COUNT];
+    private final double[] sum = new double[SensorHistoryStore.COLUMN_COUNT];
+    private final int[] valueCounts = new int[SensorHistoryStore.COLUMN_COUNT];
+
+    // Reused for every read and write so queries do not allocate
+    private final ByteBuffer recordBuffer = ByteBuffer.allocate(RECORD_BYTES);
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(RECORD_BYTES * READ_BATCH_RECORDS);
+
+    RollupLog(File path, long bucketMillis) throws IOException {
+        this.path = path;
+        this.bucketMillis = bucketMillis;
+        openFile();
+        resumeLastBucket();
+    }
+
+    private void openFile() throws IOException {
+        file = new RandomAccessFile(path, "rw");
+        // Drop a torn record left by a crash mid-write
+        records = file.length() / RECORD_BYTES;
+        file.setLength(records * RECORD_BYTES);
+    }
+
+    private void resumeLastBucket() throws IOException {
+        if (records == 0) return;
+        read(readBuffer, (records - 1) * RECORD_BYTES, RECORD_BYTES);
+        currentBucket = readBuffer.getLong(0);
+        currentSamples = readBuffer.getInt(8);
+        for (int c = 0; c < SensorHistoryStore.COLUMN_COUNT; c++) {
+            int base = 12 + c * 12;
+            float avg = readBuffer.getFloat(base + 8);
+            boolean empty = Float.isNaN(avg);
+            min[c] = empty ? Float.POSITIVE_INFINITY : readBuffer.getFloat(base);
+            max[c] = empty ? Float.NEGATIVE_INFINITY : readBuffer.getFloat(base + 4);
+            // Per-column counts are not stored; the sample count is exact unless the column had gaps
+            valueCounts[c] = empty ? 0 : currentSamples;
+            sum[c] = empty ? 0 : (double) avg * currentSamples;
+        }
+        records--;
+        file.setLength(records * RECORD_BYTES);
+    }
+
+    void add(long timeMillis, float[] values) throws IOException {
+        long bucket = timeMillis - Math.floorMod(timeMillis, bucketMillis);
+        if (bucket != currentBucket) {
+            if (bucket < currentBucket) return; // out of order, already written
+            writeCurrentBucket();
+            currentBucket = bucket;
+            currentSamples = 0;
+            for (int c = 0; c < SensorHistoryStore.COLUMN_COUNT; c++) {
+                min[c] = Float.POSITIVE_INFINITY;
+                max[c] = Float.NEGATIVE_INFINITY;
+                sum[c] = 0;
+                valueCounts[c] = 0;
+            }
+        }
+        currentSamples++;
+        for (int c = 0; c < SensorHistoryStore.COLUMN_COUNT; c++) {
+            float v = values[c];
+            if (Float.isNaN(v)) continue;
+            if (v < min[c]) min[c] = v;
+            if (v > max[c]) max[c] = v;
+            sum[c] += v;
+            valueCounts[c]++;
+        }
+    }
+
+    private void writeCurrentBucket() throws IOException {
+        if (!writeOpenBucket()) return;
+        records++;
+        currentSamples = 0;
+    }
+
+    // Writes the open bucket into the slot after the last record, without counting it as one
+    private boolean writeOpenBucket() throws IOException {
+        if (currentBucket == Long.MIN_VALUE || currentSamples == 0) return false;
+        recordBuffer.clear();
+        recordBuffer.putLong(currentBucket);
+        recordBuffer.putInt(currentSamples);
+        for (int c = 0; c < SensorHistoryStore.COLUMN_COUNT; c++) {
+            boolean empty = valueCounts[c] == 0;
+            recordBuffer.putFloat(empty ? Float.NaN : min[c]);
+            recordBuffer.putFloat(empty ? Float.NaN : max[c]);
+            recordBuffer.putFloat(empty ? Float.NaN : (float) (sum[c] / valueCounts[c]));
+        }
+        file.seek(records * RECORD_BYTES);
+        file.write(recordBuffer.array(), 0, recordBuffer.position());
+        return true;
+    }
+
+    int query(int column, long fromMillis, long toMillis, SensorHistoryStore.RollupVisitor visitor) throws IOException {
+        int visited = 0;
+        long index = lowerBound(fromMillis - Math.floorMod(fromMillis, bucketMillis));
+        int columnOffset = 12 + column * 12;
+        while (index < records) {
+            int batch = (int) Math.min(READ_BATCH_RECORDS, records - index);
+            read(readBuffer, index * RECORD_BYTES, batch * RECORD_BYTES);
+            for (int r = 0; r < batch; r++) {
+                int base = r * RECORD_BYTES;
+                long bucket = readBuffer.getLong(base);
+                if (bucket > toMillis) return visited;
+                visitor.visit(bucket,
+                        readBuffer.getFloat(base + columnOffset),
+                        readBuffer.getFloat(base + columnOffset + 4),
+                        readBuffer.getFloat(base + columnOffset + 8));
+                visited++;
+            }
+            index += batch;
+        }
+        // The open bucket has not been written yet but is part of the answer
+        if (currentSamples > 0 && currentBucket >= fromMillis - Math.floorMod(fromMillis, bucketMillis) && currentBucket <= toMillis) {
+            boolean empty = valueCounts[column] == 0;
+            visitor.visit(currentBucket,
+                    empty ? Float.NaN : min[column],
+                    empty ? Float.NaN : max[column],
+                    empty ? Float.NaN : (float) (sum[column] / valueCounts[column]));
+            visited++;
+        }
+        return visited;
+    }
+
+    // Drops every bucket that started before cutoffMillis by rewriting the tail into a new file
+    void compact(long cutoffMillis) throws IOException {
+        long first = lowerBound(cutoffMillis);
+        if (first == 0) return;
+        File tmp = new File(path.getPath() + ".tmp");
+        try (RandomAccessFile out = new RandomAccessFile(tmp, "rw")) {
+            out.setLength(0);
+            for (long index = first; index < records; ) {
+                int batch = (int) Math.min(READ_BATCH_RECORDS, records - index);
+                read(readBuffer, index * RECORD_BYTES, batch * RECORD_BYTES);
+                out.write(readBuffer.array(), 0, batch * RECORD_BYTES);
+                index += batch;
+            }
+            out.getFD().sync();
+        }
+        file.close();
+        if (!tmp.renameTo(path)) {
+            openFile();
+            throw new IOException("Could not replace " + path);
+        }
+        openFile();
+        writeOpenBucket(); // the copy left out the flushed open bucket
+    }
+
+    void flush() throws IOException {
+        writeOpenBucket();
+        file.getFD().sync();
+    }
+
+    long recordCount() {
+        return records;
+    }
+
+    // First record index whose bucket start is >= timeMillis
+    private long lowerBound(long timeMillis) throws IOException {
+        long low = 0, high = records;
+        while (low < high) {
+            long mid = (low + high) >>> 1;
+            if (bucketAt(mid) < timeMillis) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    private long bucketAt(long index) throws IOException {
+        read(recordBuffer, index * RECORD_BYTES, 8);
+        return recordBuffer.getLong(0);
+    }
+
+    // Fills the first length bytes of a heap buffer from position; absolute gets read them back
+    private void read(ByteBuffer buffer, long position, int length) throws IOException {
+        file.seek(position);
+        for (int offset = 0; offset < length; ) {
+            int read = file.read(buffer.array(), offset, length - offset);
+            if (read < 0) throw new IOException("Unexpected end of rollup log: " + path);
+            offset += read;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        writeCurrentBucket();
+        file.close();
+    }
+}
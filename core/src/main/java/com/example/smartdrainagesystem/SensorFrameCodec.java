@@ -0,0 +1,387 @@
+package com.example.smartdrainagesystem;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Compact, versioned binary encoding of a SensorReading, sent base64-encoded in place of the
+ * verbose sensor_data JSON. Gateways write sensor_frame/{k: keyframe, d: delta}: the keyframe holds
+ * every present field, the delta only the fields that differ from that keyframe. Listening on
+ * sensor_frame means Firebase only ships the child that changed, usually the small delta.
+ *
+ * Frame layout (varints are LEB128, signed values zigzag-encoded):
+ *   u8      version
+ *   u8      type: 0 keyframe, 1 delta
+ *   varint  keyframe id (a delta names the keyframe it applies to)
+ *   varint  keyframe: timestamp in seconds; delta: signed offset from the keyframe timestamp
+ *   varint  field mask: keyframe - fields present; delta - fields whose value changed
+ *   varint  delta only: mask of fields that became missing
+ *   values  one per set mask bit, in bit order
+ *
+ * Values are quantized: distances and temperature to 0.1, methane to 1 mV, chamber levels
+ * to 1/255. Alert and blockage texts use a small dictionary, and GPS is packed as microdegrees
+ * whenever that reproduces the original text exactly.
+ */
+public final class SensorFrameCodec {
+
+    public static final int VERSION = 1;
+    static final int TYPE_KEYFRAME = 0;
+    static final int TYPE_DELTA = 1;
+
+    static final int FIELD_ALERT = 0;
+    static final int FIELD_GPS = 1;
+    static final int FIELD_BLOCKAGE_TYPE = 2;
+    static final int FIELD_BLOCKED_CHAMBER = 3;
+    static final int FIELD_DISTANCE1 = 4;
+    static final int FIELD_DISTANCE2 = 5;
+    static final int FIELD_MQ8 = 6;
+    static final int FIELD_TEMP = 7;
+    static final int FIELD_IR = 8;
+    static final int FIELD_FLAME = 9;
+    static final int FIELD_WATER_LEVELS = 10;
+    static final int FIELD_HAS_DETAILS = 11; // flag only, no value
+    private static final int FIELD_COUNT = 12;
+
+    // Index + 1 is the wire code; 0 means a literal string follows
+    private static final String[] DICTIONARY = {
+            "None", "Blockage", "Gas", "Flame", "Overflow", "Plastic", "Debris", "Sludge", "Unknown"
+    };
+
+    private static final int GPS_MICRODEGREES = 0;
+    private static final int GPS_TEXT = 1;
+
+    private SensorFrameCodec() {
+    }
+
+    public static String toBase64(byte[] frame) {
+        return Base64.getEncoder().encodeToString(frame);
+    }
+
+    public static byte[] fromBase64(String frame) {
+        return Base64.getDecoder().decode(frame);
+    }
+
+    public static byte[] encodeKeyframe(SensorReading reading, int keyframeId) {
+        Writer out = new Writer(64);
+        out.u8(VERSION);
+        out.u8(TYPE_KEYFRAME);
+        out.varint(keyframeId);
+        out.varint(reading.timestamp);
+        int mask = 0;
+        for (int field = 0; field < FIELD_COUNT; field++) {
+            if (isPresent(reading, field)) mask |= 1 << field;
+        }
+        out.varint(mask);
+        writeValues(out, reading, mask);
+        return out.toByteArray();
+    }
+
+    public static byte[] encodeDelta(SensorReading reading, SensorReading keyframe, int keyframeId) {
+        Writer out = new Writer(32);
+        out.u8(VERSION);
+        out.u8(TYPE_DELTA);
+        out.varint(keyframeId);
+        out.varint(zigzag(reading.timestamp - keyframe.timestamp));
+        int changed = 0, cleared = 0;
+        for (int field = 0; field < FIELD_COUNT; field++) {
+            boolean present = isPresent(reading, field);
+            boolean keyPresent = isPresent(keyframe, field);
+            if (present && (!keyPresent || !sameQuantized(reading, keyframe, field))) changed |= 1 << field;
+            else if (!present && keyPresent) cleared |= 1 << field;
+        }
+        out.varint(changed);
+        out.varint(cleared);
+        writeValues(out, reading, changed);
+        return out.toByteArray();
+    }
+
+    public static int keyframeId(byte[] frame) {
+        Reader in = new Reader(frame);
+        readHeader(in);
+        return (int) in.varint();
+    }
+
+    public static boolean isKeyframe(byte[] frame) {
+        return readHeader(new Reader(frame)) == TYPE_KEYFRAME;
+    }
+
+    public static SensorReading decodeKeyframe(byte[] frame) {
+        Reader in = new Reader(frame);
+        if (readHeader(in) != TYPE_KEYFRAME) throw new IllegalArgumentException("Not a keyframe");
+        in.varint(); // keyframe id
+        SensorReading.Builder builder = new SensorReading.Builder().timestamp(in.varint());
+        int mask = (int) in.varint();
+        readValues(in, builder, mask);
+        return builder.build();
+    }
+
+    /** Applies a delta to its decoded keyframe. The caller must check the keyframe ids match. */
+    public static SensorReading decodeDelta(byte[] frame, SensorReading keyframe) {
+        Reader in = new Reader(frame);
+        if (readHeader(in) != TYPE_DELTA) throw new IllegalArgumentException("Not a delta frame");
+        in.varint(); // keyframe id
+        long timestamp = keyframe.timestamp + unzigzag(in.varint());
+        int changed = (int) in.varint();
+        int cleared = (int) in.varint();
+
+        SensorReading.Builder builder = new SensorReading.Builder().timestamp(timestamp);
+        int inherited = 0;
+        for (int field = 0; field < FIELD_COUNT; field++) {
+            int bit = 1 << field;
+            if ((changed & bit) == 0 && (cleared & bit) == 0 && isPresent(keyframe, field)) inherited |= bit;
+        }
+        copyValues(keyframe, builder, inherited);
+        readValues(in, builder, changed);
+        return builder.build();
+    }
+
+    private static int readHeader(Reader in) {
+        int version = in.u8();
+        if (version != VERSION) throw new IllegalArgumentException("Unsupported frame version " + version);
+        return in.u8();
+    }
+
+    // Field access ------------------------------------------------------------------------------
+
+    private static boolean isPresent(SensorReading r, int field) {
+        switch (field) {
+            case FIELD_ALERT: return !SensorReading.isMissing(r.alert);
+            case FIELD_GPS: return !SensorReading.isMissing(r.gps);
+            case FIELD_BLOCKAGE_TYPE: return !SensorReading.isMissing(r.blockageType);
+            case FIELD_BLOCKED_CHAMBER: return !SensorReading.isMissing(r.blockedChamber);
+            case FIELD_DISTANCE1: return !SensorReading.isMissing(r.distance1);
+            case FIELD_DISTANCE2: return !SensorReading.isMissing(r.distance2);
+            case FIELD_MQ8: return !SensorReading.isMissing(r.mq8);
+            case FIELD_TEMP: return !SensorReading.isMissing(r.temp);
+            case FIELD_IR: return !SensorReading.isMissing(r.ir);
+            case FIELD_FLAME: return !SensorReading.isMissing(r.flame);
+            case FIELD_WATER_LEVELS: return r.chamberCount() > 0;
+            case FIELD_HAS_DETAILS: return r.hasDetails;
+            default: return false;
+        }
+    }
+
+    private static boolean sameQuantized(SensorReading a, SensorReading b, int field) {
+        switch (field) {
+            case FIELD_ALERT: return a.alert.equals(b.alert);
+            case FIELD_GPS: return a.gps.equals(b.gps);
+            case FIELD_BLOCKAGE_TYPE: return a.blockageType.equals(b.blockageType);
+            case FIELD_BLOCKED_CHAMBER: return a.blockedChamber == b.blockedChamber;
+            case FIELD_DISTANCE1: return tenths(a.distance1) == tenths(b.distance1);
+            case FIELD_DISTANCE2: return tenths(a.distance2) == tenths(b.distance2);
+            case FIELD_MQ8: return millis(a.mq8) == millis(b.mq8);
+            case FIELD_TEMP: return tenths(a.temp) == tenths(b.temp);
+            case FIELD_IR: return a.ir == b.ir;
+            case FIELD_FLAME: return a.flame == b.flame;
+            case FIELD_WATER_LEVELS:
+                if (a.chamberCount() != b.chamberCount()) return false;
+                for (int i = 0; i < a.chamberCount(); i++) {
+                    if (level(a.waterLevel(i)) != level(b.waterLevel(i))) return false;
+                }
+                return true;
+            default: return true;
+        }
+    }
+
+    private static void writeValues(Writer out, SensorReading r, int mask) {
+        if (has(mask, FIELD_ALERT)) writeText(out, r.alert);
+        if (has(mask, FIELD_GPS)) writeGps(out, r.gps);
+        if (has(mask, FIELD_BLOCKAGE_TYPE)) writeText(out, r.blockageType);
+        if (has(mask, FIELD_BLOCKED_CHAMBER)) out.varint(zigzag(r.blockedChamber));
+        if (has(mask, FIELD_DISTANCE1)) out.varint(zigzag(tenths(r.distance1)));
+        if (has(mask, FIELD_DISTANCE2)) out.varint(zigzag(tenths(r.distance2)));
+        if (has(mask, FIELD_MQ8)) out.varint(zigzag(millis(r.mq8)));
+        if (has(mask, FIELD_TEMP)) out.varint(zigzag(tenths(r.temp)));
+        if (has(mask, FIELD_IR)) out.varint(zigzag(r.ir));
+        if (has(mask, FIELD_FLAME)) out.varint(zigzag(r.flame));
+        if (has(mask, FIELD_WATER_LEVELS)) {
+            out.varint(r.chamberCount());
+            for (int i = 0; i < r.chamberCount(); i++) out.u8(level(r.waterLevel(i)));
+        }
+    }
+
+    private static void readValues(Reader in, SensorReading.Builder b, int mask) {
+        if (has(mask, FIELD_ALERT)) b.alert(readText(in));
+        if (has(mask, FIELD_GPS)) b.gps(readGps(in));
+        if (has(mask, FIELD_BLOCKAGE_TYPE)) b.blockageType(readText(in));
+        if (has(mask, FIELD_BLOCKED_CHAMBER)) b.blockedChamber((int) unzigzag(in.varint()));
+        if (has(mask, FIELD_DISTANCE1)) b.distance1(unzigzag(in.varint()) / 10.0);
+        if (has(mask, FIELD_DISTANCE2)) b.distance2(unzigzag(in.varint()) / 10.0);
+        if (has(mask, FIELD_MQ8)) b.mq8(unzigzag(in.varint()) / 1000.0);
+        if (has(mask, FIELD_TEMP)) b.temp(unzigzag(in.varint()) / 10.0);
+        if (has(mask, FIELD_IR)) b.ir((int) unzigzag(in.varint()));
+        if (has(mask, FIELD_FLAME)) b.flame((int) unzigzag(in.varint()));
+        if (has(mask, FIELD_WATER_LEVELS)) {
+            int count = (int) in.varint();
+            for (int i = 0; i < count; i++) b.addWaterLevel(in.u8() / 255f);
+        }
+        if (has(mask, FIELD_HAS_DETAILS)) b.hasDetails(true);
+    }
+
+    private static void copyValues(SensorReading r, SensorReading.Builder b, int mask) {
+        if (has(mask, FIELD_ALERT)) b.alert(r.alert);
+        if (has(mask, FIELD_GPS)) b.gps(r.gps);
+        if (has(mask, FIELD_BLOCKAGE_TYPE)) b.blockageType(r.blockageType);
+        if (has(mask, FIELD_BLOCKED_CHAMBER)) b.blockedChamber(r.blockedChamber);
+        if (has(mask, FIELD_DISTANCE1)) b.distance1(r.distance1);
+        if (has(mask, FIELD_DISTANCE2)) b.distance2(r.distance2);
+        if (has(mask, FIELD_MQ8)) b.mq8(r.mq8);
+        if (has(mask, FIELD_TEMP)) b.temp(r.temp);
+        if (has(mask, FIELD_IR)) b.ir(r.ir);
+        if (has(mask, FIELD_FLAME)) b.flame(r.flame);
+        if (has(mask, FIELD_WATER_LEVELS)) {
+            for (int i = 0; i < r.chamberCount(); i++) b.addWaterLevel(r.waterLevel(i));
+        }
+        if (has(mask, FIELD_HAS_DETAILS)) b.hasDetails(true);
+    }
+
+    // Value encodings ---------------------------------------------------------------------------
+
+    private static boolean has(int mask, int field) {
+        return (mask & (1 << field)) != 0;
+    }
+
+    private static long tenths(double value) {
+        return Math.round(value * 10.0);
+    }
+
+    private static long millis(double value) {
+        return Math.round(value * 1000.0);
+    }
+
+    private static int level(float value) {
+        return Math.round(Math.max(0f, Math.min(1f, value)) * 255f);
+    }
+
+    private static void writeText(Writer out, String text) {
+        for (int i = 0; i < DICTIONARY.length; i++) {
+            if (DICTIONARY[i].equals(text)) {
+                out.varint(i + 1);
+                return;
+            }
+        }
+        out.varint(0);
+        out.bytes(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String readText(Reader in) {
+        long code = in.varint();
+        // A corrupt frame, or one from a newer dictionary
+        if (code < 0 || code > DICTIONARY.length) throw new IllegalArgumentException("Unknown text code " + code);
+        if (code > 0) return DICTIONARY[(int) code - 1];
+        return new String(in.bytes(), StandardCharsets.UTF_8);
+    }
+
+    private static void writeGps(Writer out, String gps) {
+        long[] micro = parseMicrodegrees(gps);
+        if (micro != null && formatMicrodegrees(micro[0], micro[1]).equals(gps)) {
+            out.u8(GPS_MICRODEGREES);
+            out.varint(zigzag(micro[0]));
+            out.varint(zigzag(micro[1]));
+        } else {
+            out.u8(GPS_TEXT);
+            out.bytes(gps.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static String readGps(Reader in) {
+        if (in.u8() == GPS_MICRODEGREES) {
+            long lat = unzigzag(in.varint());
+            long lon = unzigzag(in.varint());
+            return formatMicrodegrees(lat, lon);
+        }
+        return new String(in.bytes(), StandardCharsets.UTF_8);
+    }
+
+    private static long[] parseMicrodegrees(String gps) {
+        int comma = gps.indexOf(',');
+        if (comma < 0) return null;
+        try {
+            BigDecimal lat = new BigDecimal(gps.substring(0, comma)).movePointRight(6);
+            BigDecimal lon = new BigDecimal(gps.substring(comma + 1)).movePointRight(6);
+            return new long[]{lat.longValueExact(), lon.longValueExact()};
+        } catch (NumberFormatException | ArithmeticException e) {
+            return null; // not plain decimal degrees with at most 6 decimals
+        }
+    }
+
+    private static String formatMicrodegrees(long lat, long lon) {
+        return BigDecimal.valueOf(lat, 6).stripTrailingZeros().toPlainString()
+                + "," + BigDecimal.valueOf(lon, 6).stripTrailingZeros().toPlainString();
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    // Byte I/O ----------------------------------------------------------------------------------
+
+    private static final class Writer {
+        private byte[] buf;
+        private int size;
+
+        Writer(int capacity) {
+            buf = new byte[capacity];
+        }
+
+        void u8(int value) {
+            if (size == buf.length) buf = Arrays.copyOf(buf, size * 2);
+            buf[size++] = (byte) value;
+        }
+
+        void varint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                u8((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            u8((int) value);
+        }
+
+        void bytes(byte[] data) {
+            varint(data.length);
+            for (byte b : data) u8(b);
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buf, size);
+        }
+    }
+
+    private static final class Reader {
+        private final byte[] buf;
+        private int pos;
+
+        Reader(byte[] buf) {
+            this.buf = buf;
+        }
+
+        int u8() {
+            if (pos >= buf.length) throw new IllegalArgumentException("Truncated frame");
+            return buf[pos++] & 0xFF;
+        }
+
+        long varint() {
+            long result = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = u8();
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return result;
+            }
+            throw new IllegalArgumentException("Malformed varint");
+        }
+
+        byte[] bytes() {
+            int length = (int) varint();
+            if (length < 0 || length > buf.length - pos) throw new IllegalArgumentException("Truncated frame");
+            byte[] data = Arrays.copyOfRange(buf, pos, pos + length);
+            pos += length;
+            return data;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.smartdrainagesystem;
+
+import java.util.Map;
+
+/**
+ * Client-side decoder for the sensor_frame node ({k: keyframe, d: delta}, see SensorFrameCodec).
+ * The decoded keyframe is cached, so a typical update only decodes the few bytes of its delta.
+ * Not thread-safe; use it from the decode thread only.
+ */
+public final class SensorFrameDecoder {
+
+    private String keyframeText;
+    private SensorReading keyframe;
+    private int keyframeId;
+
+    /** Decodes the raw value of a sensor_frame snapshot; null when it holds no usable keyframe. */
+    public SensorReading decode(Object value) {
+        if (!(value instanceof Map)) return null;
+        Map<?, ?> node = (Map<?, ?>) value;
+        Object key = node.get("k");
+        Object delta = node.get("d");
+        if (!(key instanceof String)) return null;
+
+        try {
+            if (!key.equals(keyframeText)) {
+                byte[] keyBytes = SensorFrameCodec.fromBase64((String) key);
+                keyframe = SensorFrameCodec.decodeKeyframe(keyBytes);
+                keyframeId = SensorFrameCodec.keyframeId(keyBytes);
+                keyframeText = (String) key;
+            }
+            if (!(delta instanceof String)) return keyframe;
+            byte[] deltaBytes = SensorFrameCodec.fromBase64((String) delta);
+            // A delta written for a newer keyframe than the one we hold: show the keyframe until both agree
+            if (SensorFrameCodec.keyframeId(deltaBytes) != keyframeId) return keyframe;
+            return SensorFrameCodec.decodeDelta(deltaBytes, keyframe);
+        } catch (IllegalArgumentException e) {
+            // Bad base64, unknown version or truncated frame
+            keyframeText = null;
+            keyframe = null;
+            return null;
+        }
+    }
+}
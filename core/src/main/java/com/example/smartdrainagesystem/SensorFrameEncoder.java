@@ -0,0 +1,71 @@
+package com.example.smartdrainagesystem;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Gateway-side encoder for the sensor_frame node (see SensorFrameCodec).
+ * Emits a keyframe first and then deltas against it, starting a new keyframe every
+ * keyframeInterval updates or as soon as a delta stops being much smaller than a keyframe.
+ */
+public final class SensorFrameEncoder {
+
+    public static final int DEFAULT_KEYFRAME_INTERVAL = 120;
+
+    /** One encoded update; delta is null when the update starts a new keyframe. */
+    public static final class Frame {
+        public final byte[] keyframe;
+        public final byte[] delta;
+
+        Frame(byte[] keyframe, byte[] delta) {
+            this.keyframe = keyframe;
+            this.delta = delta;
+        }
+
+        public boolean isKeyframe() {
+            return delta == null;
+        }
+
+        // Multi-path update for sensor_frame: only the delta child changes between keyframes
+        public Map<String, Object> toFirebaseUpdate() {
+            Map<String, Object> update = new HashMap<>();
+            if (delta == null) {
+                update.put("k", SensorFrameCodec.toBase64(keyframe));
+                update.put("d", null);
+            } else {
+                update.put("d", SensorFrameCodec.toBase64(delta));
+            }
+            return update;
+        }
+    }
+
+    private final int keyframeInterval;
+    private SensorReading keyframe;
+    private byte[] keyframeBytes;
+    private int keyframeId;
+    private int deltasSinceKeyframe;
+
+    public SensorFrameEncoder() {
+        this(DEFAULT_KEYFRAME_INTERVAL);
+    }
+
+    public SensorFrameEncoder(int keyframeInterval) {
+        this.keyframeInterval = keyframeInterval;
+    }
+
+    public Frame encode(SensorReading reading) {
+        if (keyframe != null && deltasSinceKeyframe < keyframeInterval) {
+            byte[] delta = SensorFrameCodec.encodeDelta(reading, keyframe, keyframeId);
+            if (delta.length * 4 < keyframeBytes.length * 3) {
+                deltasSinceKeyframe++;
+                return new Frame(keyframeBytes, delta);
+            }
+        }
+        keyframeId++;
+        keyframeBytes = SensorFrameCodec.encodeKeyframe(reading, keyframeId);
+        // Compare later readings against what clients will actually decode
+        keyframe = SensorFrameCodec.decodeKeyframe(keyframeBytes);
+        deltasSinceKeyframe = 0;
+        return new Frame(keyframeBytes, null);
+    }
+}
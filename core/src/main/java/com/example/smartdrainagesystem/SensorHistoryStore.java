@@ -0,0 +1,311 @@
+package com.example.smartdrainagesystem;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * On-device, append-only time-series store for sensor history.
+ *
+ * Raw readings go into memory-mapped columnar segments (see HistorySegment), so a range
+ * query is a binary search plus a sequential scan over one float column. Every sample also
+ * feeds 1-minute and 1-hour min/max/avg rollups (see RollupLog) that answer long ranges
+ * without touching raw data. Whenever a segment fills up, data older than the retention
+ * of each level is compacted away.
+ *
+ * Timestamps are epoch millis and must be non-decreasing; older samples are dropped.
+ * Methods are synchronized so ingest and queries can run on different threads.
+ */
+public final class SensorHistoryStore implements Closeable {
+
+    public static final int COLUMN_DISTANCE1 = 0;
+    public static final int COLUMN_DISTANCE2 = 1;
+    public static final int COLUMN_MQ8 = 2;
+    public static final int COLUMN_TEMP = 3;
+    public static final int COLUMN_WATER_FILL = 4; // mean fill of all chambers, 0..1
+    public static final int COLUMN_COUNT = 5;
+
+    public static final long MINUTE_MILLIS = 60_000L;
+    public static final long HOUR_MILLIS = 60 * MINUTE_MILLIS;
+    private static final long DAY_MILLIS = 24 * HOUR_MILLIS;
+
+    public static final int DEFAULT_SEGMENT_CAPACITY = 65_536; // ~1.8 MB, a few hours at multi-Hz ingest
+    public static final long DEFAULT_RAW_RETENTION = 14 * DAY_MILLIS;
+    public static final long DEFAULT_MINUTE_RETENTION = 180 * DAY_MILLIS;
+    public static final long DEFAULT_HOUR_RETENTION = 5 * 365 * DAY_MILLIS;
+
+    private static final String SEGMENT_PREFIX = "seg-";
+    private static final String SEGMENT_SUFFIX = ".dat";
+    private static final int OPEN_SEGMENT_CACHE = 8;
+
+    public interface SampleVisitor {
+        void visit(long timeMillis, float value);
+    }
+
+    /** Receives whole raw rows; values is indexed by COLUMN_* and reused for every row. */
+    public interface RowVisitor {
+        void visit(long timeMillis, float[] values) throws IOException;
+    }
+
+    public interface RollupVisitor {
+        void visit(long bucketStartMillis, float min, float max, float avg);
+    }
+
+    private final File directory;
+    private final int segmentCapacity;
+    private final long rawRetentionMillis, minuteRetentionMillis, hourRetentionMillis;
+
+    // Start time of every segment on disk, ascending; the last one is the segment being written
+    private long[] segmentStarts = new long[16];
+    private int segmentCount;
+    private HistorySegment head;
+    private final Map<Long, HistorySegment> openSegments = new LinkedHashMap<Long, HistorySegment>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, HistorySegment> eldest) {
+            if (size() <= OPEN_SEGMENT_CACHE) return false;
+            closeQuietly(eldest.getValue());
+            return true;
+        }
+    };
+
+    private final RollupLog minutes, hours;
+    private final float[] scratch = new float[COLUMN_COUNT];
+    private final float[] lastValues = new float[COLUMN_COUNT];
+    private long lastTime = Long.MIN_VALUE;
+
+    private SensorHistoryStore(File directory, int segmentCapacity, long rawRetentionMillis,
+                               long minuteRetentionMillis, long hourRetentionMillis) throws IOException {
+        this.directory = directory;
+        this.segmentCapacity = segmentCapacity;
+        this.rawRetentionMillis = rawRetentionMillis;
+        this.minuteRetentionMillis = minuteRetentionMillis;
+        this.hourRetentionMillis = hourRetentionMillis;
+        this.minutes = new RollupLog(new File(directory, "minutes.roll"), MINUTE_MILLIS);
+        this.hours = new RollupLog(new File(directory, "hours.roll"), HOUR_MILLIS);
+        loadSegments();
+    }
+
+    public static SensorHistoryStore open(File directory) throws IOException {
+        return open(directory, DEFAULT_SEGMENT_CAPACITY, DEFAULT_RAW_RETENTION, DEFAULT_MINUTE_RETENTION, DEFAULT_HOUR_RETENTION);
+    }
+
+    public static SensorHistoryStore open(File directory, int segmentCapacity, long rawRetentionMillis,
+                                          long minuteRetentionMillis, long hourRetentionMillis) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create history directory " + directory);
+        }
+        return new SensorHistoryStore(directory, segmentCapacity, rawRetentionMillis, minuteRetentionMillis, hourRetentionMillis);
+    }
+
+    private void loadSegments() throws IOException {
+        File[] files = directory.listFiles((dir, name) -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX));
+        if (files == null) return;
+        long[] starts = new long[files.length];
+        int n = 0;
+        for (File file : files) {
+            String name = file.getName();
+            try {
+                starts[n++] = Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+            } catch (NumberFormatException e) {
+                n--; // not one of ours
+            }
+        }
+        Arrays.sort(starts, 0, n);
+        for (int i = 0; i < n; i++) addSegmentStart(starts[i]);
+        if (segmentCount > 0) {
+            head = HistorySegment.open(segmentFile(segmentStarts[segmentCount - 1]), true);
+            if (head.count() > 0) {
+                lastTime = head.lastTime();
+                for (int c = 0; c < COLUMN_COUNT; c++) lastValues[c] = head.valueAt(c, head.count() - 1);
+            }
+        }
+    }
+
+    /** Appends a decoded reading; returns false when it was a duplicate or older than the last sample. */
+    public boolean append(SensorReading reading) throws IOException {
+        if (reading.timestamp <= 0 || !reading.hasDetails) return false;
+        return append(reading.timestamp * 1000L, (float) reading.distance1, (float) reading.distance2,
+                (float) reading.mq8, (float) reading.temp, reading.meanWaterLevel());
+    }
+
+    public synchronized boolean append(long timeMillis, float distance1, float distance2, float mq8, float temp, float waterFill)
+            throws IOException {
+        if (timeMillis < lastTime) return false;
+        scratch[COLUMN_DISTANCE1] = distance1;
+        scratch[COLUMN_DISTANCE2] = distance2;
+        scratch[COLUMN_MQ8] = mq8;
+        scratch[COLUMN_TEMP] = temp;
+        scratch[COLUMN_WATER_FILL] = waterFill;
+        // Listeners re-deliver the current value on every attach; don't store it twice
+        if (timeMillis == lastTime && sameValues(scratch, lastValues)) return false;
+
+        if (head == null || head.isFull()) {
+            rollSegment(timeMillis);
+        }
+        head.append(timeMillis, scratch);
+        minutes.add(timeMillis, scratch);
+        hours.add(timeMillis, scratch);
+        lastTime = timeMillis;
+        System.arraycopy(scratch, 0, lastValues, 0, COLUMN_COUNT);
+        return true;
+    }
+
+    private void rollSegment(long timeMillis) throws IOException {
+        if (segmentCount > 0 && segmentStarts[segmentCount - 1] == timeMillis) {
+            // Segments are named by their first timestamp
+            throw new IOException("More than " + segmentCapacity + " samples within one millisecond");
+        }
+        if (head != null) {
+            head.flush();
+            // Keep the finished segment around for queries over the recent past
+            openSegments.put(segmentStarts[segmentCount - 1], head);
+        }
+        head = HistorySegment.create(segmentFile(timeMillis), segmentCapacity);
+        addSegmentStart(timeMillis);
+        compact(timeMillis);
+    }
+
+    /** Visits raw samples of one column in [fromMillis, toMillis], oldest first; returns the number visited. */
+    public synchronized int queryRaw(int column, long fromMillis, long toMillis, SampleVisitor visitor) throws IOException {
+        int visited = 0;
+        int first = Math.max(0, segmentIndexFor(fromMillis));
+        for (int s = first; s < segmentCount && segmentStarts[s] <= toMillis; s++) {
+            HistorySegment segment = segment(s);
+            int count = segment.count();
+            for (int i = segment.lowerBound(fromMillis); i < count; i++) {
+                long time = segment.timeAt(i);
+                if (time > toMillis) return visited;
+                visitor.visit(time, segment.valueAt(column, i));
+                visited++;
+            }
+        }
+        return visited;
+    }
+
+    /**
+     * Visits raw rows in [fromMillis, toMillis], oldest first; returns the number visited.
+     * Holds the store lock throughout, so long ranges belong on a background thread.
+     */
+    public synchronized long queryRows(long fromMillis, long toMillis, RowVisitor visitor) throws IOException {
+        float[] values = new float[COLUMN_COUNT];
+        long visited = 0;
+        int first = Math.max(0, segmentIndexFor(fromMillis));
+        for (int s = first; s < segmentCount && segmentStarts[s] <= toMillis; s++) {
+            HistorySegment segment = segment(s);
+            int count = segment.count();
+            for (int i = segment.lowerBound(fromMillis); i < count; i++) {
+                long time = segment.timeAt(i);
+                if (time > toMillis) return visited;
+                for (int c = 0; c < COLUMN_COUNT; c++) values[c] = segment.valueAt(c, i);
+                visitor.visit(time, values);
+                visited++;
+            }
+        }
+        return visited;
+    }
+
+    /** Visits 1-minute buckets overlapping [fromMillis, toMillis]. */
+    public synchronized int queryMinutes(int column, long fromMillis, long toMillis, RollupVisitor visitor) throws IOException {
+        return minutes.query(column, fromMillis, toMillis, visitor);
+    }
+
+    /** Visits 1-hour buckets overlapping [fromMillis, toMillis]. */
+    public synchronized int queryHours(int column, long fromMillis, long toMillis, RollupVisitor visitor) throws IOException {
+        return hours.query(column, fromMillis, toMillis, visitor);
+    }
+
+    public synchronized long firstTimestamp() throws IOException {
+        if (segmentCount == 0) return Long.MIN_VALUE;
+        HistorySegment first = segment(0);
+        return first.count() > 0 ? first.firstTime() : Long.MIN_VALUE;
+    }
+
+    public synchronized long lastTimestamp() {
+        return lastTime;
+    }
+
+    /** Applies the retention of every level relative to nowMillis. Runs automatically on each segment roll. */
+    public synchronized void compact(long nowMillis) throws IOException {
+        // A segment may go once the next one starts before the cutoff, i.e. all its samples are older
+        long rawCutoff = nowMillis - rawRetentionMillis;
+        int drop = 0;
+        while (drop + 1 < segmentCount && segmentStarts[drop + 1] <= rawCutoff) drop++;
+        for (int s = 0; s < drop; s++) {
+            HistorySegment open = openSegments.remove(segmentStarts[s]);
+            if (open != null) closeQuietly(open);
+            File file = segmentFile(segmentStarts[s]);
+            if (file.exists() && !file.delete()) throw new IOException("Cannot delete " + file);
+        }
+        if (drop > 0) {
+            System.arraycopy(segmentStarts, drop, segmentStarts, 0, segmentCount - drop);
+            segmentCount -= drop;
+        }
+        minutes.compact(nowMillis - minuteRetentionMillis);
+        hours.compact(nowMillis - hourRetentionMillis);
+    }
+
+    public synchronized void flush() throws IOException {
+        if (head != null) head.flush();
+        minutes.flush();
+        hours.flush();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        flush();
+        for (Iterator<HistorySegment> it = openSegments.values().iterator(); it.hasNext(); ) {
+            closeQuietly(it.next());
+            it.remove();
+        }
+        if (head != null) head.close();
+        minutes.close();
+        hours.close();
+    }
+
+    // Index of the segment that would contain timeMillis, -1 if it is before all of them
+    private int segmentIndexFor(long timeMillis) {
+        int index = Arrays.binarySearch(segmentStarts, 0, segmentCount, timeMillis);
+        return index >= 0 ? index : -index - 2;
+    }
+
+    private HistorySegment segment(int index) throws IOException {
+        if (index == segmentCount - 1) return head;
+        long start = segmentStarts[index];
+        HistorySegment segment = openSegments.get(start);
+        if (segment == null) {
+            segment = HistorySegment.open(segmentFile(start), false);
+            openSegments.put(start, segment);
+        }
+        return segment;
+    }
+
+    private void addSegmentStart(long start) {
+        if (segmentCount == segmentStarts.length) {
+            segmentStarts = Arrays.copyOf(segmentStarts, segmentCount * 2);
+        }
+        segmentStarts[segmentCount++] = start;
+    }
+
+    private File segmentFile(long start) {
+        return new File(directory, SEGMENT_PREFIX + start + SEGMENT_SUFFIX);
+    }
+
+    private static boolean sameValues(float[] a, float[] b) {
+        for (int i = 0; i < COLUMN_COUNT; i++) {
+            if (Float.compare(a[i], b[i]) != 0) return false;
+        }
+        return true;
+    }
+
+    private static void closeQuietly(HistorySegment segment) {
+        try {
+            segment.close();
+        } catch (IOException ignored) {
+            // Read-only mapping, nothing to lose
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.smartdrainagesystem;
+
+import java.util.Arrays;
+
+/**
+ * Immutable, primitive-field view of one sensor_data snapshot.
+ * Absent values are marked with the MISSING_* sentinels below instead of nulls,
+ * so readers never unbox and never null-check.
+ */
+public final class SensorReading {
+
+    public static final int MISSING_INT = Integer.MIN_VALUE;
+    public static final double MISSING_DOUBLE = Double.NaN;
+    public static final long MISSING_TIMESTAMP = 0L;
+    public static final String MISSING_TEXT = "";
+
+    private static final float[] NO_LEVELS = new float[0];
+
+    public final String alert;
+    public final String gps;
+    public final long timestamp; // seconds since epoch, as sent by the firmware
+
+    // True when the nested "data" node was present
+    public final boolean hasDetails;
+    public final String blockageType;
+    public final int blockedChamber;
+    public final double distance1;
+    public final double distance2;
+    public final double mq8;
+    public final double temp;
+    public final int ir;
+    public final int flame;
+    private final float[] waterLevels;
+
+    private SensorReading(Builder b) {
+        alert = b.alert;
+        gps = b.gps;
+        timestamp = b.timestamp;
+        hasDetails = b.hasDetails;
+        blockageType = b.blockageType;
+        blockedChamber = b.blockedChamber;
+        distance1 = b.distance1;
+        distance2 = b.distance2;
+        mq8 = b.mq8;
+        temp = b.temp;
+        ir = b.ir;
+        flame = b.flame;
+        waterLevels = b.waterLevelCount == 0 ? NO_LEVELS : Arrays.copyOf(b.waterLevels, b.waterLevelCount);
+    }
+
+    private SensorReading(SensorReading source, long timestamp) {
+        alert = source.alert;
+        gps = source.gps;
+        this.timestamp = timestamp;
+        hasDetails = source.hasDetails;
+        blockageType = source.blockageType;
+        blockedChamber = source.blockedChamber;
+        distance1 = source.distance1;
+        distance2 = source.distance2;
+        mq8 = source.mq8;
+        temp = source.temp;
+        ir = source.ir;
+        flame = source.flame;
+        waterLevels = source.waterLevels; // never mutated, safe to share
+    }
+
+    // Same reading at another time, e.g. when replaying recorded traffic
+    public SensorReading withTimestamp(long timestamp) {
+        return timestamp == this.timestamp ? this : new SensorReading(this, timestamp);
+    }
+
+    public static boolean isMissing(int value) {
+        return value == MISSING_INT;
+    }
+
+    public static boolean isMissing(double value) {
+        return Double.isNaN(value);
+    }
+
+    public static boolean isMissing(String value) {
+        return value.isEmpty();
+    }
+
+    public int chamberCount() {
+        return waterLevels.length;
+    }
+
+    // Fill level of a chamber, 0 (empty) to 1 (full)
+    public float waterLevel(int chamber) {
+        return waterLevels[chamber];
+    }
+
+    // Mean fill over all chambers, NaN when no levels were reported
+    public float meanWaterLevel() {
+        if (waterLevels.length == 0) return Float.NaN;
+        float total = 0;
+        for (float level : waterLevels) total += level;
+        return total / waterLevels.length;
+    }
+
+    public static final class Builder {
+        private String alert = MISSING_TEXT;
+        private String gps = MISSING_TEXT;
+        private long timestamp = MISSING_TIMESTAMP;
+        private boolean hasDetails;
+        private String blockageType = MISSING_TEXT;
+        private int blockedChamber = MISSING_INT;
+        private double distance1 = MISSING_DOUBLE;
+        private double distance2 = MISSING_DOUBLE;
+        private double mq8 = MISSING_DOUBLE;
+        private double temp = MISSING_DOUBLE;
+        private int ir = MISSING_INT;
+        private int flame = MISSING_INT;
+        private float[] waterLevels = new float[4];
+        private int waterLevelCount;
+
+        public Builder alert(String alert) { this.alert = alert; return this; }
+        public Builder gps(String gps) { this.gps = gps; return this; }
+        public Builder timestamp(long timestamp) { this.timestamp = timestamp; return this; }
+        public Builder hasDetails(boolean hasDetails) { this.hasDetails = hasDetails; return this; }
+        public Builder blockageType(String blockageType) { this.blockageType = blockageType; return this; }
+        public Builder blockedChamber(int blockedChamber) { this.blockedChamber = blockedChamber; return this; }
+        public Builder distance1(double distance1) { this.distance1 = distance1; return this; }
+        public Builder distance2(double distance2) { this.distance2 = distance2; return this; }
+        public Builder mq8(double mq8) { this.mq8 = mq8; return this; }
+        public Builder temp(double temp) { this.temp = temp; return this; }
+        public Builder ir(int ir) { this.ir = ir; return this; }
+        public Builder flame(int flame) { this.flame = flame; return this; }
+
+        public Builder addWaterLevel(float level) {
+            if (waterLevelCount == waterLevels.length) {
+                waterLevels = Arrays.copyOf(waterLevels, waterLevelCount * 2);
+            }
+            waterLevels[waterLevelCount++] = level;
+            return this;
+        }
+
+        public SensorReading build() {
+            return new SensorReading(this);
+        }
+    }
+}
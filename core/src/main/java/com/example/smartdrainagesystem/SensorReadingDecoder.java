@@ -0,0 +1,117 @@
+package com.example.smartdrainagesystem;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hand-written decoder from the raw sensor_data tree (as returned by DataSnapshot.getValue())
+ * into a SensorReading. Replaces getValue(SensorFirebaseData.class), which goes through
+ * Firebase's reflection-based bean mapper and boxes every field.
+ *
+ * Firebase hands numbers over as Long or Double depending on the value, and turns
+ * array-like children into a List (or a Map keyed "0", "1", ... when the array is sparse),
+ * so each accessor below accepts all of those shapes.
+ */
+public final class SensorReadingDecoder {
+
+    /** Chambers beyond this are dropped; far more than any drain has, small enough that a bad key costs nothing. */
+    public static final int MAX_CHAMBERS = 64;
+
+    private SensorReadingDecoder() {
+    }
+
+    // Returns null when the node is absent or not an object
+    public static SensorReading decode(Object root) {
+        if (!(root instanceof Map)) return null;
+        Map<?, ?> node = (Map<?, ?>) root;
+
+        SensorReading.Builder builder = new SensorReading.Builder()
+                .alert(readText(node.get("alert")))
+                .gps(readText(node.get("gps")))
+                .timestamp(readLong(node.get("timestamp"), SensorReading.MISSING_TIMESTAMP));
+
+        Object data = node.get("data");
+        if (data instanceof Map) {
+            Map<?, ?> details = (Map<?, ?>) data;
+            builder.hasDetails(true)
+                    .blockageType(readText(details.get("blockage_type")))
+                    .blockedChamber(readInt(details.get("blocked_chamber")))
+                    .distance1(readDouble(details.get("distance1")))
+                    .distance2(readDouble(details.get("distance2")))
+                    .mq8(readDouble(details.get("mq8")))
+                    .temp(readDouble(details.get("temp")))
+                    .ir(readInt(details.get("ir")))
+                    .flame(readInt(details.get("flame")));
+            readWaterLevels(details.get("water_levels"), builder);
+        }
+        return builder.build();
+    }
+
+    private static void readWaterLevels(Object value, SensorReading.Builder builder) {
+        if (value instanceof List) {
+            List<?> levels = (List<?>) value;
+            for (int i = 0, n = Math.min(levels.size(), MAX_CHAMBERS); i < n; i++) {
+                builder.addWaterLevel(readLevel(levels.get(i)));
+            }
+        } else if (value instanceof Map) {
+            // Sparse array: Firebase only converts keys 0..n to a List when most of them are present
+            Map<?, ?> levels = (Map<?, ?>) value;
+            int count = 0;
+            for (Object key : levels.keySet()) {
+                long index = readLong(key, -1);
+                // A key like "2000000" would otherwise pad the reading with millions of empty chambers
+                if (index >= 0 && index < MAX_CHAMBERS) count = Math.max(count, (int) index + 1);
+            }
+            for (int i = 0; i < count; i++) {
+                builder.addWaterLevel(readLevel(levels.get(String.valueOf(i))));
+            }
+        }
+    }
+
+    private static float readLevel(Object value) {
+        double level = readDouble(value);
+        if (Double.isNaN(level)) return 0f;
+        return (float) Math.max(0.0, Math.min(1.0, level));
+    }
+
+    private static String readText(Object value) {
+        if (value == null) return SensorReading.MISSING_TEXT;
+        return value instanceof String ? (String) value : value.toString();
+    }
+
+    private static int readInt(Object value) {
+        if (value instanceof Number) return ((Number) value).intValue();
+        if (value instanceof String) {
+            try {
+                return Integer.parseInt((String) value);
+            } catch (NumberFormatException e) {
+                return SensorReading.MISSING_INT;
+            }
+        }
+        return SensorReading.MISSING_INT;
+    }
+
+    private static long readLong(Object value, long missing) {
+        if (value instanceof Number) return ((Number) value).longValue();
+        if (value instanceof String) {
+            try {
+                return Long.parseLong((String) value);
+            } catch (NumberFormatException e) {
+                return missing;
+            }
+        }
+        return missing;
+    }
+
+    private static double readDouble(Object value) {
+        if (value instanceof Number) return ((Number) value).doubleValue();
+        if (value instanceof String) {
+            try {
+                return Double.parseDouble((String) value);
+            } catch (NumberFormatException e) {
+                return SensorReading.MISSING_DOUBLE;
+            }
+        }
+        return SensorReading.MISSING_DOUBLE;
+    }
+}
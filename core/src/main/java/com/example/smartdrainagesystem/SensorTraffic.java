@@ -0,0 +1,155 @@
+package com.example.smartdrainagesystem;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Sensor traffic for load tests and benchmarks: synthesizes plausible drain behaviour, converts
+ * readings back into the raw tree DataSnapshot.getValue() hands the app, and stores recordings.
+ *
+ * A recording file holds one base64 SensorFrameCodec keyframe per line, so captured traffic is
+ * kept at the codec's quantization (0.1 cm, 1 mV, 1/255 of a chamber).
+ */
+public final class SensorTraffic {
+
+    private static final int CHAMBERS = 3;
+    private static final double EMPTY_DISTANCE_CM = 60.0;
+
+    private SensorTraffic() {
+    }
+
+    /**
+     * One reading per second starting at startSeconds: dry spells, rain events that fill and
+     * drain the chambers, and occasional blockages that stop one chamber from draining.
+     * The same seed always produces the same traffic.
+     */
+    public static List<SensorReading> synthesize(int samples, long startSeconds, long seed) {
+        Random random = new Random(seed);
+        List<SensorReading> readings = new ArrayList<>(samples);
+        String gps = String.format(Locale.US, "%.4f,%.4f",
+                23.70 + random.nextInt(2000) / 10_000.0, 90.35 + random.nextInt(2000) / 10_000.0);
+
+        double fill = 0.05, inflow = 0, temp = 27.0 + random.nextDouble() * 3;
+        int rainLeft = 0, blockageLeft = 0, blockedChamber = 0;
+        for (int i = 0; i < samples; i++) {
+            if (rainLeft == 0 && random.nextInt(600) == 0) {
+                rainLeft = 300 + random.nextInt(900);
+                inflow = 0.0005 + random.nextDouble() * 0.002;
+            }
+            if (blockageLeft == 0 && random.nextInt(2000) == 0) {
+                blockageLeft = 300 + random.nextInt(600);
+                blockedChamber = 1 + random.nextInt(CHAMBERS);
+            }
+            double outflow = blockageLeft > 0 ? 0.0002 : 0.0012;
+            fill = Math.max(0, Math.min(1, fill + (rainLeft > 0 ? inflow : 0) - outflow * fill));
+            temp += (random.nextDouble() - 0.5) * 0.02;
+            boolean overflowing = fill > 0.9;
+            boolean blocked = blockageLeft > 0;
+
+            SensorReading.Builder builder = new SensorReading.Builder()
+                    .alert(blocked ? "Blockage" : overflowing ? "Overflow" : "None")
+                    .gps(gps)
+                    .timestamp(startSeconds + i)
+                    .hasDetails(true)
+                    .blockageType(blocked ? "Plastic" : "None")
+                    .blockedChamber(blocked ? blockedChamber : 0)
+                    .distance1(round(EMPTY_DISTANCE_CM * (1 - fill) + random.nextGaussian() * 0.3, 10))
+                    .distance2(round(EMPTY_DISTANCE_CM * (1 - fill * (blocked ? 1.15 : 1.0)) + random.nextGaussian() * 0.3, 10))
+                    .mq8(round(1.5 + random.nextDouble() * 0.3 + (blocked ? 0.8 : 0), 1000))
+                    .temp(round(temp, 10))
+                    .ir(blocked ? 0 : 1) // active low, like the flame sensor
+                    .flame(1);
+            for (int c = 1; c <= CHAMBERS; c++) {
+                // Chambers further downstream fill a little later; a blocked chamber stays full
+                float level = blocked && c == blockedChamber ? 1f : (float) Math.max(0, Math.min(1, fill * (1.2 - 0.2 * c)));
+                builder.addWaterLevel(level);
+            }
+            readings.add(builder.build());
+
+            if (rainLeft > 0) rainLeft--;
+            if (blockageLeft > 0) blockageLeft--;
+        }
+        return readings;
+    }
+
+    /** The reading as the raw sensor_data tree: Long for whole numbers, Double otherwise, List for arrays. */
+    public static Map<String, Object> toValue(SensorReading reading) {
+        Map<String, Object> root = new HashMap<>();
+        putText(root, "alert", reading.alert);
+        putText(root, "gps", reading.gps);
+        if (reading.timestamp != SensorReading.MISSING_TIMESTAMP) root.put("timestamp", reading.timestamp);
+        if (!reading.hasDetails) return root;
+
+        Map<String, Object> data = new HashMap<>();
+        putText(data, "blockage_type", reading.blockageType);
+        putInt(data, "blocked_chamber", reading.blockedChamber);
+        putNumber(data, "distance1", reading.distance1);
+        putNumber(data, "distance2", reading.distance2);
+        putNumber(data, "mq8", reading.mq8);
+        putNumber(data, "temp", reading.temp);
+        putInt(data, "ir", reading.ir);
+        putInt(data, "flame", reading.flame);
+        if (reading.chamberCount() > 0) {
+            List<Object> levels = new ArrayList<>(reading.chamberCount());
+            for (int i = 0; i < reading.chamberCount(); i++) levels.add(number(reading.waterLevel(i)));
+            data.put("water_levels", levels);
+        }
+        root.put("data", data);
+        return root;
+    }
+
+    public static void write(List<SensorReading> readings, Path file) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.US_ASCII)) {
+            for (int i = 0; i < readings.size(); i++) {
+                out.write(SensorFrameCodec.toBase64(SensorFrameCodec.encodeKeyframe(readings.get(i), i)));
+                out.newLine();
+            }
+        }
+    }
+
+    public static List<SensorReading> read(Path file) throws IOException {
+        List<SensorReading> readings = new ArrayList<>();
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.US_ASCII)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.isEmpty()) continue;
+                try {
+                    readings.add(SensorFrameCodec.decodeKeyframe(SensorFrameCodec.fromBase64(line)));
+                } catch (IllegalArgumentException e) {
+                    throw new IOException("Bad frame at line " + (readings.size() + 1) + " of " + file, e);
+                }
+            }
+        }
+        return readings;
+    }
+
+    private static double round(double value, int scale) {
+        return Math.round(value * scale) / (double) scale;
+    }
+
+    private static Object number(double value) {
+        return value == Math.rint(value) ? (Object) (long) value : (Object) value;
+    }
+
+    private static void putText(Map<String, Object> node, String key, String value) {
+        if (!SensorReading.isMissing(value)) node.put(key, value);
+    }
+
+    private static void putInt(Map<String, Object> node, String key, int value) {
+        if (!SensorReading.isMissing(value)) node.put(key, (long) value);
+    }
+
+    private static void putNumber(Map<String, Object> node, String key, double value) {
+        if (!SensorReading.isMissing(value)) node.put(key, number(value));
+    }
+}
@@ -0,0 +1,259 @@
+package com.example.smartdrainagesystem;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Server-side interpretation of raw sensor readings, so clients only download what changed:
+ *   summary/{siteId}                 SiteSummary children, written only when one of them changes,
+ *                                    plus a timestamp heartbeat at most once per HEARTBEAT_SECONDS
+ *   rollup/{siteId}/{minuteSeconds}  per-minute extremes, written when the minute is over:
+ *                                    f max fill percent, d closest distance cm, g max methane volts
+ *   alert_log/{siteId}/{seconds}     the new alert on every raise, change and clear
+ *   alert_events/{siteId}/{seconds}_{ruleId}
+ *                                    "raised", "acknowledged" or "cleared" as AlertEngine announces
+ *   site_index/{siteId}              y latitude and x longitude in microdegrees, k SiteIndex.FLAG_* bits;
+ *                                    what the fleet map loads for every site, written once the GPS
+ *                                    text parses and then only when the position or flags change
+ *
+ * Summary warnings are the active rules of an AlertEngine, AlertRule.defaults() unless setRules()
+ * gave the site its own, so a sensor hovering at a threshold does not rewrite the summary.
+ *
+ * Readings older than the last one seen for a site are ignored, which also drops the current
+ * value that listeners re-deliver after reconnecting. Thread-safe.
+ */
+public final class SiteAggregator {
+
+    /** Receives merges of children into a database node, like DatabaseReference.updateChildren(). */
+    public interface Writer {
+        void update(String path, Map<String, Object> children);
+    }
+
+    public static final long HEARTBEAT_SECONDS = 60;
+    private static final long MINUTE_SECONDS = 60;
+
+    private static final class SiteState {
+        SiteSummary written;
+        long lastTimestamp = Long.MIN_VALUE;
+        long alertSince;
+
+        // Position as last parsed from the gps text, and what site_index holds
+        String gps;
+        long location = SiteIndex.NO_LOCATION;
+        long indexedLocation = SiteIndex.NO_LOCATION;
+        int indexedFlags = -1;
+
+        // Open minute rollup
+        long minuteStart = Long.MIN_VALUE;
+        int maxFill = -1;
+        double minDistance = Double.NaN;
+        double maxMq8 = Double.NaN;
+    }
+
+    private final Writer writer;
+    private final Map<String, SiteState> sites = new HashMap<>();
+    private final AlertEngine alertEngine;
+    private long readings, summaryWrites, rollupWrites, alertTransitions, alertEvents, siteIndexWrites;
+
+    public SiteAggregator(Writer writer) {
+        this.writer = writer;
+        this.alertEngine = new AlertEngine(this::writeAlertEvent);
+    }
+
+    public static String summaryPath(String siteId) {
+        return "summary/" + siteId;
+    }
+
+    public static String rollupPath(String siteId) {
+        return "rollup/" + siteId;
+    }
+
+    public static String alertLogPath(String siteId) {
+        return "alert_log/" + siteId;
+    }
+
+    public static String alertEventsPath(String siteId) {
+        return "alert_events/" + siteId;
+    }
+
+    public static String siteIndexPath(String siteId) {
+        return "site_index/" + siteId;
+    }
+
+    /** Gives siteId its own rules instead of the defaults; their state starts clear. */
+    public synchronized void setRules(String siteId, List<AlertRule> rules) {
+        alertEngine.setRules(siteId, rules);
+    }
+
+    /** Acknowledges a raised rule of siteId; returns false when it was not raised. */
+    public synchronized boolean acknowledge(String siteId, String ruleId, long timeSeconds) {
+        int site = alertEngine.site(siteId);
+        int rule = alertEngine.ruleIndex(site, ruleId);
+        return rule >= 0 && alertEngine.acknowledge(site, rule, timeSeconds);
+    }
+
+    /** Folds one decoded reading of siteId into its summary, rollup and alert log. */
+    public synchronized void onReading(String siteId, SensorReading reading) {
+        if (reading == null || reading.timestamp == SensorReading.MISSING_TIMESTAMP) return;
+        SiteState state = sites.get(siteId);
+        if (state == null) {
+            state = new SiteState();
+            sites.put(siteId, state);
+        }
+        if (reading.timestamp <= state.lastTimestamp) return;
+        state.lastTimestamp = reading.timestamp;
+        readings++;
+
+        int warnings = alertEngine.evaluate(alertEngine.site(siteId), reading);
+        SiteSummary previous = state.written;
+        SiteSummary next = summarize(siteId, reading, previous, state, warnings);
+        if (previous == null ? next.isAlerting() : !previous.alert.equals(next.alert)) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put(Long.toString(reading.timestamp), next.alert);
+            writer.update(alertLogPath(siteId), entry);
+            alertTransitions++;
+        }
+
+        Map<String, Object> changed = next.changedValues(previous);
+        // The timestamp alone changes with every reading; send it only as a heartbeat
+        if (changed.size() == 1 && changed.containsKey("t") && next.timestamp - previous.timestamp < HEARTBEAT_SECONDS) {
+            changed.clear();
+        }
+        if (!changed.isEmpty()) {
+            writer.update(summaryPath(siteId), changed);
+            state.written = next;
+            summaryWrites++;
+        }
+
+        updateSiteIndex(siteId, state, reading, next);
+        if (reading.hasDetails) addToRollup(siteId, state, reading, next);
+    }
+
+    private void updateSiteIndex(String siteId, SiteState state, SensorReading reading, SiteSummary summary) {
+        // The text rarely changes, so it is parsed once per change rather than per reading
+        if (!SensorReading.isMissing(reading.gps) && !reading.gps.equals(state.gps)) {
+            state.gps = reading.gps;
+            long location = SiteIndex.parseLocation(reading.gps);
+            if (location != SiteIndex.NO_LOCATION) state.location = location;
+        }
+        if (state.location == SiteIndex.NO_LOCATION) return;
+
+        int flags = (summary.blockedChamber > 0 || "Blockage".equals(summary.alert) ? SiteIndex.FLAG_BLOCKED : 0)
+                | (summary.isAlerting() ? SiteIndex.FLAG_ALERTING : 0);
+        Map<String, Object> changed = new LinkedHashMap<>();
+        if (state.location != state.indexedLocation) {
+            changed.put("y", (long) SiteIndex.latE6(state.location));
+            changed.put("x", (long) SiteIndex.lonE6(state.location));
+        }
+        if (flags != state.indexedFlags) changed.put("k", (long) flags);
+        if (changed.isEmpty()) return;
+        writer.update(siteIndexPath(siteId), changed);
+        state.indexedLocation = state.location;
+        state.indexedFlags = flags;
+        siteIndexWrites++;
+    }
+
+    private static SiteSummary summarize(String siteId, SensorReading reading, SiteSummary previous, SiteState state, int warnings) {
+        // Readings without the "data" node only carry the alert; keep the rest as it was
+        String alert = SensorReading.isMissing(reading.alert)
+                ? (previous != null ? previous.alert : MonitoringPolicy.NO_ALERT) : reading.alert;
+        if (!MonitoringPolicy.isAlerting(alert)) {
+            state.alertSince = 0;
+        } else if (previous == null || !alert.equals(previous.alert)) {
+            state.alertSince = reading.timestamp;
+        }
+        if (!reading.hasDetails && previous != null) {
+            return new SiteSummary(siteId, previous.name, alert, previous.fillPercent,
+                    "Blockage".equals(alert) ? previous.blockedChamber : 0, reading.timestamp,
+                    previous.closestDistanceCm, warnings, state.alertSince);
+        }
+
+        int blocked = "Blockage".equals(alert) && !SensorReading.isMissing(reading.blockedChamber) ? reading.blockedChamber : 0;
+        double closest = closestDistance(reading);
+        return new SiteSummary(siteId, siteId, alert, maxFillPercent(reading), blocked, reading.timestamp,
+                Double.isNaN(closest) ? SiteSummary.NO_DISTANCE : (int) Math.round(closest), warnings, state.alertSince);
+    }
+
+    private void writeAlertEvent(String siteId, AlertRule rule, int event, long timeSeconds, float value) {
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put(timeSeconds + "_" + rule.id, event == AlertEngine.EVENT_RAISED ? "raised"
+                : event == AlertEngine.EVENT_ACKNOWLEDGED ? "acknowledged" : "cleared");
+        writer.update(alertEventsPath(siteId), entry);
+        alertEvents++;
+    }
+
+    private void addToRollup(String siteId, SiteState state, SensorReading reading, SiteSummary summary) {
+        long minute = reading.timestamp - Math.floorMod(reading.timestamp, MINUTE_SECONDS);
+        if (minute != state.minuteStart) {
+            flushRollup(siteId, state);
+            state.minuteStart = minute;
+        }
+        state.maxFill = Math.max(state.maxFill, summary.fillPercent);
+        double closest = closestDistance(reading);
+        if (!Double.isNaN(closest) && !(state.minDistance <= closest)) state.minDistance = closest;
+        if (!SensorReading.isMissing(reading.mq8) && !(state.maxMq8 >= reading.mq8)) state.maxMq8 = reading.mq8;
+    }
+
+    private void flushRollup(String siteId, SiteState state) {
+        if (state.minuteStart == Long.MIN_VALUE) return;
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("f", (long) state.maxFill);
+        if (!Double.isNaN(state.minDistance)) values.put("d", Math.round(state.minDistance));
+        if (!Double.isNaN(state.maxMq8)) values.put("g", Math.round(state.maxMq8 * 100) / 100.0);
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put(Long.toString(state.minuteStart), values);
+        writer.update(rollupPath(siteId), entry);
+        rollupWrites++;
+        state.maxFill = -1;
+        state.minDistance = Double.NaN;
+        state.maxMq8 = Double.NaN;
+    }
+
+    /** Writes the rollups of minutes still open, e.g. before shutting down. */
+    public synchronized void flush() {
+        for (Map.Entry<String, SiteState> site : sites.entrySet()) {
+            flushRollup(site.getKey(), site.getValue());
+            site.getValue().minuteStart = Long.MIN_VALUE;
+        }
+    }
+
+    public synchronized long readings() {
+        return readings;
+    }
+
+    public synchronized long summaryWrites() {
+        return summaryWrites;
+    }
+
+    public synchronized long rollupWrites() {
+        return rollupWrites;
+    }
+
+    public synchronized long alertTransitions() {
+        return alertTransitions;
+    }
+
+    public synchronized long alertEvents() {
+        return alertEvents;
+    }
+
+    public synchronized long siteIndexWrites() {
+        return siteIndexWrites;
+    }
+
+    private static double closestDistance(SensorReading reading) {
+        boolean has1 = !SensorReading.isMissing(reading.distance1);
+        boolean has2 = !SensorReading.isMissing(reading.distance2);
+        if (has1 && has2) return Math.min(reading.distance1, reading.distance2);
+        if (has1) return reading.distance1;
+        return has2 ? reading.distance2 : Double.NaN;
+    }
+
+    private static int maxFillPercent(SensorReading reading) {
+        float max = 0f;
+        for (int i = 0; i < reading.chamberCount(); i++) max = Math.max(max, reading.waterLevel(i));
+        return Math.round(max * 100);
+    }
+}
@@ -0,0 +1,441 @@
+package com.example.smartdrainagesystem;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Spatial index over drainage sites for the fleet map: viewport queries and "nearest N sites
+ * with these flags" around a point.
+ *
+ * Sites keep a slot in parallel primitive arrays; coordinates are integer microdegrees, parsed
+ * once from the firmware's "lat,lon" text (see parseLocation). Locations feed a static R-tree
+ * packed with Sort-Tile-Recursive, which is rebuilt on the next query after a site is added,
+ * moved or removed. Sites rarely move, so that is rare; flag changes, which are frequent, only
+ * touch the flags array. Queries allocate nothing.
+ *
+ * Distances are equirectangular around the query point, which ranks sites correctly at city
+ * scale; the tree does not wrap at the antimeridian, viewports that cross it are split in two.
+ * Not thread-safe.
+ */
+public final class SiteIndex {
+
+    public static final int FLAG_BLOCKED = 1;
+    public static final int FLAG_ALERTING = 1 << 1;
+
+    /** parseLocation() result for text that is not a usable position. */
+    public static final long NO_LOCATION = Long.MIN_VALUE;
+
+    public static final int MAX_LAT_E6 = 90_000_000;
+    public static final int MAX_LON_E6 = 180_000_000;
+
+    static final int NODE_CAPACITY = 16;
+    private static final double EARTH_RADIUS_METERS = 6_371_000;
+
+    public interface SiteVisitor {
+        void visit(int slot);
+    }
+
+    // Sites, struct of arrays indexed by slot
+    private final Map<String, Integer> slots = new HashMap<>();
+    private String[] siteIds = new String[64];
+    private int[] latE6 = new int[64];
+    private int[] lonE6 = new int[64];
+    private int[] flags = new int[64];
+    private int slotCount;
+    private int[] freeSlots = new int[16];
+    private int freeCount;
+
+    // R-tree, rebuilt when dirty. Leaves cover runs of entries, inner nodes runs of nodes
+    private boolean dirty;
+    private int[] entries = new int[0];
+    private int[] nodeMinLat = new int[0], nodeMinLon = new int[0], nodeMaxLat = new int[0], nodeMaxLon = new int[0];
+    private int[] nodeFirst = new int[0], nodeCount = new int[0];
+    private boolean[] nodeLeaf = new boolean[0];
+    private int nodes;
+    private int root = -1;
+
+    // Query scratch, sized on build
+    private int[] stack = new int[0];
+    private double[] heapKey = new double[0];
+    private int[] heapItem = new int[0];
+    private int heapSize;
+
+    /** Adds siteId or moves it; returns its slot. */
+    public int put(String siteId, int latE6, int lonE6) {
+        Integer existing = slots.get(siteId);
+        int slot;
+        if (existing != null) {
+            slot = existing;
+            if (this.latE6[slot] == latE6 && this.lonE6[slot] == lonE6) return slot;
+        } else {
+            slot = freeCount > 0 ? freeSlots[--freeCount] : newSlot();
+            slots.put(siteId, slot);
+            siteIds[slot] = siteId;
+            flags[slot] = 0;
+        }
+        this.latE6[slot] = latE6;
+        this.lonE6[slot] = lonE6;
+        dirty = true;
+        return slot;
+    }
+
+    public boolean remove(String siteId) {
+        Integer slot = slots.remove(siteId);
+        if (slot == null) return false;
+        siteIds[slot] = null;
+        if (freeCount == freeSlots.length) freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        freeSlots[freeCount++] = slot;
+        dirty = true;
+        return true;
+    }
+
+    /** Slot of siteId, -1 when it is not indexed. */
+    public int slot(String siteId) {
+        Integer slot = slots.get(siteId);
+        return slot != null ? slot : -1;
+    }
+
+    public void setFlags(int slot, int flags) {
+        this.flags[slot] = flags;
+    }
+
+    public int size() {
+        return slots.size();
+    }
+
+    public String siteId(int slot) {
+        return siteIds[slot];
+    }
+
+    public int latE6(int slot) {
+        return latE6[slot];
+    }
+
+    public int lonE6(int slot) {
+        return lonE6[slot];
+    }
+
+    public int flags(int slot) {
+        return flags[slot];
+    }
+
+    /**
+     * Visits every site inside the box, edges included; returns the number visited. west > east
+     * means the box crosses the antimeridian.
+     */
+    public int queryViewport(int southE6, int westE6, int northE6, int eastE6, SiteVisitor visitor) {
+        if (westE6 > eastE6) {
+            return queryViewport(southE6, westE6, northE6, MAX_LON_E6, visitor)
+                    + queryViewport(southE6, -MAX_LON_E6, northE6, eastE6, visitor);
+        }
+        ensureBuilt();
+        if (root < 0) return 0;
+        int visited = 0;
+        int top = 0;
+        stack[top++] = root;
+        while (top > 0) {
+            int node = stack[--top];
+            if (nodeMinLat[node] > northE6 || nodeMaxLat[node] < southE6
+                    || nodeMinLon[node] > eastE6 || nodeMaxLon[node] < westE6) continue;
+            int first = nodeFirst[node], end = first + nodeCount[node];
+            if (!nodeLeaf[node]) {
+                for (int child = first; child < end; child++) stack[top++] = child;
+                continue;
+            }
+            for (int e = first; e < end; e++) {
+                int slot = entries[e];
+                int lat = latE6[slot], lon = lonE6[slot];
+                if (lat >= southE6 && lat <= northE6 && lon >= westE6 && lon <= eastE6) {
+                    visitor.visit(slot);
+                    visited++;
+                }
+            }
+        }
+        return visited;
+    }
+
+    /**
+     * Writes the slots of the (at most) n sites nearest to the point that have all of
+     * requiredFlags into out, nearest first; returns how many were found.
+     */
+    public int nearest(int latE6, int lonE6, int n, int requiredFlags, int[] out) {
+        ensureBuilt();
+        n = Math.min(n, out.length);
+        if (root < 0 || n <= 0) return 0;
+        // Longitude degrees shrink with latitude; scale them so both axes are comparable
+        double lonScale = Math.cos(Math.toRadians(latE6 / 1e6));
+        heapSize = 0;
+        push(root, boxDistance(root, latE6, lonE6, lonScale));
+        int found = 0;
+        while (heapSize > 0 && found < n) {
+            int item = pop();
+            if (item < 0) {
+                out[found++] = ~item; // entries are stored complemented
+                continue;
+            }
+            int first = nodeFirst[item], end = first + nodeCount[item];
+            if (nodeLeaf[item]) {
+                for (int e = first; e < end; e++) {
+                    int slot = entries[e];
+                    if ((flags[slot] & requiredFlags) != requiredFlags) continue;
+                    double dLat = this.latE6[slot] - latE6;
+                    double dLon = (this.lonE6[slot] - lonE6) * lonScale;
+                    push(~slot, dLat * dLat + dLon * dLon);
+                }
+            } else {
+                for (int child = first; child < end; child++) push(child, boxDistance(child, latE6, lonE6, lonScale));
+            }
+        }
+        return found;
+    }
+
+    /** Great-circle distance between two microdegree positions. */
+    public static double distanceMeters(int latE6a, int lonE6a, int latE6b, int lonE6b) {
+        double lat1 = Math.toRadians(latE6a / 1e6), lat2 = Math.toRadians(latE6b / 1e6);
+        double dLat = lat2 - lat1;
+        double dLon = Math.toRadians((lonE6b - lonE6a) / 1e6);
+        double h = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(lat1) * Math.cos(lat2) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1, Math.sqrt(h)));
+    }
+
+    /**
+     * Parses the firmware's "lat,lon" decimal degrees into microdegrees packed as
+     * lat << 32 | lon; NO_LOCATION when malformed, out of range or "0,0" (no GPS fix).
+     */
+    public static long parseLocation(String gps) {
+        if (gps == null) return NO_LOCATION;
+        int comma = gps.indexOf(',');
+        if (comma < 0) return NO_LOCATION;
+        long lat = parseMicrodegrees(gps, 0, comma);
+        long lon = parseMicrodegrees(gps, comma + 1, gps.length());
+        if (lat == NO_LOCATION || lon == NO_LOCATION || Math.abs(lat) > MAX_LAT_E6 || Math.abs(lon) > MAX_LON_E6
+                || (lat == 0 && lon == 0)) {
+            return NO_LOCATION;
+        }
+        return lat << 32 | (lon & 0xFFFFFFFFL);
+    }
+
+    public static int latE6(long location) {
+        return (int) (location >> 32);
+    }
+
+    public static int lonE6(long location) {
+        return (int) location;
+    }
+
+    // Decimal degrees in text[from, to) to microdegrees, rounded; NO_LOCATION when malformed
+    private static long parseMicrodegrees(String text, int from, int to) {
+        while (from < to && text.charAt(from) == ' ') from++;
+        while (to > from && text.charAt(to - 1) == ' ') to--;
+        boolean negative = false;
+        if (from < to && (text.charAt(from) == '-' || text.charAt(from) == '+')) {
+            negative = text.charAt(from) == '-';
+            from++;
+        }
+        long micro = 0;
+        int digits = 0, decimals = -1;
+        boolean roundUp = false;
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (c == '.' && decimals < 0) {
+                decimals = 0;
+            } else if (c >= '0' && c <= '9') {
+                if (decimals < 0) {
+                    if (++digits > 4) return NO_LOCATION; // far outside any valid range
+                    micro = micro * 10 + (c - '0');
+                } else if (decimals < 6) {
+                    micro = micro * 10 + (c - '0');
+                    decimals++;
+                    digits++;
+                } else if (decimals == 6) {
+                    roundUp = c >= '5';
+                    decimals++;
+                }
+            } else {
+                return NO_LOCATION;
+            }
+        }
+        if (digits == 0) return NO_LOCATION;
+        for (int d = Math.max(decimals, 0); d < 6; d++) micro *= 10;
+        if (roundUp) micro++;
+        return negative ? -micro : micro;
+    }
+
+    private int newSlot() {
+        if (slotCount == siteIds.length) {
+            int capacity = slotCount * 2;
+            siteIds = Arrays.copyOf(siteIds, capacity);
+            latE6 = Arrays.copyOf(latE6, capacity);
+            lonE6 = Arrays.copyOf(lonE6, capacity);
+            flags = Arrays.copyOf(flags, capacity);
+        }
+        return slotCount++;
+    }
+
+    private double boxDistance(int node, int latE6, int lonE6, double lonScale) {
+        double dLat = Math.max(0, Math.max(nodeMinLat[node] - (double) latE6, latE6 - (double) nodeMaxLat[node]));
+        double dLon = Math.max(0, Math.max(nodeMinLon[node] - (double) lonE6, lonE6 - (double) nodeMaxLon[node])) * lonScale;
+        return dLat * dLat + dLon * dLon;
+    }
+
+    private void ensureBuilt() {
+        if (dirty) build();
+    }
+
+    private void build() {
+        dirty = false;
+        int n = slots.size();
+        entries = new int[n];
+        int e = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (siteIds[slot] != null) entries[e++] = slot;
+        }
+        nodes = 0;
+        root = -1;
+        if (n == 0) return;
+
+        // Upper bound on nodes: every level has at most ceil(size / NODE_CAPACITY) + 1 of them
+        int capacity = 1;
+        for (int level = n; level > 1; level = (level + NODE_CAPACITY - 1) / NODE_CAPACITY) capacity += level / NODE_CAPACITY + 1;
+        nodeMinLat = new int[capacity];
+        nodeMinLon = new int[capacity];
+        nodeMaxLat = new int[capacity];
+        nodeMaxLon = new int[capacity];
+        nodeFirst = new int[capacity];
+        nodeCount = new int[capacity];
+        nodeLeaf = new boolean[capacity];
+
+        sortTileRecursive(entries, n, lonE6, latE6);
+        for (int first = 0; first < n; first += NODE_CAPACITY) {
+            int node = nodes++;
+            int end = Math.min(n, first + NODE_CAPACITY);
+            nodeFirst[node] = first;
+            nodeCount[node] = end - first;
+            nodeLeaf[node] = true;
+            nodeMinLat[node] = nodeMinLon[node] = Integer.MAX_VALUE;
+            nodeMaxLat[node] = nodeMaxLon[node] = Integer.MIN_VALUE;
+            for (int i = first; i < end; i++) {
+                int slot = entries[i];
+                nodeMinLat[node] = Math.min(nodeMinLat[node], latE6[slot]);
+                nodeMaxLat[node] = Math.max(nodeMaxLat[node], latE6[slot]);
+                nodeMinLon[node] = Math.min(nodeMinLon[node], lonE6[slot]);
+                nodeMaxLon[node] = Math.max(nodeMaxLon[node], lonE6[slot]);
+            }
+        }
+
+        int levelStart = 0, levelEnd = nodes;
+        int[] centerLat = new int[capacity], centerLon = new int[capacity];
+        while (levelEnd - levelStart > 1) {
+            int count = levelEnd - levelStart;
+            int[] order = new int[count];
+            for (int i = 0; i < count; i++) {
+                int node = levelStart + i;
+                order[i] = node;
+                centerLat[node] = (int) (((long) nodeMinLat[node] + nodeMaxLat[node]) / 2);
+                centerLon[node] = (int) (((long) nodeMinLon[node] + nodeMaxLon[node]) / 2);
+            }
+            sortTileRecursive(order, count, centerLon, centerLat);
+            permuteLevel(order, levelStart);
+
+            for (int first = levelStart; first < levelEnd; first += NODE_CAPACITY) {
+                int node = nodes++;
+                int end = Math.min(levelEnd, first + NODE_CAPACITY);
+                nodeFirst[node] = first;
+                nodeCount[node] = end - first;
+                nodeMinLat[node] = nodeMinLon[node] = Integer.MAX_VALUE;
+                nodeMaxLat[node] = nodeMaxLon[node] = Integer.MIN_VALUE;
+                for (int child = first; child < end; child++) {
+                    nodeMinLat[node] = Math.min(nodeMinLat[node], nodeMinLat[child]);
+                    nodeMaxLat[node] = Math.max(nodeMaxLat[node], nodeMaxLat[child]);
+                    nodeMinLon[node] = Math.min(nodeMinLon[node], nodeMinLon[child]);
+                    nodeMaxLon[node] = Math.max(nodeMaxLon[node], nodeMaxLon[child]);
+                }
+            }
+            levelStart = levelEnd;
+            levelEnd = nodes;
+        }
+        root = nodes - 1;
+
+        stack = new int[nodes + 1];
+        heapKey = new double[nodes + n];
+        heapItem = new int[nodes + n];
+    }
+
+    // Sorts ids by x, cuts them into vertical slices of whole nodes, and sorts each slice by y
+    private static void sortTileRecursive(int[] ids, int n, int[] x, int[] y) {
+        long[] keys = new long[n];
+        for (int i = 0; i < n; i++) keys[i] = (long) x[ids[i]] << 32 | ids[i];
+        Arrays.sort(keys);
+        for (int i = 0; i < n; i++) ids[i] = (int) keys[i];
+
+        int leaves = (n + NODE_CAPACITY - 1) / NODE_CAPACITY;
+        int sliceSize = (int) Math.ceil(Math.sqrt(leaves)) * NODE_CAPACITY;
+        for (int start = 0; start < n; start += sliceSize) {
+            int end = Math.min(n, start + sliceSize);
+            for (int i = start; i < end; i++) keys[i] = (long) y[ids[i]] << 32 | ids[i];
+            Arrays.sort(keys, start, end);
+            for (int i = start; i < end; i++) ids[i] = (int) keys[i];
+        }
+    }
+
+    // Rewrites the nodes at levelStart.. in the given order; their children are already final
+    private void permuteLevel(int[] order, int levelStart) {
+        int count = order.length;
+        int[] minLat = new int[count], minLon = new int[count], maxLat = new int[count], maxLon = new int[count];
+        int[] first = new int[count], size = new int[count];
+        boolean[] leaf = new boolean[count];
+        for (int i = 0; i < count; i++) {
+            int node = order[i];
+            minLat[i] = nodeMinLat[node];
+            minLon[i] = nodeMinLon[node];
+            maxLat[i] = nodeMaxLat[node];
+            maxLon[i] = nodeMaxLon[node];
+            first[i] = nodeFirst[node];
+            size[i] = nodeCount[node];
+            leaf[i] = nodeLeaf[node];
+        }
+        System.arraycopy(minLat, 0, nodeMinLat, levelStart, count);
+        System.arraycopy(minLon, 0, nodeMinLon, levelStart, count);
+        System.arraycopy(maxLat, 0, nodeMaxLat, levelStart, count);
+        System.arraycopy(maxLon, 0, nodeMaxLon, levelStart, count);
+        System.arraycopy(first, 0, nodeFirst, levelStart, count);
+        System.arraycopy(size, 0, nodeCount, levelStart, count);
+        System.arraycopy(leaf, 0, nodeLeaf, levelStart, count);
+    }
+
+    // Binary min-heap on squared distance; items are node indices or complemented slots
+    private void push(int item, double key) {
+        int i = heapSize++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heapKey[parent] <= key) break;
+            heapKey[i] = heapKey[parent];
+            heapItem[i] = heapItem[parent];
+            i = parent;
+        }
+        heapKey[i] = key;
+        heapItem[i] = item;
+    }
+
+    private int pop() {
+        int top = heapItem[0];
+        int last = --heapSize;
+        double key = heapKey[last];
+        int item = heapItem[last];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= last) break;
+            if (child + 1 < last && heapKey[child + 1] < heapKey[child]) child++;
+            if (heapKey[child] >= key) break;
+            heapKey[i] = heapKey[child];
+            heapItem[i] = heapItem[child];
+            i = child;
+        }
+        heapKey[i] = key;
+        heapItem[i] = item;
+        return top;
+    }
+}
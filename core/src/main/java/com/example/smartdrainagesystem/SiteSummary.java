@@ -0,0 +1,96 @@
+package com.example.smartdrainagesystem;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compact per-site status stored at summary/{siteId}, written by SiteAggregator. Keys are kept
+ * to one letter because every fleet client downloads the summary of every site:
+ *   n - display name, set when the site is provisioned; never written by the aggregator
+ *   a - alert ("None", "Blockage", "Gas", ...)
+ *   f - highest chamber fill, percent 0..100
+ *   b - blocked chamber number, 0 when none
+ *   t - timestamp of the reading the summary was built from, seconds
+ *   d - closest sonar distance, whole cm, -1 when unknown
+ *   w - WARNING_* bits, the threshold checks the dashboard colors values by
+ *   s - when the current alert was raised, seconds, 0 when there is none
+ */
+public final class SiteSummary {
+
+    public static final int NO_DISTANCE = -1;
+
+    public static final int WARNING_SONAR_CLOSE = 1;
+    public static final int WARNING_METHANE = 1 << 1;
+    public static final int WARNING_FLAME = 1 << 2;
+    public static final int WARNING_OBSTACLE = 1 << 3;
+
+    public final String siteId;
+    public final String name;
+    public final String alert;
+    public final int fillPercent;
+    public final int blockedChamber;
+    public final long timestamp;
+    public final int closestDistanceCm;
+    public final int warnings;
+    public final long alertSince;
+
+    public SiteSummary(String siteId, String name, String alert, int fillPercent, int blockedChamber, long timestamp,
+                       int closestDistanceCm, int warnings, long alertSince) {
+        this.siteId = siteId;
+        this.name = name;
+        this.alert = alert;
+        this.fillPercent = fillPercent;
+        this.blockedChamber = blockedChamber;
+        this.timestamp = timestamp;
+        this.closestDistanceCm = closestDistanceCm;
+        this.warnings = warnings;
+        this.alertSince = alertSince;
+    }
+
+    public boolean isAlerting() {
+        return !alert.isEmpty() && !"None".equals(alert);
+    }
+
+    public boolean hasWarning(int warning) {
+        return (warnings & warning) != 0;
+    }
+
+    // Decodes the raw value of a summary/{siteId} snapshot; unknown or absent keys fall back to defaults
+    public static SiteSummary fromValue(String siteId, Object value) {
+        if (!(value instanceof Map)) {
+            return new SiteSummary(siteId, siteId, "", 0, 0, 0L, NO_DISTANCE, 0, 0L);
+        }
+        Map<?, ?> node = (Map<?, ?>) value;
+        Object name = node.get("n");
+        Object alert = node.get("a");
+        return new SiteSummary(siteId,
+                name != null ? name.toString() : siteId,
+                alert != null ? alert.toString() : "",
+                (int) readLong(node.get("f"), 0),
+                (int) readLong(node.get("b"), 0),
+                readLong(node.get("t"), 0),
+                (int) readLong(node.get("d"), NO_DISTANCE),
+                (int) readLong(node.get("w"), 0),
+                readLong(node.get("s"), 0));
+    }
+
+    /**
+     * Children that differ from previous (all of them when previous is null), ready for
+     * updateChildren(). The name is left out so the aggregator never overwrites it.
+     */
+    public Map<String, Object> changedValues(SiteSummary previous) {
+        Map<String, Object> changed = new LinkedHashMap<>();
+        if (previous == null || !alert.equals(previous.alert)) changed.put("a", alert);
+        if (previous == null || fillPercent != previous.fillPercent) changed.put("f", (long) fillPercent);
+        if (previous == null || blockedChamber != previous.blockedChamber) changed.put("b", (long) blockedChamber);
+        if (previous == null || timestamp != previous.timestamp) changed.put("t", timestamp);
+        if (previous == null || closestDistanceCm != previous.closestDistanceCm) changed.put("d", (long) closestDistanceCm);
+        if (previous == null || warnings != previous.warnings) changed.put("w", (long) warnings);
+        if (previous == null || alertSince != previous.alertSince) changed.put("s", alertSince);
+        return changed;
+    }
+
+    private static long readLong(Object value, long fallback) {
+        return value instanceof Number ? ((Number) value).longValue() : fallback;
+    }
+}
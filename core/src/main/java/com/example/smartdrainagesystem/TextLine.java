@@ -0,0 +1,118 @@
+package com.example.smartdrainagesystem;
+
+import java.util.Arrays;
+
+/**
+ * One line of display text built in reused char arrays, so formatting allocates nothing once
+ * the arrays have grown to fit.
+ *
+ * Build with begin() and the append methods, then commit(): it returns true only when the
+ * characters differ from the committed ones, and chars()/length() then hold the new text. The
+ * two arrays alternate, so a view may keep the committed array (TextView.setText(char[], int, int)
+ * does) while the next line is built in the other one; hand chars() over after every commit()
+ * that returned true, before the next begin().
+ */
+public final class TextLine {
+
+    private static final long[] POWERS_OF_TEN = {1, 10, 100, 1_000, 10_000, 100_000, 1_000_000};
+    private static final double MAX_FIXED = 1e15; // beyond this the scaled value no longer fits a long
+
+    private char[] shown = new char[32];
+    private char[] next = new char[32];
+    private int shownLength = -1; // nothing committed yet
+    private int length;
+
+    public TextLine begin() {
+        length = 0;
+        return this;
+    }
+
+    public TextLine append(String text) {
+        int n = text.length();
+        ensureCapacity(length + n);
+        text.getChars(0, n, next, length);
+        length += n;
+        return this;
+    }
+
+    public TextLine append(char c) {
+        ensureCapacity(length + 1);
+        next[length++] = c;
+        return this;
+    }
+
+    public TextLine append(long value) {
+        if (value == Long.MIN_VALUE) return append("-9223372036854775808");
+        if (value < 0) {
+            append('-');
+            value = -value;
+        }
+        int digits = 1;
+        for (long v = value / 10; v != 0; v /= 10) digits++;
+        ensureCapacity(length + digits);
+        for (int i = length + digits - 1; i >= length; i--) {
+            next[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        length += digits;
+        return this;
+    }
+
+    /** Appends value with exactly decimals (0..6) digits after the point, like %.Nf, rounding half up; -0.04 gives "-0.0" as it does there. */
+    public TextLine appendFixed(double value, int decimals) {
+        if (Double.isNaN(value) || Double.isInfinite(value) || Math.abs(value) >= MAX_FIXED) {
+            return append(Double.toString(value)); // not a reading any sensor sends
+        }
+        long scale = POWERS_OF_TEN[decimals];
+        long scaled = Math.round(Math.abs(value) * scale);
+        if (Double.doubleToRawLongBits(value) < 0) append('-');
+        append(scaled / scale);
+        if (decimals == 0) return this;
+        append('.');
+        long fraction = scaled % scale;
+        ensureCapacity(length + decimals);
+        for (int i = length + decimals - 1; i >= length; i--) {
+            next[i] = (char) ('0' + fraction % 10);
+            fraction /= 10;
+        }
+        length += decimals;
+        return this;
+    }
+
+    /** Publishes the line built since begin(); returns false, keeping the old text, when nothing changed. */
+    public boolean commit() {
+        if (sameAsShown()) return false;
+        char[] built = next;
+        next = shown;
+        shown = built;
+        shownLength = length;
+        if (next.length < shown.length) next = Arrays.copyOf(next, shown.length);
+        return true;
+    }
+
+    public char[] chars() {
+        return shown;
+    }
+
+    public int length() {
+        return Math.max(0, shownLength);
+    }
+
+    @Override
+    public String toString() {
+        return new String(shown, 0, length());
+    }
+
+    // Arrays.equals over ranges needs API 33 on Android
+    private boolean sameAsShown() {
+        if (length != shownLength) return false;
+        for (int i = 0; i < length; i++) {
+            if (next[i] != shown[i]) return false;
+        }
+        return true;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > next.length) next = Arrays.copyOf(next, Math.max(capacity, next.length * 2));
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.smartdrainagesystem;
+
+import java.text.DateFormatSymbols;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * Writes "MMM dd, yyyy HH:mm:ss" like SimpleDateFormat with the same pattern, but into a TextLine
+ * and without allocating. Immutable once built, so one instance can be shared across threads,
+ * which a SimpleDateFormat cannot.
+ */
+public final class TimestampFormat {
+
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+
+    private final String[] months;
+    private final TimeZone timeZone;
+
+    public TimestampFormat(Locale locale, TimeZone timeZone) {
+        this.months = DateFormatSymbols.getInstance(locale).getShortMonths().clone();
+        this.timeZone = (TimeZone) timeZone.clone(); // the caller keeps a mutable TimeZone
+    }
+
+    public static TimestampFormat forDefaultLocale() {
+        return new TimestampFormat(Locale.getDefault(), TimeZone.getDefault());
+    }
+
+    public TextLine append(TextLine line, long epochMillis) {
+        long local = epochMillis + timeZone.getOffset(epochMillis);
+        long days = Math.floorDiv(local, MILLIS_PER_DAY);
+        int millisOfDay = (int) Math.floorMod(local, MILLIS_PER_DAY);
+
+        // Civil date from days since 1970-01-01 (Howard Hinnant's days_from_civil, inverted)
+        long z = days + 719_468;
+        long era = Math.floorDiv(z, 146_097);
+        long dayOfEra = z - era * 146_097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36_524 - dayOfEra / 146_096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long mp = (5 * dayOfYear + 2) / 153;
+        int day = (int) (dayOfYear - (153 * mp + 2) / 5 + 1);
+        int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+
+        int seconds = millisOfDay / 1000;
+        line.append(months[month - 1]).append(' ');
+        twoDigits(line, day).append(", ").append(year).append(' ');
+        twoDigits(line, seconds / 3600).append(':');
+        twoDigits(line, seconds / 60 % 60).append(':');
+        return twoDigits(line, seconds % 60);
+    }
+
+    private static TextLine twoDigits(TextLine line, int value) {
+        return line.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.smartdrainagesystem;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Replays recorded sensor traffic into a FakeSensorDatabase for 1 to 1000 sites at 1 to 100 Hz.
+ *
+ * Every step writes one reading to each site's sensor_data node (or sensor_frame, in compact
+ * mode). Sites start at different offsets into the recording so they are not in lockstep, and
+ * timestamps keep increasing when the recording wraps around. Use step() to drive it as fast as
+ * possible from a benchmark, or start() to write at the configured rate in real time.
+ */
+public final class TrafficReplayer {
+
+    public static final int MAX_SITES = 1000;
+    public static final double MIN_RATE_HZ = 1.0;
+    public static final double MAX_RATE_HZ = 100.0;
+
+    private final FakeSensorDatabase database;
+    private final List<SensorReading> recording;
+    private final long recordingSpanSeconds;
+    private final double rateHz;
+    private final String[] paths;
+    private final int[] offsets;
+    private final SensorFrameEncoder[] encoders; // null unless writing compact frames
+    private final AtomicLong updates = new AtomicLong();
+
+    private ScheduledFuture<?> task;
+    private long steps;
+
+    public TrafficReplayer(FakeSensorDatabase database, List<SensorReading> recording,
+                           int siteCount, double rateHz, boolean compactFrames) {
+        if (recording.isEmpty()) throw new IllegalArgumentException("Empty recording");
+        if (siteCount < 1 || siteCount > MAX_SITES) {
+            throw new IllegalArgumentException("siteCount must be 1.." + MAX_SITES + ": " + siteCount);
+        }
+        if (!(rateHz >= MIN_RATE_HZ && rateHz <= MAX_RATE_HZ)) {
+            throw new IllegalArgumentException("rateHz must be " + MIN_RATE_HZ + ".." + MAX_RATE_HZ + ": " + rateHz);
+        }
+        this.database = database;
+        this.recording = recording;
+        this.recordingSpanSeconds = recording.get(recording.size() - 1).timestamp - recording.get(0).timestamp + 1;
+        this.rateHz = rateHz;
+        this.paths = new String[siteCount];
+        this.offsets = new int[siteCount];
+        this.encoders = compactFrames ? new SensorFrameEncoder[siteCount] : null;
+        for (int i = 0; i < siteCount; i++) {
+            String siteId = siteId(i);
+            paths[i] = compactFrames ? FakeSensorDatabase.sensorFramePath(siteId) : FakeSensorDatabase.sensorDataPath(siteId);
+            // Spread sites over the recording with a prime stride
+            offsets[i] = (int) ((i * 7919L) % recording.size());
+            if (compactFrames) encoders[i] = new SensorFrameEncoder();
+        }
+    }
+
+    public static String siteId(int index) {
+        return String.format(Locale.US, "site-%04d", index);
+    }
+
+    public int siteCount() {
+        return paths.length;
+    }
+
+    public String path(int site) {
+        return paths[site];
+    }
+
+    /** Writes the next reading of every site. Not to be called concurrently with itself. */
+    public void step() {
+        long step = steps++;
+        for (int site = 0; site < paths.length; site++) {
+            long position = offsets[site] + step;
+            SensorReading reading = recording.get((int) (position % recording.size()));
+            long loops = position / recording.size();
+            if (loops > 0) reading = reading.withTimestamp(reading.timestamp + loops * recordingSpanSeconds);
+
+            if (encoders != null) {
+                database.updateChildren(paths[site], encoders[site].encode(reading).toFirebaseUpdate());
+            } else {
+                database.setValue(paths[site], SensorTraffic.toValue(reading));
+            }
+        }
+        updates.addAndGet(paths.length);
+    }
+
+    public synchronized void start(ScheduledExecutorService scheduler) {
+        if (task != null) return;
+        long periodNanos = (long) (1_000_000_000L / rateHz);
+        task = scheduler.scheduleAtFixedRate(this::step, 0, periodNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public synchronized void stop() {
+        if (task == null) return;
+        task.cancel(false);
+        task = null;
+    }
+
+    public long updatesWritten() {
+        return updates.get();
+    }
+}
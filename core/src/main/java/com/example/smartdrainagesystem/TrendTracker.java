@@ -0,0 +1,65 @@
+package com.example.smartdrainagesystem;
+
+/**
+ * Exponentially weighted mean and least-squares slope of one signal over time.
+ * O(1) state and no allocation per sample; irregular sample spacing is handled by
+ * deriving the weight of each sample from its time gap (continuous-time decay).
+ */
+final class TrendTracker {
+
+    private final double timeConstantSeconds;
+
+    private boolean primed;
+    private double lastTime;
+    private double meanTime, meanValue;
+    private double covariance, timeVariance;
+
+    TrendTracker(double timeConstantSeconds) {
+        this.timeConstantSeconds = timeConstantSeconds;
+    }
+
+    void add(double timeSeconds, double value) {
+        if (Double.isNaN(value)) return;
+        if (!primed) {
+            primed = true;
+            lastTime = meanTime = timeSeconds;
+            meanValue = value;
+            return;
+        }
+        double dt = timeSeconds - lastTime;
+        if (dt < 0) return; // out of order
+        lastTime = timeSeconds;
+        // Samples sharing a timestamp still count, just with a minimal weight
+        double alpha = dt == 0 ? 1e-3 : 1.0 - Math.exp(-dt / timeConstantSeconds);
+
+        double dTime = timeSeconds - meanTime;
+        double dValue = value - meanValue;
+        meanTime += alpha * dTime;
+        meanValue += alpha * dValue;
+        covariance = (1 - alpha) * (covariance + alpha * dTime * dValue);
+        timeVariance = (1 - alpha) * (timeVariance + alpha * dTime * dTime);
+    }
+
+    boolean isPrimed() {
+        return primed;
+    }
+
+    double mean() {
+        return primed ? meanValue : Double.NaN;
+    }
+
+    // Units of value per second; 0 until there is enough spread in time to fit a line
+    double slope() {
+        return timeVariance > 1e-9 ? covariance / timeVariance : 0.0;
+    }
+
+    // Extrapolated value at the time of the last sample, less laggy than mean()
+    double current() {
+        return primed ? meanValue + slope() * (lastTime - meanTime) : Double.NaN;
+    }
+
+    void reset() {
+        primed = false;
+        covariance = timeVariance = 0;
+    }
+}
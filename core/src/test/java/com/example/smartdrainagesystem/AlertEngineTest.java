@@ -0,0 +1,110 @@
+package com.example.smartdrainagesystem;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class AlertEngineTest {
+
+    private static final long T0 = 1716200000L;
+
+    private final List<String> events = new ArrayList<>();
+    private final AlertEngine engine = new AlertEngine((siteId, rule, event, timeSeconds, value) ->
+            events.add(siteId + " " + rule.id + " " + event + " @" + (timeSeconds - T0)));
+
+    // methane above 1.5 for 3 s raises, below 1.4 for 10 s clears, one raise per 300 s
+    private final int site = engine.site("a");
+    private final int methane = engine.ruleIndex(site, "methane");
+
+    @Test
+    public void shortSpike_isDebounced() {
+        feedMethane(0, 0.4, 2.0, 2.0, 0.4, 0.4);
+        assertEquals(AlertEngine.STATE_CLEAR, engine.state(site, methane));
+        assertTrue(events.isEmpty());
+
+        feedMethane(10, 2.0, 2.0, 2.0, 2.0);
+        assertEquals(AlertEngine.STATE_RAISED, engine.state(site, methane));
+        assertEquals(Collections.singletonList("a methane " + AlertEngine.EVENT_RAISED + " @13"), events);
+        assertEquals(SiteSummary.WARNING_METHANE, engine.activeWarnings(site));
+    }
+
+    @Test
+    public void valueInsideTheHysteresisBand_neitherRaisesNorClears() {
+        feedMethane(0, 1.6, 1.6, 1.6, 1.6);
+        assertTrue(engine.isActive(site, methane));
+        // Hovering between 1.4 and 1.5 keeps it raised for as long as it lasts
+        for (int i = 4; i < 100; i++) feedMethane(i, i % 2 == 0 ? 1.45 : 1.55);
+        assertTrue(engine.isActive(site, methane));
+        assertEquals(1, events.size());
+
+        // Clears after ten seconds below 1.4; a single dip in between restarts the count
+        feedMethane(100, 1.0, 1.0, 1.0, 1.0, 1.0, 1.45);
+        feedMethane(106, 1.0, 1.0, 1.0, 1.0, 1.0, 1.0, 1.0, 1.0, 1.0, 1.0);
+        assertTrue(engine.isActive(site, methane));
+        feedMethane(116, 1.0);
+        assertFalse(engine.isActive(site, methane));
+        assertEquals("a methane " + AlertEngine.EVENT_CLEARED + " @116", events.get(1));
+    }
+
+    @Test
+    public void flappingRule_announcesOncePerRepeatInterval() {
+        AlertRule rule = new AlertRule("hot", AlertRule.METRIC_TEMPERATURE, true, 40f, 35f, 0, 0, 60, 0);
+        int hot = engine.setRules("b", Collections.singletonList(rule));
+        for (int i = 0; i < 120; i++) {
+            engine.evaluate(hot, new SensorReading.Builder().timestamp(T0 + i).hasDetails(true).temp(i % 2 == 0 ? 45 : 30).build());
+        }
+        // Raised 60 times, but only the raises at 0 and 60 s and their clears are announced
+        assertEquals(Arrays.asList(
+                "b hot 0 @0", "b hot 2 @1", "b hot 0 @60", "b hot 2 @61"), events);
+        assertEquals(58, engine.suppressedRaises());
+    }
+
+    @Test
+    public void acknowledgedRule_staysActiveUntilItClears() {
+        feedMethane(0, 2.0, 2.0, 2.0, 2.0);
+        assertFalse(engine.acknowledge(site, engine.ruleIndex(site, "flame"), T0 + 4));
+        assertTrue(engine.acknowledge(site, methane, T0 + 4));
+        assertEquals(AlertEngine.STATE_ACKNOWLEDGED, engine.state(site, methane));
+        assertTrue(engine.isActive(site, methane));
+        assertFalse(engine.acknowledge(site, methane, T0 + 5));
+
+        for (int i = 5; i <= 15; i++) feedMethane(i, 0.4);
+        assertEquals(AlertEngine.STATE_CLEAR, engine.state(site, methane));
+        assertEquals(Arrays.asList("a methane 0 @3", "a methane 1 @4", "a methane 2 @15"), events);
+    }
+
+    @Test
+    public void missingValuesAndOlderReadings_changeNothing() {
+        feedMethane(10, 2.0, 2.0);
+        engine.evaluate(site, new SensorReading.Builder().alert("Gas").timestamp(T0 + 12).build()); // no details
+        feedMethane(5, 0.4); // older than the last reading
+        feedMethane(13, 2.0);
+        assertEquals(Collections.singletonList("a methane 0 @13"), events);
+    }
+
+    @Test
+    public void replacingRules_reusesTheSiteSlots() {
+        int total = engine.ruleCount();
+        assertEquals(site, engine.setRules("a", AlertRule.defaults()));
+        assertEquals(total, engine.ruleCount());
+        for (int i = 0; i < 100; i++) engine.site("site-" + i);
+        assertEquals(total * 101, engine.ruleCount());
+        assertEquals(site, engine.site("a"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void clearLevelOnTheWrongSide_isRejected() {
+        new AlertRule("bad", AlertRule.METRIC_METHANE, true, 1.5f, 1.6f, 0, 0, 0, 0);
+    }
+
+    private void feedMethane(int fromSecond, double... volts) {
+        for (int i = 0; i < volts.length; i++) {
+            engine.evaluate(site, new SensorReading.Builder().timestamp(T0 + fromSecond + i).hasDetails(true).mq8(volts[i]).build());
+        }
+    }
+}
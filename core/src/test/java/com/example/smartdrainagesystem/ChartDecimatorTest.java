@@ -0,0 +1,78 @@
+package com.example.smartdrainagesystem;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+public class ChartDecimatorTest {
+
+    private static final long START = 1_716_199_200_000L; // on an hour boundary
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void resolution_isCoarsestWithABucketPerColumn() {
+        assertEquals(ChartDecimator.RESOLUTION_RAW, ChartDecimator.resolutionFor(59_999));
+        assertEquals(ChartDecimator.RESOLUTION_MINUTE, ChartDecimator.resolutionFor(SensorHistoryStore.MINUTE_MILLIS));
+        assertEquals(ChartDecimator.RESOLUTION_HOUR, ChartDecimator.resolutionFor(2 * SensorHistoryStore.HOUR_MILLIS));
+    }
+
+    @Test
+    public void rawSamples_keepSpikesPerColumn() throws IOException {
+        try (SensorHistoryStore store = SensorHistoryStore.open(folder.newFolder())) {
+            // 10 Hz for 100 s, flat except for one single-sample spike
+            for (int i = 0; i < 1000; i++) {
+                store.append(START + i * 100L, i == 537 ? 99f : 1f, 0, 0, 0, 0);
+            }
+
+            ChartDecimator decimator = new ChartDecimator();
+            decimator.load(store, SensorHistoryStore.COLUMN_DISTANCE1, START, 1000, 100);
+
+            assertEquals(ChartDecimator.RESOLUTION_RAW, decimator.resolution);
+            assertEquals(1000, decimator.samplesVisited);
+            assertEquals(99f, decimator.max[53], 0f);
+            assertEquals(1f, decimator.min[53], 0f);
+            assertEquals(1f, decimator.max[54], 0f);
+            assertEquals(1f, decimator.rangeMin, 0f);
+            assertEquals(99f, decimator.rangeMax, 0f);
+        }
+    }
+
+    @Test
+    public void longRanges_readRollupsAndLeaveGapsEmpty() throws IOException {
+        try (SensorHistoryStore store = SensorHistoryStore.open(folder.newFolder())) {
+            // 1 Hz for the first 10 minutes only
+            for (int i = 0; i < 600; i++) {
+                store.append(START + i * 1000L, i, 0, 0, 0, 0);
+            }
+
+            ChartDecimator decimator = new ChartDecimator();
+            decimator.load(store, SensorHistoryStore.COLUMN_DISTANCE1, START, 2 * SensorHistoryStore.MINUTE_MILLIS, 30);
+
+            assertEquals(ChartDecimator.RESOLUTION_MINUTE, decimator.resolution);
+            assertEquals(10, decimator.samplesVisited); // minute buckets, not 600 samples
+            assertEquals(0f, decimator.min[0], 0f);
+            assertEquals(119f, decimator.max[0], 0f);
+            assertEquals(599f, decimator.max[4], 0f);
+            assertTrue(Float.isNaN(decimator.min[5]));
+        }
+    }
+
+    @Test
+    public void reset_reusesArraysForSmallerLoads() {
+        ChartDecimator decimator = new ChartDecimator();
+        decimator.reset(START, 1000, 500);
+        float[] min = decimator.min;
+        decimator.visit(START + 200_500, 7f);
+        decimator.reset(START, 1000, 300);
+        assertSame(min, decimator.min);
+        assertTrue(Float.isNaN(decimator.min[200]));
+        decimator.visit(START + 300_000, 7f); // past the end
+        assertTrue(Float.isNaN(decimator.rangeMax));
+    }
+}
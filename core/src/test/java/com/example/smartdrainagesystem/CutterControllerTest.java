@@ -0,0 +1,166 @@
+package com.example.smartdrainagesystem;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class CutterControllerTest {
+
+    private static final long T0 = 1716200000L;
+
+    private final List<CutterController.Actuation> writes = new ArrayList<>();
+    private final CutterController controller = new CutterController(
+            (on, timeSeconds, reason) -> writes.add(new CutterController.Actuation(timeSeconds, on, reason)));
+
+    @Test
+    public void reportedBlockage_startsTheCutterOnTheSameSample() {
+        controller.setAutoMode(true, false);
+        feed(0, clear(), clear(), blocked(), blocked(), blocked());
+        assertEquals(1, writes.size());
+        assertTrue(writes.get(0).on);
+        assertEquals(T0 + 2, writes.get(0).timeSeconds);
+        assertEquals(CutterController.REASON_REPORTED, writes.get(0).reason);
+    }
+
+    @Test
+    public void inferredBlockage_isDebounced() {
+        controller.setAutoMode(true, false);
+        feed(0, inferred(), inferred(), clear(), inferred(), clear());
+        assertTrue(writes.isEmpty());
+        feed(5, inferred(), inferred(), inferred());
+        assertEquals(1, writes.size());
+        assertEquals(T0 + 7, writes.get(0).timeSeconds);
+        assertEquals(CutterController.REASON_INFERRED, writes.get(0).reason);
+    }
+
+    @Test
+    public void persistentBlockage_isLimitedByRunLengthAndCooldown() {
+        controller.setAutoMode(true, false);
+        int onSeconds = 0;
+        for (int i = 0; i < 600; i++) {
+            feed(i, blocked());
+            if (controller.isCutterOn()) onSeconds++;
+        }
+        double dutyLimit = CutterController.MAX_RUN_SECONDS
+                / (double) (CutterController.MAX_RUN_SECONDS + CutterController.COOLDOWN_SECONDS);
+        assertEquals(dutyLimit, onSeconds / 600.0, 0.01);
+        for (int i = 1; i < writes.size(); i += 2) {
+            assertFalse(writes.get(i).on);
+            assertEquals(CutterController.REASON_RUN_LIMIT, writes.get(i).reason);
+            assertEquals(CutterController.MAX_RUN_SECONDS, writes.get(i).timeSeconds - writes.get(i - 1).timeSeconds);
+        }
+    }
+
+    @Test
+    public void leavingAutoMode_stopsOnlyARunItStarted() {
+        controller.setAutoMode(true, false);
+        feed(0, blocked());
+        controller.setAutoMode(false, true);
+        assertEquals(2, writes.size());
+        assertEquals(CutterController.REASON_AUTO_OFF, writes.get(1).reason);
+        assertEquals(T0, writes.get(1).timeSeconds); // the latest reading's time
+
+        // Manual control owns the cutter now
+        feed(2, blocked(), clear(), clear(), clear(), clear());
+        controller.setAutoMode(true, false);
+        controller.setAutoMode(false, false);
+        assertEquals(2, writes.size());
+    }
+
+    @Test
+    public void adoptedRun_isTimedByTheReadings() {
+        // Auto mode comes on with the cutter already running, before any reading has arrived
+        controller.setAutoMode(true, true);
+        for (int i = 0; i <= CutterController.MAX_RUN_SECONDS; i++) feed(i, blocked());
+        assertEquals(1, writes.size());
+        assertEquals(CutterController.REASON_RUN_LIMIT, writes.get(0).reason);
+        assertEquals(T0 + CutterController.MAX_RUN_SECONDS, writes.get(0).timeSeconds);
+    }
+
+    @Test
+    public void replayedDrain_isClearedWithTwoWritesPerBlockage() {
+        // Two hours of recorded traffic with several blockages; running the cutter long enough clears them
+        List<SensorReading> recording = SensorTraffic.synthesize(7200, T0, 42);
+        SimulatedDrain drain = new SimulatedDrain(recording, 8);
+        controller.setAutoMode(true, false);
+        while (drain.hasNext()) {
+            SensorReading reading = drain.next(controller.isCutterOn());
+            controller.onReading(reading);
+        }
+
+        assertTrue("blockages: " + drain.blockages, drain.blockages >= 2);
+        assertEquals(drain.blockages, drain.cleared);
+        assertEquals(2 * drain.blockages, writes.size());
+        assertEquals(0, drain.samplesWithoutReaction); // every blockage was met on its first sample
+        assertEquals(writes.size(), controller.actuations());
+        assertEquals(writes.get(writes.size() - 1).timeSeconds,
+                controller.recentActuations().get(controller.recentActuations().size() - 1).timeSeconds);
+    }
+
+    private void feed(int fromSecond, SensorReading.Builder... readings) {
+        for (int i = 0; i < readings.length; i++) controller.onReading(readings[i].timestamp(T0 + fromSecond + i).build());
+    }
+
+    private static SensorReading.Builder clear() {
+        return details("None", 0, 1, 40, 40);
+    }
+
+    private static SensorReading.Builder blocked() {
+        return details("Blockage", 2, 0, 40, 32);
+    }
+
+    private static SensorReading.Builder inferred() {
+        return details("None", 0, 0, 40, 35);
+    }
+
+    private static SensorReading.Builder details(String alert, int blockedChamber, int ir, double distance1, double distance2) {
+        return new SensorReading.Builder().alert(alert).hasDetails(true).blockedChamber(blockedChamber)
+                .ir(ir).distance1(distance1).distance2(distance2);
+    }
+
+    /**
+     * Replays a recording, except that a blockage the cutter has worked on for cutSeconds is gone:
+     * from then on that episode's readings come back clear.
+     */
+    private static final class SimulatedDrain {
+        private final List<SensorReading> recording;
+        private final int cutSeconds;
+        private int next;
+        private boolean inBlockage, episodeCleared;
+        private int cutSoFar;
+        int blockages, cleared, samplesWithoutReaction;
+
+        SimulatedDrain(List<SensorReading> recording, int cutSeconds) {
+            this.recording = recording;
+            this.cutSeconds = cutSeconds;
+        }
+
+        boolean hasNext() {
+            return next < recording.size();
+        }
+
+        /** The next reading, given whether the cutter ran during the previous second. */
+        SensorReading next(boolean cutterOn) {
+            if (inBlockage && !episodeCleared && cutterOn && ++cutSoFar >= cutSeconds) {
+                episodeCleared = true;
+                cleared++;
+            }
+            if (inBlockage && !episodeCleared && !cutterOn) samplesWithoutReaction++;
+            SensorReading recorded = recording.get(next++);
+            boolean blocked = "Blockage".equals(recorded.alert);
+            if (blocked && !inBlockage) {
+                blockages++;
+                cutSoFar = 0;
+                episodeCleared = false;
+            }
+            inBlockage = blocked;
+            if (!blocked || !episodeCleared) return recorded;
+            return new SensorReading.Builder()
+                    .alert("None").timestamp(recorded.timestamp).hasDetails(true).blockedChamber(0)
+                    .distance1(recorded.distance1).distance2(recorded.distance1).ir(1).flame(1).build();
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.smartdrainagesystem;
+
+import org.junit.Test;
+
+import java.text.SimpleDateFormat;
+import java.util.Collections;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DashboardTextTest {
+
+    private static final long START_SECONDS = 1716200000L;
+
+    @Test
+    public void formatting_matchesStringFormat() {
+        DashboardText text = new DashboardText(new TimestampFormat(Locale.US, TimeZone.getTimeZone("UTC")));
+        double[] values = {0.0, 0.05, 0.15, 1.725, 2.5, 12.349, 12.35, 99.95, 999.0, -3.14159, -0.04};
+        for (double value : values) {
+            text.sonar1(value);
+            assertEquals(String.format(Locale.US, "Sonar 1: %.1f cm", value), text.sonar1.toString());
+            text.methane(true, value);
+            assertEquals(String.format(Locale.US, "Methane: Present (%.2fV)", value), text.methane.toString());
+            text.temperature(value);
+            assertEquals(String.format(Locale.US, "Temp: %.1f \u00B0C", value), text.temperature.toString());
+        }
+
+        text.blockage("Trash", 2);
+        assertEquals("Blockage: Trash (Chamber 2)", text.blockage.toString());
+        text.blockage(null, 0);
+        assertEquals("Blockage: None", text.blockage.toString());
+        text.forecast(17, false);
+        assertEquals("Forecast: Overflow in ~17 min", text.forecast.toString());
+        text.forecast(-1, true);
+        assertEquals("Forecast: Blockage developing", text.forecast.toString());
+        text.staleSince(0);
+        assertEquals("Saved data, waiting for live updates", text.staleSince.toString());
+    }
+
+    @Test
+    public void timestamp_matchesSimpleDateFormat() {
+        for (String zone : new String[]{"UTC", "Asia/Dhaka", "America/New_York", "Asia/Kathmandu"}) {
+            TimeZone timeZone = TimeZone.getTimeZone(zone);
+            SimpleDateFormat expected = new SimpleDateFormat("MMM dd, yyyy HH:mm:ss", Locale.US);
+            expected.setTimeZone(timeZone);
+            DashboardText text = new DashboardText(new TimestampFormat(Locale.US, timeZone));
+            // Across leap days, year ends and DST switches
+            for (long seconds = 946_684_000L; seconds < 4_102_444_800L; seconds += 7_919_993L) {
+                text.timestamp(seconds);
+                assertEquals(zone, "Last Update: " + expected.format(new Date(seconds * 1000L)), text.timestamp.toString());
+            }
+        }
+    }
+
+    @Test
+    public void commit_reportsOnlyChangedText() {
+        DashboardText text = new DashboardText(TimestampFormat.forDefaultLocale());
+        assertTrue(text.sonar1(42.0));
+        assertFalse(text.sonar1(42.0));
+        assertFalse(text.sonar1(42.04)); // same at one decimal
+        assertTrue(text.sonar1(42.06));
+        assertEquals("Sonar 1: 42.1 cm", text.sonar1.toString());
+
+        // The committed chars stay intact while the next line is built
+        char[] shown = text.status.begin().append("Status: None").commit() ? text.status.chars() : null;
+        text.status("Blockage");
+        assertEquals("Status: None", new String(shown, 0, "Status: None".length()));
+        assertEquals("Status: Blockage", text.status.toString());
+    }
+
+    @Test
+    public void steadyStateUpdates_reuseTheirBuffers() {
+        List<SensorReading> recording = SensorTraffic.synthesize(2_000, START_SECONDS, 5);
+        DashboardText text = new DashboardText(TimestampFormat.forDefaultLocale());
+        TextLine[] lines = {text.status, text.blockage, text.methane, text.flame, text.obstacle,
+                text.sonar1, text.sonar2, text.temperature, text.timestamp};
+        for (SensorReading reading : recording) format(text, reading); // grows the arrays
+
+        Set<char[]> buffers = Collections.newSetFromMap(new IdentityHashMap<>());
+        int changed = 0;
+        for (SensorReading reading : recording) {
+            changed += format(text, reading);
+            for (TextLine line : lines) buffers.add(line.chars());
+        }
+        assertTrue(changed > recording.size());
+        // Each line alternates between its two arrays and never grows another
+        assertTrue(buffers.size() <= 2 * lines.length);
+    }
+
+    @Test
+    public void steadyStateUpdates_doNotAllocate() {
+        SensorReading[] recording = SensorTraffic.synthesize(2_000, START_SECONDS, 5).toArray(new SensorReading[0]);
+        DashboardText text = new DashboardText(TimestampFormat.forDefaultLocale());
+        // Warm up so array growth and JIT compilation do not count as allocation
+        for (int pass = 0; pass < 10; pass++) {
+            for (int i = 0; i < recording.length; i++) format(text, recording[i]);
+        }
+
+        // The least of a few passes, as a late compilation can still land in one of them; an
+        // allocation in formatting would show in all of them
+        long allocated = Long.MAX_VALUE;
+        int changed = 0;
+        for (int pass = 0; pass < 5; pass++) {
+            long allocatedBefore = Allocations.threadBytes();
+            for (int i = 0; i < recording.length; i++) changed += format(text, recording[i]);
+            allocated = Math.min(allocated, Allocations.threadBytes() - allocatedBefore);
+        }
+
+        assertTrue(changed > 5 * recording.length);
+        assertTrue("formatting should not allocate, saw " + allocated + " bytes", allocated < 1024);
+    }
+
+    // What SensorDashboardRenderer formats for one reading
+    private static int format(DashboardText text, SensorReading reading) {
+        int changed = 0;
+        if (text.status(reading.alert)) changed++;
+        if (text.blockage(SensorReading.isMissing(reading.blockageType) ? null : reading.blockageType, reading.blockedChamber)) changed++;
+        if (text.methane(reading.mq8 > 1.5, reading.mq8)) changed++;
+        if (text.flame(reading.flame == 0)) changed++;
+        if (text.obstacle(reading.ir == 0)) changed++;
+        if (text.sonar1(reading.distance1)) changed++;
+        if (text.sonar2(reading.distance2)) changed++;
+        if (text.temperature(reading.temp)) changed++;
+        if (text.timestamp(reading.timestamp)) changed++;
+        return changed;
+    }
+}
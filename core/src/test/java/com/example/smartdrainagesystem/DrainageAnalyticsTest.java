@@ -0,0 +1,86 @@
+package com.example.smartdrainagesystem;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class DrainageAnalyticsTest {
+
+    private static final long START = 1_716_200_000_000L;
+
+    @Test
+    public void steadyLevel_predictsNoOverflow() {
+        DrainageAnalytics analytics = new DrainageAnalytics();
+        for (int i = 0; i < 600; i++) {
+            analytics.accept(START + i * 1000L, 40.0 + noise(i), 42.0 + noise(i + 7), 0.2);
+        }
+        assertEquals(DrainForecast.NO_OVERFLOW, analytics.timeToOverflowSeconds(), 0.0);
+        assertFalse(analytics.blockageDeveloping());
+    }
+
+    @Test
+    public void fallingDistance_predictsTimeToOverflow() {
+        DrainageAnalytics analytics = new DrainageAnalytics();
+        // Water rising 1 cm per minute from 60 cm below the sensor; threshold is 5 cm
+        for (int i = 0; i <= 600; i++) {
+            analytics.accept(START + i * 1000L, 60.0 - i / 60.0, Double.NaN, Double.NaN);
+        }
+        // At t=600s the distance is 50 cm, so 45 cm remain at 1 cm/min
+        assertEquals(45 * 60, analytics.timeToOverflowSeconds(), 60);
+        assertFalse(analytics.blockageDeveloping());
+
+        for (int i = 601; i <= 1800; i++) {
+            analytics.accept(START + i * 1000L, 60.0 - i / 60.0, Double.NaN, Double.NaN);
+        }
+        assertTrue("overflow within the horizon should flag a developing blockage", analytics.blockageDeveloping());
+    }
+
+    @Test
+    public void divergingSonars_flagBlockageBeforeOverflowHorizon() {
+        DrainageAnalytics analytics = new DrainageAnalytics();
+        // Upstream rises 1 cm/min while downstream drains 1 cm/min: water is backing up
+        for (int i = 0; i <= 300; i++) {
+            analytics.accept(START + i * 1000L, 100.0 - i / 60.0, 60.0 + i / 60.0, Double.NaN);
+        }
+        assertTrue(analytics.timeToOverflowSeconds() > 30 * 60);
+        assertTrue(analytics.blockageDeveloping());
+    }
+
+    @Test
+    public void longGap_resetsTrend() {
+        DrainageAnalytics analytics = new DrainageAnalytics();
+        for (int i = 0; i <= 300; i++) {
+            analytics.accept(START + i * 1000L, 60.0 - i / 10.0, Double.NaN, Double.NaN);
+        }
+        assertTrue(analytics.blockageDeveloping());
+        analytics.accept(START + 3_600_000L, 30.0, Double.NaN, Double.NaN);
+        assertFalse(analytics.blockageDeveloping());
+    }
+
+    @Test
+    public void replay_isAllocationFree() {
+        DrainageAnalytics analytics = new DrainageAnalytics();
+        int samples = 2_000_000;
+        // Warm up so JIT compilation does not count as allocation
+        for (int i = 0; i < 100_000; i++) {
+            analytics.accept(START + i * 200L, 50 + noise(i), 50 + noise(i + 3), 0.5);
+        }
+        analytics.reset();
+
+        long allocatedBefore = Allocations.threadBytes();
+        long flagged = 0;
+        for (int i = 0; i < samples; i++) {
+            analytics.accept(START + i * 200L, 50 + noise(i), 50 + noise(i + 3), 0.5);
+            if (analytics.blockageDeveloping()) flagged++;
+        }
+        long allocated = Allocations.threadBytes() - allocatedBefore;
+
+        assertTrue(flagged >= 0);
+        assertTrue("accept() should not allocate, saw " + allocated + " bytes", allocated < 1024);
+    }
+
+    // Deterministic +-0.5 cm jitter
+    private static double noise(int i) {
+        return ((i * 7919) % 101) / 100.0 - 0.5;
+    }
+}
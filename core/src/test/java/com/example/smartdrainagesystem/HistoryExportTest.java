@@ -0,0 +1,207 @@
+package com.example.smartdrainagesystem;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.Deflater;
+
+import static org.junit.Assert.*;
+
+public class HistoryExportTest {
+
+    private static final long START = 1_716_199_200_000L;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void csv_writesHeaderAndTrimmedFixedPoint() throws IOException {
+        try (SensorHistoryStore store = SensorHistoryStore.open(folder.newFolder())) {
+            store.append(START, 34.5f, 12f, 1.25f, -3.5f, 0.3922f);
+            store.append(START + 1000, Float.NaN, 0.0001f, 0f, 28f, 1f);
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            long rows = HistoryExport.writeCsv(store, START, START + 1000, Channels.newChannel(bytes));
+
+            assertEquals(2, rows);
+            assertEquals(HistoryExport.CSV_HEADER
+                    + START + ",34.5,12,1.25,-3.5,0.3922\n"
+                    + (START + 1000) + ",,0.0001,0,28,1\n", bytes.toString("US-ASCII"));
+        }
+    }
+
+    @Test
+    public void csv_roundTripsThroughImport() throws IOException {
+        File csv = folder.newFile("history.csv");
+        try (SensorHistoryStore store = filledStore(folder.newFolder(), 20_000);
+             FileChannel out = FileChannel.open(csv.toPath(), StandardOpenOption.WRITE)) {
+            HistoryExport.writeCsv(store, Long.MIN_VALUE, Long.MAX_VALUE, out);
+        }
+
+        try (SensorHistoryStore copy = SensorHistoryStore.open(folder.newFolder());
+             FileChannel in = FileChannel.open(csv.toPath())) {
+            assertEquals(20_000, HistoryExport.readCsv(in, HistoryExport.appendTo(copy)));
+            long[] index = {0};
+            copy.queryRows(Long.MIN_VALUE, Long.MAX_VALUE, (time, values) -> {
+                long i = index[0]++;
+                assertEquals(START + i * 1000, time);
+                assertEquals(distance(i), values[SensorHistoryStore.COLUMN_DISTANCE1], 1e-4f);
+                assertEquals(fill(i), values[SensorHistoryStore.COLUMN_WATER_FILL], 1e-4f);
+            });
+            assertEquals(20_000, index[0]);
+        }
+    }
+
+    @Test
+    public void csv_importReadsOtherToolsOutput() throws IOException {
+        String text = "Time,D1,D2,MQ8,Temp,Fill\r\n"
+                + "1000,1.5e1,-2,,+28.25,.5\r\n"
+                + "\r\n"
+                + "2000,3,4,5,6,7";
+        float[][] rows = new float[2][];
+        long[] times = new long[2];
+        int[] n = {0};
+        long read = HistoryExport.readCsv(Channels.newChannel(new java.io.ByteArrayInputStream(text.getBytes(StandardCharsets.US_ASCII))),
+                (time, values) -> {
+                    times[n[0]] = time;
+                    rows[n[0]++] = values.clone();
+                });
+
+        assertEquals(2, read);
+        assertEquals(1000, times[0]);
+        assertArrayEquals(new float[]{15f, -2f, Float.NaN, 28.25f, 0.5f}, rows[0], 0f);
+        assertEquals(2000, times[1]);
+        assertArrayEquals(new float[]{3, 4, 5, 6, 7}, rows[1], 0f);
+    }
+
+    @Test
+    public void columnar_roundTripsExactlyAcrossChunks() throws IOException {
+        File file = folder.newFile("history.sdhx");
+        int samples = 3 * HistoryExport.CHUNK_ROWS + 17;
+        try (SensorHistoryStore store = filledStore(folder.newFolder(), samples);
+             FileChannel out = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+            assertEquals(samples, HistoryExport.writeColumnar(store, Long.MIN_VALUE, Long.MAX_VALUE, out));
+        }
+        // 28 bytes a row raw; slowly changing readings should compress well below that
+        assertTrue("export is " + file.length() + " bytes", file.length() < samples * 10L);
+
+        long[] index = {0};
+        try (FileChannel in = FileChannel.open(file.toPath())) {
+            long rows = HistoryExport.readColumnar(in, (time, values) -> {
+                long i = index[0]++;
+                assertEquals(START + i * 1000, time);
+                assertEquals(distance(i), values[SensorHistoryStore.COLUMN_DISTANCE1], 0f);
+                assertEquals(distance(i) + 2, values[SensorHistoryStore.COLUMN_DISTANCE2], 0f);
+                assertEquals(fill(i), values[SensorHistoryStore.COLUMN_WATER_FILL], 0f);
+            });
+            assertEquals(samples, rows);
+        }
+    }
+
+    @Test
+    public void columnar_rejectsTruncatedFile() throws IOException {
+        File file = folder.newFile("history.sdhx");
+        try (SensorHistoryStore store = filledStore(folder.newFolder(), 5000);
+             FileChannel out = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+            HistoryExport.writeColumnar(store, Long.MIN_VALUE, Long.MAX_VALUE, out);
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 20);
+        }
+        try (FileChannel in = FileChannel.open(file.toPath())) {
+            HistoryExport.readColumnar(in, (time, values) -> { });
+            fail("truncated export should not read cleanly");
+        } catch (IOException expected) {
+            // ends mid-chunk
+        }
+    }
+
+    @Test
+    public void columnar_rejectsCorruptChunkBodies() throws IOException {
+        // Too short for the first timestamp
+        assertCorrupt(2, new byte[4]);
+        // A time delta varint that runs past the end of the body
+        assertCorrupt(3, new byte[]{0, 0, 0, 0, 0, 0, 0, 1, (byte) 0x80});
+    }
+
+    private static void assertCorrupt(int rows, byte[] body) throws IOException {
+        Deflater deflater = new Deflater();
+        deflater.setInput(body);
+        deflater.finish();
+        byte[] deflated = new byte[64];
+        int deflatedLength = deflater.deflate(deflated);
+        ByteBuffer file = ByteBuffer.allocate(12 + 12 + deflatedLength);
+        file.putInt(HistoryExport.MAGIC).putShort((short) HistoryExport.VERSION)
+                .putShort((short) SensorHistoryStore.COLUMN_COUNT).putInt(HistoryExport.CHUNK_ROWS);
+        file.putInt(rows).putInt(body.length).putInt(deflatedLength).put(deflated, 0, deflatedLength);
+        try {
+            HistoryExport.readColumnar(Channels.newChannel(new ByteArrayInputStream(file.array())), (time, values) -> { });
+            fail("corrupt chunk should not read cleanly");
+        } catch (IOException expected) {
+            // Reported like any other malformed export
+        }
+    }
+
+    @Test
+    public void export_streamsEveryRowOfALargeStore() throws IOException {
+        int samples = 200_000;
+        try (SensorHistoryStore store = filledStore(folder.newFolder(), samples)) {
+            CountingChannel sink = new CountingChannel();
+            assertEquals(samples, HistoryExport.writeCsv(store, Long.MIN_VALUE, Long.MAX_VALUE, sink));
+            long csvBytes = sink.bytes;
+            assertEquals(samples, HistoryExport.writeColumnar(store, Long.MIN_VALUE, Long.MAX_VALUE, sink));
+            assertTrue("columnar should be smaller than csv", sink.bytes - csvBytes < csvBytes);
+        }
+    }
+
+    private static SensorHistoryStore filledStore(File directory, int samples) throws IOException {
+        SensorHistoryStore store = SensorHistoryStore.open(directory);
+        for (int i = 0; i < samples; i++) {
+            store.append(START + i * 1000L, distance(i), distance(i) + 2, 1.6f, 28f, fill(i));
+        }
+        return store;
+    }
+
+    // Water level in 0.1 cm steps, as the sonars report it
+    private static float distance(long i) {
+        return Math.round(300 + 100 * Math.sin(i / 600.0)) / 10f;
+    }
+
+    private static float fill(long i) {
+        return (i / 60 % 256) / 255f;
+    }
+
+    // Discards everything, like writing to a fast disk
+    private static final class CountingChannel implements WritableByteChannel {
+        long bytes;
+
+        @Override
+        public int write(ByteBuffer src) {
+            int n = src.remaining();
+            src.position(src.limit());
+            bytes += n;
+            return n;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
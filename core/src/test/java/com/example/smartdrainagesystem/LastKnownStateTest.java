@@ -0,0 +1,60 @@
+package com.example.smartdrainagesystem;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+public class LastKnownStateTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void writtenState_readsBackQuantized() throws IOException {
+        SensorReading reading = SensorTraffic.synthesize(1, 1716200000L, 7).get(0);
+        File file = new File(folder.getRoot(), "state/site-1");
+        new LastKnownState(reading, true, false, true, 1716200001234L).write(file);
+
+        LastKnownState state = LastKnownState.read(file);
+        assertNotNull(state);
+        assertEquals(1716200001234L, state.savedAtMillis);
+        assertTrue(state.servoKnown);
+        assertFalse(state.servoOn);
+        assertTrue(state.autoMode);
+        assertEquals(reading.alert, state.reading.alert);
+        assertEquals(reading.gps, state.reading.gps);
+        assertEquals(reading.timestamp, state.reading.timestamp);
+        assertEquals(reading.distance1, state.reading.distance1, 0.05);
+        assertEquals(reading.chamberCount(), state.reading.chamberCount());
+        assertTrue("bytes: " + file.length(), file.length() < 100);
+    }
+
+    @Test
+    public void stateWithoutReading_keepsTheSwitches() throws IOException {
+        File file = folder.newFile();
+        new LastKnownState(null, true, true, false, 5L).write(file);
+        new LastKnownState(null, true, false, false, 6L).write(file); // replaces the first one
+
+        LastKnownState state = LastKnownState.read(file);
+        assertNull(state.reading);
+        assertFalse(state.servoOn);
+        assertEquals(6L, state.savedAtMillis);
+    }
+
+    @Test
+    public void missingOrForeignFiles_readAsNothing() throws IOException {
+        assertNull(LastKnownState.read(new File(folder.getRoot(), "absent")));
+        File foreign = folder.newFile();
+        Files.write(foreign.toPath(), new byte[]{9, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10});
+        assertNull(LastKnownState.read(foreign));
+        File truncated = folder.newFile();
+        Files.write(truncated.toPath(), new byte[]{LastKnownState.VERSION, 0, 0});
+        assertNull(LastKnownState.read(truncated));
+    }
+}
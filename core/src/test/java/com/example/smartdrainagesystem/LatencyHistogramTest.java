@@ -0,0 +1,63 @@
+package com.example.smartdrainagesystem;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void percentiles_areWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram("test");
+        for (long v = 1; v <= 100_000; v++) histogram.record(v * 1000); // 1 us .. 100 ms
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(100_000, snapshot.count);
+        assertEquals(100_000_000L, snapshot.max);
+        assertEquals(50_000_000, snapshot.percentile(0.5), 50_000_000 * 0.035);
+        assertEquals(99_000_000, snapshot.percentile(0.99), 99_000_000 * 0.035);
+        assertEquals(50_000_500, snapshot.mean(), 1);
+        assertEquals(100_000_000L, snapshot.percentile(1.0));
+    }
+
+    @Test
+    public void buckets_coverTheWholeRangeInOrder() {
+        long previousUpper = -1;
+        for (int bucket = 0; LatencyHistogram.bucketUpperBound(bucket) > previousUpper && bucket < 5000; bucket++) {
+            long upper = LatencyHistogram.bucketUpperBound(bucket);
+            assertEquals(bucket, LatencyHistogram.bucketOf(previousUpper + 1));
+            assertEquals(bucket, LatencyHistogram.bucketOf(upper));
+            if (upper == Long.MAX_VALUE) return;
+            previousUpper = upper;
+        }
+        fail("buckets did not reach Long.MAX_VALUE");
+    }
+
+    @Test
+    public void record_isSafeUnderContention() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram("test");
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 250_000; i++) histogram.record(i);
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) thread.join();
+
+        assertEquals(1_000_000, histogram.snapshot().count);
+        assertEquals(249_999, histogram.snapshot().max);
+    }
+
+    @Test
+    public void record_doesNotAllocate() {
+        LatencyHistogram histogram = new LatencyHistogram("test");
+        for (int i = 0; i < 100_000; i++) histogram.record(i * 37L); // warm up
+
+        long before = Allocations.threadBytes();
+        for (int i = 0; i < 1_000_000; i++) histogram.record(i * 37L);
+        long allocated = Allocations.threadBytes() - before;
+
+        assertTrue("allocated " + allocated, allocated < 4096);
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.smartdrainagesystem;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MonitoringPolicyTest {
+
+    @Test
+    public void mode_followsAlertAndBattery() {
+        MonitoringPolicy policy = new MonitoringPolicy(MonitoringPolicy.NO_ALERT);
+        assertEquals(MonitoringPolicy.MODE_ALERT_ONLY, policy.mode());
+
+        assertTrue(policy.setBatterySaving(true));
+        assertEquals(MonitoringPolicy.MODE_SPARSE, policy.mode());
+
+        policy.onAlert("Gas");
+        assertEquals(MonitoringPolicy.MODE_FULL, policy.mode());
+        // An active alert is watched closely regardless of battery
+        assertFalse(policy.setBatterySaving(false));
+        assertFalse(policy.setBatterySaving(true));
+        assertEquals(MonitoringPolicy.MODE_FULL, policy.mode());
+
+        policy.onAlert("None");
+        assertEquals(MonitoringPolicy.MODE_SPARSE, policy.mode());
+    }
+
+    @Test
+    public void notifications_areRaisedOncePerAlert() {
+        MonitoringPolicy policy = new MonitoringPolicy(MonitoringPolicy.NO_ALERT);
+        assertNull(policy.takeNotification());
+
+        assertTrue(policy.onAlert("Blockage"));
+        assertEquals("Blockage", policy.takeNotification());
+        assertFalse(policy.onAlert("Blockage"));
+        assertNull(policy.takeNotification());
+
+        // Escalation to another alert notifies again
+        policy.onAlert("Flame");
+        assertEquals("Flame", policy.takeNotification());
+
+        // Missing values (e.g. a partial snapshot) change nothing
+        assertFalse(policy.onAlert(SensorReading.MISSING_TEXT));
+        assertTrue(policy.isAlerting());
+
+        policy.onAlert("None");
+        assertNull(policy.takeNotification());
+        policy.onAlert("Flame");
+        assertEquals("Flame", policy.takeNotification());
+    }
+
+    @Test
+    public void notifiedAlert_survivesARestart() {
+        MonitoringPolicy restarted = new MonitoringPolicy("Gas");
+        restarted.onAlert("Gas");
+        assertNull(restarted.takeNotification());
+
+        // Cleared while nothing was watching: the next raise is announced again
+        MonitoringPolicy cleared = new MonitoringPolicy("Gas");
+        cleared.onAlert("None");
+        cleared.onAlert("Gas");
+        assertEquals("Gas", cleared.takeNotification());
+    }
+
+    @Test
+    public void notification_staysUpWhileTheAlertRepeats() {
+        MonitoringPolicy policy = new MonitoringPolicy(MonitoringPolicy.NO_ALERT);
+        policy.onAlert("Blockage");
+        assertEquals("Blockage", policy.takeNotification());
+        assertFalse(policy.takeClear());
+
+        // Repeat samples of the same alert, e.g. inside the details refresh window
+        policy.onAlert("Blockage");
+        assertNull(policy.takeNotification());
+        assertFalse(policy.takeClear());
+        policy.onAlert(SensorReading.MISSING_TEXT);
+        assertFalse(policy.takeClear());
+
+        policy.onAlert("None");
+        assertTrue(policy.takeClear());
+        policy.onAlert("None");
+        assertFalse(policy.takeClear());
+
+        // Notified before a restart and cleared since
+        MonitoringPolicy restarted = new MonitoringPolicy("Gas");
+        restarted.onAlert("None");
+        assertTrue(restarted.takeClear());
+    }
+}
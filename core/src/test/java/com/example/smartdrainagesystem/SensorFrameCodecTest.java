@@ -0,0 +1,150 @@
+package com.example.smartdrainagesystem;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class SensorFrameCodecTest {
+
+    @Test
+    public void keyframe_roundTripsQuantizedValues() {
+        SensorReading reading = reading(1716200000L, 12.34, 0.815, "23.8103,90.4125");
+
+        byte[] frame = SensorFrameCodec.encodeKeyframe(reading, 7);
+        SensorReading decoded = SensorFrameCodec.decodeKeyframe(frame);
+
+        assertEquals(7, SensorFrameCodec.keyframeId(frame));
+        assertEquals("Blockage", decoded.alert);
+        assertEquals("23.8103,90.4125", decoded.gps);
+        assertEquals(1716200000L, decoded.timestamp);
+        assertTrue(decoded.hasDetails);
+        assertEquals("Plastic", decoded.blockageType);
+        assertEquals(2, decoded.blockedChamber);
+        assertEquals(12.3, decoded.distance1, 1e-9);
+        assertEquals(48.0, decoded.distance2, 1e-9);
+        assertEquals(0.815, decoded.mq8, 1e-9);
+        assertEquals(29.5, decoded.temp, 1e-9);
+        assertEquals(1, decoded.ir);
+        assertEquals(1, decoded.flame);
+        assertEquals(3, decoded.chamberCount());
+        assertEquals(1f, decoded.waterLevel(0), 0f);
+        assertEquals(0f, decoded.waterLevel(1), 0f);
+    }
+
+    @Test
+    public void delta_carriesOnlyChangesAndClearedFields() {
+        SensorReading key = reading(1716200000L, 12.3, 0.8, "23.8103,90.4125");
+        SensorReading next = new SensorReading.Builder()
+                .alert("Blockage").gps("23.8103,90.4125").timestamp(1716200003L).hasDetails(true)
+                .blockageType("Plastic").blockedChamber(2)
+                .distance1(11.9).distance2(48.0).mq8(0.8).temp(29.5).ir(1) // flame dropped out
+                .addWaterLevel(1f).addWaterLevel(0f).addWaterLevel(1f)
+                .build();
+
+        byte[] keyBytes = SensorFrameCodec.encodeKeyframe(key, 1);
+        byte[] delta = SensorFrameCodec.encodeDelta(next, SensorFrameCodec.decodeKeyframe(keyBytes), 1);
+        SensorReading decoded = SensorFrameCodec.decodeDelta(delta, SensorFrameCodec.decodeKeyframe(keyBytes));
+
+        assertTrue("delta should be a handful of bytes, was " + delta.length, delta.length <= 10);
+        assertEquals(1716200003L, decoded.timestamp);
+        assertEquals(11.9, decoded.distance1, 1e-9);
+        assertEquals(48.0, decoded.distance2, 1e-9);
+        assertEquals("23.8103,90.4125", decoded.gps);
+        assertTrue(SensorReading.isMissing(decoded.flame));
+        assertEquals(1f, decoded.waterLevel(2), 0f);
+    }
+
+    @Test
+    public void gps_keepsTextThatMicrodegreesCannotReproduce() {
+        SensorReading reading = reading(1L, 1, 1, "23.810300, 90.412500");
+        SensorReading decoded = SensorFrameCodec.decodeKeyframe(SensorFrameCodec.encodeKeyframe(reading, 1));
+        assertEquals("23.810300, 90.412500", decoded.gps);
+    }
+
+    @Test
+    public void corruptFrame_isRejectedAsMalformed() {
+        // Header, keyframe id 1, timestamp 1, an alert with a text code past the dictionary
+        byte[] frame = {SensorFrameCodec.VERSION, SensorFrameCodec.TYPE_KEYFRAME, 1, 1, 1 << SensorFrameCodec.FIELD_ALERT, 100};
+        try {
+            SensorFrameCodec.decodeKeyframe(frame);
+            fail("decoded a corrupt frame");
+        } catch (IllegalArgumentException expected) {
+            // Like every other malformed frame
+        }
+
+        Map<String, Object> node = new HashMap<>();
+        node.put("k", SensorFrameCodec.toBase64(frame));
+        assertNull(new SensorFrameDecoder().decode(node));
+    }
+
+    @Test
+    public void decoder_followsKeyframesAndDeltasFromTheEncoder() {
+        SensorFrameEncoder encoder = new SensorFrameEncoder(10);
+        SensorFrameDecoder decoder = new SensorFrameDecoder();
+        Map<String, Object> node = new HashMap<>();
+
+        for (int i = 0; i < 50; i++) {
+            SensorReading reading = reading(1716200000L + i, 30 - i * 0.1, 0.5 + i * 0.01, "23.8103,90.4125");
+            SensorFrameEncoder.Frame frame = encoder.encode(reading);
+            node.putAll(frame.toFirebaseUpdate()); // what a listener on sensor_frame would see
+
+            SensorReading decoded = decoder.decode(node);
+            assertEquals(reading.timestamp, decoded.timestamp);
+            assertEquals(reading.distance1, decoded.distance1, 0.05);
+            assertEquals(reading.mq8, decoded.mq8, 0.0005);
+        }
+        assertNull(decoder.decode(new HashMap<>()));
+    }
+
+    @Test
+    public void compactFrames_areAnOrderOfMagnitudeSmallerThanJson() {
+        SensorFrameEncoder encoder = new SensorFrameEncoder();
+        long jsonBytes = 0, frameBytes = 0;
+        int updates = 10_000;
+
+        for (int i = 0; i < updates; i++) {
+            Map<String, Object> payload = SensorTraffic.toValue(reading(1716200000L + i, 20.0 + (i % 50) * 0.1, 1.72, "23.8103,90.4125"));
+            jsonBytes += toJson(payload).length();
+
+            SensorFrameEncoder.Frame frame = encoder.encode(SensorReadingDecoder.decode(payload));
+            // On the wire only the child that changed is sent
+            frameBytes += SensorFrameCodec.toBase64(frame.isKeyframe() ? frame.keyframe : frame.delta).length();
+        }
+        assertTrue("JSON " + jsonBytes + " bytes, compact " + frameBytes + " bytes", jsonBytes >= 10 * frameBytes);
+    }
+
+    private static SensorReading reading(long timestamp, double distance1, double mq8, String gps) {
+        return new SensorReading.Builder()
+                .alert("Blockage").gps(gps).timestamp(timestamp).hasDetails(true)
+                .blockageType("Plastic").blockedChamber(2)
+                .distance1(distance1).distance2(48.0).mq8(mq8).temp(29.5).ir(1).flame(1)
+                .addWaterLevel(1f).addWaterLevel(0f).addWaterLevel(1f)
+                .build();
+    }
+
+    // Compact JSON as the Realtime Database serializes sensor_data today
+    private static String toJson(Object value) {
+        if (value instanceof Map) {
+            StringBuilder out = new StringBuilder("{");
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                if (out.length() > 1) out.append(',');
+                out.append('"').append(entry.getKey()).append("\":").append(toJson(entry.getValue()));
+            }
+            return out.append('}').toString();
+        }
+        if (value instanceof List) {
+            StringBuilder out = new StringBuilder("[");
+            for (Object item : (List<?>) value) {
+                if (out.length() > 1) out.append(',');
+                out.append(toJson(item));
+            }
+            return out.append(']').toString();
+        }
+        if (value instanceof String) return "\"" + value + "\"";
+        return String.valueOf(value);
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.smartdrainagesystem;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+public class SensorHistoryStoreTest {
+
+    private static final long START = 1_716_199_200_000L; // on an hour boundary
+    private static final long DAY = 24 * SensorHistoryStore.HOUR_MILLIS;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void queryRaw_returnsRangeAcrossSegments() throws IOException {
+        try (SensorHistoryStore store = open(folder.newFolder())) {
+            for (int i = 0; i < 1000; i++) {
+                store.append(START + i * 200L, i, 2 * i, 0.5f, 25f, 0.5f);
+            }
+
+            float[] sum = new float[1];
+            int visited = store.queryRaw(SensorHistoryStore.COLUMN_DISTANCE1, START + 200L * 100, START + 200L * 199,
+                    (time, value) -> sum[0] += value);
+
+            assertEquals(100, visited);
+            assertEquals((100 + 199) * 100 / 2f, sum[0], 0f);
+        }
+    }
+
+    @Test
+    public void rollups_trackMinMaxAvgPerBucket() throws IOException {
+        try (SensorHistoryStore store = open(folder.newFolder())) {
+            // Two minutes of 1 Hz data, value = second within the minute
+            for (int i = 0; i < 120; i++) {
+                store.append(START + i * 1000L, i % 60, 0, 0, 0, 0);
+            }
+
+            int[] buckets = new int[1];
+            store.queryMinutes(SensorHistoryStore.COLUMN_DISTANCE1, START, START + 2 * SensorHistoryStore.MINUTE_MILLIS,
+                    (bucket, min, max, avg) -> {
+                        assertEquals(0f, min, 0f);
+                        assertEquals(59f, max, 0f);
+                        assertEquals(29.5f, avg, 0.001f);
+                        buckets[0]++;
+                    });
+            assertEquals(2, buckets[0]);
+        }
+    }
+
+    @Test
+    public void append_skipsRedeliveredAndOlderSamples() throws IOException {
+        try (SensorHistoryStore store = open(folder.newFolder())) {
+            assertTrue(store.append(START, 1, 1, 1, 1, 1));
+            assertFalse(store.append(START, 1, 1, 1, 1, 1));
+            assertTrue(store.append(START, 2, 1, 1, 1, 1)); // same second, new value
+            assertFalse(store.append(START - 1, 3, 1, 1, 1, 1));
+        }
+    }
+
+    @Test
+    public void reopen_keepsDataAndExtendsOpenBucket() throws IOException {
+        File dir = folder.newFolder();
+        try (SensorHistoryStore store = open(dir)) {
+            store.append(START, 10, 0, 0, 0, 0);
+        }
+        try (SensorHistoryStore store = open(dir)) {
+            assertEquals(START, store.lastTimestamp());
+            store.append(START + 1000, 20, 0, 0, 0, 0);
+
+            int[] buckets = new int[1];
+            store.queryMinutes(SensorHistoryStore.COLUMN_DISTANCE1, START, START + 1000, (bucket, min, max, avg) -> {
+                assertEquals(10f, min, 0f);
+                assertEquals(20f, max, 0f);
+                buckets[0]++;
+            });
+            assertEquals(1, buckets[0]);
+            assertEquals(2, store.queryRaw(SensorHistoryStore.COLUMN_DISTANCE1, START, START + 1000, (time, value) -> { }));
+        }
+    }
+
+    @Test
+    public void flush_keepsOpenRollupsWithoutClose() throws IOException {
+        File dir = folder.newFolder();
+        SensorHistoryStore crashed = open(dir);
+        crashed.append(START, 10, 0, 0, 0, 0);
+        crashed.flush();
+        crashed.append(START + 1000, 30, 0, 0, 0, 0);
+        crashed.flush(); // overwrites the open buckets in place
+        // The process dies here: no close()
+
+        try (SensorHistoryStore store = open(dir)) {
+            int[] buckets = new int[1];
+            SensorHistoryStore.RollupVisitor visitor = (bucket, min, max, avg) -> {
+                assertEquals(START, bucket);
+                assertEquals(10f, min, 0f);
+                assertEquals(30f, max, 0f);
+                assertEquals(20f, avg, 0.001f);
+                buckets[0]++;
+            };
+            store.queryMinutes(SensorHistoryStore.COLUMN_DISTANCE1, START, START + 1000, visitor);
+            store.queryHours(SensorHistoryStore.COLUMN_DISTANCE1, START, START + 1000, visitor);
+            assertEquals(2, buckets[0]);
+        }
+    }
+
+    @Test
+    public void interruptedCaller_leavesTheStoreUsable() throws IOException {
+        try (SensorHistoryStore store = open(folder.newFolder())) {
+            for (int i = 0; i < 180; i++) {
+                store.append(START + i * 1000L, i, 0, 0, 0, 0);
+            }
+
+            // As when an executor is shut down with shutdownNow() mid-task
+            Thread.currentThread().interrupt();
+            try {
+                store.append(START + 180_000, 180, 0, 0, 0, 0);
+                store.queryMinutes(SensorHistoryStore.COLUMN_DISTANCE1, START, START + DAY, (bucket, min, max, avg) -> { });
+                store.flush();
+                assertTrue("the interrupt is left for the caller", Thread.currentThread().isInterrupted());
+            } finally {
+                Thread.interrupted();
+            }
+
+            // Other threads share the store, so it must keep working afterwards
+            store.append(START + 181_000, 181, 0, 0, 0, 0);
+            int[] buckets = new int[1];
+            store.queryMinutes(SensorHistoryStore.COLUMN_DISTANCE1, START, START + DAY, (bucket, min, max, avg) -> buckets[0]++);
+            assertEquals(4, buckets[0]);
+            store.flush();
+        }
+    }
+
+    @Test
+    public void compaction_dropsRawDataPastRetention() throws IOException {
+        try (SensorHistoryStore store = open(folder.newFolder())) {
+            // 10 days at one sample per minute, small segments so several roll over
+            for (long t = 0; t < 10 * DAY; t += SensorHistoryStore.MINUTE_MILLIS) {
+                store.append(START + t, 1, 1, 1, 1, 1);
+            }
+
+            long firstRaw = store.firstTimestamp();
+            assertTrue("raw data older than the 2 day retention should be gone", firstRaw >= START + 7 * DAY);
+            // Hourly rollups outlive the raw data
+            assertTrue(store.queryHours(SensorHistoryStore.COLUMN_DISTANCE1, START, START + DAY, (b, min, max, avg) -> { }) > 0);
+        }
+    }
+
+    @Test
+    public void queryRaw_last24hOfAMonthVisitsOneDay() throws IOException {
+        try (SensorHistoryStore store = SensorHistoryStore.open(folder.newFolder())) {
+            // ~30 days at 1 Hz, then the "last 24h" query the dashboard issues
+            long end = START + 30 * DAY;
+            for (long t = START; t < end; t += 1000) {
+                store.append(t, (t % 997) / 10f, 0, 0, 0, 0);
+            }
+
+            double[] sum = new double[1];
+            int visited = store.queryRaw(SensorHistoryStore.COLUMN_DISTANCE1, end - DAY, end, (time, value) -> sum[0] += value);
+            assertEquals(DAY / 1000, visited);
+            assertTrue(sum[0] > 0);
+        }
+    }
+
+    private static SensorHistoryStore open(File dir) throws IOException {
+        return SensorHistoryStore.open(dir, 1024, 2 * DAY, 5 * DAY, 365 * DAY);
+    }
+}
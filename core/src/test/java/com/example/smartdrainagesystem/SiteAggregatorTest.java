@@ -0,0 +1,152 @@
+package com.example.smartdrainagesystem;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class SiteAggregatorTest {
+
+    private static final long START_SECONDS = 1716200040L; // on a minute boundary
+
+    private final FakeSensorDatabase database = new FakeSensorDatabase();
+    private final List<String> writtenPaths = new ArrayList<>();
+    private final SiteAggregator aggregator = new SiteAggregator((path, children) -> {
+        writtenPaths.add(path);
+        database.updateChildren(path, children);
+    });
+
+    @Test
+    public void summary_isWrittenOnlyWhenAChildChanges() {
+        aggregator.onReading("a", reading(START_SECONDS, "None", 30.2, 0.4f));
+        aggregator.onReading("a", reading(START_SECONDS + 1, "None", 30.4, 0.4f)); // same whole cm
+        aggregator.onReading("a", reading(START_SECONDS + 2, "None", 31.0, 0.4f));
+
+        assertEquals(2, aggregator.summaryWrites());
+        SiteSummary summary = SiteSummary.fromValue("a", database.getValue(SiteAggregator.summaryPath("a")));
+        assertEquals(31, summary.closestDistanceCm);
+        assertEquals(40, summary.fillPercent);
+        assertEquals(START_SECONDS + 2, summary.timestamp);
+        assertEquals("a", summary.name);
+    }
+
+    @Test
+    public void unchangedSite_sendsATimestampHeartbeat() {
+        for (int i = 0; i <= SiteAggregator.HEARTBEAT_SECONDS; i++) {
+            aggregator.onReading("a", reading(START_SECONDS + i, "None", 30, 0.4f));
+        }
+        assertEquals(2, aggregator.summaryWrites());
+        SiteSummary summary = SiteSummary.fromValue("a", database.getValue(SiteAggregator.summaryPath("a")));
+        assertEquals(START_SECONDS + SiteAggregator.HEARTBEAT_SECONDS, summary.timestamp);
+    }
+
+    @Test
+    public void alertTransitions_areLoggedWithTheirStartTime() {
+        aggregator.onReading("a", reading(START_SECONDS, "None", 30, 0.4f));
+        aggregator.onReading("a", reading(START_SECONDS + 5, "Gas", 30, 0.4f));
+        aggregator.onReading("a", reading(START_SECONDS + 6, "Gas", 30, 0.4f));
+
+        SiteSummary raised = SiteSummary.fromValue("a", database.getValue(SiteAggregator.summaryPath("a")));
+        assertEquals(START_SECONDS + 5, raised.alertSince);
+        assertFalse(raised.hasWarning(SiteSummary.WARNING_METHANE)); // still debouncing
+
+        aggregator.onReading("a", reading(START_SECONDS + 8, "Gas", 30, 0.4f));
+        raised = SiteSummary.fromValue("a", database.getValue(SiteAggregator.summaryPath("a")));
+        assertTrue(raised.hasWarning(SiteSummary.WARNING_METHANE));
+        Map<?, ?> events = (Map<?, ?>) database.getValue(SiteAggregator.alertEventsPath("a"));
+        assertEquals("raised", events.get((START_SECONDS + 8) + "_methane"));
+
+        aggregator.onReading("a", reading(START_SECONDS + 9, "None", 30, 0.4f));
+        Map<?, ?> log = (Map<?, ?>) database.getValue(SiteAggregator.alertLogPath("a"));
+        assertEquals(2, log.size());
+        assertEquals("Gas", log.get(Long.toString(START_SECONDS + 5)));
+        assertEquals("None", log.get(Long.toString(START_SECONDS + 9)));
+        assertEquals(0, SiteSummary.fromValue("a", database.getValue(SiteAggregator.summaryPath("a"))).alertSince);
+    }
+
+    @Test
+    public void staleAndPartialReadings_keepTheLastDetails() {
+        aggregator.onReading("a", reading(START_SECONDS + 10, "None", 30, 0.4f));
+        aggregator.onReading("a", reading(START_SECONDS + 9, "Gas", 2, 1f)); // older, e.g. redelivered
+        assertEquals(0, aggregator.alertTransitions());
+
+        // Alert-only update from a frame gateway
+        aggregator.onReading("a", new SensorReading.Builder().alert("Flame").timestamp(START_SECONDS + 11).build());
+        SiteSummary summary = SiteSummary.fromValue("a", database.getValue(SiteAggregator.summaryPath("a")));
+        assertEquals("Flame", summary.alert);
+        assertEquals(30, summary.closestDistanceCm);
+        assertEquals(40, summary.fillPercent);
+    }
+
+    @Test
+    public void siteIndex_isWrittenOnPositionAndFlagChangesOnly() {
+        SensorReading.Builder clear = new SensorReading.Builder().alert("None").gps("0,0").timestamp(START_SECONDS);
+        aggregator.onReading("a", clear.build());
+        assertNull(database.getValue(SiteAggregator.siteIndexPath("a"))); // no fix yet
+
+        aggregator.onReading("a", clear.gps("12.9716,77.5946").timestamp(START_SECONDS + 1).build());
+        aggregator.onReading("a", clear.timestamp(START_SECONDS + 2).build());
+        aggregator.onReading("a", new SensorReading.Builder().alert("Blockage").gps("12.9716,77.5946")
+                .timestamp(START_SECONDS + 3).build());
+
+        assertEquals(2, aggregator.siteIndexWrites());
+        Map<?, ?> entry = (Map<?, ?>) database.getValue(SiteAggregator.siteIndexPath("a"));
+        assertEquals(12_971_600L, entry.get("y"));
+        assertEquals(77_594_600L, entry.get("x"));
+        assertEquals((long) (SiteIndex.FLAG_BLOCKED | SiteIndex.FLAG_ALERTING), entry.get("k"));
+    }
+
+    @Test
+    public void rollups_coverEachFinishedMinute() {
+        for (int i = 0; i < 120; i++) {
+            aggregator.onReading("a", reading(START_SECONDS + i, "None", 40 - i / 10.0, i < 60 ? 0.2f : 0.7f));
+        }
+        assertEquals(1, aggregator.rollupWrites());
+        aggregator.flush();
+        assertEquals(2, aggregator.rollupWrites());
+
+        Map<?, ?> rollups = (Map<?, ?>) database.getValue(SiteAggregator.rollupPath("a"));
+        Map<?, ?> first = (Map<?, ?>) rollups.get(Long.toString(START_SECONDS));
+        assertEquals(20L, first.get("f"));
+        assertEquals(34L, first.get("d")); // 40 - 5.9
+        Map<?, ?> second = (Map<?, ?>) rollups.get(Long.toString(START_SECONDS + 60));
+        assertEquals(70L, second.get("f"));
+    }
+
+    @Test
+    public void replayedFleet_writesFarLessThanItReads() {
+        List<SensorReading> recording = SensorTraffic.synthesize(600, START_SECONDS, 3);
+        TrafficReplayer replayer = new TrafficReplayer(database, recording, 20, 10, false);
+        for (int site = 0; site < replayer.siteCount(); site++) {
+            String siteId = TrafficReplayer.siteId(site);
+            database.addValueListener(replayer.path(site),
+                    (value, writtenAtNanos) -> aggregator.onReading(siteId, SensorReadingDecoder.decode(value)));
+        }
+        for (int i = 0; i < 600; i++) replayer.step();
+
+        assertEquals(12_000, aggregator.readings());
+        assertTrue("summary writes: " + aggregator.summaryWrites(), aggregator.summaryWrites() < aggregator.readings() / 3);
+        for (int site = 0; site < replayer.siteCount(); site++) {
+            assertNotNull(database.getValue(SiteAggregator.summaryPath(TrafficReplayer.siteId(site))));
+        }
+    }
+
+    private static SensorReading reading(long timestamp, String alert, double distance, float fill) {
+        return new SensorReading.Builder()
+                .alert(alert)
+                .timestamp(timestamp)
+                .hasDetails(true)
+                .blockedChamber(0)
+                .distance1(distance)
+                .distance2(distance + 2)
+                .mq8("Gas".equals(alert) ? 2.1 : 0.4)
+                .ir(1)
+                .flame(1)
+                .addWaterLevel(fill)
+                .addWaterLevel(fill / 2)
+                .build();
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.smartdrainagesystem;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class SiteIndexTest {
+
+    // Bengaluru, roughly 30 km across
+    private static final int CITY_LAT = 12_971_600;
+    private static final int CITY_LON = 77_594_600;
+    private static final int CITY_SPAN = 300_000;
+
+    @Test
+    public void parseLocation_acceptsFirmwareTextOnly() {
+        long location = SiteIndex.parseLocation("12.9716,77.5946");
+        assertEquals(12_971_600, SiteIndex.latE6(location));
+        assertEquals(77_594_600, SiteIndex.lonE6(location));
+
+        location = SiteIndex.parseLocation(" -33.8688197 , 151.2092955 ");
+        assertEquals(-33_868_820, SiteIndex.latE6(location));
+        assertEquals(151_209_296, SiteIndex.lonE6(location));
+
+        assertEquals(SiteIndex.NO_LOCATION, SiteIndex.parseLocation("0,0"));
+        assertEquals(SiteIndex.NO_LOCATION, SiteIndex.parseLocation("91,10"));
+        assertEquals(SiteIndex.NO_LOCATION, SiteIndex.parseLocation("12.9716"));
+        assertEquals(SiteIndex.NO_LOCATION, SiteIndex.parseLocation("N12.97,E77.59"));
+        assertEquals(SiteIndex.NO_LOCATION, SiteIndex.parseLocation(""));
+    }
+
+    @Test
+    public void queries_matchBruteForce() {
+        Random random = new Random(7);
+        SiteIndex index = new SiteIndex();
+        int sites = 5000;
+        for (int i = 0; i < sites; i++) {
+            int slot = index.put("site-" + i, CITY_LAT + random.nextInt(CITY_SPAN), CITY_LON + random.nextInt(CITY_SPAN));
+            index.setFlags(slot, random.nextInt(10) == 0 ? SiteIndex.FLAG_BLOCKED : 0);
+        }
+        // Moves and removals go through the same rebuild
+        index.put("site-1", CITY_LAT, CITY_LON);
+        index.remove("site-2");
+
+        for (int q = 0; q < 50; q++) {
+            int south = CITY_LAT + random.nextInt(CITY_SPAN), west = CITY_LON + random.nextInt(CITY_SPAN);
+            int north = south + random.nextInt(CITY_SPAN / 4), east = west + random.nextInt(CITY_SPAN / 4);
+            boolean[] seen = new boolean[sites];
+            int visited = index.queryViewport(south, west, north, east, slot -> seen[slot] = true);
+            int expected = 0;
+            for (int slot = 0; slot < sites; slot++) {
+                boolean inside = index.siteId(slot) != null && index.latE6(slot) >= south && index.latE6(slot) <= north
+                        && index.lonE6(slot) >= west && index.lonE6(slot) <= east;
+                assertEquals(inside, seen[slot]);
+                if (inside) expected++;
+            }
+            assertEquals(expected, visited);
+
+            int lat = CITY_LAT + random.nextInt(CITY_SPAN), lon = CITY_LON + random.nextInt(CITY_SPAN);
+            int[] nearest = new int[5];
+            assertEquals(5, index.nearest(lat, lon, 5, SiteIndex.FLAG_BLOCKED, nearest));
+            assertArrayEquals(bruteForceNearest(index, sites, lat, lon, 5), nearest);
+        }
+    }
+
+    @Test
+    public void viewportAcrossTheAntimeridian_findsBothSides() {
+        SiteIndex index = new SiteIndex();
+        index.put("fiji", -17_713_400, 178_065_000);
+        index.put("samoa", -13_759_000, -172_104_600);
+        index.put("sydney", -33_868_800, 151_209_300);
+
+        int[] count = {0};
+        assertEquals(2, index.queryViewport(-20_000_000, 170_000_000, -10_000_000, -170_000_000, slot -> count[0]++));
+        assertEquals(2, count[0]);
+    }
+
+    @Test
+    public void clusters_boundMarkersAndKeepFlags() {
+        Random random = new Random(3);
+        SiteIndex index = new SiteIndex();
+        for (int i = 0; i < 10_000; i++) {
+            index.put("site-" + i, CITY_LAT + random.nextInt(CITY_SPAN), CITY_LON + random.nextInt(CITY_SPAN));
+        }
+        index.setFlags(index.slot("site-42"), SiteIndex.FLAG_BLOCKED);
+
+        MarkerClusterer clusterer = new MarkerClusterer();
+        int clusters = clusterer.cluster(index, CITY_LAT, CITY_LON, CITY_LAT + CITY_SPAN, CITY_LON + CITY_SPAN, 8, 12);
+
+        assertTrue(clusters <= 8 * 12);
+        int total = 0, blocked = 0;
+        for (int c = 0; c < clusters; c++) {
+            total += clusterer.size(c);
+            if ((clusterer.flags(c) & SiteIndex.FLAG_BLOCKED) != 0) blocked++;
+            assertTrue(clusterer.latE6(c) >= CITY_LAT && clusterer.latE6(c) <= CITY_LAT + CITY_SPAN);
+            assertTrue(clusterer.lonE6(c) >= CITY_LON && clusterer.lonE6(c) <= CITY_LON + CITY_SPAN);
+        }
+        assertEquals(10_000, total);
+        assertEquals(1, blocked);
+    }
+
+    private static int[] bruteForceNearest(SiteIndex index, int sites, int lat, int lon, int n) {
+        double scale = Math.cos(Math.toRadians(lat / 1e6));
+        double[] distance = new double[sites];
+        for (int slot = 0; slot < sites; slot++) {
+            boolean candidate = index.siteId(slot) != null && (index.flags(slot) & SiteIndex.FLAG_BLOCKED) != 0;
+            double dLat = index.latE6(slot) - lat, dLon = (index.lonE6(slot) - lon) * scale;
+            distance[slot] = candidate ? dLat * dLat + dLon * dLon : Double.MAX_VALUE;
+        }
+        int[] nearest = new int[n];
+        for (int i = 0; i < n; i++) {
+            int best = 0;
+            for (int slot = 1; slot < sites; slot++) if (distance[slot] < distance[best]) best = slot;
+            nearest[i] = best;
+            distance[best] = Double.POSITIVE_INFINITY;
+        }
+        return nearest;
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.smartdrainagesystem;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class TrafficReplayerTest {
+
+    private static final long START_SECONDS = 1716200000L;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void step_writesEverySiteWithIncreasingTimestampsAcrossWraps() {
+        FakeSensorDatabase database = new FakeSensorDatabase();
+        List<SensorReading> recording = SensorTraffic.synthesize(20, START_SECONDS, 1);
+        TrafficReplayer replayer = new TrafficReplayer(database, recording, 10, 100, false);
+
+        long[] lastTimestamps = new long[10];
+        int[] received = new int[10];
+        for (int site = 0; site < 10; site++) {
+            int index = site;
+            database.addValueListener(replayer.path(site), (value, writtenAtNanos) -> {
+                SensorReading reading = SensorReadingDecoder.decode(value);
+                assertTrue(reading.timestamp > lastTimestamps[index]);
+                lastTimestamps[index] = reading.timestamp;
+                received[index]++;
+            });
+        }
+        for (int i = 0; i < 50; i++) replayer.step();
+
+        for (int site = 0; site < 10; site++) assertEquals(50, received[site]);
+        assertEquals(500, replayer.updatesWritten());
+        assertEquals(500, database.deliveryCount());
+        assertEquals(10, database.listenerCount());
+    }
+
+    @Test
+    public void compactFrames_decodeToTheSameReadingsAsJson() {
+        List<SensorReading> recording = SensorTraffic.synthesize(300, START_SECONDS, 2);
+        FakeSensorDatabase json = new FakeSensorDatabase();
+        FakeSensorDatabase compact = new FakeSensorDatabase();
+        TrafficReplayer jsonReplayer = new TrafficReplayer(json, recording, 3, 10, false);
+        TrafficReplayer compactReplayer = new TrafficReplayer(compact, recording, 3, 10, true);
+        SensorFrameDecoder decoder = new SensorFrameDecoder();
+
+        for (int i = 0; i < 300; i++) {
+            jsonReplayer.step();
+            compactReplayer.step();
+            SensorReading expected = SensorReadingDecoder.decode(json.getValue(jsonReplayer.path(2)));
+            SensorReading actual = decoder.decode(compact.getValue(compactReplayer.path(2)));
+            assertEquals(expected.timestamp, actual.timestamp);
+            assertEquals(expected.alert, actual.alert);
+            assertEquals(expected.distance1, actual.distance1, 0.05);
+            assertEquals(expected.mq8, actual.mq8, 0.0005);
+            assertEquals(expected.chamberCount(), actual.chamberCount());
+        }
+    }
+
+    @Test
+    public void recording_roundTripsThroughAFile() throws Exception {
+        List<SensorReading> recording = SensorTraffic.synthesize(500, START_SECONDS, 3);
+        File file = folder.newFile("traffic.frames");
+
+        SensorTraffic.write(recording, file.toPath());
+        List<SensorReading> read = SensorTraffic.read(file.toPath());
+
+        assertEquals(recording.size(), read.size());
+        for (int i = 0; i < recording.size(); i++) {
+            assertEquals(recording.get(i).timestamp, read.get(i).timestamp);
+            assertEquals(recording.get(i).gps, read.get(i).gps);
+            assertEquals(recording.get(i).distance2, read.get(i).distance2, 0.05);
+            assertEquals(recording.get(i).blockedChamber, read.get(i).blockedChamber);
+        }
+    }
+
+    @Test
+    public void updateChildren_mergesServoControlAndNotifies() {
+        FakeSensorDatabase database = new FakeSensorDatabase();
+        String path = FakeSensorDatabase.servoControlPath("site-0001");
+        List<Object> seen = new ArrayList<>();
+        database.addValueListener(path, (value, writtenAtNanos) -> seen.add(value));
+
+        Map<String, Object> first = new HashMap<>();
+        first.put("servo_on", true);
+        first.put("auto_mode", false);
+        database.updateChildren(path, first);
+        database.updateChildren(path, new HashMap<>(Map.of("servo_on", false)));
+
+        Map<?, ?> value = (Map<?, ?>) database.getValue(path);
+        assertEquals(false, value.get("servo_on"));
+        assertEquals(false, value.get("auto_mode"));
+        assertEquals(2, seen.size());
+
+        // A late listener gets the current value right away
+        List<Object> late = new ArrayList<>();
+        database.addValueListener(path, (v, writtenAtNanos) -> late.add(v));
+        assertEquals(1, late.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsRatesOutsideTheSupportedRange() {
+        new TrafficReplayer(new FakeSensorDatabase(), SensorTraffic.synthesize(10, START_SECONDS, 4), 1, 250, false);
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.smartdrainagesystem.macrobenchmark;
+
+import androidx.benchmark.macro.junit4.BaselineProfileRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.uiautomator.By;
+import androidx.test.uiautomator.Until;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import kotlin.Unit;
+
+/**
+ * Records the classes and methods a cold start into the dashboard touches. Needs a rooted device
+ * or an emulator running a userdebug image (API 33+ works unrooted):
+ *   ./gradlew :macrobenchmark:connectedBenchmarkAndroidTest
+ *       -Pandroid.testInstrumentationRunnerArguments.class=com.example.smartdrainagesystem.macrobenchmark.BaselineProfileGenerator
+ * then merge the generated *-baseline-prof.txt into app/src/main/baseline-prof.txt.
+ */
+@RunWith(AndroidJUnit4.class)
+public class BaselineProfileGenerator {
+
+    private static final String PACKAGE = "com.example.smartdrainagesystem";
+
+    @Rule
+    public BaselineProfileRule baselineProfileRule = new BaselineProfileRule();
+
+    @Test
+    public void startup() {
+        baselineProfileRule.collect(PACKAGE, 15, 3, null, true, false,
+                rule -> rule.contains("com/example/smartdrainagesystem/"), // app code only; libraries ship their own
+                scope -> {
+                    scope.pressHome();
+                    scope.startActivityAndWait();
+                    // The lazily inflated controls are part of every start
+                    scope.getDevice().wait(Until.hasObject(By.res(PACKAGE, "switchAutoMode")), 5_000);
+                    return Unit.INSTANCE;
+                });
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.smartdrainagesystem.macrobenchmark;
+
+import androidx.benchmark.macro.BaselineProfileMode;
+import androidx.benchmark.macro.CompilationMode;
+import androidx.benchmark.macro.StartupMode;
+import androidx.benchmark.macro.StartupTimingMetric;
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+import androidx.test.uiautomator.By;
+import androidx.test.uiautomator.UiDevice;
+import androidx.test.uiautomator.Until;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.util.Collections;
+
+import kotlin.Unit;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Cold start of the dashboard. timeToFullDisplayMs is when MainActivity called reportFullyDrawn(),
+ * i.e. when the first meaningful dashboard was drawn: the saved last-known state, or the first live
+ * snapshot when nothing was saved yet. The target on a mid-range device is under 300 ms.
+ *
+ * The compilation variants show what the baseline profile saves: None runs everything interpreted
+ * or JIT-compiled, as right after a sideloaded install; Partial installs only the profile, as Play
+ * does. The device needs network once, during setUp, so the app has live state to save.
+ */
+@RunWith(AndroidJUnit4.class)
+public class StartupBenchmark {
+
+    private static final String PACKAGE = "com.example.smartdrainagesystem";
+    private static final long LIVE_DATA_TIMEOUT_MILLIS = 30_000;
+
+    @Rule
+    public MacrobenchmarkRule benchmarkRule = new MacrobenchmarkRule();
+
+    @Before
+    public void saveLiveState() throws IOException {
+        UiDevice device = UiDevice.getInstance(InstrumentationRegistry.getInstrumentation());
+        device.executeShellCommand("am start -W -n " + PACKAGE + "/.MainActivity");
+        // The timestamp line shows a date once a live snapshot was rendered, and that snapshot is saved
+        boolean live = device.wait(Until.hasObject(By.res(PACKAGE, "tvTimestamp").textContains(",")), LIVE_DATA_TIMEOUT_MILLIS);
+        assertTrue("No live data within " + LIVE_DATA_TIMEOUT_MILLIS + " ms", live);
+        device.pressHome(); // onStop saves the state again
+    }
+
+    @Test
+    public void coldStartWithSavedState() {
+        measureColdStart(CompilationMode.DEFAULT);
+    }
+
+    @Test
+    public void coldStartWithoutCompilation() {
+        measureColdStart(new CompilationMode.None());
+    }
+
+    @Test
+    public void coldStartWithBaselineProfile() {
+        measureColdStart(new CompilationMode.Partial(BaselineProfileMode.Require, 0));
+    }
+
+    private void measureColdStart(CompilationMode compilationMode) {
+        benchmarkRule.measureRepeated(PACKAGE, Collections.singletonList(new StartupTimingMetric()),
+                compilationMode, StartupMode.COLD, 10,
+                scope -> {
+                    scope.pressHome();
+                    return Unit.INSTANCE;
+                },
+                scope -> {
+                    scope.startActivityAndWait();
+                    return Unit.INSTANCE;
+                });
+    }
+}